@@ -233,6 +233,8 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-graphql")
     implementation("org.springframework.boot:spring-boot-starter-hateoas")
     implementation("org.springframework.boot:spring-boot-starter-validation")
+    // DataSource mit HikariCP fuer JdbcAngestellterRepository beim Profil "jdbc"
+    implementation("org.springframework.boot:spring-boot-starter-jdbc")
     // Auskommentieren fuer Beispiel 1
     //implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     implementation("org.springframework.boot:spring-boot-starter-security")
@@ -280,6 +282,8 @@ dependencies {
     //testImplementation("org.springframework.security:spring-security-test")
     // Mocking fuer record
     testImplementation("org.mockito:mockito-inline")
+    // Ersatz fuer PostgreSQL beim Test von JdbcAngestellterRepository
+    testRuntimeOnly("com.h2database:h2")
 
     // https://github.com/tbroyer/gradle-errorprone-plugin
     errorprone(libs.errorprone)
@@ -326,6 +330,9 @@ tasks.compileJava {
         add("-Xlint:unchecked")
         add("--enable-preview")
         //add("-Xlint:preview")
+        // Vector API fuer den spaltenweisen Scan im Repository
+        add("--add-modules")
+        add("jdk.incubator.vector")
 
         // https://github.com/tbroyer/gradle-errorprone-plugin#jdk-16-support
         add("--add-opens")
@@ -350,6 +357,8 @@ tasks.compileTestJava {
     with(options.compilerArgs) {
         add("-Xlint:unchecked")
         add("--enable-preview")
+        add("--add-modules")
+        add("jdk.incubator.vector")
     }
     // Spring HATEOAS: _embedded.List
     options.errorprone.errorproneArgs.add("-Xep:VariableNameSameAsType:OFF")
@@ -397,7 +406,7 @@ tasks.named<BootBuildImage>("bootBuildImage") {
             "BPL_JVM_THREAD_COUNT" to "20",
             // https://docs.spring.io/spring-boot/docs/current/gradle-plugin/reference/htmlsingle/#build-image.examples.runtime-jvm-configuration
             "BPE_DELIM_JAVA_TOOL_OPTIONS" to " ",
-            "BPE_APPEND_JAVA_TOOL_OPTIONS" to "--enable-preview",
+            "BPE_APPEND_JAVA_TOOL_OPTIONS" to "--enable-preview --add-modules jdk.incubator.vector",
             // https://github.com/paketo-buildpacks/spring-boot/blob/main/buildpack.toml
             //"BP_SPRING_CLOUD_BINDINGS_DISABLED" to "true",
             //"BPL_SPRING_CLOUD_BINDINGS_DISABLED" to "true",
@@ -444,7 +453,7 @@ tasks.named<BootBuildImage>("bootBuildImage") {
 //}
 
 tasks.named<BootRun>("bootRun") {
-    jvmArgs("--enable-preview")
+    jvmArgs("--enable-preview", "--add-modules", "jdk.incubator.vector")
 
     // "System Properties", z.B. fuer Spring Properties oder fuer logback
     // https://docs.spring.io/spring-boot/docs/current/reference/html/application-properties.html#appendix.application-properties
@@ -551,7 +560,7 @@ tasks.test {
         systemProperty("$persistenceProp.sql-load-script-source", "$db/insert.sql")
     }
 
-    jvmArgs("--enable-preview")
+    jvmArgs("--enable-preview", "--add-modules", "jdk.incubator.vector")
 
     // https://docs.gradle.org/current/userguide/java_testing.html#sec:debugging_java_tests
     // https://www.jetbrains.com/help/idea/run-debug-configuration-junit.html
@@ -712,6 +721,7 @@ tasks.javadoc {
         // https://stackoverflow.com/questions/59485464/javadoc-and-enable-preview
         addBooleanOption("-enable-preview", true)
         addStringOption("-release", "19")
+        addStringOption("-add-modules", "jdk.incubator.vector")
     }
 }
 
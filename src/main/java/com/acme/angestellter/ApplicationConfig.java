@@ -16,10 +16,26 @@
  */
 package com.acme.angestellter;
 
+import com.acme.angestellter.repository.CacheProperties;
+import com.acme.angestellter.repository.JdbcProperties;
+import com.acme.angestellter.repository.SpeicherProperties;
+import com.acme.angestellter.repository.WalProperties;
+import com.acme.angestellter.repository.WriteBehindProperties;
+import com.acme.angestellter.rest.AenderungenProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
 /**
  * Konfigurationsklasse für die Anwendung bzw. den Microservice.
  *
  * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
  */
-final class ApplicationConfig implements ThreadConfig, SecurityConfig {
+@EnableConfigurationProperties({
+    AenderungenProperties.class,
+    CacheProperties.class,
+    JdbcProperties.class,
+    SpeicherProperties.class,
+    WalProperties.class,
+    WriteBehindProperties.class
+})
+final class ApplicationConfig implements ThreadConfig, SecurityConfig, JdbcConfig {
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter;
+
+import com.acme.angestellter.repository.JdbcProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Konfiguration für den Pool mit den Verbindungen zur relationalen DB beim Profil "jdbc". Die Autokonfiguration von
+ * Spring Boot für eine DataSource ist in {@link Application} abgeschaltet, damit die Anwendung ohne das Profil "jdbc"
+ * keine DB benötigt.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+interface JdbcConfig {
+    /**
+     * Bean-Definition für den Pool von HikariCP mit der Konfiguration aus "app.jdbc".
+     *
+     * @param properties Die Konfiguration für die DB
+     * @return Objekt von HikariDataSource, das beim Herunterfahren geschlossen wird
+     */
+    @Bean(destroyMethod = "close")
+    @Profile("jdbc")
+    default HikariDataSource dataSource(final JdbcProperties properties) {
+        return new HikariDataSource(properties.hikariConfig());
+    }
+}
@@ -60,12 +60,17 @@ interface SecurityConfig {
                 authorize
                     // https://spring.io/blog/2020/06/30/url-matching-with-pathpattern-in-spring-mvc
                     // https://docs.spring.io/spring-security/reference/6.0.0-RC1/servlet/integrations/mvc.html
+                    // vor restPathAngestellterId, weil "/rest/*" auch "/rest/import" und "/rest/export" enthaelt
+                    .requestMatchers(restPath + "/import", restPath + "/import/*").hasRole(ADMIN.name())
+                    .requestMatchers(GET, restPath + "/export").hasRole(ADMIN.name())
+                    .requestMatchers(GET, restPath + "/changes").hasRole(ADMIN.name())
                     .requestMatchers(GET, restPath).hasRole(ADMIN.name())
                     .requestMatchers(GET, restPath + "/nachname/*").hasRole(ADMIN.name())
                     .requestMatchers(GET, restPathAngestellterId).hasAnyRole(ADMIN.name(), ANGESTELLTER.name())
                     .requestMatchers(PUT, restPathAngestellterId).hasRole(ADMIN.name())
                     .requestMatchers(PATCH, restPathAngestellterId).hasRole(ADMIN.name())
                     .requestMatchers(DELETE, restPathAngestellterId).hasRole(ADMIN.name())
+                    .requestMatchers(POST, restPath + "/batch").hasRole(ADMIN.name())
 
                     .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
                     .requestMatchers(EndpointRequest.toAnyEndpoint()).hasRole(ACTUATOR.name())
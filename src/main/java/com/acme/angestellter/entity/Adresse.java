@@ -21,17 +21,16 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import lombok.Builder;
 import lombok.Getter;
-import lombok.Setter;
 import lombok.ToString;
 
 /**
- * Adressdaten für die Anwendungslogik und zum Abspeichern in der DB.
+ * Adressdaten für die Anwendungslogik und zum Abspeichern in der DB. Die Objekte sind unveränderlich, damit das
+ * Repository eine Instanz für alle Angestellten mit derselben Postleitzahl und demselben Ort verwenden kann.
  *
  *  @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
  */
 @Builder
 @Getter
-@Setter
 @ToString
 @SuppressWarnings({"JavadocDeclaration", "RequireEmptyLineBeforeBlockTagGroup"})
 public class Adresse {
@@ -42,18 +41,16 @@ public class Adresse {
 
     /**
      * Die Postleitzahl für die Adresse.
-     * @param plz Die Postleitzahl als String
      * @return Die Postleitzahl als String
      */
     @NotNull
     @Pattern(regexp = PLZ_PATTERN)
-    private String plz;
+    private final String plz;
 
     /**
      * Der Ort für die Adresse.
-     * @param ort Der Ort als String
      * @return Der Ort als String
      */
     @NotBlank
-    private String ort;
+    private final String ort;
 }
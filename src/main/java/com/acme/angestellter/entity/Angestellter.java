@@ -18,7 +18,7 @@ import java.util.UUID;
  *<img src="../../../../../asciidoc/Angestellter.svg" alt="Klassendiagramm">
  */
 @NotNull
-@Builder
+@Builder(toBuilder = true)
 @EqualsAndHashCode(onlyExplicitlyIncluded = true, callSuper = false)
 @Getter
 @Setter
@@ -98,4 +98,13 @@ public class Angestellter {
     @Valid
     @ToString.Exclude
     private Adresse adresse;
+
+    /**
+     * Den Angestellten kopieren, wobei die unveränderliche Adresse gemeinsam verwendet wird.
+     *
+     * @return Die Kopie
+     */
+    public Angestellter kopie() {
+        return toBuilder().build();
+    }
 }
@@ -17,6 +17,9 @@
 package com.acme.angestellter.entity;
 
 import com.fasterxml.jackson.annotation.JsonValue;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Enum für Familienstand. Dazu kann auf der Clientseite z.B. ein Dropdown-Menü realisiert werden.
@@ -53,6 +56,18 @@ public enum FamilienstandType {
         this.value = value;
     }
 
+    /**
+     * Konvertierung eines Strings in einen Enum-Wert.
+     *
+     * @param value Der String, zu dem ein passender Enum-Wert ermittelt werden soll.
+     * @return Passender Enum-Wert oder leeres Optional.
+     */
+    public static Optional<FamilienstandType> of(final String value) {
+        return Stream.of(values())
+            .filter(familienstand -> Objects.equals(familienstand.value, value))
+            .findFirst();
+    }
+
     /**
     * Einen enum-Wert als String mit dem internen Wert ausgeben.
     * Dieser Wert wird durch Jackson in einem JSON-Datensatz verwendet.
@@ -17,6 +17,9 @@
 package com.acme.angestellter.entity;
 
 import com.fasterxml.jackson.annotation.JsonValue;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Enum für Geschlecht. Dazu können auf der Clientseite z.B. Radiobuttons realisiert werden.
@@ -47,6 +50,18 @@ public enum GeschlechtType {
         this.value = value;
     }
 
+    /**
+     * Konvertierung eines Strings in einen Enum-Wert.
+     *
+     * @param value Der String, zu dem ein passender Enum-Wert ermittelt werden soll.
+     * @return Passender Enum-Wert oder leeres Optional.
+     */
+    public static Optional<GeschlechtType> of(final String value) {
+        return Stream.of(values())
+            .filter(geschlecht -> Objects.equals(geschlecht.value, value))
+            .findFirst();
+    }
+
     /**
      * Einen enum-Wert als String mit dem internen Wert ausgeben.
      * Dieser Wert wird durch Jackson in einem JSON-Datensatz verwendet.
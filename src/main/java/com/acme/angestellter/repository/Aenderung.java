@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import java.util.UUID;
+import org.springframework.lang.Nullable;
+
+/**
+ * Eine festgeschriebene Schreiboperation im Repository für Change Data Capture. Der Angestellte wird beim Erstellen
+ * und beim Lesen kopiert, damit spätere Änderungen am Objekt im Repository oder bei einem Abonnenten den Stand der
+ * Änderung nicht verfälschen. Die Adresse ist unveränderlich und wird deshalb nicht kopiert.
+ *
+ * @param sequenz Fortlaufende Sequenznummer, die auch nach einem Neustart weiter aufsteigt
+ * @param typ Art der Schreiboperation
+ * @param id Die ID des betroffenen Angestellten
+ * @param angestellter Der neue bzw. aktualisierte Angestellte oder null beim Löschen
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+public record Aenderung(long sequenz, Typ typ, UUID id, @Nullable Angestellter angestellter) {
+    /**
+     * Konstruktor, der den Angestellten kopiert.
+     *
+     * @param sequenz Fortlaufende Sequenznummer
+     * @param typ Art der Schreiboperation
+     * @param id Die ID des betroffenen Angestellten
+     * @param angestellter Der neue bzw. aktualisierte Angestellte oder null beim Löschen
+     */
+    public Aenderung {
+        angestellter = kopie(angestellter);
+    }
+
+    /**
+     * Eine Kopie des neuen bzw. aktualisierten Angestellten.
+     *
+     * @return Die Kopie oder null beim Löschen
+     */
+    @Override
+    public @Nullable Angestellter angestellter() {
+        return kopie(angestellter);
+    }
+
+    /**
+     * Eine Änderung zu einem Eintrag im Write-Ahead-Log erstellen.
+     *
+     * @param sequenz Die Sequenznummer
+     * @param eintrag Der Eintrag
+     * @return Die Änderung
+     */
+    static Aenderung of(final long sequenz, final LogEintrag eintrag) {
+        return switch (eintrag) {
+            case LogEintrag.Create create ->
+                new Aenderung(sequenz, Typ.CREATE, create.angestellter().getId(), create.angestellter());
+            case LogEintrag.Update update ->
+                new Aenderung(sequenz, Typ.UPDATE, update.angestellter().getId(), update.angestellter());
+            case LogEintrag.Delete delete -> new Aenderung(sequenz, Typ.DELETE, delete.id(), null);
+        };
+    }
+
+    private static Angestellter kopie(final @Nullable Angestellter angestellter) {
+        return angestellter == null ? null : angestellter.kopie();
+    }
+
+    /**
+     * Art der Schreiboperation.
+     */
+    public enum Typ {
+        /**
+         * Ein neuer Angestellter.
+         */
+        CREATE,
+
+        /**
+         * Ein aktualisierter Angestellter.
+         */
+        UPDATE,
+
+        /**
+         * Ein gelöschter Angestellter.
+         */
+        DELETE
+    }
+}
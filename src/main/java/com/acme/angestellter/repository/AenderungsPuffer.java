@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ringpuffer nach dem Vorbild des LMAX Disruptor für die letzten {@link Aenderung}en im Repository. Es gibt genau
+ * einen Schreiber, weil die Änderungen mit der Schreibsperre des Repository angefügt werden, und beliebig viele Leser,
+ * die jeweils ihre eigene Sequenznummer verwalten und ohne Sperre lesen.
+ * <p>
+ * Eine angefügte Änderung wird erst nach dem Festschreiben im Write-Ahead-Log veröffentlicht. Bei parallelem Group
+ * Commit sind mit einer Sequenznummer auch alle kleineren festgeschrieben, deshalb wird nur die größte veröffentlichte
+ * Sequenznummer gespeichert. Anders als beim Disruptor wartet der Schreiber nicht auf langsame Leser, sondern
+ * überschreibt die ältesten Änderungen. Ein Leser erkennt das an der Sequenznummer im Slot und muss sich dann neu
+ * synchronisieren, z.B. durch Lesen aller Angestellten.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+public final class AenderungsPuffer {
+    /**
+     * Default für die Anzahl der Änderungen im Ringpuffer.
+     */
+    static final int KAPAZITAET = 1 << 16;
+
+    private final AtomicReferenceArray<Aenderung> slots;
+
+    private final int maske;
+
+    /**
+     * Sequenznummer der zuletzt angefügten Änderung, die nur mit der Schreibsperre des Repository verändert wird.
+     */
+    private long angefuegt;
+
+    private final AtomicLong veroeffentlicht = new AtomicLong();
+
+    private final AtomicInteger wartende = new AtomicInteger();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition neu = lock.newCondition();
+
+    /**
+     * Konstruktor mit der Kapazität, die auf eine Zweierpotenz aufgerundet wird.
+     *
+     * @param kapazitaet Maximale Anzahl der Änderungen im Ringpuffer
+     */
+    AenderungsPuffer(final int kapazitaet) {
+        final var groesse = Integer.highestOneBit(Math.max(kapazitaet - 1, 1)) << 1;
+        slots = new AtomicReferenceArray<>(groesse);
+        maske = groesse - 1;
+    }
+
+    /**
+     * Die beim Öffnen des Write-Ahead-Logs eingespielten Einträge als bereits veröffentlichte Änderungen übernehmen.
+     *
+     * @param nummer Die laufende Nummer des letzten eingespielten Eintrags
+     * @param eintraege Die zuletzt eingespielten Einträge in ihrer Reihenfolge, höchstens so viele wie die Kapazität
+     */
+    void einspielen(final long nummer, final List<LogEintrag> eintraege) {
+        var sequenz = nummer - eintraege.size();
+        for (final var eintrag : eintraege) {
+            sequenz++;
+            slots.set(index(sequenz), Aenderung.of(sequenz, eintrag));
+        }
+        angefuegt = nummer;
+        veroeffentlicht.set(nummer);
+    }
+
+    /**
+     * Die Sequenznummer für die nächste Änderung, falls sie nicht vom Write-Ahead-Log vergeben wird. Nur mit der
+     * Schreibsperre des Repository aufrufen.
+     *
+     * @return Die nächste Sequenznummer
+     */
+    long naechsteSequenz() {
+        return angefuegt + 1;
+    }
+
+    /**
+     * Eine Änderung anfügen, ohne sie schon zu veröffentlichen. Nur mit der Schreibsperre des Repository aufrufen.
+     *
+     * @param aenderung Die Änderung mit einer aufsteigenden Sequenznummer
+     */
+    void anfuegen(final Aenderung aenderung) {
+        slots.set(index(aenderung.sequenz()), aenderung);
+        angefuegt = aenderung.sequenz();
+    }
+
+    /**
+     * Die angefügten Änderungen bis einschließlich einer Sequenznummer für die Leser veröffentlichen.
+     *
+     * @param sequenz Die Sequenznummer einer festgeschriebenen Änderung
+     */
+    void veroeffentlichen(final long sequenz) {
+        veroeffentlicht.accumulateAndGet(sequenz, Math::max);
+        if (wartende.get() > 0) {
+            lock.lock();
+            try {
+                neu.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Die Sequenznummer der zuletzt veröffentlichten Änderung.
+     *
+     * @return Die Sequenznummer oder 0, falls es noch keine Änderung gibt
+     */
+    public long getSequenz() {
+        return veroeffentlicht.get();
+    }
+
+    /**
+     * Die veröffentlichten Änderungen nach einer Sequenznummer lesen.
+     *
+     * @param nach Die Sequenznummer der zuletzt gelesenen Änderung oder 0 für alle Änderungen
+     * @param max Maximale Anzahl der Änderungen
+     * @return Die Änderungen in aufsteigender Reihenfolge, ggf. eine leere Liste, oder ein leeres Optional, falls die
+     *     Änderung nach der Sequenznummer nicht mehr im Ringpuffer ist
+     */
+    public Optional<List<Aenderung>> lesen(final long nach, final int max) {
+        final var bis = Math.min(veroeffentlicht.get(), nach + max);
+        final var result = new ArrayList<Aenderung>((int) Math.max(bis - nach, 0L));
+        for (var sequenz = nach + 1; sequenz <= bis; sequenz++) {
+            final var aenderung = slots.get(index(sequenz));
+            if (aenderung == null || aenderung.sequenz() != sequenz) {
+                // bereits ueberschrieben oder vor einem Neustart nicht mehr im Write-Ahead-Log enthalten;
+                // beim naechsten Lesen nach der letzten gelesenen Aenderung wird das erkannt
+                return result.isEmpty() ? Optional.empty() : Optional.of(result);
+            }
+            result.add(aenderung);
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * Warten, bis es eine veröffentlichte Änderung nach einer Sequenznummer gibt.
+     *
+     * @param nach Die Sequenznummer der zuletzt gelesenen Änderung
+     * @param timeout Maximale Wartezeit
+     * @return true, falls es eine neuere Änderung gibt, false nach Ablauf der Wartezeit
+     * @throws InterruptedException Falls das Warten unterbrochen wurde
+     */
+    public boolean warten(final long nach, final Duration timeout) throws InterruptedException {
+        if (veroeffentlicht.get() > nach) {
+            return true;
+        }
+        var nanos = timeout.toNanos();
+        lock.lock();
+        wartende.incrementAndGet();
+        try {
+            // erst nach dem Erhoehen von "wartende" erneut pruefen, damit kein Signal verloren geht
+            while (veroeffentlicht.get() <= nach) {
+                if (nanos <= 0L) {
+                    return false;
+                }
+                nanos = neu.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            wartende.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Die Metrik mit der Sequenznummer der zuletzt veröffentlichten Änderung registrieren.
+     *
+     * @param registry Die Registry von Micrometer für Actuator
+     */
+    void bindTo(final MeterRegistry registry) {
+        Gauge.builder("app.aenderungen.sequenz", veroeffentlicht, AtomicLong::get)
+            .description("Sequenznummer der zuletzt veroeffentlichten Aenderung")
+            .register(registry);
+    }
+
+    private int index(final long sequenz) {
+        return (int) (sequenz & maske);
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Read-Through-Cache mit zwei Ebenen für die Suche nach der ID in {@link JdbcAngestellterRepository}, damit nicht
+ * jeder Zugriff zur DB geht. Das {@link AngestellterRepository} hält die Angestellten bereits im Hauptspeicher und
+ * verwendet deshalb keinen Cache, der nur Kopien derselben Daten enthalten würde. Die erste Ebene ist ein
+ * {@link TinyLfuCache} auf dem Heap. Aus ihr verdrängte Angestellte kommen optional in die zweite Ebene
+ * {@link OffHeapCache} außerhalb des Heaps.
+ * <p>
+ * Nach jedem Schreibzugriff im Repository wird {@link #invalidieren(UUID)} aufgerufen. Dabei wird eine Uhr
+ * hochgezählt und der neue Stand in einem von {@link #STREIFEN} Streifen für die ID gemerkt. Ein aus dem Repository
+ * gelesener Angestellter hat als Version den Stand der Uhr vor dem Lesen und wird nur gecacht, falls es seitdem
+ * keinen Schreibzugriff im Streifen seiner ID gab. Die Prüfung erfolgt atomar mit dem Einfügen, so dass ein veralteter
+ * Lesezugriff, der sich mit einem Schreibzugriff überschneidet, nie den neueren Stand verdecken kann. Einträge der
+ * zweiten Ebene werden beim Lesen ebenso geprüft.
+ * <p>
+ * Die gelieferten Angestellten sind Kopien, damit Änderungen des Aufrufers, z.B. bei PATCH, den Cache nicht verändern.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@Component
+@Profile("jdbc")
+@Slf4j
+@SuppressWarnings("PublicConstructor")
+public final class AngestellterCache implements MeterBinder {
+    /**
+     * Anzahl der Streifen für die Versionen der letzten Schreibzugriffe.
+     */
+    static final int STREIFEN = 1 << 16;
+
+    private static final String EBENE = "ebene";
+
+    private final AtomicLong uhr = new AtomicLong();
+
+    private final AtomicLongArray schreibzugriffe = new AtomicLongArray(STREIFEN);
+
+    private final OffHeapCache l2;
+
+    private final TinyLfuCache<UUID, Angestellter> l1;
+
+    /**
+     * Konstruktor mit der Konfiguration.
+     *
+     * @param properties Konfiguration des Caches oder null für die Defaultwerte
+     */
+    public AngestellterCache(final @Nullable CacheProperties properties) {
+        final var konfiguration = properties == null ? new CacheProperties(null, null, null, null) : properties;
+        l2 = konfiguration.l2Groesse() > 0
+            ? new OffHeapCache(konfiguration.l2Groesse(), konfiguration.l2BlockGroesse().toBytes())
+            : null;
+        l1 = new TinyLfuCache<>(konfiguration.groesse(), konfiguration.ttl(), this::verdraengt);
+        log.info("AngestellterCache: groesse={}, ttl={}, l2Groesse={}", konfiguration.groesse(), konfiguration.ttl(),
+            konfiguration.l2Groesse());
+    }
+
+    /**
+     * Einen Angestellten anhand seiner ID aus dem Cache oder mit der übergebenen Funktion aus dem Repository lesen.
+     *
+     * @param id Die ID des gesuchten Angestellten
+     * @param laden Funktion, die den Angestellten bei einem Fehlschlag aus dem Repository liest
+     * @return Eine Kopie des gefundenen Angestellten bzw. das Ergebnis des Repositorys oder ein leeres Optional
+     */
+    public Optional<Angestellter> findById(final UUID id, final Function<UUID, Optional<Angestellter>> laden) {
+        if (id == null) {
+            return laden.apply(id);
+        }
+        final var gecacht = l1.get(id);
+        if (gecacht != null) {
+            return Optional.of(gecacht.kopie());
+        }
+
+        // Version und Lebensdauer beginnen vor dem Lesen, damit ein gleichzeitiger Schreibzugriff erkannt wird
+        final var version = uhr.get();
+        final var zeit = System.nanoTime();
+        if (l2 != null) {
+            final var treffer = l2.get(id);
+            if (treffer != null) {
+                if (gueltig(id, treffer.version()) && !l1.abgelaufen(treffer.zeit())) {
+                    l1.put(id, treffer.angestellter(), treffer.version(), treffer.zeit(),
+                        () -> gueltig(id, treffer.version()));
+                    return Optional.of(treffer.angestellter().kopie());
+                }
+                l2.remove(id);
+            }
+        }
+
+        final var angestellter = laden.apply(id);
+        angestellter.ifPresent(a -> l1.put(id, a.kopie(), version, zeit, () -> gueltig(id, version)));
+        return angestellter;
+    }
+
+    /**
+     * Einen Angestellten nach einem Schreibzugriff im Repository aus dem Cache entfernen. Ein gleichzeitiger
+     * Lesezugriff mit dem bisherigen Stand wird danach nicht mehr gecacht.
+     *
+     * @param id Die ID des geänderten oder gelöschten Angestellten
+     */
+    public void invalidieren(final UUID id) {
+        log.trace("invalidieren: id={}", id);
+        final var version = uhr.incrementAndGet();
+        schreibzugriffe.accumulateAndGet(streifen(id), version, Math::max);
+        l1.remove(id);
+        if (l2 != null) {
+            l2.remove(id);
+        }
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        registrieren(registry, "l1", l1, TinyLfuCache::treffer, TinyLfuCache::fehlschlaege,
+            TinyLfuCache::verdraengt, TinyLfuCache::size);
+        if (l2 != null) {
+            registrieren(registry, "l2", l2, OffHeapCache::treffer, OffHeapCache::fehlschlaege,
+                OffHeapCache::verdraengt, OffHeapCache::size);
+        }
+    }
+
+    /**
+     * Den Speicher der zweiten Ebene beim Herunterfahren freigeben.
+     */
+    @PreDestroy
+    public void close() {
+        if (l2 != null) {
+            l2.close();
+        }
+    }
+
+    // nur noch gueltige Angestellte in die zweite Ebene uebernehmen
+    private void verdraengt(final UUID id, final Angestellter angestellter, final long version, final long zeit) {
+        if (l2 != null && gueltig(id, version) && !l1.abgelaufen(zeit)) {
+            l2.put(angestellter, version, zeit);
+        }
+    }
+
+    private boolean gueltig(final UUID id, final long version) {
+        return schreibzugriffe.get(streifen(id)) <= version;
+    }
+
+    private static int streifen(final UUID id) {
+        final var hash = id.hashCode();
+        return (hash ^ (hash >>> 16)) & (STREIFEN - 1);
+    }
+
+    private static <T> void registrieren(
+        final MeterRegistry registry,
+        final String ebene,
+        final T cache,
+        final ToDoubleFunction<T> treffer,
+        final ToDoubleFunction<T> fehlschlaege,
+        final ToDoubleFunction<T> verdraengt,
+        final ToDoubleFunction<T> groesse
+    ) {
+        FunctionCounter.builder("app.cache.treffer", cache, treffer)
+            .description("Lesezugriffe mit einem Angestellten im Cache")
+            .tag(EBENE, ebene)
+            .register(registry);
+        FunctionCounter.builder("app.cache.fehlschlaege", cache, fehlschlaege)
+            .description("Lesezugriffe ohne einen Angestellten im Cache")
+            .tag(EBENE, ebene)
+            .register(registry);
+        FunctionCounter.builder("app.cache.verdraengt", cache, verdraengt)
+            .description("Aus dem Cache verdraengte Angestellte")
+            .tag(EBENE, ebene)
+            .register(registry);
+        Gauge.builder("app.cache.eintraege", cache, groesse)
+            .description("Anzahl der Angestellten im Cache")
+            .tag(EBENE, ebene)
+            .register(registry);
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Adresse;
+import com.acme.angestellter.entity.Angestellter;
+import com.acme.angestellter.entity.FamilienstandType;
+import com.acme.angestellter.entity.GeschlechtType;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.UUID;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Kompakte Binärdarstellung eines Angestellten, z.B. für das Write-Ahead-Log. Die ID wird als zwei long-Werte, das
+ * Geburtsdatum als Tage seit 1970-01-01, ein enum-Wert als Ordinalzahl und ein String als Länge mit den Bytes in UTF-8
+ * gespeichert. Für null gibt es jeweils einen eigenen Wert.
+ * <p>
+ * Das erste Byte ist die Version des Formats, so dass eine spätere Version neue Felder am Ende anfügen und die mit
+ * der bisherigen Version geschriebenen Daten weiterhin lesen kann. Eine unbekannte Version wird beim Lesen abgelehnt.
+ * <p>
+ * Kodiert und dekodiert wird direkt im ByteBuffer bzw. MemorySegment, d.h. ohne Zwischenpuffer für die Strings.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class AngestellterCodec {
+    /**
+     * Aktuelle Version, die beim Kodieren geschrieben wird.
+     */
+    static final byte VERSION = 1;
+
+    private static final int NULL_LAENGE = -1;
+    private static final byte NULL_ORDINAL = -1;
+    private static final byte NICHT_VORHANDEN = 0;
+    private static final byte VORHANDEN = 1;
+    private static final byte ERSATZZEICHEN = '?';
+
+    private AngestellterCodec() {
+    }
+
+    /**
+     * Die Anzahl der Bytes für die Binärdarstellung eines Angestellten ermitteln.
+     *
+     * @param angestellter Der Angestellte
+     * @return Die Anzahl der Bytes
+     */
+    @SuppressWarnings("MagicNumber")
+    static int groesse(final Angestellter angestellter) {
+        // Version, ID, hasNewsletter, Geburtsdatum, Geschlecht, Familienstand, Adresse vorhanden
+        var groesse = 1 + Long.BYTES * 2 + 1 + Integer.BYTES + 1 + 1 + 1;
+        groesse += groesse(angestellter.getNachname()) + groesse(angestellter.getEmail());
+        final var adresse = angestellter.getAdresse();
+        if (adresse != null) {
+            groesse += groesse(adresse.getPlz()) + groesse(adresse.getOrt());
+        }
+        return groesse;
+    }
+
+    /**
+     * Einen Angestellten ab der aktuellen Position in einen ByteBuffer schreiben.
+     *
+     * @param angestellter Der Angestellte
+     * @param buffer Der ByteBuffer mit mindestens {@code groesse(angestellter)} freien Bytes
+     */
+    static void encode(final Angestellter angestellter, final ByteBuffer buffer) {
+        buffer.put(VERSION);
+        putUuid(angestellter.getId(), buffer);
+        putString(angestellter.getNachname(), buffer);
+        putString(angestellter.getEmail(), buffer);
+        buffer.put(angestellter.isHasNewsletter() ? VORHANDEN : NICHT_VORHANDEN);
+        final var geburtsdatum = angestellter.getGeburtsdatum();
+        buffer.putInt(geburtsdatum == null ? Integer.MIN_VALUE : Math.toIntExact(geburtsdatum.toEpochDay()));
+        putEnum(angestellter.getGeschlecht(), buffer);
+        putEnum(angestellter.getFamilienstand(), buffer);
+        final var adresse = angestellter.getAdresse();
+        if (adresse == null) {
+            buffer.put(NICHT_VORHANDEN);
+            return;
+        }
+        buffer.put(VORHANDEN);
+        putString(adresse.getPlz(), buffer);
+        putString(adresse.getOrt(), buffer);
+    }
+
+    /**
+     * Einen Angestellten ab einem Offset in ein MemorySegment schreiben.
+     *
+     * @param angestellter Der Angestellte
+     * @param segment Das MemorySegment mit mindestens {@code groesse(angestellter)} freien Bytes ab dem Offset
+     * @param offset Der Offset im MemorySegment
+     * @return Der Offset nach dem geschriebenen Angestellten
+     */
+    static long encode(final Angestellter angestellter, final MemorySegment segment, final long offset) {
+        final var buffer = puffer(segment, offset);
+        encode(angestellter, buffer);
+        return offset + buffer.position();
+    }
+
+    /**
+     * Einen Angestellten ab der aktuellen Position aus einem ByteBuffer lesen.
+     *
+     * @param buffer Der ByteBuffer
+     * @return Der gelesene Angestellte
+     * @throws IllegalArgumentException Falls die Version unbekannt ist
+     */
+    static Angestellter decode(final ByteBuffer buffer) {
+        final var version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unbekannte Version der Binaerdarstellung: " + version);
+        }
+        final var builder = Angestellter.builder()
+            .id(getUuid(buffer))
+            .nachname(getString(buffer))
+            .email(getString(buffer))
+            .hasNewsletter(buffer.get() == VORHANDEN);
+        final var tag = buffer.getInt();
+        builder.geburtsdatum(tag == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(tag))
+            .geschlecht(getEnum(buffer, GeschlechtType.values()))
+            .familienstand(getEnum(buffer, FamilienstandType.values()));
+        if (buffer.get() == VORHANDEN) {
+            builder.adresse(Adresse.builder()
+                .plz(getString(buffer))
+                .ort(getString(buffer))
+                .build());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Einen Angestellten ab einem Offset aus einem MemorySegment lesen.
+     *
+     * @param segment Das MemorySegment
+     * @param offset Der Offset im MemorySegment
+     * @return Der gelesene Angestellte
+     * @throws IllegalArgumentException Falls die Version unbekannt ist
+     */
+    static Angestellter decode(final MemorySegment segment, final long offset) {
+        return decode(puffer(segment, offset));
+    }
+
+    /**
+     * Nur die ID eines Angestellten ab einem Offset aus einem MemorySegment lesen, ohne ihn zu dekodieren.
+     *
+     * @param segment Das MemorySegment
+     * @param offset Der Offset im MemorySegment
+     * @return Die ID des Angestellten
+     */
+    static UUID id(final MemorySegment segment, final long offset) {
+        final var buffer = puffer(segment, offset);
+        // das Byte fuer die Version ueberspringen, die ID folgt direkt darauf
+        buffer.get();
+        return getUuid(buffer);
+    }
+
+    /**
+     * Eine UUID als zwei long-Werte schreiben.
+     *
+     * @param id Die UUID
+     * @param buffer Der ByteBuffer
+     */
+    static void putUuid(final UUID id, final ByteBuffer buffer) {
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+    }
+
+    /**
+     * Eine UUID aus zwei long-Werten lesen.
+     *
+     * @param buffer Der ByteBuffer
+     * @return Die UUID
+     */
+    static UUID getUuid(final ByteBuffer buffer) {
+        final var mostSigBits = buffer.getLong();
+        return new UUID(mostSigBits, buffer.getLong());
+    }
+
+    // Sicht auf das MemorySegment ab dem Offset; ein ByteBuffer kann hoechstens Integer.MAX_VALUE Bytes umfassen
+    private static ByteBuffer puffer(final MemorySegment segment, final long offset) {
+        final var laenge = Math.min(segment.byteSize() - offset, Integer.MAX_VALUE);
+        return segment.asSlice(offset, laenge).asByteBuffer();
+    }
+
+    private static int groesse(final String wert) {
+        return Integer.BYTES + (wert == null ? 0 : utf8Laenge(wert));
+    }
+
+    // Anzahl der Bytes in UTF-8 wie bei String.getBytes(UTF_8), aber ohne das byte[] anzulegen
+    @SuppressWarnings("MagicNumber")
+    private static int utf8Laenge(final String wert) {
+        final var laenge = wert.length();
+        var bytes = 0;
+        var i = 0;
+        while (i < laenge) {
+            final var zeichen = wert.charAt(i);
+            i++;
+            if (zeichen < 0x80) {
+                bytes++;
+            } else if (zeichen < 0x800) {
+                bytes += 2;
+            } else if (!Character.isSurrogate(zeichen)) {
+                bytes += 3;
+            } else if (Character.isHighSurrogate(zeichen) && i < laenge && Character.isLowSurrogate(wert.charAt(i))) {
+                i++;
+                bytes += 4;
+            } else {
+                bytes++;
+            }
+        }
+        return bytes;
+    }
+
+    @SuppressWarnings("MagicNumber")
+    private static void putString(final String wert, final ByteBuffer buffer) {
+        if (wert == null) {
+            buffer.putInt(NULL_LAENGE);
+            return;
+        }
+        buffer.putInt(utf8Laenge(wert));
+        final var laenge = wert.length();
+        var i = 0;
+        while (i < laenge) {
+            final var zeichen = wert.charAt(i);
+            i++;
+            if (zeichen < 0x80) {
+                buffer.put((byte) zeichen);
+            } else if (zeichen < 0x800) {
+                buffer.put((byte) (0xC0 | zeichen >> 6))
+                    .put((byte) (0x80 | zeichen & 0x3F));
+            } else if (!Character.isSurrogate(zeichen)) {
+                buffer.put((byte) (0xE0 | zeichen >> 12))
+                    .put((byte) (0x80 | zeichen >> 6 & 0x3F))
+                    .put((byte) (0x80 | zeichen & 0x3F));
+            } else if (Character.isHighSurrogate(zeichen) && i < laenge && Character.isLowSurrogate(wert.charAt(i))) {
+                final var codePoint = Character.toCodePoint(zeichen, wert.charAt(i));
+                i++;
+                buffer.put((byte) (0xF0 | codePoint >> 18))
+                    .put((byte) (0x80 | codePoint >> 12 & 0x3F))
+                    .put((byte) (0x80 | codePoint >> 6 & 0x3F))
+                    .put((byte) (0x80 | codePoint & 0x3F));
+            } else {
+                // einzelnes Surrogat wie bei String.getBytes(UTF_8)
+                buffer.put(ERSATZZEICHEN);
+            }
+        }
+    }
+
+    private static String getString(final ByteBuffer buffer) {
+        final var laenge = buffer.getInt();
+        if (laenge == NULL_LAENGE) {
+            return null;
+        }
+        final var position = buffer.position();
+        if (buffer.hasArray()) {
+            // direkt aus dem Array des ByteBuffers dekodieren
+            buffer.position(position + laenge);
+            return new String(buffer.array(), buffer.arrayOffset() + position, laenge, UTF_8);
+        }
+        // direkter bzw. memory-mapped ByteBuffer: der String muss ohnehin auf den Heap kopiert werden
+        final var bytes = new byte[laenge];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void putEnum(final Enum<?> wert, final ByteBuffer buffer) {
+        buffer.put(wert == null ? NULL_ORDINAL : (byte) wert.ordinal());
+    }
+
+    private static <T extends Enum<T>> T getEnum(final ByteBuffer buffer, final T[] werte) {
+        final var ordinal = buffer.get();
+        return ordinal == NULL_ORDINAL ? null : werte[ordinal];
+    }
+}
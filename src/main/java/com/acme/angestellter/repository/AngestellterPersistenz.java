@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Schnittstelle für den DB-Zugriff bei Angestellten, die von der Anwendungslogik verwendet wird. Die Implementierung
+ * wird über das Profil ausgewählt: standardmäßig {@link AngestellterRepository} im Hauptspeicher und mit dem Profil
+ * "jdbc" {@link JdbcAngestellterRepository} für eine relationale DB.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+public interface AngestellterPersistenz {
+    /**
+     * Einen Angestellten anhand seiner ID suchen.
+     *
+     * @param id Die Id des gesuchten Angestellten
+     * @return Optional mit dem gefundenen Angestellten oder leeres Optional
+     */
+    Optional<Angestellter> findById(UUID id);
+
+    /**
+     * Angestellte anhand von Suchkriterien ermitteln, die mit AND verknüpft werden. Das Geburtsdatum wird mit
+     * "geburtsdatumVon" und "geburtsdatumBis" im ISO-Format jeweils einschließlich eingegrenzt.
+     *
+     * @param suchkriterien Suchkriterien.
+     * @return Gefundene Angestellten oder leere Collection, auch bei ungültigen Suchkriterien.
+     */
+    Collection<Angestellter> find(Map<String, String> suchkriterien);
+
+    /**
+     * Eine Suche mit Suchkriterien ausführen und den Ausführungsplan ermitteln.
+     *
+     * @param suchkriterien Suchkriterien.
+     * @return Der ausgeführte Plan.
+     */
+    QueryPlan explain(Map<String, String> suchkriterien);
+
+    /**
+     * Alle Angestellten ermitteln.
+     *
+     * @return Alle Angestellten
+     */
+    Collection<Angestellter> findAll();
+
+    /**
+     * Eine Seite mit Angestellten anhand von Suchkriterien ermitteln, wobei die Angestellten nach der ID sortiert sind.
+     *
+     * @param suchkriterien Suchkriterien.
+     * @param after ID des letzten Angestellten der vorherigen Seite oder null.
+     * @param before ID des ersten Angestellten der nächsten Seite oder null, falls "after" verwendet wird.
+     * @param size Maximale Anzahl der Angestellten in der Seite.
+     * @return Die Seite mit den gefundenen Angestellten.
+     */
+    Seite<Angestellter> findSeite(Map<String, String> suchkriterien, UUID after, UUID before, int size);
+
+    /**
+     * Angestellte anhand von Suchkriterien als Stream ermitteln, der nach der ID sortiert ist und den Stand zum
+     * Zeitpunkt des Aufrufs enthält. Der Stream muss geschlossen werden.
+     *
+     * @param suchkriterien Suchkriterien wie bei {@link #find(Map)}.
+     * @return Die gefundenen Angestellten oder ein leerer Stream bei ungültigen Suchkriterien.
+     */
+    Stream<Angestellter> findAsStream(Map<String, String> suchkriterien);
+
+    /**
+     * Abfrage, ob es einen Angestellten mit gegebener Emailadresse gibt.
+     *
+     * @param email Emailadresse für die Suche
+     * @return true, falls es einen solchen Angestellten gibt, sonst false
+     */
+    boolean isEmailExisting(String email);
+
+    /**
+     * Die häufigsten Nachnamen zu einem Präfix ermitteln.
+     *
+     * @param prefix Das Präfix
+     * @param limit Maximale Anzahl der Nachnamen
+     * @return Die passenden Nachnamen absteigend nach Häufigkeit
+     */
+    Collection<String> findNachnamenByPrefix(String prefix, int limit);
+
+    /**
+     * Einen neuen Angestellten anlegen, sofern seine Emailadresse noch nicht existiert. Die Prüfung und das Anlegen
+     * erfolgen in einem einzigen atomaren Schritt.
+     *
+     * @param angestellter Das Objekt des neu anzulegenden Angestellten.
+     * @return Der neu angelegte Angestellter mit generierter ID oder ein leeres Optional, falls die Emailadresse
+     *      bereits existiert
+     */
+    Optional<Angestellter> createIfEmailAbsent(Angestellter angestellter);
+
+    /**
+     * Mehrere neue Angestellte anlegen, sofern ihre Emailadressen noch nicht existieren. Eine Emailadresse, die
+     * innerhalb der Liste mehrfach vorkommt, wird nur beim ersten Angestellten übernommen.
+     *
+     * @param neueAngestellte Die Objekte der neu anzulegenden Angestellten.
+     * @return Für jeden Angestellten in derselben Reihenfolge der neu angelegte Angestellte mit generierter ID oder ein
+     *      leeres Optional, falls die Emailadresse bereits existiert
+     */
+    List<Optional<Angestellter>> createAllIfEmailAbsent(List<Angestellter> neueAngestellte);
+
+    /**
+     * Einen vorhandenen Angestellten aktualisieren.
+     *
+     * @param angestellter Das Objekt mit den neuen Daten
+     * @return false, falls die neue Emailadresse bereits zu einem anderen Angestellten gehört, sonst true
+     */
+    boolean update(Angestellter angestellter);
+
+    /**
+     * Mehrere vorhandene Angestellte gemeinsam aktualisieren, z.B. die gesammelten Änderungen beim Write-Behind.
+     * Angestellte, die es nicht mehr gibt, werden übergangen.
+     *
+     * @param angestellte Die Objekte mit den neuen Daten
+     * @return Für jeden Angestellten in derselben Reihenfolge false, falls die neue Emailadresse bereits zu einem
+     *      anderen Angestellten gehört, sonst true
+     */
+    List<Boolean> updateAll(List<Angestellter> angestellte);
+
+    /**
+     * Einen vorhandenen Angestellten löschen.
+     *
+     * @param id Die ID des zu löschenden Angestellten.
+     */
+    void deleteById(UUID id);
+}
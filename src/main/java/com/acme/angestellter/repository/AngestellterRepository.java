@@ -17,80 +17,330 @@
 package com.acme.angestellter.repository;
 
 import com.acme.angestellter.entity.Angestellter;
-
+import com.acme.angestellter.entity.FamilienstandType;
+import com.acme.angestellter.entity.GeschlechtType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.OptionalInt;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.IntStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Repository;
 import static com.acme.angestellter.repository.DB.ANGESTELLTE;
-import static java.util.Collections.emptyList;
-import static java.util.UUID.randomUUID;
+import static java.lang.Boolean.TRUE;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 /**
- * Repository für den DB-Zugriff bei Angestellte.
+ * Repository für den DB-Zugriff bei Angestellte, das die Daten im Hauptspeicher hält. Mit dem Profil "jdbc" wird
+ * stattdessen {@link JdbcAngestellterRepository} verwendet.
  *
  * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
  */
 @Repository
+@Profile("!jdbc")
 @Slf4j
 @SuppressWarnings("PublicConstructor")
-public class AngestellterRepository {
+public class AngestellterRepository implements AngestellterPersistenz, MeterBinder {
+    private static final int INDEX_BLOCK = 1024;
+
+    private static final String GEBURTSDATUM = "geburtsdatum";
+
+    private static final String GEBURTSDATUM_VON = "geburtsdatumVon";
+
+    private static final String GEBURTSDATUM_BIS = "geburtsdatumBis";
+
+    /**
+     * Primärschlüssel-Index: Die Angestellten werden über ihre ID entweder als Objekte auf dem Heap oder in ihrer
+     * Binärdarstellung außerhalb des Heaps verwaltet, jeweils mit lesendem Zugriff in O(1).
+     */
+    private final AngestellterSpeicher angestellte;
+
+    /**
+     * Die IDs in sortierter Reihenfolge für die Keyset-Pagination. Die Iteration der Skip-Liste ist schwach
+     * konsistent, d.h. parallele Schreibzugriffe verschieben keinen Cursor und führen zu keiner Exception.
+     */
+    private final NavigableSet<UUID> ids = new ConcurrentSkipListSet<>();
+
+    private final EmailIndex emailIndex = new EmailIndex();
+
+    private final TrigramIndex nachnameIndex = new TrigramIndex();
+
+    private final PrefixIndex nachnamePrefixIndex = new PrefixIndex();
+
+    private final DatumIndex geburtsdatumIndex = new DatumIndex();
+
+    private final PlzIndex plzIndex = new PlzIndex();
+
+    private final OrtIndex ortIndex = new OrtIndex();
+
+    private final RowIds rowIds = new RowIds();
+
+    private final BitmapIndex<GeschlechtType> geschlechtIndex = new BitmapIndex<>();
+
+    private final BitmapIndex<FamilienstandType> familienstandIndex = new BitmapIndex<>();
+
+    /**
+     * Bitmap-Index, der nur den Wert true enthält. Angestellte ohne Newsletter ergeben sich durch NOT.
+     */
+    private final BitmapIndex<Boolean> newsletterIndex = new BitmapIndex<>();
+
+    /**
+     * Spaltenweise Kopie der primitiven Attribute für Scans, falls kein Index die Kandidaten ausreichend eingrenzt.
+     */
+    private final Spalten spalten = new Spalten(SpaltenScan.of());
+
+    /**
+     * Kanonische Instanzen für Nachnamen und Adressen, die sich die Angestellten und die Sekundärindexe teilen. Nur
+     * beim Speicher auf dem Heap, weil der Speicher außerhalb des Heaps beim Lesen jeweils neue Objekte dekodiert.
+     */
+    private final @Nullable Kanonisierung kanonisierung;
+
+    /**
+     * Die geöffneten konsistenten Sichten für Streams, in denen Schreibzugriffe den bisherigen Stand sichern.
+     */
+    private final Set<Lesesicht> lesesichten = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Sperre, um Schreibzugriffe zu serialisieren, damit die Sekundärindexe konsistent zu den Angestellten bleiben.
+     * Lesende Zugriffe erfolgen ohne Sperre. ReentrantLock statt synchronized, damit Virtual Threads beim Warten
+     * nicht an ihren Carrier-Thread gebunden werden.
+     */
+    private final Lock writeLock = new ReentrantLock();
+
+    private final QueryPlanner queryPlanner;
+
+    private final IdGenerator idGenerator;
+
+    /**
+     * Write-Ahead-Log für die Schreiboperationen oder null, falls die Daten nur im Hauptspeicher gehalten werden.
+     */
+    private final WriteAheadLog wal;
+
+    /**
+     * Hintergrund-Thread für die periodischen Snapshots oder null ohne Write-Ahead-Log.
+     */
+    private final ScheduledExecutorService snapshots;
+
+    /**
+     * Ist abgeschlossen, sobald die Sekundärindexe nach dem Laden eines Snapshots im Hintergrund aufgebaut sind.
+     * Suchen über diese Indexe warten darauf, während der Zugriff über die ID oder die Emailadresse sofort möglich ist.
+     */
+    private final CompletableFuture<Void> indexeAufgebaut = new CompletableFuture<>();
+
+    /**
+     * Die zuletzt festgeschriebenen Schreiboperationen für Change Data Capture.
+     */
+    private final AenderungsPuffer aenderungen = new AenderungsPuffer(AenderungsPuffer.KAPAZITAET);
+
+    private final Path verzeichnis;
+
+    /**
+     * Konstruktor, der die emulierte DB mit den vorhandenen Angestellten initialisiert und die Daten nur im
+     * Hauptspeicher hält.
+     */
+    public AngestellterRepository() {
+        this(null, null, null);
+    }
+
+    /**
+     * Konstruktor, der die Angestellten aus dem neuesten Snapshot lädt bzw. die emulierte DB mit den vorhandenen
+     * Angestellten initialisiert und danach die neueren Einträge aus dem Write-Ahead-Log einspielt, falls ein
+     * Verzeichnis dafür konfiguriert ist.
+     *
+     * @param walProperties Konfiguration für das Write-Ahead-Log oder null
+     * @param speicherProperties Konfiguration für den Speicher der Angestellten oder null für den Heap
+     * @param idGenerator Generator für die IDs neuer Angestellter oder null für UUIDs der Version 7
+     */
+    @Autowired
+    public AngestellterRepository(
+        final WalProperties walProperties,
+        final SpeicherProperties speicherProperties,
+        final @Nullable IdGenerator idGenerator
+    ) {
+        this.idGenerator = idGenerator == null ? IdGenerator.uuidV7() : idGenerator;
+        angestellte = AngestellterSpeicher.of(speicherProperties);
+        kanonisierung = angestellte instanceof HeapSpeicher ? new Kanonisierung() : null;
+        queryPlanner = new QueryPlanner(angestellte, rowIds, spalten);
+        if (walProperties == null || walProperties.verzeichnis() == null) {
+            testdatenEinfuegen();
+            indexeAufgebaut.complete(null);
+            verzeichnis = null;
+            wal = null;
+            snapshots = null;
+            return;
+        }
+
+        verzeichnis = walProperties.verzeichnis();
+        final var snapshot = Snapshot.neuester(verzeichnis);
+        snapshot.ifPresentOrElse(s -> s.lesen(this::laden), this::testdatenEinfuegen);
+        // die zuletzt eingespielten Eintraege bleiben als Aenderungen erhalten
+        final var eingespielt = new ArrayDeque<LogEintrag>();
+        wal = WriteAheadLog.oeffnen(walProperties, snapshot.map(Snapshot::segment).orElse(1L), eintrag -> {
+            einspielen(eintrag);
+            if (eingespielt.size() == AenderungsPuffer.KAPAZITAET) {
+                eingespielt.removeFirst();
+            }
+            eingespielt.addLast(eintrag);
+        });
+        aenderungen.einspielen(wal.nummer(), List.copyOf(eingespielt));
+        if (snapshot.isPresent()) {
+            Thread.ofVirtual().name("indexe").start(this::indexeAufbauen);
+        } else {
+            indexeAufgebaut.complete(null);
+        }
+
+        snapshots = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("snapshot").factory());
+        final var intervall = walProperties.snapshotIntervall().toNanos();
+        snapshots.scheduleWithFixedDelay(this::snapshotImHintergrund, intervall, intervall, NANOSECONDS);
+    }
+
+    /**
+     * Das Write-Ahead-Log beim Herunterfahren schließen, so dass alle gepufferten Einträge geschrieben sind, und danach
+     * den Speicher der Angestellten freigeben. Ein laufender Snapshot wird vorher noch beendet, weil er das Log rotiert
+     * und kompaktiert.
+     */
+    @PreDestroy
+    public void close() {
+        if (wal != null) {
+            snapshots.shutdown();
+            try {
+                snapshots.awaitTermination(Long.MAX_VALUE, NANOSECONDS);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                log.warn("close: Warten auf den Snapshot unterbrochen");
+            }
+            wal.close();
+        }
+        angestellte.close();
+    }
+
+    /**
+     * Die Metriken zum eingesparten Speicher durch gemeinsam verwendete Nachnamen und Adressen sowie zum Speicher der
+     * Angestellten registrieren.
+     *
+     * @param registry Die Registry von Micrometer für Actuator
+     */
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        if (kanonisierung != null) {
+            kanonisierung.bindTo(registry);
+        }
+        angestellte.bindTo(registry);
+        aenderungen.bindTo(registry);
+    }
+
+    /**
+     * Die festgeschriebenen Schreiboperationen als fortlaufende Änderungen, z.B. für nachgelagerte Systeme. Mit
+     * Write-Ahead-Log ist die Sequenznummer die laufende Nummer im Log und die noch nicht durch einen Snapshot
+     * ersetzten Einträge sind nach einem Neustart wieder als Änderungen vorhanden.
+     *
+     * @return Der Ringpuffer mit den zuletzt festgeschriebenen Änderungen
+     */
+    public AenderungsPuffer getAenderungen() {
+        return aenderungen;
+    }
+
+    /**
+     * Einen Snapshot aller Angestellten schreiben und danach die darin enthaltenen Segmente des Write-Ahead-Logs
+     * löschen. Schreibende Threads warten nur auf den Beginn eines neuen Segments, während die Angestellten außerhalb
+     * der Sperre kodiert und geschrieben werden. Ein Angestellter kann dabei schon neuere Daten enthalten, die beim
+     * Einspielen des Logs erneut mit denselben Daten geschrieben werden.
+     *
+     * @return true, falls ein Snapshot geschrieben wurde, false ohne Write-Ahead-Log oder ohne neue Einträge
+     */
+    public boolean snapshot() {
+        if (wal == null || !wal.hatNeueEintraege()) {
+            return false;
+        }
+        final var segment = wal.rotieren();
+        // alle Eintraege in den aelteren Segmenten sind bereits im Hauptspeicher
+        final var kopie = angestellte.values();
+        Snapshot.schreiben(verzeichnis, segment, kopie);
+        wal.kompaktieren(segment);
+        log.info("snapshot: {} Angestellte bis Segment {}", kopie.size(), segment);
+        return true;
+    }
+
     /**
      * Einen Angestellten anhand seiner ID suchen.
      *
      * @param id Die Id des gesuchten Angestellten
      * @return Optional mit dem gefundenen Angestellten oder leeres Optional
      */
+    @Override
     public Optional<Angestellter> findById(final UUID id) {
         log.debug("findById: id={}", id);
-        final var result = ANGESTELLTE.stream()
-            .filter(angestellter -> Objects.equals(angestellter.getId(), id))
-            .findFirst();
+        if (id == null) {
+            return Optional.empty();
+        }
+        final var result = Optional.ofNullable(angestellte.get(id));
         log.debug("findById: {}", result);
         return result;
     }
 
     /**
-     * Angestellten anhand von Suchkriterien ermitteln.
+     * Angestellten anhand von Suchkriterien ermitteln. Mehrere Suchkriterien werden mit AND verknüpft und über den
+     * {@link QueryPlanner} ausgehend vom selektivsten Index ausgewertet. Das Geburtsdatum wird mit "geburtsdatumVon"
+     * und "geburtsdatumBis" im ISO-Format jeweils einschließlich eingegrenzt, z.B. für Angestellte ab einem Alter.
      * Z.B. mit GET https://localhost:8080/api?nachname=A&amp;plz=7
      *
      * @param suchkriterien Suchkriterien.
      * @return Gefundene Angestellten oder leere Collection.
      */
-    @SuppressWarnings({"ReturnCount", "JavadocLinkAsPlainText"})
+    @SuppressWarnings("JavadocLinkAsPlainText")
+    @Override
     public @NonNull Collection<Angestellter> find(final Map<String, String> suchkriterien) {
         log.debug("find: suchkriterien={}", suchkriterien);
-
         if (suchkriterien.isEmpty()) {
             return findAll();
         }
+        final var result = suchen(suchkriterien).angestellte();
+        log.debug("find: angestellte={}", result);
+        return result;
+    }
 
-        // for-Schleife statt "forEach" wegen return
-        for (final var entry : suchkriterien.entrySet()) {
-            switch (entry.getKey()) {
-                case "email" -> {
-                    final var angestellterOpt = findByEmail(entry.getValue());
-                    //noinspection OptionalIsPresent
-                    return angestellterOpt.isPresent() ? List.of(angestellterOpt.get()) : emptyList();
-                }
-                case "nachname" -> {
-                    return findByNachname(entry.getValue());
-                }
-                default -> {
-                    log.debug("find: ungueltiges Suchkriterium={}", entry.getKey());
-                    return emptyList();
-                }
-            }
-        }
-
-        return emptyList();
+    /**
+     * Eine Suche mit Suchkriterien ausführen und den Ausführungsplan mit dem gewählten Zugriffspfad, den geschätzten
+     * Kandidaten je Index und der Anzahl der untersuchten Angestellten ermitteln.
+     *
+     * @param suchkriterien Suchkriterien.
+     * @return Der ausgeführte Plan.
+     */
+    @Override
+    public @NonNull QueryPlan explain(final Map<String, String> suchkriterien) {
+        log.debug("explain: suchkriterien={}", suchkriterien);
+        final var plan = suchen(suchkriterien).plan();
+        log.debug("explain: {}", plan);
+        return plan;
     }
 
     /**
@@ -98,8 +348,70 @@ public class AngestellterRepository {
      *
      * @return Alle Angestellten
      */
+    @Override
     public @NonNull Collection<Angestellter> findAll() {
-        return ANGESTELLTE;
+        return angestellte.values();
+    }
+
+    /**
+     * Angestellte anhand von Suchkriterien als Stream ermitteln, der nach der ID sortiert ist und den Stand zum
+     * Zeitpunkt des Aufrufs enthält, auch wenn währenddessen Angestellte angelegt, geändert oder gelöscht werden. Die
+     * Angestellten werden erst beim Durchlaufen gelesen und mit den Filtern der Suchkriterien geprüft, so dass der
+     * Speicherbedarf nicht von der Anzahl der Angestellten abhängt. Der Stream muss geschlossen werden.
+     *
+     * @param suchkriterien Suchkriterien wie bei {@link #find(Map)}.
+     * @return Die gefundenen Angestellten oder ein leerer Stream bei ungültigen Suchkriterien.
+     */
+    @Override
+    public @NonNull Stream<Angestellter> findAsStream(final Map<String, String> suchkriterien) {
+        log.debug("findAsStream: suchkriterien={}", suchkriterien);
+        final var filter = kriterien(suchkriterien).map(kriterien -> kriterien.stream()
+            .map(Kriterium::filter)
+            .reduce(angestellter -> true, Predicate::and));
+        if (filter.isEmpty()) {
+            return Stream.empty();
+        }
+        final var sicht = new Lesesicht(ids, angestellte::get);
+        // kein Schreibzugriff ist beim Oeffnen nur teilweise ausgefuehrt
+        writeLock.lock();
+        try {
+            lesesichten.add(sicht);
+        } finally {
+            writeLock.unlock();
+        }
+        return StreamSupport.stream(sicht, false)
+            .filter(filter.get())
+            .onClose(() -> lesesichten.remove(sicht));
+    }
+
+    /**
+     * Eine Seite mit Angestellten anhand von Suchkriterien ermitteln, wobei die Angestellten nach der ID sortiert sind.
+     * Der sortierte ID-Index wird ab dem Cursor gelesen und mit den Filtern der Suchkriterien geprüft, bis die Seite
+     * gefüllt ist.
+     *
+     * @param suchkriterien Suchkriterien.
+     * @param after ID des letzten Angestellten der vorherigen Seite oder null.
+     * @param before ID des ersten Angestellten der nächsten Seite oder null, falls "after" verwendet wird.
+     * @param size Maximale Anzahl der Angestellten in der Seite.
+     * @return Die Seite mit den gefundenen Angestellten.
+     */
+    @Override
+    public @NonNull Seite<Angestellter> findSeite(
+        final Map<String, String> suchkriterien,
+        final UUID after,
+        final UUID before,
+        final int size
+    ) {
+        log.debug("findSeite: suchkriterien={}, after={}, before={}, size={}", suchkriterien, after, before, size);
+        // wie bei findAsStream ab dem Cursor filtern, bis die Seite gefuellt ist, statt alle Treffer zu sortieren
+        final var seite = kriterien(suchkriterien)
+            .map(kriterien -> kriterien.stream()
+                .map(Kriterium::filter)
+                .reduce(angestellter -> true, Predicate::and))
+            .map(filter -> seite(ids, angestellte::get, filter, after, before, size))
+            .orElseGet(() -> new Seite<>(List.of(), false, false));
+        log.debug("findSeite: {}", seite);
+        return seite;
     }
 
     /**
@@ -110,9 +422,7 @@ public class AngestellterRepository {
      */
     public Optional<Angestellter> findByEmail(final String email) {
         log.debug("findByEmail: {}", email);
-        final var result = ANGESTELLTE.stream()
-            .filter(angestellter -> Objects.equals(angestellter.getEmail(), email))
-            .findFirst();
+        final var result = emailIndex.get(email).map(angestellte::get);
         log.debug("findByEmail: {}", result);
         return result;
     }
@@ -123,13 +433,12 @@ public class AngestellterRepository {
      * @param email Emailadresse für die Suche
      * @return true, falls es einen solchen Angestellten gibt, sonst false
      */
+    @Override
     public boolean isEmailExisting(final String email) {
         log.debug("isEmailExisting: email={}", email);
-        final var count = ANGESTELLTE.stream()
-            .filter(angestellter -> Objects.equals(angestellter.getEmail(), email))
-            .count();
-        log.debug("isEmailExisting: count={}", count);
-        return count > 0L;
+        final var result = emailIndex.contains(email);
+        log.debug("isEmailExisting: {}", result);
+        return result;
     }
 
     /**
@@ -140,61 +449,218 @@ public class AngestellterRepository {
      */
     public @NonNull Collection<Angestellter> findByNachname(final CharSequence nachname) {
         log.debug("findByNachname: nachname={}", nachname);
-        final var angestellte = ANGESTELLTE.stream()
-            .filter(angestellter -> angestellter.getNachname().contains(nachname))
+        indexeAufgebaut.join();
+        final var result = nachnameIndex.find(nachname.toString())
+            .stream()
+            .map(angestellte::get)
+            .filter(Objects::nonNull)
             .toList();
-        log.debug("findByNachname: angestellte={}", angestellte);
-        return angestellte;
+        log.debug("findByNachname: angestellte={}", result);
+        return result;
     }
 
     /**
      * Abfrage, welche Nachnamen es zu einem Präfix gibt.
      *
      * @param prefix Nachname-Präfix.
-     * @return Die passenden Nachnamen oder eine leere Collection.
-     */
-    public @NonNull Collection<String> findNachnamenByPrefix(final @NonNull String prefix) {
-        log.debug("findByNachname: prefix={}", prefix);
-        final var nachnamen = ANGESTELLTE.stream()
-            .map(Angestellter::getNachname)
-            .filter(nachname -> nachname.startsWith(prefix))
-            .distinct()
-            .toList();
-        log.debug("findByNachname: nachnamen={}", nachnamen);
+     * @param limit Maximale Anzahl der Nachnamen.
+     * @return Die passenden Nachnamen absteigend nach Häufigkeit oder eine leere Collection.
+     */
+    @Override
+    public @NonNull Collection<String> findNachnamenByPrefix(final @NonNull String prefix, final int limit) {
+        log.debug("findNachnamenByPrefix: prefix={}, limit={}", prefix, limit);
+        indexeAufgebaut.join();
+        final var nachnamen = nachnamePrefixIndex.find(prefix, limit);
+        log.debug("findNachnamenByPrefix: nachnamen={}", nachnamen);
         return nachnamen;
     }
 
     /**
-     * Einen neuen Angestellten anlegen.
+     * Angestellte anhand von Geschlecht, Familienstand und Newsletter-Abonnement über die Bitmap-Indexe suchen.
+     * Mehrere Werte eines Attributs werden mit OR verknüpft, die Attribute untereinander mit AND.
+     *
+     * @param geschlechter Die gesuchten Geschlechter oder eine leere Collection für beliebige
+     * @param familienstaende Die gesuchten Familienstände oder eine leere Collection für beliebige
+     * @param hasNewsletter Das gesuchte Newsletter-Abonnement oder null für beliebig
+     * @return Die gefundenen Angestellten oder eine leere Collection
+     */
+    public @NonNull Collection<Angestellter> findByMerkmale(
+        final Collection<GeschlechtType> geschlechter,
+        final Collection<FamilienstandType> familienstaende,
+        final Boolean hasNewsletter
+    ) {
+        log.debug(
+            "findByMerkmale: geschlechter={}, familienstaende={}, hasNewsletter={}",
+            geschlechter,
+            familienstaende,
+            hasNewsletter
+        );
+        indexeAufgebaut.join();
+        var rows = rowIds.alle();
+        if (!geschlechter.isEmpty()) {
+            rows = rows.and(geschlechtIndex.getAny(geschlechter));
+        }
+        if (!familienstaende.isEmpty()) {
+            rows = rows.and(familienstandIndex.getAny(familienstaende));
+        }
+        if (hasNewsletter != null) {
+            final var mitNewsletter = newsletterIndex.get(TRUE);
+            rows = hasNewsletter ? rows.and(mitNewsletter) : rows.andNot(mitNewsletter);
+        }
+
+        // Pruefung am Objekt, falls eine Zeilennummer zwischenzeitlich neu vergeben wurde
+        final var result = new ArrayList<Angestellter>(rows.cardinality());
+        rows.forEach(row -> {
+            final var id = rowIds.id(row);
+            final var angestellter = id == null ? null : angestellte.get(id);
+            if (angestellter != null &&
+                (geschlechter.isEmpty() || geschlechter.contains(angestellter.getGeschlecht())) &&
+                (familienstaende.isEmpty() || familienstaende.contains(angestellter.getFamilienstand())) &&
+                (hasNewsletter == null || hasNewsletter == angestellter.isHasNewsletter())) {
+                result.add(angestellter);
+            }
+        });
+        log.debug("findByMerkmale: angestellte={}", result);
+        return result;
+    }
+
+    /**
+     * Einen neuen Angestellten anlegen, sofern seine Emailadresse noch nicht existiert. Die Prüfung und das Reservieren
+     * der Emailadresse erfolgen in einem einzigen atomaren Schritt, so dass parallele Requests mit derselben
+     * Emailadresse nicht beide erfolgreich sein können.
      *
      * @param angestellter Das Objekt des neu anzulegenden Angestellten.
-     * @return Der neu angelegte Angestellter mit generierter ID
+     * @return Der neu angelegte Angestellter mit generierter ID oder ein leeres Optional, falls die Emailadresse
+     *      bereits existiert
      */
-    public @NonNull Angestellter create(final @NonNull Angestellter angestellter) {
-        log.debug("create: {}", angestellter);
-        angestellter.setId(randomUUID());
-        ANGESTELLTE.add(angestellter);
-        log.debug("create: {}", angestellter);
-        return angestellter;
+    @Override
+    public Optional<Angestellter> createIfEmailAbsent(final @NonNull Angestellter angestellter) {
+        log.debug("createIfEmailAbsent: {}", angestellter);
+        final long logNummer;
+        writeLock.lock();
+        try {
+            logNummer = anlegen(angestellter);
+            if (logNummer == 0L) {
+                log.debug("createIfEmailAbsent: email {} existiert", angestellter.getEmail());
+                return Optional.empty();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        // Group Commit ausserhalb der Sperre, damit parallele Schreiboperationen ein gemeinsames fsync nutzen
+        festschreiben(logNummer);
+        log.debug("createIfEmailAbsent: {}", angestellter);
+        return Optional.of(angestellter);
     }
 
     /**
-     * Einen vorhandenen Angestellten aktualisieren.
+     * Mehrere neue Angestellte anlegen, sofern ihre Emailadressen noch nicht existieren. Eine Emailadresse, die
+     * innerhalb der Liste mehrfach vorkommt, wird nur beim ersten Angestellten übernommen. Die Angestellten werden in
+     * Blöcken unter der Schreibsperre eingefügt, damit parallele Schreibzugriffe nicht bis zum Ende warten, und
+     * gemeinsam mit einem einzigen Group Commit festgeschrieben.
+     *
+     * @param neueAngestellte Die Objekte der neu anzulegenden Angestellten.
+     * @return Für jeden Angestellten in derselben Reihenfolge der neu angelegte Angestellte mit generierter ID oder ein
+     *      leeres Optional, falls die Emailadresse bereits existiert
+     */
+    @Override
+    public List<Optional<Angestellter>> createAllIfEmailAbsent(final @NonNull List<Angestellter> neueAngestellte) {
+        log.debug("createAllIfEmailAbsent: #angestellte={}", neueAngestellte.size());
+        final var result = new ArrayList<Optional<Angestellter>>(neueAngestellte.size());
+        var logNummer = 0L;
+        for (int start = 0; start < neueAngestellte.size(); start += INDEX_BLOCK) {
+            final var block = neueAngestellte.subList(start, Math.min(start + INDEX_BLOCK, neueAngestellte.size()));
+            writeLock.lock();
+            try {
+                for (final var angestellter : block) {
+                    final var nummer = anlegen(angestellter);
+                    if (nummer == 0L) {
+                        result.add(Optional.empty());
+                        continue;
+                    }
+                    logNummer = nummer;
+                    result.add(Optional.of(angestellter));
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        festschreiben(logNummer);
+        log.debug("createAllIfEmailAbsent: #angestellte={}", angestellte.size());
+        return result;
+    }
+
+    /**
+     * Einen vorhandenen Angestellten aktualisieren. Bei einer geänderten Emailadresse wird der Eintrag im Email-Index
+     * atomar ausgetauscht.
      *
      * @param angestellter Das Objekt mit den neuen Daten
+     * @return false, falls die neue Emailadresse bereits zu einem anderen Angestellten gehört, sonst true
      */
-    public void update(final @NonNull Angestellter angestellter) {
+    @Override
+    public boolean update(final @NonNull Angestellter angestellter) {
         log.debug("update: {}", angestellter);
-        final OptionalInt index = IntStream
-            .range(0, ANGESTELLTE.size())
-            .filter(i -> Objects.equals(ANGESTELLTE.get(i).getId(), angestellter.getId()))
-            .findFirst();
-        log.trace("update: index={}", index);
-        if (index.isEmpty()) {
-            return;
+        final var id = angestellter.getId();
+        if (id == null) {
+            return true;
+        }
+        final long logNummer;
+        writeLock.lock();
+        try {
+            if (!angestellte.containsKey(id)) {
+                log.trace("update: Kein Angestellter mit der ID {}", id);
+                return true;
+            }
+            logNummer = aktualisieren(angestellter);
+            if (logNummer == 0L) {
+                log.debug("update: email {} existiert", angestellter.getEmail());
+                return false;
+            }
+        } finally {
+            writeLock.unlock();
         }
-        ANGESTELLTE.set(index.getAsInt(), angestellter);
+        festschreiben(logNummer);
         log.debug("update: {}", angestellter);
+        return true;
+    }
+
+    /**
+     * Mehrere vorhandene Angestellte in Blöcken mit jeweils einer Sperre aktualisieren und gemeinsam im
+     * Write-Ahead-Log festschreiben.
+     *
+     * @param geaenderte Die Objekte mit den neuen Daten
+     * @return Für jeden Angestellten false, falls die neue Emailadresse bereits zu einem anderen gehört, sonst true
+     */
+    @Override
+    public List<Boolean> updateAll(final @NonNull List<Angestellter> geaenderte) {
+        log.debug("updateAll: #angestellte={}", geaenderte.size());
+        final var result = new ArrayList<Boolean>(geaenderte.size());
+        var logNummer = 0L;
+        for (int start = 0; start < geaenderte.size(); start += INDEX_BLOCK) {
+            final var block = geaenderte.subList(start, Math.min(start + INDEX_BLOCK, geaenderte.size()));
+            writeLock.lock();
+            try {
+                for (final var angestellter : block) {
+                    final var id = angestellter.getId();
+                    if (id == null || !angestellte.containsKey(id)) {
+                        result.add(true);
+                        continue;
+                    }
+                    final var nummer = aktualisieren(angestellter);
+                    if (nummer == 0L) {
+                        log.debug("updateAll: email {} existiert", angestellter.getEmail());
+                        result.add(false);
+                        continue;
+                    }
+                    logNummer = nummer;
+                    result.add(true);
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        festschreiben(logNummer);
+        return result;
     }
 
     /**
@@ -202,14 +668,467 @@ public class AngestellterRepository {
      *
      * @param id Die ID des zu löschenden Angestellten.
      */
+    @Override
     public void deleteById(final UUID id) {
         log.debug("deleteById: id={}", id);
-        final OptionalInt index = IntStream
-            .range(0, ANGESTELLTE.size())
-            .filter(i -> Objects.equals(ANGESTELLTE.get(i).getId(), id))
-            .findFirst();
-        log.trace("deleteById: index={}", index);
-        index.ifPresent(ANGESTELLTE::remove);
-        log.debug("deleteById: #ANGESTELLTE={}", ANGESTELLTE.size());
+        if (id == null) {
+            return;
+        }
+        var logNummer = 0L;
+        writeLock.lock();
+        try {
+            if (angestellte.containsKey(id)) {
+                // zuerst protokollieren, damit ein Fehler beim Schreiben des Logs den Angestellten nicht entfernt
+                logNummer = protokollieren(new LogEintrag.Delete(id));
+                entfernen(id);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        festschreiben(logNummer);
+        log.debug("deleteById: #angestellte={}", angestellte.size());
+    }
+
+    // Keyset-Pagination: Bereichsscan ab dem Cursor, wobei ein zusaetzlicher Treffer eine weitere Seite anzeigt
+    private static Seite<Angestellter> seite(
+        final NavigableSet<UUID> sortierteIds,
+        final Function<UUID, Angestellter> lookup,
+        final Predicate<Angestellter> filter,
+        final UUID after,
+        final UUID before,
+        final int size
+    ) {
+        final var rueckwaerts = before != null;
+        final NavigableSet<UUID> bereich;
+        if (rueckwaerts) {
+            bereich = sortierteIds.headSet(before, false).descendingSet();
+        } else {
+            bereich = after == null ? sortierteIds : sortierteIds.tailSet(after, false);
+        }
+
+        final var inhalt = new ArrayList<Angestellter>(size + 1);
+        for (final var id : bereich) {
+            // zwischenzeitlich geloeschte Angestellte ueberspringen
+            final var angestellter = lookup.apply(id);
+            if (angestellter != null && filter.test(angestellter)) {
+                inhalt.add(angestellter);
+                if (inhalt.size() > size) {
+                    break;
+                }
+            }
+        }
+        final var weitere = inhalt.size() > size;
+        if (weitere) {
+            inhalt.remove(size);
+        }
+        if (rueckwaerts) {
+            Collections.reverse(inhalt);
+            return new Seite<>(inhalt, weitere, treffer(sortierteIds.tailSet(before, true), lookup, filter));
+        }
+        final var vorherige = after != null
+            && treffer(sortierteIds.headSet(after, true).descendingSet(), lookup, filter);
+        return new Seite<>(inhalt, vorherige, weitere);
+    }
+
+    // der Cursor ist meist selbst ein Treffer, so dass die Suche in der Gegenrichtung sofort endet
+    private static boolean treffer(
+        final Collection<UUID> bereich,
+        final Function<UUID, Angestellter> lookup,
+        final Predicate<Angestellter> filter
+    ) {
+        for (final var id : bereich) {
+            final var angestellter = lookup.apply(id);
+            if (angestellter != null && filter.test(angestellter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private QueryPlanner.Ergebnis suchen(final Map<String, String> suchkriterien) {
+        indexeAufgebaut.join();
+        return kriterien(suchkriterien)
+            .map(kriterien -> queryPlanner.ausfuehren(suchkriterien, kriterien))
+            .orElseGet(() -> QueryPlanner.keinTreffer(suchkriterien));
+    }
+
+    // leeres Optional, falls ein Suchkriterium ungueltig ist und es deshalb keinen Treffer geben kann
+    private Optional<List<Kriterium>> kriterien(final Map<String, String> suchkriterien) {
+        final var kriterien = new ArrayList<Kriterium>(suchkriterien.size());
+        final var von = suchkriterien.get(GEBURTSDATUM_VON);
+        final var bis = suchkriterien.get(GEBURTSDATUM_BIS);
+        if (von != null || bis != null) {
+            // beide Grenzen in einem einzigen Bereichsscan
+            final var kriterium = geburtsdatumKriterium(von, bis);
+            if (kriterium.isEmpty()) {
+                return Optional.empty();
+            }
+            kriterien.add(kriterium.get());
+        }
+        for (final var entry : suchkriterien.entrySet()) {
+            if (entry.getKey().equals(GEBURTSDATUM_VON) || entry.getKey().equals(GEBURTSDATUM_BIS)) {
+                continue;
+            }
+            final var kriterium = kriterium(entry.getKey(), entry.getValue());
+            if (kriterium.isEmpty()) {
+                return Optional.empty();
+            }
+            kriterien.add(kriterium.get());
+        }
+        return Optional.of(kriterien);
+    }
+
+    @SuppressWarnings("CyclomaticComplexity")
+    private Optional<Kriterium> kriterium(final String name, final String wert) {
+        return switch (name) {
+            case "email" -> Optional.of(Kriterium.of(
+                name,
+                angestellter -> wert.equals(angestellter.getEmail()),
+                new IndexZugriff.Ids(
+                    name,
+                    () -> emailIndex.contains(wert) ? 1 : 0,
+                    () -> emailIndex.get(wert).map(List::of).orElse(List.of())
+                )
+            ));
+            case "nachname" -> Optional.of(Kriterium.of(
+                name,
+                angestellter -> angestellter.getNachname() != null && angestellter.getNachname().contains(wert),
+                new IndexZugriff.Ids(name, () -> nachnameIndex.estimate(wert), () -> nachnameIndex.find(wert))
+            ));
+            case "plz" -> Optional.of(Kriterium.of(
+                name,
+                angestellter -> {
+                    final var adresse = angestellter.getAdresse();
+                    return adresse != null && adresse.getPlz() != null && adresse.getPlz().startsWith(wert);
+                },
+                new IndexZugriff.Ids(name, () -> plzIndex.estimate(wert), () -> plzIndex.find(wert)),
+                spalten.plz(wert)
+            ));
+            case "ort" -> {
+                final var ort = OrtIndex.normalisieren(wert);
+                yield Optional.of(Kriterium.of(
+                    name,
+                    angestellter -> {
+                        final var adresse = angestellter.getAdresse();
+                        return adresse != null && adresse.getOrt() != null &&
+                            ort.equals(OrtIndex.normalisieren(adresse.getOrt()));
+                    },
+                    new IndexZugriff.Ids(name, () -> ortIndex.estimate(ort), () -> ortIndex.find(ort)),
+                    spalten.ort(ort)
+                ));
+            }
+            case "geschlecht" -> parseEnums(wert, GeschlechtType::of).map(geschlechter -> Kriterium.of(
+                name,
+                angestellter -> geschlechter.contains(angestellter.getGeschlecht()),
+                new IndexZugriff.Rows(name, () -> geschlechtIndex.getAny(geschlechter)),
+                spalten.geschlecht(geschlechter)
+            ));
+            case "familienstand" -> parseEnums(wert, FamilienstandType::of).map(familienstaende -> Kriterium.of(
+                name,
+                angestellter -> familienstaende.contains(angestellter.getFamilienstand()),
+                new IndexZugriff.Rows(name, () -> familienstandIndex.getAny(familienstaende)),
+                spalten.familienstand(familienstaende)
+            ));
+            case "hasNewsletter" -> {
+                final var hasNewsletter = Boolean.parseBoolean(wert);
+                yield Optional.of(Kriterium.of(
+                    name,
+                    angestellter -> angestellter.isHasNewsletter() == hasNewsletter,
+                    new IndexZugriff.Rows(name, () -> hasNewsletter
+                        ? newsletterIndex.get(TRUE)
+                        : rowIds.alle().andNot(newsletterIndex.get(TRUE))),
+                    spalten.newsletter(hasNewsletter)
+                ));
+            }
+            default -> {
+                log.debug("kriterium: ungueltiges Suchkriterium={}", name);
+                yield Optional.empty();
+            }
+        };
+    }
+
+    private Optional<Kriterium> geburtsdatumKriterium(final String vonWert, final String bisWert) {
+        final var vonOpt = vonWert == null ? Optional.of(LocalDate.MIN) : parseDatum(vonWert);
+        final var bisOpt = bisWert == null ? Optional.of(LocalDate.MAX) : parseDatum(bisWert);
+        if (vonOpt.isEmpty() || bisOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        final var von = vonOpt.get();
+        final var bis = bisOpt.get();
+        return Optional.of(Kriterium.of(
+            GEBURTSDATUM,
+            angestellter -> {
+                final var geburtsdatum = angestellter.getGeburtsdatum();
+                return geburtsdatum != null && !geburtsdatum.isBefore(von) && !geburtsdatum.isAfter(bis);
+            },
+            new IndexZugriff.Ids(
+                GEBURTSDATUM,
+                () -> geburtsdatumIndex.estimate(von, bis),
+                () -> geburtsdatumIndex.find(von, bis)
+            ),
+            spalten.geburtsdatum(von, bis)
+        ));
+    }
+
+    // Die folgenden Methoden veraendern die Daten und muessen mit writeLock oder im Konstruktor aufgerufen werden
+    private void einfuegen(final Angestellter angestellter) {
+        sichern(angestellter.getId(), null);
+        kanonisieren(angestellter);
+        angestellte.put(angestellter);
+        ids.add(angestellter.getId());
+        emailIndex.putIfAbsent(angestellter.getEmail(), angestellter.getId());
+        indexieren(angestellter, null);
+    }
+
+    // Nur mit writeLock aufrufen. Die Emailadresse wird zuerst reserviert und der Eintrag protokolliert, bevor der
+    // Speicher und die Indexe geaendert werden. Schlaegt das Protokollieren fehl, z.B. bei voller Platte, wird nur die
+    // Reservierung zurueckgenommen. Liefert die Nummer im Log oder 0, falls die Emailadresse existiert.
+    private long anlegen(final Angestellter angestellter) {
+        final var id = idGenerator.naechsteId();
+        final var email = angestellter.getEmail();
+        if (!emailIndex.putIfAbsent(email, id)) {
+            return 0L;
+        }
+        angestellter.setId(id);
+        final long nummer;
+        try {
+            nummer = protokollieren(new LogEintrag.Create(angestellter));
+        } catch (final RuntimeException ex) {
+            emailIndex.remove(email, id);
+            angestellter.setId(null);
+            throw ex;
+        }
+        einfuegen(angestellter);
+        return nummer;
+    }
+
+    // nur mit writeLock fuer einen vorhandenen Angestellten aufrufen, wie bei anlegen()
+    private long aktualisieren(final Angestellter angestellter) {
+        final var id = angestellter.getId();
+        final var alt = angestellte.get(id);
+        final var alteEmail = alt == null ? null : alt.getEmail();
+        if (!emailIndex.replace(id, alteEmail, angestellter.getEmail())) {
+            return 0L;
+        }
+        final long nummer;
+        try {
+            nummer = protokollieren(new LogEintrag.Update(angestellter));
+        } catch (final RuntimeException ex) {
+            emailIndex.replace(id, angestellter.getEmail(), alteEmail);
+            throw ex;
+        }
+        uebernehmen(angestellter, alt);
+        return nummer;
+    }
+
+    // der bisherige Stand ist eine Kopie aus dem Speicher und wird fuer die Sekundaerindexe benoetigt
+    private boolean ersetzen(final Angestellter angestellter) {
+        final var alt = angestellte.get(angestellter.getId());
+        final var alteEmail = alt == null ? null : alt.getEmail();
+        if (!emailIndex.replace(angestellter.getId(), alteEmail, angestellter.getEmail())) {
+            return false;
+        }
+        uebernehmen(angestellter, alt);
+        return true;
+    }
+
+    // die Emailadresse ist bereits im Email-Index ausgetauscht
+    private void uebernehmen(final Angestellter angestellter, final @Nullable Angestellter alt) {
+        sichern(angestellter.getId(), alt);
+        kanonisieren(angestellter);
+        angestellte.put(angestellter);
+        if (alt != null) {
+            freigeben(alt);
+        }
+        indexieren(angestellter, alt);
+    }
+
+    private boolean entfernen(final UUID id) {
+        final var alt = angestellte.get(id);
+        if (alt == null) {
+            return false;
+        }
+        sichern(id, alt);
+        if (!angestellte.remove(id)) {
+            return false;
+        }
+        freigeben(alt);
+        ids.remove(id);
+        emailIndex.remove(alt.getEmail(), id);
+        deindexieren(alt);
+        return true;
+    }
+
+    // Nachname und Adresse gehoeren zum gespeicherten Angestellten und werden mit ihm wieder freigegeben
+    private void kanonisieren(final Angestellter angestellter) {
+        if (kanonisierung == null) {
+            return;
+        }
+        angestellter.setNachname(kanonisierung.zeichenkette(angestellter.getNachname()));
+        angestellter.setAdresse(kanonisierung.adresse(angestellter.getAdresse()));
+    }
+
+    private void freigeben(final Angestellter alt) {
+        if (kanonisierung == null) {
+            return;
+        }
+        kanonisierung.freigeben(alt.getNachname());
+        kanonisierung.freigeben(alt.getAdresse());
+    }
+
+    // Kopien, weil alle Repositories dieselben statischen Testdaten verwenden und das Einfuegen sie kanonisiert
+    private void testdatenEinfuegen() {
+        ANGESTELLTE.stream().map(Angestellter::kopie).forEach(this::einfuegen);
+    }
+
+    private void sichern(final UUID id, final @Nullable Angestellter alt) {
+        lesesichten.forEach(sicht -> sicht.vorAenderung(id, alt));
+    }
+
+    // Laden aus einem Snapshot ohne die Sekundaerindexe, die anschliessend im Hintergrund aufgebaut werden
+    private void laden(final Angestellter angestellter) {
+        kanonisieren(angestellter);
+        angestellte.put(angestellter);
+        ids.add(angestellter.getId());
+        emailIndex.putIfAbsent(angestellter.getEmail(), angestellter.getId());
+    }
+
+    // in Bloecken, damit Schreibzugriffe zwischendurch moeglich sind; erneutes Indexieren hat keine Auswirkung
+    private void indexeAufbauen() {
+        try {
+            final var alleIds = List.copyOf(ids);
+            for (int start = 0; start < alleIds.size(); start += INDEX_BLOCK) {
+                writeLock.lock();
+                try {
+                    alleIds.subList(start, Math.min(start + INDEX_BLOCK, alleIds.size()))
+                        .stream()
+                        .map(angestellte::get)
+                        .filter(Objects::nonNull)
+                        .forEach(angestellter -> indexieren(angestellter, null));
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+            log.info("indexeAufbauen: {} Angestellte indexiert", alleIds.size());
+            indexeAufgebaut.complete(null);
+        } catch (final RuntimeException ex) {
+            log.error("indexeAufbauen", ex);
+            indexeAufgebaut.completeExceptionally(ex);
+        }
+    }
+
+    private void snapshotImHintergrund() {
+        try {
+            snapshot();
+        } catch (final UncheckedIOException ex) {
+            log.error("snapshotImHintergrund", ex);
+        }
+    }
+
+    private void einspielen(final LogEintrag eintrag) {
+        switch (eintrag) {
+            case LogEintrag.Create create -> {
+                // schon im Snapshot enthalten: erneutes Einfuegen wuerde die Referenzzaehler doppelt erhoehen
+                if (!angestellte.containsKey(create.angestellter().getId())) {
+                    einfuegen(create.angestellter());
+                }
+            }
+            case LogEintrag.Update update -> {
+                if (angestellte.containsKey(update.angestellter().getId())) {
+                    ersetzen(update.angestellter());
+                }
+            }
+            case LogEintrag.Delete delete -> entfernen(delete.id());
+        }
+    }
+
+    // nur mit writeLock aufrufen: die laufende Nummer im Log ist zugleich die Sequenznummer der Aenderung
+    private long protokollieren(final LogEintrag eintrag) {
+        final var nummer = wal == null ? aenderungen.naechsteSequenz() : wal.append(eintrag);
+        aenderungen.anfuegen(Aenderung.of(nummer, eintrag));
+        return nummer;
+    }
+
+    // die Aenderungen erst nach dem Festschreiben fuer die Leser veroeffentlichen
+    private void festschreiben(final long logNummer) {
+        if (logNummer == 0L) {
+            return;
+        }
+        if (wal != null) {
+            wal.commit(logNummer);
+        }
+        aenderungen.veroeffentlichen(logNummer);
+    }
+
+    // Die Sekundärindexe werden inkrementell mit den indexierten Attributen aktualisiert. Der bisherige Stand ist null
+    // beim Neuanlegen und beim Aufbau der Indexe nach dem Laden eines Snapshots.
+    private void indexieren(final Angestellter angestellter, final @Nullable Angestellter alt) {
+        final var id = angestellter.getId();
+        final var row = rowIds.add(id);
+        spalten.put(row, angestellter);
+        geschlechtIndex.put(row, angestellter.getGeschlecht());
+        familienstandIndex.put(row, angestellter.getFamilienstand());
+        newsletterIndex.put(row, angestellter.isHasNewsletter() ? TRUE : null);
+        geburtsdatumIndex.put(id, alt == null ? null : alt.getGeburtsdatum(), angestellter.getGeburtsdatum());
+        plzIndex.put(id, plz(alt), plz(angestellter));
+        ortIndex.put(id, ort(alt), ort(angestellter));
+
+        final var nachname = angestellter.getNachname();
+        final var alterNachname = nachnameIndex.put(id, nachname);
+        if (alterNachname == null) {
+            nachnamePrefixIndex.add(nachname);
+        } else {
+            nachnamePrefixIndex.replace(alterNachname, nachname);
+        }
+    }
+
+    private void deindexieren(final Angestellter alt) {
+        final var id = alt.getId();
+        final var row = rowIds.remove(id);
+        if (row >= 0) {
+            spalten.remove(row);
+            geschlechtIndex.remove(row);
+            familienstandIndex.remove(row);
+            newsletterIndex.remove(row);
+        }
+        final var alterNachname = nachnameIndex.remove(id);
+        nachnamePrefixIndex.remove(alterNachname);
+        geburtsdatumIndex.remove(id, alt.getGeburtsdatum());
+        plzIndex.remove(id, plz(alt));
+        ortIndex.remove(id, ort(alt));
+    }
+
+    private static String plz(final @Nullable Angestellter angestellter) {
+        return angestellter == null || angestellter.getAdresse() == null ? null : angestellter.getAdresse().getPlz();
+    }
+
+    private static String ort(final @Nullable Angestellter angestellter) {
+        return angestellter == null || angestellter.getAdresse() == null ? null : angestellter.getAdresse().getOrt();
+    }
+
+    // Komma-separierte Werte, z.B. "W,D", die anschliessend mit OR verknuepft werden
+    static <T> Optional<Collection<T>> parseEnums(
+        final String werte,
+        final Function<String, Optional<T>> parser
+    ) {
+        final var result = Arrays.stream(werte.split(","))
+            .map(String::strip)
+            .map(parser)
+            .toList();
+        if (result.stream().anyMatch(Optional::isEmpty)) {
+            log.debug("parseEnums: ungueltiger Wert in {}", werte);
+            return Optional.empty();
+        }
+        return Optional.of(result.stream().map(Optional::get).toList());
+    }
+
+    // Datum im ISO-Format, z.B. "2000-01-31"
+    static Optional<LocalDate> parseDatum(final String wert) {
+        try {
+            return Optional.of(LocalDate.parse(wert));
+        } catch (final DateTimeParseException ex) {
+            log.debug("parseDatum: ungueltiges Datum {}", wert);
+            return Optional.empty();
+        }
     }
 }
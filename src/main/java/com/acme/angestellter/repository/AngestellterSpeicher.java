@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Speicher für die Angestellten mit dem Zugriff über die ID als Primärschlüssel. Die Sekundärindexe verwaltet das
+ * {@link AngestellterRepository}, das auch alle Schreibzugriffe serialisiert. Lesende Zugriffe sind parallel möglich.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+sealed interface AngestellterSpeicher extends AutoCloseable, MeterBinder permits HeapSpeicher, OffHeapSpeicher {
+    /**
+     * Einen Speicher gemäß der Konfiguration erzeugen.
+     *
+     * @param properties Die Konfiguration oder null für den Heap
+     * @return Der neue Speicher
+     */
+    static AngestellterSpeicher of(final SpeicherProperties properties) {
+        if (properties == null || properties.typ() == SpeicherProperties.Typ.HEAP) {
+            return new HeapSpeicher();
+        }
+        return new OffHeapSpeicher(properties.blockGroesse().toBytes());
+    }
+
+    /**
+     * Einen Angestellten anhand seiner ID ermitteln.
+     *
+     * @param id Die ID
+     * @return Der Angestellte oder null
+     */
+    Angestellter get(UUID id);
+
+    /**
+     * Abfrage, ob es einen Angestellten mit der ID gibt.
+     *
+     * @param id Die ID
+     * @return true, falls es einen solchen Angestellten gibt
+     */
+    boolean containsKey(UUID id);
+
+    /**
+     * Einen Angestellten speichern bzw. den vorhandenen Angestellten mit derselben ID ersetzen.
+     *
+     * @param angestellter Der Angestellte
+     */
+    void put(Angestellter angestellter);
+
+    /**
+     * Einen Angestellten entfernen.
+     *
+     * @param id Die ID
+     * @return true, falls der Angestellte vorhanden war
+     */
+    boolean remove(UUID id);
+
+    /**
+     * Die Anzahl der Angestellten ermitteln.
+     *
+     * @return Die Anzahl der Angestellten
+     */
+    int size();
+
+    /**
+     * Alle Angestellten ermitteln.
+     *
+     * @return Alle Angestellten
+     */
+    Collection<Angestellter> values();
+
+    /**
+     * Die Metriken des Speichers registrieren.
+     *
+     * @param registry Die Registry von Micrometer für Actuator
+     */
+    @Override
+    void bindTo(MeterRegistry registry);
+
+    /**
+     * Den Speicher freigeben.
+     */
+    @Override
+    void close();
+}
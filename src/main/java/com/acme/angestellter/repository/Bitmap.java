@@ -0,0 +1,564 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Komprimierte Bitmap für nicht-negative int-Werte nach dem Roaring-Verfahren: Die oberen 16 Bit eines Werts wählen
+ * einen Container aus, in dem die unteren 16 Bit abgelegt werden. Ein Container mit wenigen Werten ist ein sortiertes
+ * char-Array, ein Container mit mehr als 4096 Werten eine unkomprimierte Bitmap mit 2^16 Bit.
+ * <p>
+ * Die Klasse ist nicht threadsicher.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@SuppressWarnings("MagicNumber")
+final class Bitmap {
+    /**
+     * Maximale Anzahl an Werten in einem Array-Container. Ab dann ist ein Bitmap-Container mit 8 KB kleiner.
+     */
+    private static final int ARRAY_MAX = 4096;
+
+    private static final int WORDS = 1024;
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private char[] keys;
+
+    private Container[] containers;
+
+    private int size;
+
+    /**
+     * Konstruktor für eine leere Bitmap.
+     */
+    Bitmap() {
+        keys = new char[INITIAL_CAPACITY];
+        containers = new Container[INITIAL_CAPACITY];
+    }
+
+    private Bitmap(final int capacity) {
+        keys = new char[Math.max(capacity, 1)];
+        containers = new Container[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Einen Wert hinzufügen.
+     *
+     * @param wert Der nicht-negative Wert
+     */
+    void add(final int wert) {
+        final var key = high(wert);
+        final var index = Arrays.binarySearch(keys, 0, size, key);
+        if (index >= 0) {
+            containers[index] = containers[index].add(low(wert));
+            return;
+        }
+        final var container = new ArrayContainer();
+        container.add(low(wert));
+        insert(-index - 1, key, container);
+    }
+
+    /**
+     * Einen Wert entfernen.
+     *
+     * @param wert Der nicht-negative Wert
+     */
+    void remove(final int wert) {
+        final var index = Arrays.binarySearch(keys, 0, size, high(wert));
+        if (index < 0) {
+            return;
+        }
+        final var container = containers[index].remove(low(wert));
+        if (container.cardinality() == 0) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+            size--;
+            containers[size] = null;
+            return;
+        }
+        containers[index] = container;
+    }
+
+    /**
+     * Abfrage, ob ein Wert enthalten ist.
+     *
+     * @param wert Der nicht-negative Wert
+     * @return true, falls der Wert enthalten ist
+     */
+    boolean contains(final int wert) {
+        final var index = Arrays.binarySearch(keys, 0, size, high(wert));
+        return index >= 0 && containers[index].contains(low(wert));
+    }
+
+    /**
+     * Anzahl der enthaltenen Werte.
+     *
+     * @return Die Anzahl
+     */
+    int cardinality() {
+        var result = 0;
+        for (int i = 0; i < size; i++) {
+            result += containers[i].cardinality();
+        }
+        return result;
+    }
+
+    /**
+     * Abfrage, ob die Bitmap leer ist.
+     *
+     * @return true, falls kein Wert enthalten ist
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Schnittmenge als neue Bitmap (AND).
+     *
+     * @param other Die andere Bitmap
+     * @return Neue Bitmap mit der Schnittmenge
+     */
+    Bitmap and(final Bitmap other) {
+        final var result = new Bitmap(Math.min(size, other.size));
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                final var container = containers[i].and(other.containers[j]);
+                if (container.cardinality() > 0) {
+                    result.append(keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Vereinigungsmenge als neue Bitmap (OR).
+     *
+     * @param other Die andere Bitmap
+     * @return Neue Bitmap mit der Vereinigungsmenge
+     */
+    Bitmap or(final Bitmap other) {
+        final var result = new Bitmap(size + other.size);
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j >= other.size || i < size && keys[i] < other.keys[j]) {
+                result.append(keys[i], containers[i].copy());
+                i++;
+            } else if (i >= size || keys[i] > other.keys[j]) {
+                result.append(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.append(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Differenzmenge als neue Bitmap (AND NOT). Zusammen mit der Bitmap aller Werte entspricht das einem NOT.
+     *
+     * @param other Die abzuziehende Bitmap
+     * @return Neue Bitmap mit den Werten, die nicht in der anderen Bitmap enthalten sind
+     */
+    Bitmap andNot(final Bitmap other) {
+        final var result = new Bitmap(size);
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            final var container = j < other.size && other.keys[j] == keys[i]
+                ? containers[i].andNot(other.containers[j])
+                : containers[i].copy();
+            if (container.cardinality() > 0) {
+                result.append(keys[i], container);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Alle Werte in aufsteigender Reihenfolge verarbeiten.
+     *
+     * @param consumer Die Verarbeitung für einen Wert
+     */
+    void forEach(final IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+
+    /**
+     * Eine Bitmap aus unkomprimierten Bits erstellen, z.B. aus dem Ergebnis eines spaltenweisen Scans.
+     *
+     * @param words Die Bits für die Werte ab 0, d.h. 64 Werte je long
+     * @return Die neue Bitmap
+     */
+    static Bitmap of(final long[] words) {
+        final var anzahlContainer = (words.length + WORDS - 1) / WORDS;
+        final var result = new Bitmap(anzahlContainer);
+        for (int i = 0; i < anzahlContainer; i++) {
+            final var container = new BitmapContainer(Arrays.copyOfRange(words, i * WORDS, (i + 1) * WORDS));
+            if (container.anzahl > ARRAY_MAX) {
+                result.append((char) i, container);
+            } else if (container.anzahl > 0) {
+                result.append((char) i, container.toArrayContainer());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Eine unabhängige Kopie erstellen.
+     *
+     * @return Die Kopie
+     */
+    Bitmap copy() {
+        final var result = new Bitmap(size);
+        for (int i = 0; i < size; i++) {
+            result.append(keys[i], containers[i].copy());
+        }
+        return result;
+    }
+
+    private void append(final char key, final Container container) {
+        insert(size, key, container);
+    }
+
+    private void insert(final int index, final char key, final Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private static char high(final int wert) {
+        return (char) (wert >>> 16);
+    }
+
+    private static char low(final int wert) {
+        return (char) wert;
+    }
+
+    /**
+     * Container für die unteren 16 Bit. Verändernde Operationen liefern ggf. einen Container anderen Typs.
+     */
+    private sealed interface Container permits ArrayContainer, BitmapContainer {
+        Container add(char wert);
+
+        Container remove(char wert);
+
+        boolean contains(char wert);
+
+        int cardinality();
+
+        Container and(Container other);
+
+        Container or(Container other);
+
+        Container andNot(Container other);
+
+        void forEach(int high, IntConsumer consumer);
+
+        Container copy();
+    }
+
+    /**
+     * Container mit einem sortierten Array für bis zu 4096 Werte.
+     */
+    private static final class ArrayContainer implements Container {
+        private char[] werte;
+        private int anzahl;
+
+        ArrayContainer() {
+            werte = new char[INITIAL_CAPACITY];
+        }
+
+        ArrayContainer(final char[] werte, final int anzahl) {
+            this.werte = werte;
+            this.anzahl = anzahl;
+        }
+
+        @Override
+        public Container add(final char wert) {
+            final var index = Arrays.binarySearch(werte, 0, anzahl, wert);
+            if (index >= 0) {
+                return this;
+            }
+            if (anzahl == ARRAY_MAX) {
+                return toBitmapContainer().add(wert);
+            }
+            if (anzahl == werte.length) {
+                werte = Arrays.copyOf(werte, Math.max(Math.min(anzahl * 2, ARRAY_MAX), INITIAL_CAPACITY));
+            }
+            final var pos = -index - 1;
+            System.arraycopy(werte, pos, werte, pos + 1, anzahl - pos);
+            werte[pos] = wert;
+            anzahl++;
+            return this;
+        }
+
+        @Override
+        public Container remove(final char wert) {
+            final var index = Arrays.binarySearch(werte, 0, anzahl, wert);
+            if (index >= 0) {
+                System.arraycopy(werte, index + 1, werte, index, anzahl - index - 1);
+                anzahl--;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contains(final char wert) {
+            return Arrays.binarySearch(werte, 0, anzahl, wert) >= 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return anzahl;
+        }
+
+        @Override
+        public Container and(final Container other) {
+            final var result = new char[anzahl];
+            var n = 0;
+            if (other instanceof ArrayContainer array) {
+                int i = 0;
+                int j = 0;
+                while (i < anzahl && j < array.anzahl) {
+                    if (werte[i] < array.werte[j]) {
+                        i++;
+                    } else if (werte[i] > array.werte[j]) {
+                        j++;
+                    } else {
+                        result[n++] = werte[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < anzahl; i++) {
+                    if (other.contains(werte[i])) {
+                        result[n++] = werte[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, n);
+        }
+
+        @Override
+        public Container or(final Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            final var array = (ArrayContainer) other;
+            final var result = new char[anzahl + array.anzahl];
+            var n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < anzahl || j < array.anzahl) {
+                if (j >= array.anzahl || i < anzahl && werte[i] < array.werte[j]) {
+                    result[n++] = werte[i++];
+                } else if (i >= anzahl || werte[i] > array.werte[j]) {
+                    result[n++] = array.werte[j++];
+                } else {
+                    result[n++] = werte[i];
+                    i++;
+                    j++;
+                }
+            }
+            final var container = new ArrayContainer(result, n);
+            return n > ARRAY_MAX ? container.toBitmapContainer() : container;
+        }
+
+        @Override
+        public Container andNot(final Container other) {
+            final var result = new char[anzahl];
+            var n = 0;
+            for (int i = 0; i < anzahl; i++) {
+                if (!other.contains(werte[i])) {
+                    result[n++] = werte[i];
+                }
+            }
+            return new ArrayContainer(result, n);
+        }
+
+        @Override
+        public void forEach(final int high, final IntConsumer consumer) {
+            for (int i = 0; i < anzahl; i++) {
+                consumer.accept(high | werte[i]);
+            }
+        }
+
+        @Override
+        public Container copy() {
+            return new ArrayContainer(Arrays.copyOf(werte, Math.max(anzahl, 1)), anzahl);
+        }
+
+        private BitmapContainer toBitmapContainer() {
+            final var bitmap = new BitmapContainer();
+            for (int i = 0; i < anzahl; i++) {
+                bitmap.add(werte[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * Container mit einer unkomprimierten Bitmap für 2^16 Werte.
+     */
+    private static final class BitmapContainer implements Container {
+        private final long[] words;
+        private int anzahl;
+
+        BitmapContainer() {
+            words = new long[WORDS];
+        }
+
+        private BitmapContainer(final long[] words) {
+            this.words = words;
+            for (final var word : words) {
+                anzahl += Long.bitCount(word);
+            }
+        }
+
+        @Override
+        public Container add(final char wert) {
+            final var mask = 1L << wert;
+            final var index = wert >>> 6;
+            if ((words[index] & mask) == 0) {
+                words[index] |= mask;
+                anzahl++;
+            }
+            return this;
+        }
+
+        @Override
+        public Container remove(final char wert) {
+            final var mask = 1L << wert;
+            final var index = wert >>> 6;
+            if ((words[index] & mask) != 0) {
+                words[index] &= ~mask;
+                anzahl--;
+            }
+            return anzahl <= ARRAY_MAX ? toArrayContainer() : this;
+        }
+
+        @Override
+        public boolean contains(final char wert) {
+            return (words[wert >>> 6] & 1L << wert) != 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return anzahl;
+        }
+
+        @Override
+        public Container and(final Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            final var bitmap = (BitmapContainer) other;
+            final var result = new long[WORDS];
+            for (int i = 0; i < WORDS; i++) {
+                result[i] = words[i] & bitmap.words[i];
+            }
+            return normalisieren(new BitmapContainer(result));
+        }
+
+        @Override
+        public Container or(final Container other) {
+            final var result = words.clone();
+            if (other instanceof BitmapContainer bitmap) {
+                for (int i = 0; i < WORDS; i++) {
+                    result[i] |= bitmap.words[i];
+                }
+            } else {
+                final var array = (ArrayContainer) other;
+                for (int i = 0; i < array.anzahl; i++) {
+                    final char wert = array.werte[i];
+                    result[wert >>> 6] |= 1L << wert;
+                }
+            }
+            return new BitmapContainer(result);
+        }
+
+        @Override
+        public Container andNot(final Container other) {
+            final var result = words.clone();
+            if (other instanceof BitmapContainer bitmap) {
+                for (int i = 0; i < WORDS; i++) {
+                    result[i] &= ~bitmap.words[i];
+                }
+            } else {
+                final var array = (ArrayContainer) other;
+                for (int i = 0; i < array.anzahl; i++) {
+                    final char wert = array.werte[i];
+                    result[wert >>> 6] &= ~(1L << wert);
+                }
+            }
+            return normalisieren(new BitmapContainer(result));
+        }
+
+        @Override
+        public void forEach(final int high, final IntConsumer consumer) {
+            for (int i = 0; i < WORDS; i++) {
+                var word = words[i];
+                while (word != 0) {
+                    consumer.accept(high | i << 6 | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        public Container copy() {
+            return new BitmapContainer(words.clone());
+        }
+
+        private ArrayContainer toArrayContainer() {
+            final var werte = new char[Math.max(anzahl, 1)];
+            final var n = new int[1];
+            forEach(0, wert -> werte[n[0]++] = (char) wert);
+            return new ArrayContainer(werte, anzahl);
+        }
+
+        private static Container normalisieren(final BitmapContainer container) {
+            return container.anzahl <= ARRAY_MAX ? container.toArrayContainer() : container;
+        }
+    }
+}
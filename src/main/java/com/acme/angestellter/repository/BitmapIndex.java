@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmap-Index für ein Attribut mit wenigen verschiedenen Werten, z.B. ein Enum oder boolean. Je Wert gibt es eine
+ * komprimierte {@link Bitmap} mit den Zeilennummern der Angestellten, die diesen Wert haben. Abfragen liefern Kopien,
+ * die mit AND, OR und AND NOT kombiniert werden können.
+ *
+ * @param <T> Typ des indexierten Attributs
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class BitmapIndex<T> {
+    private final Map<T, Bitmap> bitmaps = new HashMap<>();
+
+    /**
+     * Der zuletzt indexierte Wert je Zeilennummer, um beim Aktualisieren das alte Bit löschen zu können.
+     */
+    private final Map<Integer, T> werte = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Den Wert für eine Zeilennummer indexieren bzw. ersetzen. Ein Wert null wird nicht indexiert.
+     *
+     * @param row Die Zeilennummer
+     * @param wert Der Wert oder null
+     */
+    void put(final int row, final T wert) {
+        lock.writeLock().lock();
+        try {
+            final var alterWert = wert == null ? werte.remove(row) : werte.put(row, wert);
+            if (Objects.equals(alterWert, wert)) {
+                return;
+            }
+            if (alterWert != null) {
+                entfernen(alterWert, row);
+            }
+            if (wert != null) {
+                bitmaps.computeIfAbsent(wert, w -> new Bitmap()).add(row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Eine Zeilennummer aus dem Index entfernen.
+     *
+     * @param row Die Zeilennummer
+     */
+    void remove(final int row) {
+        put(row, null);
+    }
+
+    /**
+     * Die Zeilennummern zu einem Wert ermitteln.
+     *
+     * @param wert Der Wert
+     * @return Kopie der Bitmap mit den Zeilennummern
+     */
+    Bitmap get(final T wert) {
+        lock.readLock().lock();
+        try {
+            final var bitmap = bitmaps.get(wert);
+            return bitmap == null ? new Bitmap() : bitmap.copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Die Zeilennummern zu mehreren Werten ermitteln, d.h. mit OR verknüpft.
+     *
+     * @param alternativen Die Werte
+     * @return Bitmap mit den Zeilennummern
+     */
+    Bitmap getAny(final Collection<T> alternativen) {
+        lock.readLock().lock();
+        try {
+            var result = new Bitmap();
+            for (final var wert : alternativen) {
+                final var bitmap = bitmaps.get(wert);
+                if (bitmap != null) {
+                    result = result.or(bitmap);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Anzahl der Zeilennummern zu mehreren Werten, z.B. als Statistik für die Selektivität.
+     *
+     * @param alternativen Die Werte
+     * @return Die Anzahl
+     */
+    int cardinality(final Collection<T> alternativen) {
+        lock.readLock().lock();
+        try {
+            return alternativen.stream()
+                .distinct()
+                .map(bitmaps::get)
+                .filter(Objects::nonNull)
+                .mapToInt(Bitmap::cardinality)
+                .sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void entfernen(final T wert, final int row) {
+        final var bitmap = bitmaps.get(wert);
+        if (bitmap != null) {
+            bitmap.remove(row);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(wert);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Konfiguration für {@link AngestellterCache} mit dem Präfix "app.cache", z.B. in application.yml.
+ *
+ * @param groesse Maximale Anzahl Angestellter in der ersten Ebene auf dem Heap.
+ * @param ttl Maximales Alter eines Eintrags, damit Änderungen durch andere Instanzen in der DB sichtbar werden.
+ * @param l2Groesse Maximale Anzahl Angestellter in der zweiten Ebene außerhalb des Heaps. Bei 0 gibt es nur die
+ *                  erste Ebene.
+ * @param l2BlockGroesse Größe der Speicherblöcke der zweiten Ebene.
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@ConfigurationProperties(prefix = "app.cache")
+public record CacheProperties(Integer groesse, Duration ttl, Integer l2Groesse, DataSize l2BlockGroesse) {
+    private static final int DEFAULT_GROESSE = 10_000;
+
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+
+    private static final DataSize DEFAULT_L2_BLOCK_GROESSE = DataSize.ofMegabytes(16);
+
+    /**
+     * Konstruktor mit Defaultwerten für nicht konfigurierte Properties.
+     *
+     * @param groesse Anzahl in der ersten Ebene oder null für 10.000
+     * @param ttl Maximales Alter oder null für 5 min
+     * @param l2Groesse Anzahl in der zweiten Ebene oder null für 0
+     * @param l2BlockGroesse Größe der Speicherblöcke oder null für 16 MB
+     */
+    public CacheProperties {
+        if (groesse == null) {
+            groesse = DEFAULT_GROESSE;
+        }
+        if (ttl == null) {
+            ttl = DEFAULT_TTL;
+        }
+        if (l2Groesse == null) {
+            l2Groesse = 0;
+        }
+        if (l2BlockGroesse == null) {
+            l2BlockGroesse = DEFAULT_L2_BLOCK_GROESSE;
+        }
+    }
+}
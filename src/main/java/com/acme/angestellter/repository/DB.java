@@ -38,7 +38,7 @@ import static com.acme.angestellter.entity.GeschlechtType.WEIBLICH;
 @SuppressWarnings({"UtilityClassCanBeEnum", "UtilityClass", "MagicNumber", "RedundantSuppression"})
 final class DB {
     /**
-     * Liste der Angestellten zur Emulation der DB.
+     * Liste der Angestellten, mit denen die emulierte DB im Repository initialisiert wird.
      */
     @SuppressWarnings("StaticCollection")
     static final List<Angestellter> ANGESTELLTE = getAngestellte();
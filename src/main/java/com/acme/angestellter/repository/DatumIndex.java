@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Sortierter Bereichsindex für Datumswerte, z.B. das Geburtsdatum. Die Schlüssel sind die Tage seit 1970-01-01, so
+ * dass eine Bereichsabfrage die passenden Einträge in O(log n + k) ermittelt.
+ * <p>
+ * Für die Schätzung der Trefferanzahl werden zusätzlich die Anzahlen je Tag in einem Fenwick-Baum gezählt, so dass
+ * {@link #estimate(LocalDate, LocalDate)} unabhängig von der Länge des Bereichs O(log n) benötigt. Der Baum deckt die
+ * Tage ab 1800-01-01 für rund 350 Jahre ab, nur die Einträge außerhalb davon werden einzeln gezählt.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class DatumIndex {
+    private static final long ERSTER_TAG = LocalDate.of(1800, 1, 1).toEpochDay();
+
+    private static final int TAGE = 1 << 17;
+
+    private final MultimapIndex<Long> ids = MultimapIndex.sortiert();
+
+    // Fenwick-Baum ab Index 1: anzahlen[i] zaehlt die Tage (i - (i & -i), i] relativ zu ERSTER_TAG
+    private final int[] anzahlen = new int[TAGE + 1];
+
+    /**
+     * Ein Datum für eine ID indexieren bzw. das bisherige Datum ersetzen.
+     *
+     * @param id Die ID
+     * @param altesDatum Das bisher indexierte Datum oder null
+     * @param datum Das zu indexierende Datum oder null
+     */
+    void put(final UUID id, final LocalDate altesDatum, final LocalDate datum) {
+        if (!Objects.equals(altesDatum, datum)) {
+            remove(id, altesDatum);
+        }
+        if (datum != null && ids.put(id, null, tag(datum))) {
+            zaehlen(datum.toEpochDay(), 1);
+        }
+    }
+
+    /**
+     * Eine ID aus dem Index entfernen.
+     *
+     * @param id Die ID
+     * @param altesDatum Das bisher indexierte Datum oder null
+     */
+    void remove(final UUID id, final LocalDate altesDatum) {
+        if (ids.remove(id, tag(altesDatum))) {
+            zaehlen(altesDatum.toEpochDay(), -1);
+        }
+    }
+
+    /**
+     * Die IDs ermitteln, deren Datum im Bereich liegt.
+     *
+     * @param von Untere Grenze einschließlich
+     * @param bis Obere Grenze einschließlich
+     * @return Die IDs mit passendem Datum
+     */
+    Collection<UUID> find(final LocalDate von, final LocalDate bis) {
+        return von.isAfter(bis) ? List.of() : ids.find(von.toEpochDay(), bis.toEpochDay() + 1);
+    }
+
+    /**
+     * Die Anzahl der IDs im Bereich ermitteln, ohne die IDs zu kopieren.
+     *
+     * @param von Untere Grenze einschließlich
+     * @param bis Obere Grenze einschließlich
+     * @return Die Anzahl der IDs mit passendem Datum
+     */
+    int estimate(final LocalDate von, final LocalDate bis) {
+        if (von.isAfter(bis)) {
+            return 0;
+        }
+        final var vonTag = von.toEpochDay();
+        final var bisTag = bis.toEpochDay();
+        final var fensterVon = Math.max(vonTag, ERSTER_TAG);
+        final var fensterBis = Math.min(bisTag, ERSTER_TAG + TAGE - 1);
+        if (fensterVon > fensterBis) {
+            return ids.estimate(vonTag, bisTag + 1);
+        }
+        // Tage vor und nach dem Fenster werden einzeln gezaehlt
+        var result = summe(fensterBis) - summe(fensterVon - 1);
+        if (vonTag < fensterVon) {
+            result += ids.estimate(vonTag, fensterVon);
+        }
+        if (bisTag > fensterBis) {
+            result += ids.estimate(fensterBis + 1, bisTag + 1);
+        }
+        return result;
+    }
+
+    private void zaehlen(final long tag, final int delta) {
+        if (!imFenster(tag)) {
+            return;
+        }
+        for (int i = (int) (tag - ERSTER_TAG) + 1; i <= TAGE; i += i & -i) {
+            anzahlen[i] += delta;
+        }
+    }
+
+    // Anzahl der Eintraege vom ersten Tag des Fensters bis einschliesslich tag
+    private int summe(final long tag) {
+        var result = 0;
+        for (int i = (int) (tag - ERSTER_TAG) + 1; i > 0; i -= i & -i) {
+            result += anzahlen[i];
+        }
+        return result;
+    }
+
+    private static boolean imFenster(final long tag) {
+        return tag >= ERSTER_TAG && tag < ERSTER_TAG + TAGE;
+    }
+
+    private static Long tag(final LocalDate datum) {
+        return datum == null ? null : datum.toEpochDay();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Eindeutiger Sekundärindex für die Emailadressen der Angestellten. Die Eindeutigkeit wird durch
+ * {@code ConcurrentHashMap.putIfAbsent()} in einem einzigen atomaren Schritt geprüft und gesichert.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class EmailIndex {
+    private final Map<String, UUID> ids = new ConcurrentHashMap<>();
+
+    /**
+     * Eine Emailadresse für eine ID reservieren, sofern sie noch nicht vergeben ist.
+     *
+     * @param email Die zu reservierende Emailadresse
+     * @param id Die ID des Angestellten
+     * @return true, falls die Emailadresse reserviert wurde, false falls sie bereits vergeben ist
+     */
+    boolean putIfAbsent(final String email, final UUID id) {
+        return ids.putIfAbsent(email, id) == null;
+    }
+
+    /**
+     * Die Emailadresse zu einer ID atomar austauschen.
+     *
+     * @param id Die ID des Angestellten
+     * @param alteEmail Die bisherige Emailadresse oder null
+     * @param email Die neue Emailadresse
+     * @return true, falls die neue Emailadresse gesetzt wurde, false falls sie einem anderen Angestellten gehört
+     */
+    boolean replace(final UUID id, final String alteEmail, final String email) {
+        if (Objects.equals(alteEmail, email)) {
+            return true;
+        }
+        final var vorhandeneId = ids.putIfAbsent(email, id);
+        if (vorhandeneId != null && !vorhandeneId.equals(id)) {
+            return false;
+        }
+        if (alteEmail != null) {
+            ids.remove(alteEmail, id);
+        }
+        return true;
+    }
+
+    /**
+     * Die ID zu einer Emailadresse ermitteln.
+     *
+     * @param email Die Emailadresse
+     * @return Die ID oder ein leeres Optional
+     */
+    Optional<UUID> get(final String email) {
+        return email == null ? Optional.empty() : Optional.ofNullable(ids.get(email));
+    }
+
+    /**
+     * Abfrage, ob es eine Emailadresse bereits gibt.
+     *
+     * @param email Die Emailadresse
+     * @return true, falls die Emailadresse vergeben ist
+     */
+    boolean contains(final String email) {
+        return email != null && ids.containsKey(email);
+    }
+
+    /**
+     * Die Emailadresse einer ID aus dem Index entfernen.
+     *
+     * @param email Die Emailadresse des gelöschten Angestellten
+     * @param id Die ID des gelöschten Angestellten
+     */
+    void remove(final String email, final UUID id) {
+        if (email != null) {
+            ids.remove(email, id);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+/**
+ * Näherungsweise Zugriffshäufigkeiten als Count-Min Sketch für die Zulassung in {@link TinyLfuCache}. Jeder Schlüssel
+ * wird auf je einen 4-Bit-Zähler in 4 Zeilen abgebildet, wobei 16 Zähler in einem <code>long</code> liegen, und die
+ * Häufigkeit ist das Minimum dieser Zähler, d.h. sie wird höchstens überschätzt. Nach {@link #STICHPROBE} Zugriffen je
+ * Eintrag des Caches werden alle Zähler halbiert, damit früher häufige Schlüssel wieder verdrängt werden können.
+ * <p>
+ * Die Klasse ist nicht threadsicher und wird nur unter der Sperre des Caches verwendet.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class Haeufigkeiten {
+    /**
+     * Anzahl der Zugriffe je Eintrag des Caches, nach denen die Zähler halbiert werden.
+     */
+    static final int STICHPROBE = 10;
+
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    private static final long MAX_ZAEHLER = 15L;
+
+    private static final long OHNE_UEBERTRAG = 0x7777777777777777L;
+
+    private final long[] tabelle;
+
+    private final int maske;
+
+    private final int stichprobe;
+
+    private int zugriffe;
+
+    /**
+     * Konstruktor für einen Cache mit einer maximalen Anzahl Einträge.
+     *
+     * @param maxEintraege Maximale Anzahl Einträge des Caches
+     */
+    Haeufigkeiten(final int maxEintraege) {
+        final var groesse = Integer.highestOneBit(Math.max(maxEintraege - 1, 1)) << 1;
+        tabelle = new long[groesse];
+        maske = groesse - 1;
+        stichprobe = (int) Math.min((long) STICHPROBE * maxEintraege, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Die geschätzte Häufigkeit eines Schlüssels ermitteln.
+     *
+     * @param hash Hashwert des Schlüssels
+     * @return Die Häufigkeit zwischen 0 und 15
+     */
+    int haeufigkeit(final int hash) {
+        final var h = mischen(hash);
+        final var start = (h & 3) << 2;
+        var haeufigkeit = MAX_ZAEHLER;
+        for (int i = 0; i < SEEDS.length; i++) {
+            final var zaehler = (tabelle[index(h, i)] >>> ((start + i) << 2)) & MAX_ZAEHLER;
+            haeufigkeit = Math.min(haeufigkeit, zaehler);
+        }
+        return (int) haeufigkeit;
+    }
+
+    /**
+     * Die Häufigkeit eines Schlüssels erhöhen, falls sie noch nicht den Maximalwert hat.
+     *
+     * @param hash Hashwert des Schlüssels
+     */
+    void erhoehen(final int hash) {
+        final var h = mischen(hash);
+        final var start = (h & 3) << 2;
+        var erhoeht = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            erhoeht |= erhoehen(index(h, i), start + i);
+        }
+        if (erhoeht && ++zugriffe >= stichprobe) {
+            halbieren();
+        }
+    }
+
+    private boolean erhoehen(final int index, final int zaehler) {
+        final var shift = zaehler << 2;
+        final var bits = MAX_ZAEHLER << shift;
+        if ((tabelle[index] & bits) == bits) {
+            return false;
+        }
+        tabelle[index] += 1L << shift;
+        return true;
+    }
+
+    // jeder Zaehler wird um 1 Bit nach rechts verschoben, ohne das niedrigste Bit des Nachbarn zu uebernehmen
+    private void halbieren() {
+        for (int i = 0; i < tabelle.length; i++) {
+            tabelle[i] = (tabelle[i] >>> 1) & OHNE_UEBERTRAG;
+        }
+        zugriffe >>>= 1;
+    }
+
+    private int index(final int hash, final int zeile) {
+        var h = (SEEDS[zeile] + hash) * SEEDS[zeile];
+        h += h >>> 32;
+        return (int) h & maske;
+    }
+
+    // schlecht verteilte Hashwerte wie bei Integer oder kleinen Zahlen verteilen
+    private static int mischen(final int hash) {
+        var h = hash * 0x31848bab;
+        h ^= h >>> 14;
+        return h;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Speicher mit den Angestellten als Objekte auf dem Heap. Der lesende Zugriff erfolgt in O(1) und ohne Sperren über
+ * eine ConcurrentHashMap. Gespeichert und geliefert werden Kopien, damit ein Aufrufer, z.B. bei PATCH, nie das
+ * gespeicherte Objekt verändert, das parallel gelesen wird.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class HeapSpeicher implements AngestellterSpeicher {
+    private final Map<UUID, Angestellter> angestellte = new ConcurrentHashMap<>();
+
+    @Override
+    public Angestellter get(final UUID id) {
+        final var angestellter = angestellte.get(id);
+        return angestellter == null ? null : angestellter.kopie();
+    }
+
+    @Override
+    public boolean containsKey(final UUID id) {
+        return angestellte.containsKey(id);
+    }
+
+    @Override
+    public void put(final Angestellter angestellter) {
+        angestellte.put(angestellter.getId(), angestellter.kopie());
+    }
+
+    @Override
+    public boolean remove(final UUID id) {
+        return angestellte.remove(id) != null;
+    }
+
+    @Override
+    public int size() {
+        return angestellte.size();
+    }
+
+    @Override
+    public Collection<Angestellter> values() {
+        return angestellte.values()
+            .stream()
+            .map(Angestellter::kopie)
+            .toList();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        // ohne Kompaktierung gibt es keine eigenen Metriken
+    }
+
+    @Override
+    public void close() {
+        // die Objekte werden durch die Garbage Collection freigegeben
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.UUID;
+
+/**
+ * Erzeugung der IDs für neue Angestellte im {@link AngestellterRepository}. Eine eigene Implementierung kann als Bean
+ * bereitgestellt werden, ansonsten werden zeitlich geordnete UUIDs der Version 7 erzeugt.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@FunctionalInterface
+public interface IdGenerator {
+    /**
+     * Generator für UUIDs der Version 7 gemäß RFC 9562, die nach dem Zeitpunkt der Erzeugung aufsteigend sortiert und
+     * innerhalb einer JVM streng monoton sind.
+     *
+     * @return Der Generator
+     */
+    static IdGenerator uuidV7() {
+        return new UuidV7Generator();
+    }
+
+    /**
+     * Generator für zufällige UUIDs der Version 4 mit <code>UUID.randomUUID()</code>.
+     *
+     * @return Der Generator
+     */
+    static IdGenerator zufaellig() {
+        return UUID::randomUUID;
+    }
+
+    /**
+     * Eine neue ID erzeugen. Die Methode muss threadsicher sein.
+     *
+     * @return Die neue ID
+     */
+    UUID naechsteId();
+}
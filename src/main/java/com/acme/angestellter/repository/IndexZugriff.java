@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Zugriffspfad über einen Index für ein Suchkriterium, den der {@link QueryPlanner} anhand der geschätzten
+ * Trefferanzahl auswählt.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+sealed interface IndexZugriff permits IndexZugriff.Ids, IndexZugriff.Rows {
+    /**
+     * Name des Index, z.B. für die Ausgabe des Ausführungsplans.
+     *
+     * @return Der Name des Index
+     */
+    String index();
+
+    /**
+     * Zugriff über einen Index, der die IDs der Kandidaten liefert.
+     *
+     * @param index Name des Index
+     * @param schaetzung Obere Schranke für die Anzahl der Kandidaten aus der Index-Statistik
+     * @param ids Die IDs der Kandidaten
+     */
+    record Ids(String index, IntSupplier schaetzung, Supplier<Collection<UUID>> ids) implements IndexZugriff {
+    }
+
+    /**
+     * Zugriff über einen Bitmap-Index, der die Zeilennummern der Kandidaten liefert. Mehrere solche Zugriffe werden vor
+     * dem Lesen der Angestellten mit AND verknüpft.
+     *
+     * @param index Name des Index
+     * @param rows Die Zeilennummern der Kandidaten
+     */
+    record Rows(String index, Supplier<Bitmap> rows) implements IndexZugriff {
+    }
+}
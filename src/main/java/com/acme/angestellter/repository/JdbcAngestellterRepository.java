@@ -0,0 +1,734 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Adresse;
+import com.acme.angestellter.entity.Angestellter;
+import com.acme.angestellter.entity.FamilienstandType;
+import com.acme.angestellter.entity.GeschlechtType;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.sql.DataSource;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+import static com.acme.angestellter.repository.DB.ANGESTELLTE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.sql.Types.DATE;
+import static java.util.Spliterator.DISTINCT;
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
+
+/**
+ * Repository für den DB-Zugriff bei Angestellten mit einer relationalen DB über JDBC, das mit dem Profil "jdbc"
+ * anstelle von {@link AngestellterRepository} verwendet wird. Statt eines OR-Mappers werden die Zeilen direkt auf die
+ * Entity-Objekte abgebildet:
+ * <ul>
+ *     <li>Die Verbindungen stammen aus dem Pool von HikariCP und die vorbereiteten SQL-Anweisungen cacht der
+ *         JDBC-Treiber je Verbindung.</li>
+ *     <li>Mehrere neue Angestellte werden mit JDBC-Batches in einer einzigen Transaktion eingefügt.</li>
+ *     <li>Seiten werden mit Keyset-Pagination über den Primärschlüssel gelesen.</li>
+ *     <li>Die Suche nach der ID verwendet einen {@link AngestellterCache}, der nach jedem Aktualisieren und Löschen
+ *         invalidiert wird.</li>
+ *     <li>Größere Ergebnisse werden blockweise mit einem Cursor von der DB geholt.</li>
+ * </ul>
+ * Die atomare Prüfung auf eine vorhandene Emailadresse übernimmt der Unique-Index für die Spalte "email".
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@Repository
+@Profile("jdbc")
+@Slf4j
+public final class JdbcAngestellterRepository implements AngestellterPersistenz {
+    private static final int BLOCK = 1024;
+
+    private static final String SCHEMA = "/jdbc/schema.sql";
+
+    /**
+     * Zugriffspfad im Ausführungsplan, weil die DB den Zugriff selbst plant.
+     */
+    private static final String ZUGRIFFSPFAD = "SQL";
+
+    /**
+     * SQLState für die Verletzung eines Unique-Index in PostgreSQL und H2.
+     */
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private static final String SPALTEN =
+        "id, nachname, email, has_newsletter, geburtsdatum, geschlecht, familienstand, plz, ort";
+
+    private static final String SELECT = "SELECT " + SPALTEN + " FROM angestellter";
+
+    private static final String SELECT_BY_ID = SELECT + " WHERE id = ?";
+
+    private static final String EXISTS_BY_ID = "SELECT 1 FROM angestellter WHERE id = ?";
+
+    private static final String EXISTS_BY_EMAIL = "SELECT 1 FROM angestellter WHERE email = ?";
+
+    private static final String COUNT = "SELECT COUNT(*) FROM angestellter";
+
+    private static final String NACHNAMEN = "SELECT nachname FROM angestellter WHERE nachname LIKE ? ESCAPE '\\' " +
+        "GROUP BY nachname ORDER BY COUNT(*) DESC, nachname LIMIT ?";
+
+    // eine vorhandene Emailadresse verletzt den Unique-Index und die Zeile wird nicht eingefuegt
+    private static final String INSERT = "INSERT INTO angestellter (" + SPALTEN + ", ort_normalisiert) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String UPDATE = "UPDATE angestellter SET nachname = ?, email = ?, has_newsletter = ?, " +
+        "geburtsdatum = ?, geschlecht = ?, familienstand = ?, plz = ?, ort = ?, ort_normalisiert = ? WHERE id = ?";
+
+    private static final String DELETE = "DELETE FROM angestellter WHERE id = ?";
+
+    private final DataSource dataSource;
+
+    private final JdbcProperties properties;
+
+    private final IdGenerator idGenerator;
+
+    private final AngestellterCache cache;
+
+    /**
+     * Konstruktor, der die Tabelle anlegt, falls sie noch nicht existiert, und eine leere Tabelle mit den vorhandenen
+     * Angestellten der emulierten DB initialisiert.
+     *
+     * @param dataSource Pool mit den Verbindungen zur DB
+     * @param properties Konfiguration für die DB
+     * @param idGenerator Generator für die IDs neuer Angestellter oder null für UUIDs der Version 7, die als
+     *      zeitlich aufsteigende Primärschlüssel am Ende des B-Baums eingefügt werden
+     * @param cache Cache für die Suche nach der ID oder null ohne Cache
+     */
+    public JdbcAngestellterRepository(
+        final DataSource dataSource,
+        final JdbcProperties properties,
+        final @Nullable IdGenerator idGenerator,
+        final @Nullable AngestellterCache cache
+    ) {
+        this.dataSource = dataSource;
+        this.properties = properties;
+        this.idGenerator = idGenerator == null ? IdGenerator.uuidV7() : idGenerator;
+        this.cache = cache;
+
+        mitVerbindung("initialisieren", connection -> {
+            schemaAnlegen(connection);
+            if (anzahl(connection, SqlKriterien.of(Map.of()).orElseThrow()) == 0) {
+                final var ids = ANGESTELLTE.stream().map(Angestellter::getId).toList();
+                einfuegen(connection, ANGESTELLTE, ids);
+                log.info("initialisieren: {} Angestellte eingefuegt", ANGESTELLTE.size());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Angestellter> findById(final UUID id) {
+        log.debug("findById: id={}", id);
+        if (id == null) {
+            return Optional.empty();
+        }
+        final var result = cache == null ? laden(id) : cache.findById(id, this::laden);
+        log.debug("findById: {}", result);
+        return result;
+    }
+
+    @Override
+    public @NonNull Collection<Angestellter> find(final Map<String, String> suchkriterien) {
+        log.debug("find: suchkriterien={}", suchkriterien);
+        final var kriterien = SqlKriterien.of(suchkriterien);
+        if (kriterien.isEmpty()) {
+            return List.of();
+        }
+        final var result = mitVerbindung("find", connection -> {
+            final var angestellte = new ArrayList<Angestellter>();
+            abfragen(connection, SELECT + kriterien.get().where() + " ORDER BY id", kriterien.get().werte(),
+                angestellte::add);
+            return angestellte;
+        });
+        log.debug("find: #angestellte={}", result.size());
+        return result;
+    }
+
+    @Override
+    public @NonNull QueryPlan explain(final Map<String, String> suchkriterien) {
+        log.debug("explain: suchkriterien={}", suchkriterien);
+        final var kriterien = SqlKriterien.of(suchkriterien);
+        if (kriterien.isEmpty()) {
+            return QueryPlanner.keinTreffer(suchkriterien).plan();
+        }
+        final var treffer = mitVerbindung("explain", connection -> anzahl(connection, kriterien.get()));
+        final var plan = new QueryPlan(suchkriterien, ZUGRIFFSPFAD, Map.of(), kriterien.get().bedingungen(),
+            treffer, treffer);
+        log.debug("explain: {}", plan);
+        return plan;
+    }
+
+    @Override
+    public @NonNull Collection<Angestellter> findAll() {
+        return find(Map.of());
+    }
+
+    @Override
+    public @NonNull Seite<Angestellter> findSeite(
+        final Map<String, String> suchkriterien,
+        final UUID after,
+        final UUID before,
+        final int size
+    ) {
+        log.debug("findSeite: suchkriterien={}, after={}, before={}, size={}", suchkriterien, after, before, size);
+        final var kriterien = SqlKriterien.of(suchkriterien);
+        if (kriterien.isEmpty()) {
+            return new Seite<>(List.of(), false, false);
+        }
+        final var seite = mitVerbindung(
+            "findSeite",
+            connection -> seite(connection, kriterien.get(), after, before, size)
+        );
+        log.debug("findSeite: {}", seite);
+        return seite;
+    }
+
+    /**
+     * Angestellte anhand von Suchkriterien als Stream ermitteln, der nach der ID sortiert ist. Der Stream belegt eine
+     * Verbindung des Pools bis zum Schließen des Streams. Die Zeilen werden blockweise mit einem Cursor geholt und die
+     * DB liefert den Stand zu Beginn der Abfrage.
+     *
+     * @param suchkriterien Suchkriterien wie bei {@link #find(Map)}.
+     * @return Die gefundenen Angestellten oder ein leerer Stream bei ungültigen Suchkriterien.
+     */
+    @Override
+    public @NonNull Stream<Angestellter> findAsStream(final Map<String, String> suchkriterien) {
+        log.debug("findAsStream: suchkriterien={}", suchkriterien);
+        final var kriterien = SqlKriterien.of(suchkriterien);
+        if (kriterien.isEmpty()) {
+            return Stream.empty();
+        }
+        try {
+            final var connection = dataSource.getConnection();
+            try {
+                final var resultSet = cursor(connection, SELECT + kriterien.get().where() + " ORDER BY id",
+                    kriterien.get().werte());
+                final var zeilen = new Spliterators.AbstractSpliterator<Angestellter>(
+                    Long.MAX_VALUE,
+                    ORDERED | DISTINCT | NONNULL
+                ) {
+                    @Override
+                    public boolean tryAdvance(final Consumer<? super Angestellter> action) {
+                        try {
+                            if (!resultSet.next()) {
+                                return false;
+                            }
+                            action.accept(angestellter(resultSet));
+                            return true;
+                        } catch (final SQLException ex) {
+                            throw new DatenbankException("Fehler bei findAsStream: " + ex.getMessage(), ex);
+                        }
+                    }
+                };
+                return StreamSupport.stream(zeilen, false).onClose(() -> schliessen(connection));
+            } catch (final SQLException ex) {
+                schliessen(connection);
+                throw ex;
+            }
+        } catch (final SQLException ex) {
+            throw new DatenbankException("Fehler bei findAsStream: " + ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    public boolean isEmailExisting(final String email) {
+        log.debug("isEmailExisting: email={}", email);
+        if (email == null) {
+            return false;
+        }
+        final boolean result = mitVerbindung("isEmailExisting", connection -> {
+            try (var statement = connection.prepareStatement(EXISTS_BY_EMAIL)) {
+                statement.setString(1, email);
+                try (var resultSet = statement.executeQuery()) {
+                    return resultSet.next();
+                }
+            }
+        });
+        log.debug("isEmailExisting: {}", result);
+        return result;
+    }
+
+    @Override
+    public @NonNull Collection<String> findNachnamenByPrefix(final @NonNull String prefix, final int limit) {
+        log.debug("findNachnamenByPrefix: prefix={}, limit={}", prefix, limit);
+        final var nachnamen = mitVerbindung("findNachnamenByPrefix", connection -> {
+            try (var statement = connection.prepareStatement(NACHNAMEN)) {
+                statement.setString(1, SqlKriterien.escape(prefix) + '%');
+                statement.setInt(2, limit);
+                final var result = new ArrayList<String>();
+                try (var resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        result.add(resultSet.getString(1));
+                    }
+                }
+                return result;
+            }
+        });
+        log.debug("findNachnamenByPrefix: nachnamen={}", nachnamen);
+        return nachnamen;
+    }
+
+    @Override
+    public Optional<Angestellter> createIfEmailAbsent(final @NonNull Angestellter angestellter) {
+        log.debug("createIfEmailAbsent: {}", angestellter);
+        final var id = idGenerator.naechsteId();
+        final int eingefuegt = mitVerbindung("createIfEmailAbsent", connection -> {
+            try (var statement = connection.prepareStatement(INSERT)) {
+                binden(statement, id, angestellter);
+                return statement.executeUpdate();
+            }
+        });
+        if (eingefuegt == 0) {
+            log.debug("createIfEmailAbsent: email {} existiert", angestellter.getEmail());
+            return Optional.empty();
+        }
+        angestellter.setId(id);
+        log.debug("createIfEmailAbsent: {}", angestellter);
+        return Optional.of(angestellter);
+    }
+
+    /**
+     * Mehrere neue Angestellte anlegen, sofern ihre Emailadressen noch nicht existieren. Die Angestellten werden in
+     * JDBC-Batches mit jeweils höchstens 1024 Zeilen in einer einzigen Transaktion eingefügt.
+     *
+     * @param neueAngestellte Die Objekte der neu anzulegenden Angestellten.
+     * @return Für jeden Angestellten in derselben Reihenfolge der neu angelegte Angestellte mit generierter ID oder ein
+     *      leeres Optional, falls die Emailadresse bereits existiert
+     */
+    @Override
+    public List<Optional<Angestellter>> createAllIfEmailAbsent(final @NonNull List<Angestellter> neueAngestellte) {
+        log.debug("createAllIfEmailAbsent: #angestellte={}", neueAngestellte.size());
+        final var ids = neueAngestellte.stream()
+            .map(angestellter -> idGenerator.naechsteId())
+            .toList();
+        final var eingefuegt = mitVerbindung("createAllIfEmailAbsent",
+            connection -> einfuegen(connection, neueAngestellte, ids));
+        final var result = new ArrayList<Optional<Angestellter>>(neueAngestellte.size());
+        for (int i = 0; i < neueAngestellte.size(); i++) {
+            if (eingefuegt[i]) {
+                final var angestellter = neueAngestellte.get(i);
+                angestellter.setId(ids.get(i));
+                result.add(Optional.of(angestellter));
+            } else {
+                result.add(Optional.empty());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean update(final @NonNull Angestellter angestellter) {
+        log.debug("update: {}", angestellter);
+        final var id = angestellter.getId();
+        if (id == null) {
+            return true;
+        }
+        final boolean result = mitVerbindung("update", connection -> {
+            try (var statement = connection.prepareStatement(UPDATE)) {
+                final var index = felder(statement, angestellter, 1);
+                statement.setObject(index, id);
+                statement.executeUpdate();
+                return true;
+            } catch (final SQLException ex) {
+                if (UNIQUE_VIOLATION.equals(ex.getSQLState())) {
+                    log.debug("update: email {} existiert", angestellter.getEmail());
+                    return false;
+                }
+                throw ex;
+            }
+        });
+        if (result) {
+            invalidieren(id);
+        }
+        log.debug("update: {}", result);
+        return result;
+    }
+
+    /**
+     * Mehrere vorhandene Angestellte in Batches mit jeweils einer Transaktion aktualisieren. Verletzt eine neue
+     * Emailadresse den UNIQUE-Constraint, wird der Batch zurückgesetzt und Angestellter für Angestellter wiederholt.
+     *
+     * @param geaenderte Die Objekte mit den neuen Daten
+     * @return Für jeden Angestellten false, falls die neue Emailadresse bereits zu einem anderen gehört, sonst true
+     */
+    @Override
+    public List<Boolean> updateAll(final @NonNull List<Angestellter> geaenderte) {
+        log.debug("updateAll: #angestellte={}", geaenderte.size());
+        final var result = new ArrayList<Boolean>(geaenderte.size());
+        for (int start = 0; start < geaenderte.size(); start += BLOCK) {
+            final var block = geaenderte.subList(start, Math.min(start + BLOCK, geaenderte.size()));
+            final boolean aktualisiert = mitVerbindung("updateAll", connection -> aktualisieren(connection, block));
+            if (aktualisiert) {
+                block.forEach(angestellter -> {
+                    invalidieren(angestellter.getId());
+                    result.add(true);
+                });
+            } else {
+                block.forEach(angestellter -> result.add(update(angestellter)));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void deleteById(final UUID id) {
+        log.debug("deleteById: id={}", id);
+        if (id == null) {
+            return;
+        }
+        final int geloescht = mitVerbindung("deleteById", connection -> {
+            try (var statement = connection.prepareStatement(DELETE)) {
+                statement.setObject(1, id);
+                return statement.executeUpdate();
+            }
+        });
+        invalidieren(id);
+        log.debug("deleteById: #geloescht={}", geloescht);
+    }
+
+    private Optional<Angestellter> laden(final UUID id) {
+        return mitVerbindung("findById", connection -> {
+            try (var statement = connection.prepareStatement(SELECT_BY_ID)) {
+                statement.setObject(1, id);
+                try (var resultSet = statement.executeQuery()) {
+                    return resultSet.next() ? Optional.of(angestellter(resultSet)) : Optional.<Angestellter>empty();
+                }
+            }
+        });
+    }
+
+    // nach dem Schreiben in die DB, damit ein gleichzeitiger Lesezugriff den alten Stand nicht mehr cacht
+    private void invalidieren(final UUID id) {
+        if (cache != null) {
+            cache.invalidieren(id);
+        }
+    }
+
+    // Eine Verbindung aus dem Pool verwenden und anschliessend zurueckgeben: ungueltige Verbindungen ersetzt der Pool
+    private <T> T mitVerbindung(final String operation, final SqlZugriff<T> zugriff) {
+        try (var connection = dataSource.getConnection()) {
+            return zugriff.ausfuehren(connection);
+        } catch (final SQLException ex) {
+            throw new DatenbankException("Fehler bei " + operation + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    // Keyset-Pagination: Bereichsscan ueber den Primaerschluessel ab dem Cursor mit einer zusaetzlichen Zeile
+    private static Seite<Angestellter> seite(
+        final Connection connection,
+        final SqlKriterien kriterien,
+        final UUID after,
+        final UUID before,
+        final int size
+    ) throws SQLException {
+        final var rueckwaerts = before != null;
+        final String sql;
+        final UUID cursor;
+        if (rueckwaerts) {
+            sql = SELECT + kriterien.where("id < ?") + " ORDER BY id DESC LIMIT ?";
+            cursor = before;
+        } else if (after != null) {
+            sql = SELECT + kriterien.where("id > ?") + " ORDER BY id LIMIT ?";
+            cursor = after;
+        } else {
+            sql = SELECT + kriterien.where() + " ORDER BY id LIMIT ?";
+            cursor = null;
+        }
+
+        final var inhalt = new ArrayList<Angestellter>(size + 1);
+        try (var statement = connection.prepareStatement(sql)) {
+            var index = binden(statement, kriterien.werte());
+            if (cursor != null) {
+                statement.setObject(index++, cursor);
+            }
+            statement.setInt(index, size + 1);
+            try (var resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    inhalt.add(angestellter(resultSet));
+                }
+            }
+        }
+
+        final var weitere = inhalt.size() > size;
+        if (weitere) {
+            inhalt.remove(size);
+        }
+        if (rueckwaerts) {
+            Collections.reverse(inhalt);
+            return new Seite<>(inhalt, weitere, existiert(connection, kriterien, "id >= ?", before));
+        }
+        return new Seite<>(inhalt, after != null && existiert(connection, kriterien, "id <= ?", after), weitere);
+    }
+
+    private static boolean existiert(
+        final Connection connection,
+        final SqlKriterien kriterien,
+        final String bedingung,
+        final UUID cursor
+    ) throws SQLException {
+        final var sql = "SELECT 1 FROM angestellter" + kriterien.where(bedingung) + " LIMIT 1";
+        try (var statement = connection.prepareStatement(sql)) {
+            final var index = binden(statement, kriterien.werte());
+            statement.setObject(index, cursor);
+            try (var resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    private static int anzahl(final Connection connection, final SqlKriterien kriterien) throws SQLException {
+        try (var statement = connection.prepareStatement(COUNT + kriterien.where())) {
+            binden(statement, kriterien.werte());
+            try (var resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        }
+    }
+
+    // PostgreSQL holt die Zeilen nur innerhalb einer Transaktion blockweise mit einem Cursor
+    private void abfragen(
+        final Connection connection,
+        final String sql,
+        final List<Object> werte,
+        final Consumer<Angestellter> consumer
+    ) throws SQLException {
+        connection.setAutoCommit(false);
+        try (var statement = connection.prepareStatement(sql)) {
+            statement.setFetchSize(properties.fetchSize());
+            binden(statement, werte);
+            try (var resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    consumer.accept(angestellter(resultSet));
+                }
+            }
+            connection.commit();
+        } catch (final SQLException ex) {
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private ResultSet cursor(final Connection connection, final String sql, final List<Object> werte)
+        throws SQLException {
+        connection.setAutoCommit(false);
+        connection.setReadOnly(true);
+        final var statement = connection.prepareStatement(sql);
+        statement.setFetchSize(properties.fetchSize());
+        binden(statement, werte);
+        return statement.executeQuery();
+    }
+
+    private static void schliessen(final Connection connection) {
+        try (connection) {
+            connection.rollback();
+        } catch (final SQLException ex) {
+            log.warn("schliessen", ex);
+        }
+    }
+
+    // Alle Angestellten in einer Transaktion einfuegen: true, falls die Zeile eingefuegt wurde
+    private static boolean[] einfuegen(
+        final Connection connection,
+        final List<Angestellter> angestellte,
+        final List<UUID> ids
+    ) throws SQLException {
+        final var eingefuegt = new boolean[angestellte.size()];
+        connection.setAutoCommit(false);
+        try (
+            var statement = connection.prepareStatement(INSERT);
+            var existiert = connection.prepareStatement(EXISTS_BY_ID)
+        ) {
+            for (int start = 0; start < angestellte.size(); start += BLOCK) {
+                final var ende = Math.min(start + BLOCK, angestellte.size());
+                for (int i = start; i < ende; i++) {
+                    binden(statement, ids.get(i), angestellte.get(i));
+                    statement.addBatch();
+                }
+                final var anzahlen = statement.executeBatch();
+                for (int i = 0; i < anzahlen.length; i++) {
+                    // ohne Anzahl, z.B. bei PostgreSQL mit reWriteBatchedInserts
+                    eingefuegt[start + i] = anzahlen[i] == Statement.SUCCESS_NO_INFO
+                        ? existiert(existiert, ids.get(start + i))
+                        : anzahlen[i] > 0;
+                }
+            }
+            connection.commit();
+        } catch (final SQLException ex) {
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        return eingefuegt;
+    }
+
+    // false, falls eine Emailadresse bereits existiert und der Batch zurueckgesetzt wurde
+    private static boolean aktualisieren(final Connection connection, final List<Angestellter> angestellte)
+        throws SQLException {
+        connection.setAutoCommit(false);
+        try (var statement = connection.prepareStatement(UPDATE)) {
+            for (final var angestellter : angestellte) {
+                if (angestellter.getId() != null) {
+                    final var index = felder(statement, angestellter, 1);
+                    statement.setObject(index, angestellter.getId());
+                    statement.addBatch();
+                }
+            }
+            statement.executeBatch();
+            connection.commit();
+            return true;
+        } catch (final SQLException ex) {
+            connection.rollback();
+            if (eindeutigkeitVerletzt(ex)) {
+                return false;
+            }
+            throw ex;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    // bei einem Batch ggf. erst in der verketteten Exception
+    private static boolean eindeutigkeitVerletzt(final SQLException ex) {
+        for (var naechste = ex; naechste != null; naechste = naechste.getNextException()) {
+            if (UNIQUE_VIOLATION.equals(naechste.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // mit der vorbereiteten Anweisung EXISTS_BY_ID
+    private static boolean existiert(final PreparedStatement statement, final UUID id) throws SQLException {
+        statement.setObject(1, id);
+        try (var resultSet = statement.executeQuery()) {
+            return resultSet.next();
+        }
+    }
+
+    // die Anweisungen in der Datei sind durch ";" getrennt
+    private static void schemaAnlegen(final Connection connection) throws SQLException {
+        final String schema;
+        try (var in = JdbcAngestellterRepository.class.getResourceAsStream(SCHEMA)) {
+            if (in == null) {
+                throw new IllegalStateException("Nicht gefunden: " + SCHEMA);
+            }
+            schema = new String(in.readAllBytes(), UTF_8);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        final var ohneKommentare = schema.lines()
+            .filter(zeile -> !zeile.strip().startsWith("--"))
+            .toList();
+        try (var statement = connection.createStatement()) {
+            for (final var sql : String.join("\n", ohneKommentare).split(";")) {
+                if (!sql.isBlank()) {
+                    statement.execute(sql);
+                }
+            }
+        }
+    }
+
+    private static int binden(final PreparedStatement statement, final List<Object> werte) throws SQLException {
+        var index = 1;
+        for (final var wert : werte) {
+            statement.setObject(index++, wert);
+        }
+        return index;
+    }
+
+    private static void binden(final PreparedStatement statement, final UUID id, final Angestellter angestellter)
+        throws SQLException {
+        statement.setObject(1, id);
+        felder(statement, angestellter, 2);
+    }
+
+    // alle Spalten ausser der ID ab dem Index: liefert den naechsten Index
+    private static int felder(final PreparedStatement statement, final Angestellter angestellter, final int start)
+        throws SQLException {
+        final var adresse = angestellter.getAdresse();
+        final var ort = adresse == null ? null : adresse.getOrt();
+        var index = start;
+        statement.setString(index++, angestellter.getNachname());
+        statement.setString(index++, angestellter.getEmail());
+        statement.setBoolean(index++, angestellter.isHasNewsletter());
+        if (angestellter.getGeburtsdatum() == null) {
+            statement.setNull(index++, DATE);
+        } else {
+            statement.setObject(index++, angestellter.getGeburtsdatum());
+        }
+        statement.setString(index++, Objects.toString(angestellter.getGeschlecht(), null));
+        statement.setString(index++, Objects.toString(angestellter.getFamilienstand(), null));
+        statement.setString(index++, adresse == null ? null : adresse.getPlz());
+        statement.setString(index++, ort);
+        statement.setString(index++, ort == null ? null : OrtIndex.normalisieren(ort));
+        return index;
+    }
+
+    // die Spalten in der Reihenfolge von SPALTEN
+    @SuppressWarnings("MagicNumber")
+    private static Angestellter angestellter(final ResultSet resultSet) throws SQLException {
+        final var plz = resultSet.getString(8);
+        final var ort = resultSet.getString(9);
+        return Angestellter.builder()
+            .id(resultSet.getObject(1, UUID.class))
+            .nachname(resultSet.getString(2))
+            .email(resultSet.getString(3))
+            .hasNewsletter(resultSet.getBoolean(4))
+            .geburtsdatum(resultSet.getObject(5, LocalDate.class))
+            .geschlecht(GeschlechtType.of(resultSet.getString(6)).orElse(null))
+            .familienstand(FamilienstandType.of(resultSet.getString(7)).orElse(null))
+            .adresse(plz == null && ort == null ? null : Adresse.builder().plz(plz).ort(ort).build())
+            .build();
+    }
+
+    /**
+     * Zugriff auf die DB mit einer Verbindung aus dem Pool.
+     *
+     * @param <T> Typ des Ergebnisses
+     */
+    @FunctionalInterface
+    private interface SqlZugriff<T> {
+        T ausfuehren(Connection connection) throws SQLException;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.zaxxer.hikari.HikariConfig;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Konfiguration für die relationale DB mit dem Präfix "app.jdbc", z.B. in application.yml, die nur mit dem Profil
+ * "jdbc" verwendet wird.
+ *
+ * @param url JDBC-URL der DB, z.B. "jdbc:postgresql://localhost/angestellter".
+ * @param username Benutzername für die DB.
+ * @param password Passwort für die DB.
+ * @param verbindungen Anzahl der Verbindungen im Pool.
+ * @param fetchSize Anzahl der Zeilen, die beim Lesen eines Streams jeweils von der DB geholt werden.
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@ConfigurationProperties(prefix = "app.jdbc")
+public record JdbcProperties(
+    String url,
+    String username,
+    String password,
+    Integer verbindungen,
+    Integer fetchSize
+) {
+    private static final int DEFAULT_VERBINDUNGEN = 10;
+
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private static final String POOL_NAME = "angestellter";
+
+    /**
+     * Konstruktor mit Defaultwerten für nicht konfigurierte Properties.
+     *
+     * @param url JDBC-URL der DB
+     * @param username Benutzername oder null
+     * @param password Passwort oder null
+     * @param verbindungen Anzahl der Verbindungen oder null für 10
+     * @param fetchSize Anzahl der Zeilen je Fetch oder null für 1000
+     */
+    public JdbcProperties {
+        if (verbindungen == null) {
+            verbindungen = DEFAULT_VERBINDUNGEN;
+        }
+        if (fetchSize == null) {
+            fetchSize = DEFAULT_FETCH_SIZE;
+        }
+    }
+
+    /**
+     * Die Konfiguration für den Pool von HikariCP. Die vorbereiteten SQL-Anweisungen cacht der JDBC-Treiber je
+     * Verbindung, z.B. PostgreSQL mit den Parametern "prepareThreshold" und "preparedStatementCacheQueries" in der URL.
+     *
+     * @return Die Konfiguration mit URL, Benutzername, Passwort und der Größe des Pools
+     * @throws IllegalStateException falls die URL nicht konfiguriert ist
+     */
+    public HikariConfig hikariConfig() {
+        if (url == null) {
+            throw new IllegalStateException("app.jdbc.url ist nicht konfiguriert");
+        }
+        final var config = new HikariConfig();
+        config.setPoolName(POOL_NAME);
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(verbindungen);
+        return config;
+    }
+}
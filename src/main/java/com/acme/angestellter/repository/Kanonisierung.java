@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Adresse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wörterbuch, das mehrfach vorkommende Zeichenketten der Angestellten (Nachname, Postleitzahl und Ort) durch eine
+ * kanonische Instanz ersetzt und für gleiche Paare aus Postleitzahl und Ort dasselbe unveränderliche Adresse-Objekt
+ * verwendet. Die Einträge haben Referenzzähler, damit nicht mehr verwendete Werte wieder entfernt werden. Die
+ * eingesparten Bytes werden als Metrik <code>app.kanonisierung.gespart</code> bereitgestellt.
+ * <p>
+ * Die Referenzzähler werden nicht atomar verändert, die Metriken sind jederzeit lesbar.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class Kanonisierung implements MeterBinder {
+    // Groessen mit komprimierten Referenzen: String-Objekt, Header eines byte[] und Adresse-Objekt
+    private static final int STRING = 24;
+
+    private static final int ARRAY = 16;
+
+    private static final int ADRESSE = 24;
+
+    private final Map<String, Eintrag<String>> zeichenketten = new ConcurrentHashMap<>();
+
+    private final Map<AdresseSchluessel, Eintrag<Adresse>> adressen = new ConcurrentHashMap<>();
+
+    private final AtomicLong gespart = new AtomicLong();
+
+    /**
+     * Eine Zeichenkette, z.B. einen Nachnamen, durch die kanonische Instanz ersetzen. Zu jedem Aufruf gehört ein
+     * späterer Aufruf von {@link #freigeben(String)}, wenn der Wert nicht mehr verwendet wird.
+     *
+     * @param wert Die Zeichenkette oder null
+     * @return Die kanonische Zeichenkette mit demselben Inhalt oder null
+     */
+    String zeichenkette(final String wert) {
+        if (wert == null) {
+            return null;
+        }
+        final var eintrag = zeichenketten.get(wert);
+        if (eintrag == null) {
+            zeichenketten.put(wert, new Eintrag<>(wert));
+            return wert;
+        }
+        eintrag.anzahl++;
+        gespart.addAndGet(groesse(wert));
+        return eintrag.wert;
+    }
+
+    /**
+     * Eine Zeichenkette freigeben. Die Werte werden dabei nur verglichen, d.h. es muss nicht die kanonische Instanz
+     * sein.
+     *
+     * @param wert Die nicht mehr verwendete Zeichenkette oder null
+     */
+    void freigeben(final String wert) {
+        if (wert == null) {
+            return;
+        }
+        final var eintrag = zeichenketten.get(wert);
+        if (eintrag == null) {
+            return;
+        }
+        if (--eintrag.anzahl > 0) {
+            gespart.addAndGet(-groesse(wert));
+        } else {
+            zeichenketten.remove(wert);
+        }
+    }
+
+    /**
+     * Eine Adresse durch das gemeinsam verwendete Objekt mit derselben Postleitzahl und demselben Ort ersetzen. Zu
+     * jedem Aufruf gehört ein späterer Aufruf von {@link #freigeben(Adresse)}.
+     *
+     * @param adresse Die Adresse oder null
+     * @return Die kanonische Adresse mit denselben Daten oder null
+     */
+    Adresse adresse(final Adresse adresse) {
+        if (adresse == null) {
+            return null;
+        }
+        final var schluessel = new AdresseSchluessel(adresse.getPlz(), adresse.getOrt());
+        final var eintrag = adressen.get(schluessel);
+        if (eintrag != null) {
+            eintrag.anzahl++;
+            gespart.addAndGet(groesse(eintrag.wert));
+            return eintrag.wert;
+        }
+        // Postleitzahl und Ort einzeln kanonisieren, z.B. fuer verschiedene Postleitzahlen in derselben Stadt
+        final var kanonisch = Adresse.builder()
+            .plz(zeichenkette(adresse.getPlz()))
+            .ort(zeichenkette(adresse.getOrt()))
+            .build();
+        adressen.put(schluessel, new Eintrag<>(kanonisch));
+        return kanonisch;
+    }
+
+    /**
+     * Eine Adresse freigeben, z.B. auch eine aus der Binärdarstellung dekodierte Adresse mit denselben Daten.
+     *
+     * @param adresse Die nicht mehr verwendete Adresse oder null
+     */
+    void freigeben(final Adresse adresse) {
+        if (adresse == null) {
+            return;
+        }
+        final var schluessel = new AdresseSchluessel(adresse.getPlz(), adresse.getOrt());
+        final var eintrag = adressen.get(schluessel);
+        if (eintrag == null) {
+            return;
+        }
+        if (--eintrag.anzahl > 0) {
+            gespart.addAndGet(-groesse(eintrag.wert));
+            return;
+        }
+        adressen.remove(schluessel);
+        freigeben(eintrag.wert.getPlz());
+        freigeben(eintrag.wert.getOrt());
+    }
+
+    /**
+     * Die geschätzte Anzahl Bytes, die durch die gemeinsam verwendeten Instanzen eingespart werden.
+     *
+     * @return Die eingesparten Bytes
+     */
+    long gespart() {
+        return gespart.get();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        Gauge.builder("app.kanonisierung.gespart", gespart, AtomicLong::get)
+            .description("Durch gemeinsam verwendete Zeichenketten und Adressen eingesparter Speicher")
+            .baseUnit("bytes")
+            .register(registry);
+        Gauge.builder("app.kanonisierung.eintraege", this, k -> k.zeichenketten.size() + k.adressen.size())
+            .description("Anzahl der kanonischen Zeichenketten und Adressen")
+            .register(registry);
+    }
+
+    // eine doppelte Adresse haette zusaetzlich ihre eigenen Zeichenketten
+    private static long groesse(final Adresse adresse) {
+        return ADRESSE + groesse(adresse.getPlz()) + groesse(adresse.getOrt());
+    }
+
+    // Compact Strings: 1 Byte je Zeichen, falls alle Zeichen in Latin-1 darstellbar sind, sonst 2 Bytes
+    private static long groesse(final String wert) {
+        if (wert == null) {
+            return 0L;
+        }
+        final var bytes = wert.chars().allMatch(c -> c <= 0xFF) ? wert.length() : 2L * wert.length();
+        return STRING + ((ARRAY + bytes + 7) & ~7L);
+    }
+
+    private record AdresseSchluessel(String plz, String ort) {
+    }
+
+    private static final class Eintrag<T> {
+        private final T wert;
+
+        private int anzahl = 1;
+
+        private Eintrag(final T wert) {
+            this.wert = wert;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Ein einzelnes Suchkriterium mit dem Filter für einen Angestellten, einem optionalen Zugriff über einen Index und
+ * einem optionalen Prädikat für einen spaltenweisen Scan.
+ *
+ * @param name Name des Suchkriteriums, z.B. "nachname"
+ * @param filter Prädikat, das ein passender Angestellter erfüllt
+ * @param indexZugriff Zugriff über einen Index oder leeres Optional, falls es keinen passenden Index gibt
+ * @param spaltenFilter Prädikat über die {@link Spalten} oder leeres Optional, falls das Attribut keine Spalte hat
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+record Kriterium(
+    String name,
+    Predicate<Angestellter> filter,
+    Optional<IndexZugriff> indexZugriff,
+    Optional<Spalten.Filter> spaltenFilter
+) {
+    /**
+     * Suchkriterium mit Zugriff über einen Index.
+     *
+     * @param name Name des Suchkriteriums
+     * @param filter Prädikat, das ein passender Angestellter erfüllt
+     * @param indexZugriff Zugriff über einen Index
+     * @return Das Suchkriterium
+     */
+    static Kriterium of(final String name, final Predicate<Angestellter> filter, final IndexZugriff indexZugriff) {
+        return new Kriterium(name, filter, Optional.of(indexZugriff), Optional.empty());
+    }
+
+    /**
+     * Suchkriterium mit Zugriff über einen Index und mit einem Prädikat für einen spaltenweisen Scan.
+     *
+     * @param name Name des Suchkriteriums
+     * @param filter Prädikat, das ein passender Angestellter erfüllt
+     * @param indexZugriff Zugriff über einen Index
+     * @param spaltenFilter Prädikat über die Spalten
+     * @return Das Suchkriterium
+     */
+    static Kriterium of(
+        final String name,
+        final Predicate<Angestellter> filter,
+        final IndexZugriff indexZugriff,
+        final Spalten.Filter spaltenFilter
+    ) {
+        return new Kriterium(name, filter, Optional.of(indexZugriff), Optional.of(spaltenFilter));
+    }
+
+    /**
+     * Suchkriterium, das nur durch einen Filter beim Scan geprüft werden kann.
+     *
+     * @param name Name des Suchkriteriums
+     * @param filter Prädikat, das ein passender Angestellter erfüllt
+     * @return Das Suchkriterium
+     */
+    static Kriterium of(final String name, final Predicate<Angestellter> filter) {
+        return new Kriterium(name, filter, Optional.empty(), Optional.empty());
+    }
+}
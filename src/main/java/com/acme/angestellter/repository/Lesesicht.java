@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.springframework.lang.Nullable;
+
+/**
+ * Konsistente Sicht auf alle Angestellten zum Zeitpunkt des Öffnens, die nach der ID sortiert durchlaufen wird, ohne
+ * die Angestellten zu kopieren. Schreibzugriffe sichern stattdessen den bisherigen Stand eines Angestellten, der noch
+ * nicht durchlaufen wurde (Copy-on-Write). Der zusätzliche Speicherbedarf hängt deshalb nur von der Anzahl der
+ * parallelen Änderungen ab und nicht von der Anzahl der Angestellten.
+ * <p>
+ * Die Sicht muss unter der Schreibsperre beim Repository registriert werden. Danach ruft jeder Schreibzugriff
+ * {@link #vorAenderung(UUID, Angestellter)} auf, bevor er die Daten verändert.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class Lesesicht extends Spliterators.AbstractSpliterator<Angestellter> {
+    private final NavigableSet<UUID> ids;
+
+    private final Function<UUID, Angestellter> lookup;
+
+    /**
+     * Der Stand beim Öffnen für die seither geänderten IDs: ein leeres Optional für später angelegte Angestellte.
+     */
+    private final ConcurrentNavigableMap<UUID, Optional<Angestellter>> vorher = new ConcurrentSkipListMap<>();
+
+    /**
+     * Die zuletzt durchlaufene ID oder null vor dem ersten Angestellten. Änderungen bis einschließlich dieser ID
+     * müssen nicht mehr gesichert werden.
+     */
+    private volatile UUID cursor;
+
+    /**
+     * Konstruktor mit den aktuellen Daten des Repositorys.
+     *
+     * @param ids Die sortierten IDs, deren Iteration schwach konsistent ist
+     * @param lookup Zugriff auf den aktuellen Stand eines Angestellten über die ID
+     */
+    Lesesicht(final NavigableSet<UUID> ids, final Function<UUID, Angestellter> lookup) {
+        super(Long.MAX_VALUE, ORDERED | DISTINCT | NONNULL);
+        this.ids = ids;
+        this.lookup = lookup;
+    }
+
+    /**
+     * Den bisherigen Stand eines Angestellten sichern, bevor er angelegt, geändert oder gelöscht wird. Nur der Stand
+     * beim Öffnen der Sicht wird gesichert, d.h. bei der ersten Änderung.
+     *
+     * @param id Die ID des Angestellten
+     * @param alt Der bisherige Stand oder null, falls der Angestellte neu angelegt wird
+     */
+    void vorAenderung(final UUID id, final @Nullable Angestellter alt) {
+        if (durchlaufen(id)) {
+            return;
+        }
+        vorher.putIfAbsent(id, Optional.ofNullable(alt));
+        // der Cursor kann die ID inzwischen ueberholt haben, so dass der gesicherte Stand nie mehr gelesen wird
+        if (durchlaufen(id)) {
+            vorher.remove(id);
+        }
+    }
+
+    /**
+     * Anzahl der gesicherten Stände, z.B. für Tests.
+     *
+     * @return Die Anzahl der gesicherten Stände
+     */
+    int gesichert() {
+        return vorher.size();
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super Angestellter> action) {
+        while (true) {
+            final var id = naechsteId();
+            if (id == null) {
+                return false;
+            }
+            // zuerst den aktuellen Stand lesen: wurde er seither geaendert, ist der alte Stand bereits gesichert
+            final var aktuell = lookup.apply(id);
+            final var gesichert = vorher.get(id);
+            cursor = id;
+            // auch gesicherte Staende bis zum Cursor entfernen, die von einem parallelen Schreibzugriff stammen
+            vorher.headMap(id, true).clear();
+            final var angestellter = gesichert == null ? aktuell : gesichert.orElse(null);
+            if (angestellter != null) {
+                action.accept(angestellter);
+                return true;
+            }
+        }
+    }
+
+    private boolean durchlaufen(final UUID id) {
+        final var position = cursor;
+        return position != null && id.compareTo(position) <= 0;
+    }
+
+    // geloeschte Angestellte sind nur noch in "vorher" enthalten, neu angelegte auch in "ids"
+    private UUID naechsteId() {
+        final var position = cursor;
+        final var naechsteId = naechste(ids, position);
+        final var naechsteGesicherte = naechste(vorher.navigableKeySet(), position);
+        if (naechsteId == null) {
+            return naechsteGesicherte;
+        }
+        if (naechsteGesicherte == null) {
+            return naechsteId;
+        }
+        return naechsteId.compareTo(naechsteGesicherte) <= 0 ? naechsteId : naechsteGesicherte;
+    }
+
+    private static UUID naechste(final NavigableSet<UUID> sortierteIds, final @Nullable UUID position) {
+        if (position != null) {
+            return sortierteIds.higher(position);
+        }
+        final var iterator = sortierteIds.iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+}
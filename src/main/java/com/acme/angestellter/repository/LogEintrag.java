@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import java.util.UUID;
+
+/**
+ * Ein Eintrag im Write-Ahead-Log für eine Schreiboperation im Repository.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+sealed interface LogEintrag permits LogEintrag.Create, LogEintrag.Update, LogEintrag.Delete {
+    /**
+     * Ein neu angelegter Angestellter.
+     *
+     * @param angestellter Der Angestellte mit der generierten ID
+     */
+    record Create(Angestellter angestellter) implements LogEintrag {
+    }
+
+    /**
+     * Ein aktualisierter Angestellter.
+     *
+     * @param angestellter Der Angestellte mit den neuen Daten
+     */
+    record Update(Angestellter angestellter) implements LogEintrag {
+    }
+
+    /**
+     * Ein gelöschter Angestellter.
+     *
+     * @param id Die ID des gelöschten Angestellten
+     */
+    record Delete(UUID id) implements LogEintrag {
+    }
+}
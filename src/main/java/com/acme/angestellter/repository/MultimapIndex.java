@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.springframework.lang.Nullable;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableSet;
+
+/**
+ * Nicht eindeutiger Sekundärindex, der einem Schlüssel die Menge der IDs mit diesem Schlüssel zuordnet. Mit
+ * {@link #hash()} wird ein Schlüssel in O(1) gesucht, mit {@link #sortiert()} sind zusätzlich Bereichsabfragen in
+ * O(log n + k) möglich.
+ * <p>
+ * Beim Ersetzen und Entfernen übergibt der Aufrufer den bisher indexierten Schlüssel, den er aus dem gespeicherten
+ * Angestellten kennt. Deshalb braucht der Index keine Rückwärtsabbildung von der ID auf den Schlüssel.
+ *
+ * @param <K> Typ der Schlüssel
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class MultimapIndex<K> {
+    private final ConcurrentMap<K, Set<UUID>> ids;
+
+    private MultimapIndex(final ConcurrentMap<K, Set<UUID>> ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * Einen Index für die Suche nach einem einzelnen Schlüssel erzeugen.
+     *
+     * @param <K> Typ der Schlüssel
+     * @return Der neue Index
+     */
+    static <K> MultimapIndex<K> hash() {
+        return new MultimapIndex<>(new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Einen Index mit sortierten Schlüsseln für Bereichsabfragen erzeugen.
+     *
+     * @param <K> Typ der Schlüssel
+     * @return Der neue Index
+     */
+    static <K extends Comparable<K>> MultimapIndex<K> sortiert() {
+        return new MultimapIndex<>(new ConcurrentSkipListMap<>());
+    }
+
+    /**
+     * Einen Schlüssel für eine ID indexieren bzw. den bisherigen Schlüssel ersetzen.
+     *
+     * @param id Die ID
+     * @param alterSchluessel Der bisher indexierte Schlüssel oder null
+     * @param schluessel Der zu indexierende Schlüssel oder null
+     * @return true, falls die ID unter dem Schlüssel neu eingetragen wurde
+     */
+    boolean put(final UUID id, final @Nullable K alterSchluessel, final @Nullable K schluessel) {
+        if (!Objects.equals(alterSchluessel, schluessel)) {
+            remove(id, alterSchluessel);
+        }
+        if (schluessel == null) {
+            return false;
+        }
+        return ids.computeIfAbsent(schluessel, s -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    /**
+     * Eine ID aus dem Index entfernen.
+     *
+     * @param id Die ID
+     * @param alterSchluessel Der bisher indexierte Schlüssel oder null
+     * @return true, falls die ID unter dem Schlüssel eingetragen war
+     */
+    boolean remove(final UUID id, final @Nullable K alterSchluessel) {
+        if (alterSchluessel == null) {
+            return false;
+        }
+        final var entfernt = new boolean[1];
+        ids.computeIfPresent(alterSchluessel, (s, menge) -> {
+            entfernt[0] = menge.remove(id);
+            return menge.isEmpty() ? null : menge;
+        });
+        return entfernt[0];
+    }
+
+    /**
+     * Die IDs zu einem Schlüssel ermitteln.
+     *
+     * @param schluessel Der Schlüssel
+     * @return Die IDs mit diesem Schlüssel
+     */
+    Collection<UUID> find(final K schluessel) {
+        return unmodifiableSet(ids.getOrDefault(schluessel, emptySet()));
+    }
+
+    /**
+     * Die Anzahl der IDs zu einem Schlüssel ermitteln.
+     *
+     * @param schluessel Der Schlüssel
+     * @return Die Anzahl der IDs mit diesem Schlüssel
+     */
+    int estimate(final K schluessel) {
+        return ids.getOrDefault(schluessel, emptySet()).size();
+    }
+
+    /**
+     * Die IDs ermitteln, deren Schlüssel im Bereich liegt.
+     *
+     * @param von Untere Grenze einschließlich
+     * @param bis Obere Grenze ausschließlich, aber nicht kleiner als die untere Grenze
+     * @return Die IDs mit passendem Schlüssel
+     * @throws IllegalStateException Falls die Schlüssel nicht sortiert sind
+     */
+    Collection<UUID> find(final K von, final K bis) {
+        final var result = new ArrayList<UUID>();
+        bereich(von, bis).values().forEach(result::addAll);
+        return result;
+    }
+
+    /**
+     * Die Anzahl der IDs im Bereich ermitteln, ohne die IDs zu kopieren.
+     *
+     * @param von Untere Grenze einschließlich
+     * @param bis Obere Grenze ausschließlich, aber nicht kleiner als die untere Grenze
+     * @return Die Anzahl der IDs mit passendem Schlüssel
+     * @throws IllegalStateException Falls die Schlüssel nicht sortiert sind
+     */
+    int estimate(final K von, final K bis) {
+        return bereich(von, bis).values()
+            .stream()
+            .mapToInt(Set::size)
+            .sum();
+    }
+
+    private Map<K, Set<UUID>> bereich(final K von, final K bis) {
+        if (!(ids instanceof ConcurrentNavigableMap<K, Set<UUID>> sortiert)) {
+            throw new IllegalStateException("Bereichsabfrage ohne sortierte Schluessel");
+        }
+        return sortiert.subMap(von, true, bis, false);
+    }
+}
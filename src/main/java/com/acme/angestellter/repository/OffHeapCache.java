@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Zweite Ebene von {@link AngestellterCache} für die aus der ersten Ebene verdrängten Angestellten. Die Angestellten
+ * liegen in ihrer Binärdarstellung in einem {@link OffHeapSpeicher}, so dass deutlich mehr Einträge als auf dem Heap
+ * möglich sind, ohne die Garbage Collection zu belasten. Auf dem Heap verbleiben nur Version und Zeitpunkt je
+ * Eintrag. Bei Überschreiten der maximalen Anzahl wird der älteste Eintrag verdrängt.
+ * <p>
+ * Die zweite Ebene wird nur bei einem Fehlschlag in der ersten Ebene gelesen und deshalb mit einer einfachen Sperre
+ * geschützt.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class OffHeapCache implements AutoCloseable {
+    private final OffHeapSpeicher speicher;
+
+    private final int maxEintraege;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Version und Zeitpunkt der Einträge in der Reihenfolge des Einfügens.
+     */
+    private final Map<UUID, Eintrag> eintraege = new LinkedHashMap<>();
+
+    private final LongAdder treffer = new LongAdder();
+
+    private final LongAdder fehlschlaege = new LongAdder();
+
+    private final LongAdder verdraengt = new LongAdder();
+
+    /**
+     * Konstruktor mit der maximalen Anzahl Einträge.
+     *
+     * @param maxEintraege Maximale Anzahl Einträge
+     * @param blockGroesse Größe der Speicherblöcke in Bytes
+     * @throws IllegalArgumentException Falls die maximale Anzahl nicht positiv ist
+     */
+    OffHeapCache(final int maxEintraege, final long blockGroesse) {
+        if (maxEintraege <= 0) {
+            throw new IllegalArgumentException("Ungueltige Anzahl Eintraege fuer den Cache: " + maxEintraege);
+        }
+        speicher = new OffHeapSpeicher(blockGroesse);
+        this.maxEintraege = maxEintraege;
+    }
+
+    /**
+     * Einen Angestellten mit Version und Zeitpunkt anhand der ID lesen.
+     *
+     * @param id Die ID
+     * @return Der Eintrag oder null
+     */
+    Treffer get(final UUID id) {
+        lock.lock();
+        try {
+            final var eintrag = eintraege.get(id);
+            if (eintrag == null) {
+                fehlschlaege.increment();
+                return null;
+            }
+            treffer.increment();
+            return new Treffer(speicher.get(id), eintrag.version(), eintrag.zeit());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Einen Angestellten speichern, falls es keinen Eintrag mit derselben oder einer neueren Version gibt.
+     *
+     * @param angestellter Der Angestellte
+     * @param version Die Version
+     * @param zeit Beginn der Lebensdauer mit {@link System#nanoTime()}
+     */
+    void put(final Angestellter angestellter, final long version, final long zeit) {
+        final var id = angestellter.getId();
+        lock.lock();
+        try {
+            final var alt = eintraege.get(id);
+            if (alt != null && alt.version() >= version) {
+                return;
+            }
+            eintraege.put(id, new Eintrag(version, zeit));
+            speicher.put(angestellter);
+            final var iterator = eintraege.keySet().iterator();
+            while (eintraege.size() > maxEintraege) {
+                final var aeltester = iterator.next();
+                iterator.remove();
+                speicher.remove(aeltester);
+                verdraengt.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Den Eintrag zu einer ID entfernen.
+     *
+     * @param id Die ID
+     */
+    void remove(final UUID id) {
+        lock.lock();
+        try {
+            if (eintraege.remove(id) != null) {
+                speicher.remove(id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Die Anzahl der Einträge ermitteln.
+     *
+     * @return Die Anzahl der Einträge
+     */
+    int size() {
+        lock.lock();
+        try {
+            return eintraege.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Die Anzahl der Lesezugriffe mit einem Eintrag ermitteln.
+     *
+     * @return Die Anzahl der Treffer
+     */
+    long treffer() {
+        return treffer.sum();
+    }
+
+    /**
+     * Die Anzahl der Lesezugriffe ohne einen Eintrag ermitteln.
+     *
+     * @return Die Anzahl der Fehlschläge
+     */
+    long fehlschlaege() {
+        return fehlschlaege.sum();
+    }
+
+    /**
+     * Die Anzahl der verdrängten Einträge ermitteln.
+     *
+     * @return Die Anzahl der verdrängten Einträge
+     */
+    long verdraengt() {
+        return verdraengt.sum();
+    }
+
+    @Override
+    public void close() {
+        speicher.close();
+    }
+
+    /**
+     * Ein gelesener Eintrag.
+     *
+     * @param angestellter Der Angestellte als neues Objekt
+     * @param version Die Version
+     * @param zeit Beginn der Lebensdauer
+     */
+    record Treffer(Angestellter angestellter, long version, long zeit) {
+    }
+
+    private record Eintrag(long version, long zeit) {
+    }
+}
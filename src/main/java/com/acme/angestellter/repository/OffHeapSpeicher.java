@@ -0,0 +1,567 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.MemorySession;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.LongStream;
+import lombok.extern.slf4j.Slf4j;
+import static com.acme.angestellter.repository.OffsetIndex.KEINE_ADRESSE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Speicher mit den Angestellten in ihrer Binärdarstellung von {@link AngestellterCodec} in Speicherblöcken außerhalb
+ * des Heaps, die mit der Foreign Function &amp; Memory API allokiert werden. Jeder Angestellte wird mit seiner Länge an
+ * das Ende des aktuellen Blocks angefügt. Der {@link OffsetIndex} liefert zur ID die Adresse aus der Nummer des Blocks
+ * und dem Offset im Block. Erst beim Lesen wird aus der Binärdarstellung ein neues Objekt, d.h. Änderungen an einem
+ * gelesenen Angestellten werden erst durch {@link #put(Angestellter)} gespeichert.
+ * <p>
+ * Beim Ersetzen und Löschen wird der bisherige Eintrag in O(1) durch eine negative Länge als Grabstein markiert. Sobald
+ * der ungenutzte Platz größer als der belegte und als ein Block ist, verschiebt ein Hintergrund-Thread die noch
+ * belegten Einträge aus dem Block mit dem geringsten Füllgrad an das Ende und gibt den leeren Block frei. Die
+ * Schreibsperre wird dabei jeweils nur für höchstens {@link #SCHRITT} Bytes eines Blocks gehalten, damit die Pausen
+ * für Schreibzugriffe begrenzt sind.
+ * <p>
+ * Lesende Zugriffe verwenden keine Sperre. Sie lesen den Index mit einem optimistischen Stempel und wiederholen den
+ * Zugriff, falls zwischendurch geschrieben wurde. Den Block mit den Binärdaten fixieren sie über einen
+ * Referenzzähler, so dass ein von der Kompaktierung geleerter Block erst freigegeben wird, wenn ihn kein Leser mehr
+ * verwendet.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@Slf4j
+final class OffHeapSpeicher implements AngestellterSpeicher {
+    /**
+     * Maximale Anzahl Bytes eines Blocks, die bei einem Schritt der Kompaktierung durchlaufen werden.
+     */
+    static final long SCHRITT = 256 * 1024L;
+
+    private static final long AUSRICHTUNG = Long.BYTES;
+
+    private static final long MAX_BLOCK_GROESSE = 1L << 32;
+
+    private final long blockGroesse;
+
+    private final OffsetIndex index = new OffsetIndex();
+
+    /**
+     * Sperre für Schreibzugriffe und die Kompaktierung. Lesende Zugriffe prüfen nur mit einem optimistischen Stempel,
+     * ob sie einen konsistenten Stand der Hashtabelle und der Blöcke gelesen haben.
+     */
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Die Blöcke mit ihrer Nummer als Index. Die Nummer eines freigegebenen Blocks wird für einen neuen Block
+     * wiederverwendet.
+     */
+    private final List<Block> bloecke = new ArrayList<>();
+
+    private final ExecutorService kompaktierer =
+        Executors.newSingleThreadExecutor(Thread.ofVirtual().name("kompaktieren").factory());
+
+    private final AtomicLong schritte = new AtomicLong();
+
+    private final AtomicLong pausen = new AtomicLong();
+
+    private final AtomicLong maxPause = new AtomicLong();
+
+    private final AtomicLong freigegeben = new AtomicLong();
+
+    private int aktuellerBlock = -1;
+
+    private long belegt;
+
+    private long geschrieben;
+
+    private boolean kompaktierungLaeuft;
+
+    private boolean geschlossen;
+
+    /**
+     * Block, der gerade kompaktiert wird, oder -1.
+     */
+    private int quelle = -1;
+
+    private long quelleOffset;
+
+    /**
+     * Konstruktor mit der Größe der Speicherblöcke.
+     *
+     * @param blockGroesse Größe eines Speicherblocks in Bytes
+     * @throws IllegalArgumentException Falls die Größe nicht positiv oder größer als 4 GB ist
+     */
+    OffHeapSpeicher(final long blockGroesse) {
+        if (blockGroesse <= 0 || blockGroesse > MAX_BLOCK_GROESSE) {
+            throw new IllegalArgumentException("Ungueltige Groesse fuer einen Speicherblock: " + blockGroesse);
+        }
+        this.blockGroesse = blockGroesse;
+    }
+
+    @Override
+    public Angestellter get(final UUID id) {
+        while (true) {
+            final var stamp = lock.tryOptimisticRead();
+            final var adresse = adresse(id);
+            if (adresse == KEINE_ADRESSE) {
+                if (lock.validate(stamp)) {
+                    return null;
+                }
+                Thread.yield();
+                continue;
+            }
+            final var block = block(stamp, adresse);
+            if (block != null) {
+                try {
+                    // der Block ist fixiert und die Adresse war beim Fixieren noch gueltig
+                    if (lock.validate(stamp)) {
+                        return AngestellterCodec.decode(block.segment(), offset(adresse) + Integer.BYTES);
+                    }
+                } finally {
+                    block.loesen();
+                }
+            }
+            Thread.yield();
+        }
+    }
+
+    @Override
+    public boolean containsKey(final UUID id) {
+        while (true) {
+            final var stamp = lock.tryOptimisticRead();
+            final var result = adresse(id) != KEINE_ADRESSE;
+            if (lock.validate(stamp)) {
+                return result;
+            }
+            Thread.yield();
+        }
+    }
+
+    @Override
+    public void put(final Angestellter angestellter) {
+        final var stamp = lock.writeLock();
+        try {
+            final var alt = index.put(angestellter.getId(), schreiben(angestellter));
+            if (alt != KEINE_ADRESSE) {
+                begraben(alt);
+                kompaktierenFallsNoetig();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean remove(final UUID id) {
+        final var stamp = lock.writeLock();
+        try {
+            final var alt = index.remove(id);
+            if (alt == KEINE_ADRESSE) {
+                return false;
+            }
+            begraben(alt);
+            kompaktierenFallsNoetig();
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        while (true) {
+            final var stamp = lock.tryOptimisticRead();
+            final var result = index.size();
+            if (lock.validate(stamp)) {
+                return result;
+            }
+            Thread.yield();
+        }
+    }
+
+    @Override
+    public Collection<Angestellter> values() {
+        while (true) {
+            final var stamp = lock.tryOptimisticRead();
+            // alle Bloecke fixieren, weil die Adressen erst nach dem Validieren dekodiert werden
+            final var fixiert = fixieren();
+            try {
+                final var adressen = adressen();
+                if (adressen != null && lock.validate(stamp)) {
+                    final var result = new ArrayList<Angestellter>(adressen.length);
+                    for (final var adresse : adressen) {
+                        final var segment = fixiert[block(adresse)].segment();
+                        result.add(AngestellterCodec.decode(segment, offset(adresse) + Integer.BYTES));
+                    }
+                    return result;
+                }
+            } finally {
+                Arrays.stream(fixiert)
+                    .filter(Objects::nonNull)
+                    .forEach(Block::loesen);
+            }
+            Thread.yield();
+        }
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        FunctionTimer
+            .builder("app.speicher.kompaktierung", this, s -> s.schritte.get(), s -> s.pausen.get(), NANOSECONDS)
+            .description("Schritte der Kompaktierung mit der Dauer der Schreibsperre")
+            .register(registry);
+        TimeGauge.builder("app.speicher.kompaktierung.pause.max", maxPause, NANOSECONDS, AtomicLong::get)
+            .description("Laengste Pause durch einen Schritt der Kompaktierung")
+            .register(registry);
+        FunctionCounter.builder("app.speicher.kompaktierung.freigegeben", freigegeben, AtomicLong::get)
+            .description("Durch die Kompaktierung freigegebener Speicher")
+            .baseUnit("bytes")
+            .register(registry);
+        Gauge.builder("app.speicher.ungenutzt", this, OffHeapSpeicher::ungenutzt)
+            .description("Durch Grabsteine belegter Platz in den Speicherbloecken")
+            .baseUnit("bytes")
+            .register(registry);
+    }
+
+    @Override
+    public void close() {
+        kompaktierer.shutdownNow();
+        final var stamp = lock.writeLock();
+        try {
+            geschlossen = true;
+            bloecke.stream()
+                .filter(Objects::nonNull)
+                .forEach(Block::ausmustern);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Waehrend eines Schreibzugriffs kann die Hashtabelle inkonsistent sein und z.B. eine Exception ausloesen. Das
+    // Ergebnis wird deshalb erst nach dem Validieren des Stempels verwendet.
+    private long adresse(final UUID id) {
+        try {
+            return index.get(id);
+        } catch (final RuntimeException ex) {
+            return KEINE_ADRESSE;
+        }
+    }
+
+    // alle Adressen oder null bei einem inkonsistenten Stand der Hashtabelle
+    private long[] adressen() {
+        final var builder = LongStream.builder();
+        try {
+            index.forEach(builder::add);
+        } catch (final RuntimeException ex) {
+            return null;
+        }
+        return builder.build().toArray();
+    }
+
+    // den Block zu einer Adresse fixieren oder null, falls inzwischen geschrieben wurde
+    private Block block(final long stamp, final long adresse) {
+        final Block block;
+        try {
+            block = bloecke.get(block(adresse));
+        } catch (final IndexOutOfBoundsException ex) {
+            return null;
+        }
+        if (block == null || !lock.validate(stamp) || !block.fixieren()) {
+            return null;
+        }
+        return block;
+    }
+
+    // alle nicht ausgemusterten Bloecke mit ihrer Nummer als Index fixieren
+    private Block[] fixieren() {
+        Block[] kopie;
+        try {
+            kopie = bloecke.toArray(Block[]::new);
+        } catch (final RuntimeException ex) {
+            kopie = new Block[0];
+        }
+        for (int i = 0; i < kopie.length; i++) {
+            if (kopie[i] != null && !kopie[i].fixieren()) {
+                kopie[i] = null;
+            }
+        }
+        return kopie;
+    }
+
+    // Laenge und Binaerdaten an das Ende des aktuellen Blocks anfuegen
+    private long schreiben(final Angestellter angestellter) {
+        final var laenge = AngestellterCodec.groesse(angestellter);
+        final var platz = ausrichten(Integer.BYTES + laenge);
+        final var adresse = reservieren(platz);
+        final var segment = bloecke.get(block(adresse)).segment();
+        segment.set(JAVA_INT, offset(adresse), laenge);
+        AngestellterCodec.encode(angestellter, segment, offset(adresse) + Integer.BYTES);
+        return adresse;
+    }
+
+    // Platz am Ende des aktuellen Blocks bzw. in einem neuen Block reservieren
+    private long reservieren(final long platz) {
+        if (aktuellerBlock < 0 || bloecke.get(aktuellerBlock).ende + platz > bloecke.get(aktuellerBlock).groesse()) {
+            final var session = MemorySession.openShared();
+            final var segment = MemorySegment.allocateNative(Math.max(blockGroesse, platz), AUSRICHTUNG, session);
+            final var block = new Block(session, segment);
+            aktuellerBlock = bloecke.indexOf(null);
+            if (aktuellerBlock < 0) {
+                aktuellerBlock = bloecke.size();
+                bloecke.add(block);
+            } else {
+                bloecke.set(aktuellerBlock, block);
+            }
+        }
+        final var block = bloecke.get(aktuellerBlock);
+        final var adresse = adresse(aktuellerBlock, block.ende);
+        block.ende += platz;
+        block.belegt += platz;
+        belegt += platz;
+        geschrieben += platz;
+        return adresse;
+    }
+
+    // Grabstein mit negativer Laenge, damit die Kompaktierung den Eintrag ueberspringt
+    private void begraben(final long adresse) {
+        final var block = bloecke.get(block(adresse));
+        final var offset = offset(adresse);
+        final var platz = platz(block.segment(), offset);
+        block.segment().set(JAVA_INT, offset, -block.segment().get(JAVA_INT, offset));
+        block.belegt -= platz;
+        belegt -= platz;
+    }
+
+    private long ungenutzt() {
+        var stamp = lock.tryOptimisticRead();
+        final var result = geschrieben - belegt;
+        if (lock.validate(stamp)) {
+            return result;
+        }
+        stamp = lock.readLock();
+        try {
+            return geschrieben - belegt;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Die Kompaktierung im Hintergrund starten, wenn mehr als die Haelfte ungenutzt ist
+    private void kompaktierenFallsNoetig() {
+        if (kompaktierungLaeuft || !kompaktierenNoetig()) {
+            return;
+        }
+        kompaktierungLaeuft = true;
+        kompaktierer.execute(this::kompaktieren);
+    }
+
+    private boolean kompaktierenNoetig() {
+        final var ungenutzt = geschrieben - belegt;
+        return ungenutzt > blockGroesse && ungenutzt > belegt;
+    }
+
+    private void kompaktieren() {
+        var weiter = true;
+        while (weiter) {
+            final long pause;
+            final var stamp = lock.writeLock();
+            // nur die Dauer mit der Schreibsperre ohne die Wartezeit auf die Sperre
+            final var start = System.nanoTime();
+            try {
+                weiter = !geschlossen && schritt();
+                if (!weiter) {
+                    kompaktierungLaeuft = false;
+                }
+            } catch (final RuntimeException ex) {
+                log.error("kompaktieren", ex);
+                kompaktierungLaeuft = false;
+                weiter = false;
+            } finally {
+                pause = System.nanoTime() - start;
+                lock.unlockWrite(stamp);
+            }
+            schritte.incrementAndGet();
+            pausen.addAndGet(pause);
+            maxPause.accumulateAndGet(pause, Math::max);
+        }
+    }
+
+    // Die belegten Eintraege aus hoechstens SCHRITT Bytes des Quellblocks an das Ende verschieben
+    private boolean schritt() {
+        if (quelle < 0) {
+            if (!kompaktierenNoetig()) {
+                return false;
+            }
+            quelle = quelle();
+            if (quelle < 0) {
+                return false;
+            }
+            quelleOffset = 0L;
+        }
+
+        final var block = bloecke.get(quelle);
+        final var segment = block.segment();
+        final var ende = Math.min(block.ende, quelleOffset + SCHRITT);
+        while (quelleOffset < ende) {
+            final var offset = quelleOffset;
+            final var platz = platz(segment, offset);
+            if (segment.get(JAVA_INT, offset) >= 0) {
+                final var neu = reservieren(platz);
+                MemorySegment.copy(segment, offset, bloecke.get(block(neu)).segment(), offset(neu), platz);
+                index.put(AngestellterCodec.id(segment, offset + Integer.BYTES), neu);
+                begraben(adresse(quelle, offset));
+            }
+            quelleOffset += platz;
+        }
+        if (quelleOffset < block.ende) {
+            return true;
+        }
+
+        // der Quellblock enthaelt nur noch Grabsteine
+        geschrieben -= block.ende;
+        freigegeben.addAndGet(block.groesse());
+        // erst freigeben, wenn kein Leser den Block mehr fixiert hat
+        block.ausmustern();
+        bloecke.set(quelle, null);
+        log.debug("kompaktieren: Block {} freigegeben, {} Bytes belegt", quelle, belegt);
+        quelle = -1;
+        return true;
+    }
+
+    // Der Block mit dem geringsten Fuellgrad ausser dem aktuellen Block oder -1
+    private int quelle() {
+        var result = -1;
+        var minFuellgrad = 1.0;
+        for (int i = 0; i < bloecke.size(); i++) {
+            final var block = bloecke.get(i);
+            if (block == null || i == aktuellerBlock) {
+                continue;
+            }
+            final var fuellgrad = (double) block.belegt / block.ende;
+            if (fuellgrad < minFuellgrad) {
+                minFuellgrad = fuellgrad;
+                result = i;
+            }
+        }
+        return result;
+    }
+
+    // ein Grabstein hat die negative Laenge
+    private static long platz(final MemorySegment segment, final long offset) {
+        return ausrichten(Integer.BYTES + Math.abs(segment.get(JAVA_INT, offset)));
+    }
+
+    private static long ausrichten(final long groesse) {
+        return (groesse + AUSRICHTUNG - 1) & -AUSRICHTUNG;
+    }
+
+    @SuppressWarnings("MagicNumber")
+    private static long adresse(final int block, final long offset) {
+        return (long) block << 32 | offset;
+    }
+
+    @SuppressWarnings("MagicNumber")
+    private static int block(final long adresse) {
+        return (int) (adresse >>> 32);
+    }
+
+    @SuppressWarnings("MagicNumber")
+    private static long offset(final long adresse) {
+        return adresse & 0xFFFF_FFFFL;
+    }
+
+    /**
+     * Ein Speicherblock mit eigener Session, damit er einzeln freigegeben werden kann, und mit der Anzahl der Leser,
+     * die ihn gerade fixiert haben.
+     */
+    private static final class Block {
+        private final MemorySession session;
+
+        private final MemorySegment segment;
+
+        private final AtomicInteger leser = new AtomicInteger();
+
+        private final AtomicBoolean freigegeben = new AtomicBoolean();
+
+        private volatile boolean ausgemustert;
+
+        private long ende;
+
+        private long belegt;
+
+        Block(final MemorySession session, final MemorySegment segment) {
+            this.session = session;
+            this.segment = segment;
+        }
+
+        // false, falls der Block schon ausgemustert ist und nicht mehr gelesen werden darf
+        boolean fixieren() {
+            leser.incrementAndGet();
+            if (ausgemustert) {
+                loesen();
+                return false;
+            }
+            return true;
+        }
+
+        void loesen() {
+            if (leser.decrementAndGet() == 0 && ausgemustert) {
+                freigeben();
+            }
+        }
+
+        // der letzte Leser gibt einen ausgemusterten Block frei
+        void ausmustern() {
+            ausgemustert = true;
+            if (leser.get() == 0) {
+                freigeben();
+            }
+        }
+
+        private void freigeben() {
+            if (freigegeben.compareAndSet(false, true)) {
+                session.close();
+            }
+        }
+
+        MemorySegment segment() {
+            return segment;
+        }
+
+        long groesse() {
+            return segment.byteSize();
+        }
+    }
+}
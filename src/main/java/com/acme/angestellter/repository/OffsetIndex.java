@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.LongConsumer;
+
+/**
+ * Hashtabelle von einer UUID auf eine Adresse vom Typ long, die nur primitive Arrays verwendet. Pro Eintrag werden
+ * damit 24 Bytes statt eines Map.Entry mit UUID- und Long-Objekt benötigt. Kollisionen werden durch lineares Sondieren
+ * aufgelöst und beim Löschen werden die nachfolgenden Einträge zurückgeschoben, so dass keine Grabsteine entstehen.
+ * <p>
+ * Die Hashtabelle ist nicht threadsicher. Schreibende Zugriffe muss der Aufrufer serialisieren. Ein lesender Zugriff
+ * parallel zu einem schreibenden kann ein falsches Ergebnis oder eine RuntimeException liefern, aber terminiert immer,
+ * so dass der Aufrufer das Ergebnis z.B. mit einem optimistischen Stempel von StampedLock validieren kann.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class OffsetIndex {
+    /**
+     * Markierung für einen freien Platz bzw. für eine nicht vorhandene UUID.
+     */
+    static final long KEINE_ADRESSE = -1L;
+
+    private static final int MIN_KAPAZITAET = 16;
+
+    private long[] mostSigBits;
+
+    private long[] leastSigBits;
+
+    private long[] adressen;
+
+    private int size;
+
+    /**
+     * Konstruktor für eine leere Hashtabelle.
+     */
+    OffsetIndex() {
+        allokieren(MIN_KAPAZITAET);
+    }
+
+    /**
+     * Die Adresse zu einer UUID ermitteln.
+     *
+     * @param id Die UUID
+     * @return Die Adresse oder {@link #KEINE_ADRESSE}
+     */
+    long get(final UUID id) {
+        final var msb = id.getMostSignificantBits();
+        final var lsb = id.getLeastSignificantBits();
+        // die Arrays nur einmal lesen, weil sie beim Vergroessern parallel ausgetauscht werden koennen
+        final var adressenAktuell = adressen;
+        final var msbAktuell = mostSigBits;
+        final var lsbAktuell = leastSigBits;
+        final var maske = adressenAktuell.length - 1;
+        var i = slot(msb, lsb, maske);
+        // hoechstens einmal durch die Tabelle, falls sie gerade veraendert wird
+        for (int n = 0; n < adressenAktuell.length && adressenAktuell[i] != KEINE_ADRESSE; n++) {
+            if (msbAktuell[i] == msb && lsbAktuell[i] == lsb) {
+                return adressenAktuell[i];
+            }
+            i = (i + 1) & maske;
+        }
+        return KEINE_ADRESSE;
+    }
+
+    /**
+     * Die Adresse zu einer UUID eintragen bzw. ersetzen.
+     *
+     * @param id Die UUID
+     * @param adresse Die neue Adresse, die nicht negativ ist
+     * @return Die bisherige Adresse oder {@link #KEINE_ADRESSE}
+     */
+    long put(final UUID id, final long adresse) {
+        // Fuellgrad hoechstens 50%, damit die Sondierungsketten kurz bleiben
+        if ((size + 1) * 2 > adressen.length) {
+            vergroessern();
+        }
+        final var msb = id.getMostSignificantBits();
+        final var lsb = id.getLeastSignificantBits();
+        final var maske = adressen.length - 1;
+        var i = slot(msb, lsb, maske);
+        while (adressen[i] != KEINE_ADRESSE) {
+            if (mostSigBits[i] == msb && leastSigBits[i] == lsb) {
+                final var alt = adressen[i];
+                adressen[i] = adresse;
+                return alt;
+            }
+            i = (i + 1) & maske;
+        }
+        mostSigBits[i] = msb;
+        leastSigBits[i] = lsb;
+        adressen[i] = adresse;
+        size++;
+        return KEINE_ADRESSE;
+    }
+
+    /**
+     * Eine UUID entfernen.
+     *
+     * @param id Die UUID
+     * @return Die bisherige Adresse oder {@link #KEINE_ADRESSE}
+     */
+    long remove(final UUID id) {
+        final var msb = id.getMostSignificantBits();
+        final var lsb = id.getLeastSignificantBits();
+        final var maske = adressen.length - 1;
+        var i = slot(msb, lsb, maske);
+        while (adressen[i] != KEINE_ADRESSE) {
+            if (mostSigBits[i] == msb && leastSigBits[i] == lsb) {
+                final var alt = adressen[i];
+                zurueckschieben(i, maske);
+                size--;
+                return alt;
+            }
+            i = (i + 1) & maske;
+        }
+        return KEINE_ADRESSE;
+    }
+
+    /**
+     * Alle Adressen in der Reihenfolge der Hashtabelle verarbeiten.
+     *
+     * @param consumer Consumer für die Adressen
+     */
+    void forEach(final LongConsumer consumer) {
+        for (final var adresse : adressen) {
+            if (adresse != KEINE_ADRESSE) {
+                consumer.accept(adresse);
+            }
+        }
+    }
+
+    /**
+     * Die Anzahl der UUIDs ermitteln.
+     *
+     * @return Die Anzahl der UUIDs
+     */
+    int size() {
+        return size;
+    }
+
+    // Backward Shift Deletion: nachfolgende Eintraege in die Luecke schieben, solange sie dadurch nicht vor ihren
+    // eigentlichen Platz geraten
+    private void zurueckschieben(final int geloescht, final int maske) {
+        var luecke = geloescht;
+        var i = (luecke + 1) & maske;
+        while (adressen[i] != KEINE_ADRESSE) {
+            final var eigentlich = slot(mostSigBits[i], leastSigBits[i], maske);
+            if (((i - eigentlich) & maske) >= ((i - luecke) & maske)) {
+                mostSigBits[luecke] = mostSigBits[i];
+                leastSigBits[luecke] = leastSigBits[i];
+                adressen[luecke] = adressen[i];
+                luecke = i;
+            }
+            i = (i + 1) & maske;
+        }
+        adressen[luecke] = KEINE_ADRESSE;
+    }
+
+    private void vergroessern() {
+        final var alteMsb = mostSigBits;
+        final var alteLsb = leastSigBits;
+        final var alteAdressen = adressen;
+        allokieren(alteAdressen.length * 2);
+        final var maske = adressen.length - 1;
+        for (int j = 0; j < alteAdressen.length; j++) {
+            if (alteAdressen[j] != KEINE_ADRESSE) {
+                var i = slot(alteMsb[j], alteLsb[j], maske);
+                while (adressen[i] != KEINE_ADRESSE) {
+                    i = (i + 1) & maske;
+                }
+                mostSigBits[i] = alteMsb[j];
+                leastSigBits[i] = alteLsb[j];
+                adressen[i] = alteAdressen[j];
+            }
+        }
+    }
+
+    private void allokieren(final int kapazitaet) {
+        mostSigBits = new long[kapazitaet];
+        leastSigBits = new long[kapazitaet];
+        adressen = new long[kapazitaet];
+        Arrays.fill(adressen, KEINE_ADRESSE);
+    }
+
+    // Finalizer von MurmurHash3, weil die Bits einer UUID (z.B. Version und Variante) nicht gleichverteilt sind
+    @SuppressWarnings("MagicNumber")
+    private static int slot(final long msb, final long lsb, final int maske) {
+        var h = msb ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xFF51_AFD7_ED55_8CCDL;
+        h ^= h >>> 33;
+        return (int) h & maske;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.text.Normalizer;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Hash-Index für Ortsnamen ohne Beachtung von Groß-/Kleinschreibung. Die Ortsnamen werden vor dem Indexieren und vor
+ * der Suche normalisiert (Unicode NFKC, Kleinbuchstaben, einzelne Leerzeichen), so dass z.B. "Karlsruhe",
+ * " karlsruhe " und "KARLSRUHE" denselben Schlüssel haben.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class OrtIndex {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final MultimapIndex<String> ids = MultimapIndex.hash();
+
+    /**
+     * Einen Ortsnamen normalisieren.
+     *
+     * @param ort Der Ortsname
+     * @return Der normalisierte Ortsname
+     */
+    static String normalisieren(final String ort) {
+        final var nfkc = Normalizer.normalize(ort.strip(), Normalizer.Form.NFKC);
+        return WHITESPACE.matcher(nfkc).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Einen Ort für eine ID indexieren bzw. den bisherigen Ort ersetzen.
+     *
+     * @param id Die ID
+     * @param alterOrt Der bisher indexierte Ort oder null
+     * @param ort Der zu indexierende Ort oder null
+     */
+    void put(final UUID id, final String alterOrt, final String ort) {
+        ids.put(id, schluessel(alterOrt), schluessel(ort));
+    }
+
+    /**
+     * Eine ID aus dem Index entfernen.
+     *
+     * @param id Die ID
+     * @param alterOrt Der bisher indexierte Ort oder null
+     */
+    void remove(final UUID id, final String alterOrt) {
+        ids.remove(id, schluessel(alterOrt));
+    }
+
+    /**
+     * Die IDs zu einem Ort ermitteln.
+     *
+     * @param ort Der Ortsname, der vor der Suche normalisiert wird
+     * @return Die IDs mit passendem Ort
+     */
+    Collection<UUID> find(final String ort) {
+        return ids.find(normalisieren(ort));
+    }
+
+    /**
+     * Die Anzahl der IDs zu einem Ort ermitteln.
+     *
+     * @param ort Der Ortsname, der vor der Suche normalisiert wird
+     * @return Die Anzahl der IDs mit passendem Ort
+     */
+    int estimate(final String ort) {
+        return ids.estimate(normalisieren(ort));
+    }
+
+    private static String schluessel(final String ort) {
+        return ort == null ? null : normalisieren(ort);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Index für Postleitzahlen mit Präfixsuche, z.B. "7", "76" oder "76131". Die passenden Postleitzahlen bilden unter den
+ * sortierten Schlüsseln einen zusammenhängenden Bereich, so dass die Suche in O(log n + k) erfolgt.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class PlzIndex {
+    private final MultimapIndex<String> ids = MultimapIndex.sortiert();
+
+    /**
+     * Eine Postleitzahl für eine ID indexieren bzw. die bisherige Postleitzahl ersetzen.
+     *
+     * @param id Die ID
+     * @param altePlz Die bisher indexierte Postleitzahl oder null
+     * @param plz Die zu indexierende Postleitzahl oder null
+     */
+    void put(final UUID id, final String altePlz, final String plz) {
+        ids.put(id, altePlz, plz);
+    }
+
+    /**
+     * Eine ID aus dem Index entfernen.
+     *
+     * @param id Die ID
+     * @param altePlz Die bisher indexierte Postleitzahl oder null
+     */
+    void remove(final UUID id, final String altePlz) {
+        ids.remove(id, altePlz);
+    }
+
+    /**
+     * Die IDs ermitteln, deren Postleitzahl mit dem Präfix beginnt.
+     *
+     * @param prefix Das Präfix
+     * @return Die IDs mit passender Postleitzahl
+     */
+    Collection<UUID> find(final String prefix) {
+        return ids.find(prefix, ende(prefix));
+    }
+
+    /**
+     * Die Anzahl der IDs zu einem Präfix ermitteln, ohne die IDs zu kopieren.
+     *
+     * @param prefix Das Präfix
+     * @return Die Anzahl der IDs mit passender Postleitzahl
+     */
+    int estimate(final String prefix) {
+        return ids.estimate(prefix, ende(prefix));
+    }
+
+    // alle Schluessel mit dem Praefix liegen zwischen "prefix" und "prefix + Character.MAX_VALUE"
+    private static String ende(final String prefix) {
+        return prefix + Character.MAX_VALUE;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Sortierter Index mit den verschiedenen Werten, z.B. Nachnamen, und ihrer Häufigkeit für die Suche nach einem Präfix.
+ * Die passenden Werte werden durch einen Bereichsscan in der Skip-Liste ermittelt und nach Häufigkeit sortiert.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class PrefixIndex {
+    /**
+     * Reihenfolge der Treffer: absteigend nach Häufigkeit, bei gleicher Häufigkeit alphabetisch.
+     */
+    private static final Comparator<Map.Entry<String, Integer>> RANG =
+        Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    private final ConcurrentNavigableMap<String, Integer> haeufigkeiten = new ConcurrentSkipListMap<>();
+
+    /**
+     * Einen Wert hinzufügen bzw. seine Häufigkeit erhöhen.
+     *
+     * @param wert Der Wert
+     */
+    void add(final String wert) {
+        if (wert != null) {
+            haeufigkeiten.merge(wert, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Die Häufigkeit eines Werts verringern und ihn ggf. entfernen.
+     *
+     * @param wert Der Wert
+     */
+    void remove(final String wert) {
+        if (wert != null) {
+            haeufigkeiten.computeIfPresent(wert, (key, anzahl) -> anzahl == 1 ? null : anzahl - 1);
+        }
+    }
+
+    /**
+     * Einen Wert durch einen anderen ersetzen.
+     *
+     * @param alterWert Der bisherige Wert
+     * @param neuerWert Der neue Wert
+     */
+    void replace(final String alterWert, final String neuerWert) {
+        if (!Objects.equals(alterWert, neuerWert)) {
+            remove(alterWert);
+            add(neuerWert);
+        }
+    }
+
+    /**
+     * Die häufigsten Werte zu einem Präfix ermitteln.
+     *
+     * @param prefix Das Präfix
+     * @param limit Maximale Anzahl der Werte
+     * @return Die passenden Werte absteigend nach Häufigkeit
+     */
+    List<String> find(final String prefix, final int limit) {
+        // Min-Heap der Groesse "limit" mit den bisher besten Treffern: O(k log limit) fuer k passende Werte
+        final var besteTreffer = new PriorityQueue<Map.Entry<String, Integer>>(RANG.reversed());
+        for (final var entry : haeufigkeiten.tailMap(prefix).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            besteTreffer.add(Map.entry(entry.getKey(), entry.getValue()));
+            if (besteTreffer.size() > limit) {
+                besteTreffer.poll();
+            }
+        }
+        return besteTreffer.stream()
+            .sorted(RANG)
+            .map(Map.Entry::getKey)
+            .toList();
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ausführungsplan einer Suche mit diversen Suchkriterien, z.B. für die Ausgabe im Explain-Modus.
+ *
+ * @param suchkriterien Die Suchkriterien
+ * @param zugriffspfad Der gewählte Zugriffspfad, z.B. "INDEX_SCAN(nachname)" oder "FULL_SCAN"
+ * @param schaetzungen Geschätzte Anzahl an Kandidaten je betrachtetem Index
+ * @param filter Suchkriterien, die nach dem Zugriff auf die Kandidaten als Filter geprüft werden
+ * @param untersuchteZeilen Anzahl der tatsächlich untersuchten Angestellten
+ * @param treffer Anzahl der gefundenen Angestellten
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+public record QueryPlan(
+    Map<String, String> suchkriterien,
+    String zugriffspfad,
+    Map<String, Integer> schaetzungen,
+    List<String> filter,
+    int untersuchteZeilen,
+    int treffer
+) {
+    /**
+     * Zugriffspfad, falls alle Angestellten untersucht werden.
+     */
+    public static final String FULL_SCAN = "FULL_SCAN";
+
+    /**
+     * Zugriffspfad, falls ein Suchkriterium ungültig ist und es deshalb keine Treffer geben kann.
+     */
+    public static final String KEIN_ZUGRIFF = "KEIN_ZUGRIFF";
+}
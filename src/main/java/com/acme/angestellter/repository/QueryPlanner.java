@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Kostenbasierter Planer für die Suche mit mehreren Suchkriterien, die mit AND verknüpft werden. Für jedes Kriterium
+ * mit Index wird die Anzahl der Kandidaten aus der Index-Statistik geschätzt. Alle Bitmap-Indexe werden vorab mit AND
+ * verknüpft, so dass ihre Trefferanzahl exakt ist. Der Zugriffspfad mit den wenigsten Kandidaten treibt die Suche,
+ * die übrigen Kriterien werden als Filter auf die gelesenen Angestellten angewendet. Grenzt kein Index die Kandidaten
+ * ausreichend ein, werden die Kandidaten vor dem Lesen mit der bereits berechneten Bitmap und mit einem spaltenweisen
+ * Scan über die {@link Spalten} für die noch nicht ausgewerteten Kriterien mit AND verknüpft, so dass es nie mehr
+ * Kandidaten als beim besten Index gibt. Ohne passenden Index werden alle Angestellten untersucht.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@RequiredArgsConstructor
+@Slf4j
+final class QueryPlanner {
+    private static final String INDEX_SCAN = "INDEX_SCAN";
+
+    private static final String BITMAP_SCAN = "BITMAP_SCAN";
+
+    private static final String COLUMN_SCAN = "COLUMN_SCAN";
+
+    /**
+     * Das Verknüpfen mit einem spaltenweisen Scan lohnt sich, sobald der beste Index mehr als 1/16 aller Angestellten
+     * als Kandidaten liefert, weil das Lesen eines Angestellten ein Vielfaches des Vergleichs mehrerer Zeilen pro
+     * Vektor-Instruktion kostet.
+     */
+    private static final int SPALTEN_FAKTOR = 16;
+
+    private final AngestellterSpeicher angestellte;
+
+    private final RowIds rowIds;
+
+    private final Spalten spalten;
+
+    /**
+     * Gefundene Angestellte zusammen mit dem ausgeführten Plan.
+     *
+     * @param angestellte Die gefundenen Angestellten
+     * @param plan Der ausgeführte Plan
+     */
+    record Ergebnis(List<Angestellter> angestellte, QueryPlan plan) {
+    }
+
+    /**
+     * Ergebnis für Suchkriterien, von denen mindestens eines ungültig ist, so dass es keine Treffer geben kann.
+     *
+     * @param suchkriterien Die Suchkriterien
+     * @return Leeres Ergebnis ohne Zugriff auf die Angestellten
+     */
+    static Ergebnis keinTreffer(final Map<String, String> suchkriterien) {
+        final var plan = new QueryPlan(suchkriterien, QueryPlan.KEIN_ZUGRIFF, Map.of(), List.of(), 0, 0);
+        return new Ergebnis(List.of(), plan);
+    }
+
+    /**
+     * Einen Plan für die Suchkriterien erstellen und ausführen.
+     *
+     * @param suchkriterien Die Suchkriterien als Strings für die Ausgabe des Plans
+     * @param kriterien Die geparsten Suchkriterien
+     * @return Die gefundenen Angestellten mit dem ausgeführten Plan
+     */
+    @SuppressWarnings({"CyclomaticComplexity", "NPathComplexity"})
+    Ergebnis ausfuehren(final Map<String, String> suchkriterien, final Collection<Kriterium> kriterien) {
+        final var schaetzungen = new LinkedHashMap<String, Integer>();
+
+        // Bitmap-Indexe mit AND verknuepfen: die Kardinalitaet ist exakt und kostet nur einige Wortoperationen
+        final var bitmapKriterien = new ArrayList<String>();
+        Bitmap rows = null;
+        for (final var kriterium : kriterien) {
+            if (kriterium.indexZugriff().orElse(null) instanceof IndexZugriff.Rows zugriff) {
+                final var bitmap = zugriff.rows().get();
+                schaetzungen.put(zugriff.index(), bitmap.cardinality());
+                rows = rows == null ? bitmap : rows.and(bitmap);
+                bitmapKriterien.add(kriterium.name());
+            }
+        }
+
+        // Der Zugriffspfad mit den wenigsten Kandidaten gewinnt, sofern er weniger als alle Angestellten liefert
+        var besteSchaetzung = angestellte.size();
+        var zugriffspfad = QueryPlan.FULL_SCAN;
+        List<String> abgedeckt = List.of();
+        IndexZugriff.Ids besterZugriff = null;
+        if (rows != null && rows.cardinality() < besteSchaetzung) {
+            besteSchaetzung = rows.cardinality();
+            zugriffspfad = BITMAP_SCAN + '(' + String.join(" AND ", bitmapKriterien) + ')';
+            abgedeckt = bitmapKriterien;
+        }
+        for (final var kriterium : kriterien) {
+            if (kriterium.indexZugriff().orElse(null) instanceof IndexZugriff.Ids zugriff) {
+                final var schaetzung = zugriff.schaetzung().getAsInt();
+                schaetzungen.put(zugriff.index(), schaetzung);
+                if (schaetzung < besteSchaetzung) {
+                    besteSchaetzung = schaetzung;
+                    zugriffspfad = INDEX_SCAN + '(' + zugriff.index() + ')';
+                    abgedeckt = List.of(kriterium.name());
+                    besterZugriff = zugriff;
+                }
+            }
+        }
+
+        if (besteSchaetzung > angestellte.size() / SPALTEN_FAKTOR) {
+            // die Kandidaten des besten Zugriffspfads mit den exakten Zeilennummern der uebrigen Kriterien verknuepfen
+            final var verknuepft = new ArrayList<String>();
+            final var alleAbgedeckt = new ArrayList<>(abgedeckt);
+            Bitmap kandidatenRows = null;
+            if (besterZugriff != null) {
+                kandidatenRows = rows(besterZugriff.ids().get());
+                if (rows != null) {
+                    // die bereits berechnete Bitmap wiederverwenden statt dieselben Kriterien erneut zu scannen
+                    kandidatenRows = kandidatenRows.and(rows);
+                    verknuepft.add(BITMAP_SCAN + '(' + String.join(" AND ", bitmapKriterien) + ')');
+                    alleAbgedeckt.addAll(bitmapKriterien);
+                }
+            } else if (!abgedeckt.isEmpty()) {
+                kandidatenRows = rows;
+            }
+            final var spaltenKriterien = kriterien.stream()
+                .filter(kriterium -> kriterium.spaltenFilter().isPresent())
+                .filter(kriterium -> !alleAbgedeckt.contains(kriterium.name()))
+                .filter(kriterium -> !bitmapKriterien.contains(kriterium.name()))
+                .toList();
+            if (!spaltenKriterien.isEmpty()) {
+                final var namen = spaltenKriterien.stream().map(Kriterium::name).toList();
+                final var spaltenRows = spalten.scannen(spaltenKriterien.stream()
+                    .map(kriterium -> kriterium.spaltenFilter().get())
+                    .toList());
+                kandidatenRows = kandidatenRows == null ? spaltenRows : kandidatenRows.and(spaltenRows);
+                verknuepft.add(COLUMN_SCAN + '(' + String.join(" AND ", namen) + ')');
+                alleAbgedeckt.addAll(namen);
+            }
+            if (!verknuepft.isEmpty()) {
+                if (!abgedeckt.isEmpty()) {
+                    verknuepft.add(0, zugriffspfad);
+                }
+                zugriffspfad = String.join(" AND ", verknuepft);
+                abgedeckt = alleAbgedeckt;
+                rows = kandidatenRows;
+                besterZugriff = null;
+            }
+        }
+
+        final Collection<Angestellter> kandidaten;
+        if (besterZugriff != null) {
+            kandidaten = besterZugriff.ids().get().stream().map(angestellte::get).toList();
+        } else if (rows == null || abgedeckt.isEmpty()) {
+            kandidaten = List.copyOf(angestellte.values());
+        } else {
+            // Pruefung am Objekt, falls eine Zeilennummer zwischenzeitlich neu vergeben wurde
+            final var ids = new ArrayList<UUID>(rows.cardinality());
+            rows.forEach(row -> ids.add(rowIds.id(row)));
+            kandidaten = ids.stream().map(id -> id == null ? null : angestellte.get(id)).toList();
+        }
+
+        final var filter = kriterien.stream()
+            .map(Kriterium::filter)
+            .reduce(Predicate::and)
+            .orElse(angestellter -> true);
+        final var result = kandidaten.stream()
+            .filter(angestellter -> angestellter != null && filter.test(angestellter))
+            .toList();
+
+        final var finalAbgedeckt = abgedeckt;
+        final var residualFilter = kriterien.stream()
+            .map(Kriterium::name)
+            .filter(name -> !finalAbgedeckt.contains(name))
+            .toList();
+        final var plan = new QueryPlan(
+            suchkriterien,
+            zugriffspfad,
+            schaetzungen,
+            residualFilter,
+            kandidaten.size(),
+            result.size()
+        );
+        log.debug("ausfuehren: {}", plan);
+        return new Ergebnis(result, plan);
+    }
+
+    // die Zeilennummern der IDs, die noch belegt sind
+    private Bitmap rows(final Collection<UUID> ids) {
+        final var bitmap = new Bitmap();
+        ids.forEach(id -> {
+            final var row = rowIds.get(id);
+            if (row >= 0) {
+                bitmap.add(row);
+            }
+        });
+        return bitmap;
+    }
+}
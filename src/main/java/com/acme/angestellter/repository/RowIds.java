@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Zuordnung der IDs zu dichten, internen Zeilennummern ab 0, über die z.B. die Bitmap-Indexe adressiert werden.
+ * Zeilennummern gelöschter Angestellter werden wiederverwendet, damit die Nummerierung dicht bleibt.
+ * <p>
+ * Die Bitmap der belegten Zeilennummern ist nicht threadsicher und wird deshalb beim Kopieren gesperrt.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class RowIds {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Map<UUID, Integer> rows = new ConcurrentHashMap<>();
+
+    private volatile AtomicReferenceArray<UUID> ids = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+
+    private final Deque<Integer> freieRows = new ArrayDeque<>();
+
+    private int naechsteRow;
+
+    /**
+     * Bitmap mit allen belegten Zeilennummern, z.B. als Grundmenge für NOT.
+     */
+    private final Bitmap belegt = new Bitmap();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Einer ID eine Zeilennummer zuordnen.
+     *
+     * @param id Die ID
+     * @return Die Zeilennummer
+     */
+    int add(final UUID id) {
+        final var vorhanden = rows.get(id);
+        if (vorhanden != null) {
+            return vorhanden;
+        }
+        final int row = freieRows.isEmpty() ? naechsteRow++ : freieRows.pop();
+        var idsAktuell = ids;
+        if (row >= idsAktuell.length()) {
+            final var neu = new AtomicReferenceArray<UUID>(idsAktuell.length() * 2);
+            for (int i = 0; i < idsAktuell.length(); i++) {
+                neu.set(i, idsAktuell.get(i));
+            }
+            idsAktuell = neu;
+            ids = neu;
+        }
+        idsAktuell.set(row, id);
+        rows.put(id, row);
+        lock.writeLock().lock();
+        try {
+            belegt.add(row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return row;
+    }
+
+    /**
+     * Die Zeilennummer einer ID freigeben.
+     *
+     * @param id Die ID
+     * @return Die bisherige Zeilennummer oder -1
+     */
+    int remove(final UUID id) {
+        final var row = rows.remove(id);
+        if (row == null) {
+            return -1;
+        }
+        ids.set(row, null);
+        lock.writeLock().lock();
+        try {
+            belegt.remove(row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        freieRows.push(row);
+        return row;
+    }
+
+    /**
+     * Die Zeilennummer zu einer ID ermitteln.
+     *
+     * @param id Die ID
+     * @return Die Zeilennummer oder -1
+     */
+    int get(final UUID id) {
+        final var row = rows.get(id);
+        return row == null ? -1 : row;
+    }
+
+    /**
+     * Die ID zu einer Zeilennummer ermitteln.
+     *
+     * @param row Die Zeilennummer
+     * @return Die ID oder null
+     */
+    UUID id(final int row) {
+        final var idsAktuell = ids;
+        return row < idsAktuell.length() ? idsAktuell.get(row) : null;
+    }
+
+    /**
+     * Alle belegten Zeilennummern als Kopie ermitteln.
+     *
+     * @return Bitmap mit allen belegten Zeilennummern
+     */
+    Bitmap alle() {
+        lock.readLock().lock();
+        try {
+            return belegt.copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
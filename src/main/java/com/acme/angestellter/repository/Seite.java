@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.List;
+
+/**
+ * Eine Seite bei der Keyset-Pagination, die nach der ID sortiert ist. Als Cursor für die vorherige bzw. nächste Seite
+ * dienen die ID des ersten bzw. letzten Elements, so dass eine Seite auch bei parallelen Schreibzugriffen stabil
+ * bleibt.
+ *
+ * @param inhalt Die Elemente der Seite
+ * @param hatVorherige true, falls es vor dem ersten Element weitere Elemente gibt
+ * @param hatNaechste true, falls es nach dem letzten Element weitere Elemente gibt
+ * @param <T> Typ der Elemente
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+public record Seite<T>(List<T> inhalt, boolean hatVorherige, boolean hatNaechste) {
+    /**
+     * Voreingestellte Anzahl der Elemente einer Seite.
+     */
+    public static final int DEFAULT_SIZE = 20;
+
+    /**
+     * Maximale Anzahl der Elemente einer Seite.
+     */
+    public static final int MAX_SIZE = 1000;
+
+    /**
+     * Abfrage, ob die Seite keine Elemente enthält.
+     *
+     * @return true, falls die Seite leer ist
+     */
+    public boolean isEmpty() {
+        return inhalt.isEmpty();
+    }
+}
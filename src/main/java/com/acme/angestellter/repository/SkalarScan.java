@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.Arrays;
+
+/**
+ * Skalarer Scan, der jede Zeile einzeln prüft. Er wird ohne das Modul jdk.incubator.vector verwendet und vom
+ * {@link VektorScan} für die letzten Zeilen sowie für viele gesuchte Werte.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class SkalarScan implements SpaltenScan {
+    @Override
+    public void zwischen(final int[] spalte, final int min, final int max, final int anzahl, final long[] treffer) {
+        zwischen(spalte, min, max, 0, anzahl, treffer);
+    }
+
+    @Override
+    public void enthalten(final int[] spalte, final int[] werte, final int anzahl, final long[] treffer) {
+        enthalten(spalte, werte, 0, anzahl, treffer);
+    }
+
+    @Override
+    public void enthalten(final byte[] spalte, final byte[] werte, final int anzahl, final long[] treffer) {
+        enthalten(spalte, werte, 0, anzahl, treffer);
+    }
+
+    static void zwischen(
+        final int[] spalte,
+        final int min,
+        final int max,
+        final int start,
+        final int ende,
+        final long[] treffer
+    ) {
+        for (int wort = start >>> 6; wort << 6 < ende; wort++) {
+            if (treffer[wort] == 0L) {
+                continue;
+            }
+            var bits = 0L;
+            for (int row = wort << 6; row < Math.min(ende, (wort + 1) << 6); row++) {
+                final var wert = spalte[row];
+                if (wert >= min && wert <= max) {
+                    bits |= 1L << row;
+                }
+            }
+            treffer[wort] &= bits;
+        }
+    }
+
+    static void enthalten(
+        final int[] spalte,
+        final int[] werte,
+        final int start,
+        final int ende,
+        final long[] treffer
+    ) {
+        if (werte.length == 0) {
+            Arrays.fill(treffer, 0L);
+            return;
+        }
+        // Nachschlagetabelle fuer die Codes aus einem Woerterbuch, die dicht ab 0 vergeben sind
+        final var gesucht = new boolean[Arrays.stream(werte).max().orElseThrow() + 1];
+        for (final var wert : werte) {
+            gesucht[wert] = true;
+        }
+        for (int wort = start >>> 6; wort << 6 < ende; wort++) {
+            if (treffer[wort] == 0L) {
+                continue;
+            }
+            var bits = 0L;
+            for (int row = wort << 6; row < Math.min(ende, (wort + 1) << 6); row++) {
+                final var wert = spalte[row];
+                if (wert >= 0 && wert < gesucht.length && gesucht[wert]) {
+                    bits |= 1L << row;
+                }
+            }
+            treffer[wort] &= bits;
+        }
+    }
+
+    @SuppressWarnings("MagicNumber")
+    static void enthalten(
+        final byte[] spalte,
+        final byte[] werte,
+        final int start,
+        final int ende,
+        final long[] treffer
+    ) {
+        final var gesucht = new boolean[256];
+        for (final var wert : werte) {
+            gesucht[wert & 0xFF] = true;
+        }
+        for (int wort = start >>> 6; wort << 6 < ende; wort++) {
+            if (treffer[wort] == 0L) {
+                continue;
+            }
+            var bits = 0L;
+            for (int row = wort << 6; row < Math.min(ende, (wort + 1) << 6); row++) {
+                if (gesucht[spalte[row] & 0xFF]) {
+                    bits |= 1L << row;
+                }
+            }
+            treffer[wort] &= bits;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Snapshot aller Angestellten als memory-mapped Datei "snapshot-000042.bin". Die Nummer ist das erste Segment des
+ * {@link WriteAheadLog}, dessen Einträge nach dem Laden des Snapshots noch eingespielt werden müssen.
+ * <p>
+ * Aufbau: Kopf mit Magic Number, Version, Nummer des Segments und Anzahl der Angestellten, danach je Angestellter die
+ * Länge und die Binärdaten von {@link AngestellterCodec}. Ein Snapshot wird zunächst in eine temporäre Datei
+ * geschrieben und erst nach fsync atomar umbenannt, so dass es nie einen unvollständigen Snapshot gibt.
+ *
+ * @param datei Die Datei des Snapshots
+ * @param segment Nummer des ersten Segments, das nicht im Snapshot enthalten ist
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@Slf4j
+record Snapshot(Path datei, long segment) {
+    private static final int MAGIC = 0x4153_4E50; // "ASNP"
+    private static final short VERSION = 1;
+    private static final int HEADER_GROESSE = Integer.BYTES + Short.BYTES + Long.BYTES + Integer.BYTES;
+    private static final String PRAEFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    /**
+     * Den neuesten Snapshot in einem Verzeichnis ermitteln.
+     *
+     * @param verzeichnis Das Verzeichnis
+     * @return Der neueste Snapshot oder ein leeres Optional
+     * @throws UncheckedIOException Falls das Verzeichnis nicht gelesen werden kann
+     */
+    static Optional<Snapshot> neuester(final Path verzeichnis) {
+        try {
+            return Optional.ofNullable(WriteAheadLog.dateien(verzeichnis, PRAEFIX, SUFFIX).lastEntry())
+                .map(entry -> new Snapshot(entry.getValue(), entry.getKey()));
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Einen Snapshot schreiben und danach die älteren Snapshots löschen. Die Angestellten werden zuerst einzeln
+     * kodiert, weil sie sich während des Schreibens ändern können und die Größe der Datei vorab feststehen muss.
+     *
+     * @param verzeichnis Das Verzeichnis
+     * @param segment Nummer des ersten Segments, das nicht im Snapshot enthalten ist
+     * @param angestellte Die Angestellten
+     * @return Der geschriebene Snapshot
+     * @throws UncheckedIOException Falls der Snapshot nicht geschrieben werden kann
+     */
+    static Snapshot schreiben(final Path verzeichnis, final long segment, final Collection<Angestellter> angestellte) {
+        final var daten = new ArrayList<byte[]>(angestellte.size());
+        long groesse = HEADER_GROESSE;
+        for (final var angestellter : angestellte) {
+            final var buffer = ByteBuffer.allocate(AngestellterCodec.groesse(angestellter));
+            AngestellterCodec.encode(angestellter, buffer);
+            daten.add(buffer.array());
+            groesse += Integer.BYTES + buffer.capacity();
+        }
+
+        final var datei = verzeichnis.resolve(String.format("%s%06d%s", PRAEFIX, segment, SUFFIX));
+        final var tmp = verzeichnis.resolve(datei.getFileName() + ".tmp");
+        try {
+            Files.deleteIfExists(tmp);
+            try (var channel = FileChannel.open(tmp, CREATE_NEW, READ, WRITE)) {
+                final var mapped = channel.map(READ_WRITE, 0L, groesse);
+                mapped.putInt(MAGIC).putShort(VERSION).putLong(segment).putInt(daten.size());
+                daten.forEach(bytes -> mapped.putInt(bytes.length).put(bytes));
+                mapped.force();
+            }
+            Files.move(tmp, datei, ATOMIC_MOVE, REPLACE_EXISTING);
+            for (final var alt : WriteAheadLog.dateien(verzeichnis, PRAEFIX, SUFFIX).headMap(segment).values()) {
+                Files.deleteIfExists(alt);
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        log.debug("schreiben: {} mit {} Angestellten", datei, daten.size());
+        return new Snapshot(datei, segment);
+    }
+
+    /**
+     * Die Angestellten direkt aus der memory-mapped Datei lesen.
+     *
+     * @param laden Consumer, der die gelesenen Angestellten verarbeitet
+     * @throws UncheckedIOException Falls der Snapshot nicht gelesen werden kann
+     */
+    void lesen(final Consumer<Angestellter> laden) {
+        try (var channel = FileChannel.open(datei, READ)) {
+            final var mapped = channel.map(READ_ONLY, 0L, channel.size());
+            if (mapped.getInt() != MAGIC) {
+                throw new IOException("Kein gueltiger Snapshot: " + datei);
+            }
+            if (mapped.getShort() != VERSION || mapped.getLong() != segment) {
+                throw new IOException("Kein gueltiger Snapshot: " + datei);
+            }
+            final var anzahl = mapped.getInt();
+            for (int i = 0; i < anzahl; i++) {
+                final var laenge = mapped.getInt();
+                final var naechster = mapped.position() + laenge;
+                laden.accept(AngestellterCodec.decode(mapped));
+                mapped.position(naechster);
+            }
+            log.info("lesen: {} Angestellte aus {}", anzahl, datei);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
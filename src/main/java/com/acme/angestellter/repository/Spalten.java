@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import com.acme.angestellter.entity.FamilienstandType;
+import com.acme.angestellter.entity.GeschlechtType;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Spaltenweise Kopie der Attribute, die sich als primitive Werte darstellen lassen, mit der Zeilennummer aus
+ * {@link RowIds} als Index in die Spalten: das Geburtsdatum als Tage seit 1970-01-01, Geschlecht und Familienstand
+ * als Ordinalzahl, das Newsletter-Abonnement als 0 oder 1 sowie PLZ und normalisierter Ort als Code aus einem
+ * Wörterbuch. Ein Scan über diese Spalten liest die Werte sequentiell und cache-freundlich mit einem
+ * {@link SpaltenScan}, statt jeden Angestellten als Objekt zu lesen.
+ * <p>
+ * Ein Scan liest die Spalten ohne Sperre, während sie verändert werden können. Die Treffer müssen deshalb am
+ * Angestellten erneut geprüft werden.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class Spalten {
+    private static final int KEIN_DATUM = Integer.MIN_VALUE;
+
+    private static final byte KEIN_ORDINAL = -1;
+
+    private static final int KEIN_CODE = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final SpaltenScan scan;
+
+    private final Woerterbuch plzWoerterbuch = new Woerterbuch();
+
+    private final Woerterbuch ortWoerterbuch = new Woerterbuch();
+
+    private volatile Daten daten = new Daten(INITIAL_CAPACITY);
+
+    private volatile int anzahl;
+
+    /**
+     * Konstruktor mit dem Scan für die Laufzeitumgebung.
+     *
+     * @param scan Der Scan
+     */
+    Spalten(final SpaltenScan scan) {
+        this.scan = scan;
+    }
+
+    /**
+     * Prädikat über eine Spalte, dessen Treffer mit den bisherigen Treffern per AND verknüpft werden.
+     */
+    @FunctionalInterface
+    interface Filter {
+        /**
+         * Das Prädikat für die ersten Zeilen auswerten.
+         *
+         * @param anzahl Die Anzahl der Zeilen
+         * @param treffer Die bisherigen Treffer, die verändert werden
+         */
+        void anwenden(int anzahl, long[] treffer);
+    }
+
+    /**
+     * Die Werte eines Angestellten in eine Zeile schreiben.
+     *
+     * @param row Die Zeilennummer
+     * @param angestellter Der Angestellte
+     */
+    void put(final int row, final Angestellter angestellter) {
+        var aktuell = daten;
+        if (row >= aktuell.geburtsdatum.length) {
+            aktuell = aktuell.vergroessern(Math.max(row + 1, aktuell.geburtsdatum.length * 2));
+            daten = aktuell;
+        }
+        final var geburtsdatum = angestellter.getGeburtsdatum();
+        aktuell.geburtsdatum[row] = geburtsdatum == null ? KEIN_DATUM : Math.toIntExact(geburtsdatum.toEpochDay());
+        aktuell.geschlecht[row] = ordinal(angestellter.getGeschlecht());
+        aktuell.familienstand[row] = ordinal(angestellter.getFamilienstand());
+        aktuell.newsletter[row] = (byte) (angestellter.isHasNewsletter() ? 1 : 0);
+        final var adresse = angestellter.getAdresse();
+        final var plz = adresse == null ? null : adresse.getPlz();
+        final var ort = adresse == null ? null : adresse.getOrt();
+        aktuell.plz[row] = plz == null ? KEIN_CODE : plzWoerterbuch.code(plz);
+        aktuell.ort[row] = ort == null ? KEIN_CODE : ortWoerterbuch.code(OrtIndex.normalisieren(ort));
+        aktuell.belegt[row >>> 6] |= 1L << row;
+        if (row >= anzahl) {
+            anzahl = row + 1;
+        }
+    }
+
+    /**
+     * Eine Zeile als frei markieren.
+     *
+     * @param row Die Zeilennummer
+     */
+    void remove(final int row) {
+        daten.belegt[row >>> 6] &= ~(1L << row);
+    }
+
+    /**
+     * Die belegten Zeilen ermitteln, die alle Prädikate erfüllen.
+     *
+     * @param filter Die Prädikate
+     * @return Die Zeilennummern der Treffer
+     */
+    Bitmap scannen(final Collection<Filter> filter) {
+        // zuerst die Anzahl lesen, damit die Spalten danach mindestens so gross sind
+        final var zeilen = anzahl;
+        final var treffer = Arrays.copyOf(daten.belegt, (zeilen + Long.SIZE - 1) >>> 6);
+        filter.forEach(f -> f.anwenden(zeilen, treffer));
+        return Bitmap.of(treffer);
+    }
+
+    /**
+     * Prädikat für ein Geburtsdatum in einem Bereich.
+     *
+     * @param von Das früheste Geburtsdatum einschließlich
+     * @param bis Das späteste Geburtsdatum einschließlich
+     * @return Das Prädikat
+     */
+    Filter geburtsdatum(final LocalDate von, final LocalDate bis) {
+        // LocalDate.MIN und LocalDate.MAX liegen ausserhalb des int-Bereichs
+        final var min = (int) Math.max(von.toEpochDay(), KEIN_DATUM + 1L);
+        final var max = (int) Math.min(bis.toEpochDay(), Integer.MAX_VALUE);
+        return (zeilen, treffer) -> scan.zwischen(daten.geburtsdatum, min, max, zeilen, treffer);
+    }
+
+    /**
+     * Prädikat für eines von mehreren Geschlechtern.
+     *
+     * @param geschlechter Die gesuchten Geschlechter
+     * @return Das Prädikat
+     */
+    Filter geschlecht(final Collection<GeschlechtType> geschlechter) {
+        return ordinale(geschlechter, () -> daten.geschlecht);
+    }
+
+    /**
+     * Prädikat für einen von mehreren Familienständen.
+     *
+     * @param familienstaende Die gesuchten Familienstände
+     * @return Das Prädikat
+     */
+    Filter familienstand(final Collection<FamilienstandType> familienstaende) {
+        return ordinale(familienstaende, () -> daten.familienstand);
+    }
+
+    /**
+     * Prädikat für das Newsletter-Abonnement.
+     *
+     * @param hasNewsletter Das gesuchte Newsletter-Abonnement
+     * @return Das Prädikat
+     */
+    Filter newsletter(final boolean hasNewsletter) {
+        final var werte = new byte[]{(byte) (hasNewsletter ? 1 : 0)};
+        return (zeilen, treffer) -> scan.enthalten(daten.newsletter, werte, zeilen, treffer);
+    }
+
+    /**
+     * Prädikat für eine PLZ mit einem Präfix.
+     *
+     * @param prefix Das Präfix der PLZ
+     * @return Das Prädikat
+     */
+    Filter plz(final String prefix) {
+        final var codes = plzWoerterbuch.codes(plz -> plz.startsWith(prefix));
+        return (zeilen, treffer) -> scan.enthalten(daten.plz, codes, zeilen, treffer);
+    }
+
+    /**
+     * Prädikat für einen Ort.
+     *
+     * @param ort Der normalisierte Ort
+     * @return Das Prädikat
+     */
+    Filter ort(final String ort) {
+        final var code = ortWoerterbuch.get(ort);
+        if (code == KEIN_CODE) {
+            return (zeilen, treffer) -> Arrays.fill(treffer, 0L);
+        }
+        return (zeilen, treffer) -> scan.zwischen(daten.ort, code, code, zeilen, treffer);
+    }
+
+    private <T extends Enum<T>> Filter ordinale(final Collection<T> werte, final Supplier<byte[]> spalte) {
+        final var ordinale = new byte[werte.size()];
+        var i = 0;
+        for (final var wert : werte) {
+            ordinale[i++] = ordinal(wert);
+        }
+        return (zeilen, treffer) -> scan.enthalten(spalte.get(), ordinale, zeilen, treffer);
+    }
+
+    private static byte ordinal(final Enum<?> wert) {
+        return wert == null ? KEIN_ORDINAL : (byte) wert.ordinal();
+    }
+
+    /**
+     * Die Spalten als primitive Arrays, die beim Vergrößern gemeinsam ausgetauscht werden.
+     */
+    @SuppressWarnings("VisibilityModifier")
+    private static final class Daten {
+        final long[] belegt;
+        final int[] geburtsdatum;
+        final byte[] geschlecht;
+        final byte[] familienstand;
+        final byte[] newsletter;
+        final int[] plz;
+        final int[] ort;
+
+        Daten(final int kapazitaet) {
+            this(
+                new long[(kapazitaet + Long.SIZE - 1) >>> 6],
+                new int[kapazitaet],
+                new byte[kapazitaet],
+                new byte[kapazitaet],
+                new byte[kapazitaet],
+                new int[kapazitaet],
+                new int[kapazitaet]
+            );
+        }
+
+        @SuppressWarnings("ParameterNumber")
+        private Daten(
+            final long[] belegt,
+            final int[] geburtsdatum,
+            final byte[] geschlecht,
+            final byte[] familienstand,
+            final byte[] newsletter,
+            final int[] plz,
+            final int[] ort
+        ) {
+            this.belegt = belegt;
+            this.geburtsdatum = geburtsdatum;
+            this.geschlecht = geschlecht;
+            this.familienstand = familienstand;
+            this.newsletter = newsletter;
+            this.plz = plz;
+            this.ort = ort;
+        }
+
+        Daten vergroessern(final int kapazitaet) {
+            return new Daten(
+                Arrays.copyOf(belegt, (kapazitaet + Long.SIZE - 1) >>> 6),
+                Arrays.copyOf(geburtsdatum, kapazitaet),
+                Arrays.copyOf(geschlecht, kapazitaet),
+                Arrays.copyOf(familienstand, kapazitaet),
+                Arrays.copyOf(newsletter, kapazitaet),
+                Arrays.copyOf(plz, kapazitaet),
+                Arrays.copyOf(ort, kapazitaet)
+            );
+        }
+    }
+
+    /**
+     * Wörterbuch, das jedem Wert einen dichten Code ab 0 zuordnet. Codes werden nicht freigegeben, weil es nur
+     * wenige verschiedene PLZ und Orte gibt.
+     */
+    private static final class Woerterbuch {
+        private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+
+        int code(final String wert) {
+            final var code = codes.get(wert);
+            if (code != null) {
+                return code;
+            }
+            final var neu = codes.size();
+            codes.put(wert, neu);
+            return neu;
+        }
+
+        int get(final String wert) {
+            return codes.getOrDefault(wert, KEIN_CODE);
+        }
+
+        int[] codes(final Predicate<String> passend) {
+            return codes.entrySet()
+                .stream()
+                .filter(entry -> passend.test(entry.getKey()))
+                .mapToInt(Map.Entry::getValue)
+                .toArray();
+        }
+    }
+}
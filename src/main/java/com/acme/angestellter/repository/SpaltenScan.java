@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+/**
+ * Scan über eine Spalte mit primitiven Werten, der die Treffer eines Prädikats mit den bisherigen Treffern per AND
+ * verknüpft. Die Treffer sind eine unkomprimierte Bitmap mit 64 Zeilen je long, wobei Wörter ohne Treffer
+ * übersprungen werden.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+sealed interface SpaltenScan permits SkalarScan, VektorScan {
+    /**
+     * Einen Scan für die Laufzeitumgebung erzeugen: mit der Vector API, falls das Modul jdk.incubator.vector z.B.
+     * durch "--add-modules jdk.incubator.vector" verfügbar ist und die Vektoren der CPU höchstens 64 Elemente haben,
+     * sonst skalar.
+     *
+     * @return Der Scan
+     */
+    static SpaltenScan of() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent() && VektorScan.unterstuetzt()
+            ? new VektorScan()
+            : new SkalarScan();
+    }
+
+    /**
+     * Die Zeilen behalten, deren Wert in einem Bereich liegt.
+     *
+     * @param spalte Die Spalte
+     * @param min Der kleinste passende Wert
+     * @param max Der größte passende Wert
+     * @param anzahl Die Anzahl der Zeilen
+     * @param treffer Die bisherigen Treffer, die verändert werden
+     */
+    void zwischen(int[] spalte, int min, int max, int anzahl, long[] treffer);
+
+    /**
+     * Die Zeilen behalten, deren Wert einer der gesuchten Werte ist.
+     *
+     * @param spalte Die Spalte
+     * @param werte Die gesuchten Werte
+     * @param anzahl Die Anzahl der Zeilen
+     * @param treffer Die bisherigen Treffer, die verändert werden
+     */
+    void enthalten(int[] spalte, int[] werte, int anzahl, long[] treffer);
+
+    /**
+     * Die Zeilen behalten, deren Wert einer der gesuchten Werte ist.
+     *
+     * @param spalte Die Spalte
+     * @param werte Die gesuchten Werte
+     * @param anzahl Die Anzahl der Zeilen
+     * @param treffer Die bisherigen Treffer, die verändert werden
+     */
+    void enthalten(byte[] spalte, byte[] werte, int anzahl, long[] treffer);
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Konfiguration für den Speicher der Angestellten im Repository mit dem Präfix "app.speicher", z.B. in
+ * application.yml.
+ *
+ * @param typ Speicher auf dem Heap oder außerhalb des Heaps.
+ * @param blockGroesse Größe der Speicherblöcke außerhalb des Heaps.
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@ConfigurationProperties(prefix = "app.speicher")
+public record SpeicherProperties(Typ typ, DataSize blockGroesse) {
+    private static final DataSize DEFAULT_BLOCK_GROESSE = DataSize.ofMegabytes(16);
+
+    /**
+     * Konstruktor mit Defaultwerten für nicht konfigurierte Properties.
+     *
+     * @param typ Typ des Speichers oder null für "heap"
+     * @param blockGroesse Größe der Speicherblöcke oder null für 16 MB
+     */
+    public SpeicherProperties {
+        if (typ == null) {
+            typ = Typ.HEAP;
+        }
+        if (blockGroesse == null) {
+            blockGroesse = DEFAULT_BLOCK_GROESSE;
+        }
+    }
+
+    /**
+     * Ort, an dem die Angestellten gespeichert werden.
+     */
+    public enum Typ {
+        /**
+         * Die Angestellten werden als Objekte auf dem Heap gespeichert.
+         */
+        HEAP,
+
+        /**
+         * Die Angestellten werden in ihrer Binärdarstellung in Speicherblöcken außerhalb des Heaps gespeichert und erst
+         * beim Lesen wieder zu Objekten. Auf dem Heap verbleiben nur die Indexe, so dass die Garbage Collection
+         * deutlich weniger Objekte verwalten muss und kürzere Pausen hat.
+         */
+        OFF_HEAP
+    }
+}
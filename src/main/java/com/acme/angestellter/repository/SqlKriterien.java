@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.FamilienstandType;
+import com.acme.angestellter.entity.GeschlechtType;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import static java.util.Collections.nCopies;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Die Suchkriterien als Bedingungen für die WHERE-Klausel einer SQL-Anweisung mit den Werten für die Platzhalter. Die
+ * Bedingungen entsprechen den Filtern der Suchkriterien im {@link AngestellterRepository}.
+ *
+ * @param bedingungen Die Bedingungen, die mit AND verknüpft werden
+ * @param werte Die Werte für die Platzhalter in der Reihenfolge der Bedingungen
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+record SqlKriterien(List<String> bedingungen, List<Object> werte) {
+    private static final String GEBURTSDATUM_VON = "geburtsdatumVon";
+
+    private static final String GEBURTSDATUM_BIS = "geburtsdatumBis";
+
+    /**
+     * Die Suchkriterien in Bedingungen umwandeln.
+     *
+     * @param suchkriterien Die Suchkriterien wie bei {@link AngestellterPersistenz#find(Map)}
+     * @return Die Bedingungen oder ein leeres Optional, falls ein Suchkriterium ungültig ist und es deshalb keinen
+     *      Treffer geben kann
+     */
+    static Optional<SqlKriterien> of(final Map<String, String> suchkriterien) {
+        final var bedingungen = new ArrayList<String>(suchkriterien.size());
+        final var werte = new ArrayList<>(suchkriterien.size());
+        for (final var entry : suchkriterien.entrySet()) {
+            final var wert = entry.getValue();
+            switch (entry.getKey()) {
+                case "email" -> {
+                    bedingungen.add("email = ?");
+                    werte.add(wert);
+                }
+                case "nachname" -> {
+                    bedingungen.add("nachname LIKE ? ESCAPE '\\'");
+                    werte.add('%' + escape(wert) + '%');
+                }
+                case "plz" -> {
+                    bedingungen.add("plz LIKE ? ESCAPE '\\'");
+                    werte.add(escape(wert) + '%');
+                }
+                case "ort" -> {
+                    bedingungen.add("ort_normalisiert = ?");
+                    werte.add(OrtIndex.normalisieren(wert));
+                }
+                case "geschlecht" -> {
+                    final var geschlechter = AngestellterRepository.parseEnums(wert, GeschlechtType::of);
+                    if (geschlechter.isEmpty()) {
+                        return Optional.empty();
+                    }
+                    bedingungen.add("geschlecht IN " + platzhalter(geschlechter.get()));
+                    geschlechter.get().forEach(geschlecht -> werte.add(geschlecht.toString()));
+                }
+                case "familienstand" -> {
+                    final var familienstaende = AngestellterRepository.parseEnums(wert, FamilienstandType::of);
+                    if (familienstaende.isEmpty()) {
+                        return Optional.empty();
+                    }
+                    bedingungen.add("familienstand IN " + platzhalter(familienstaende.get()));
+                    familienstaende.get().forEach(familienstand -> werte.add(familienstand.toString()));
+                }
+                case "hasNewsletter" -> {
+                    bedingungen.add("has_newsletter = ?");
+                    werte.add(Boolean.parseBoolean(wert));
+                }
+                case GEBURTSDATUM_VON, GEBURTSDATUM_BIS -> {
+                    final Optional<LocalDate> datum = AngestellterRepository.parseDatum(wert);
+                    if (datum.isEmpty()) {
+                        return Optional.empty();
+                    }
+                    final var vergleich = entry.getKey().equals(GEBURTSDATUM_VON) ? ">=" : "<=";
+                    bedingungen.add("geburtsdatum " + vergleich + " ?");
+                    werte.add(datum.get());
+                }
+                default -> {
+                    return Optional.empty();
+                }
+            }
+        }
+        return Optional.of(new SqlKriterien(List.copyOf(bedingungen), List.copyOf(werte)));
+    }
+
+    /**
+     * Die WHERE-Klausel mit den Bedingungen und zusätzlichen Bedingungen, z.B. für einen Cursor.
+     *
+     * @param zusaetzlich Zusätzliche Bedingungen, deren Platzhalter nach den Werten der Suchkriterien folgen
+     * @return Die WHERE-Klausel mit einem führenden Leerzeichen oder ein leerer String ohne Bedingungen
+     */
+    String where(final String... zusaetzlich) {
+        final var alle = Stream.concat(bedingungen.stream(), Stream.of(zusaetzlich)).toList();
+        return alle.isEmpty() ? "" : alle.stream().collect(joining(" AND ", " WHERE ", ""));
+    }
+
+    private static String platzhalter(final Collection<?> werte) {
+        return '(' + String.join(", ", nCopies(werte.size(), "?")) + ')';
+    }
+
+    // Platzhalter von LIKE als normale Zeichen suchen wie bei contains() bzw. startsWith()
+    static String escape(final String wert) {
+        return wert.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
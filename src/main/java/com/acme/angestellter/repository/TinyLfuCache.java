@@ -0,0 +1,398 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Cache mit einer maximalen Anzahl Einträge und der Verdrängungsstrategie W-TinyLFU: neue Einträge kommen in ein
+ * kleines LRU-Fenster mit 1% der Einträge. Wer aus dem Fenster fällt, wird nur dann in den Hauptbereich aufgenommen,
+ * wenn er laut {@link Haeufigkeiten} häufiger gelesen wurde als der Eintrag, der dafür verdrängt würde. Der
+ * Hauptbereich ist ein segmentiertes LRU, in dem ein erneut gelesener Eintrag aus der Probezeit in den geschützten
+ * Bereich mit 80% der Einträge wechselt. Dadurch verdrängen einmalige Zugriffe, z.B. durch einen Export, nicht die
+ * häufig gelesenen Einträge.
+ * <p>
+ * Die Einträge liegen in einer {@link ConcurrentHashMap}, so dass Lesezugriffe ohne Sperre möglich sind. Nur die
+ * Listen und Häufigkeiten der Verdrängungsstrategie werden mit einer Sperre geschützt. Ist die Sperre beim Lesen
+ * belegt, wird der Zugriff nicht gezählt, statt zu warten. Jeder Eintrag hat eine Version, damit ein Eintrag nur
+ * durch einen neueren ersetzt wird.
+ *
+ * @param <K> Typ der Schlüssel
+ * @param <V> Typ der Werte
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class TinyLfuCache<K, V> {
+    private static final int FENSTER_PROZENT = 1;
+
+    private static final int GESCHUETZT_PROZENT = 80;
+
+    private final ConcurrentHashMap<K, Knoten<K, V>> eintraege = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Haeufigkeiten haeufigkeiten;
+
+    private final Liste<K, V> fenster = new Liste<>();
+
+    private final Liste<K, V> probe = new Liste<>();
+
+    private final Liste<K, V> geschuetzt = new Liste<>();
+
+    private final int fensterMax;
+
+    private final int hauptMax;
+
+    private final int geschuetztMax;
+
+    private final long ttl;
+
+    private final Verdraengung<K, V> verdraengung;
+
+    private final LongAdder treffer = new LongAdder();
+
+    private final LongAdder fehlschlaege = new LongAdder();
+
+    private final LongAdder verdraengt = new LongAdder();
+
+    /**
+     * Konstruktor mit der maximalen Anzahl Einträge.
+     *
+     * @param maxEintraege Maximale Anzahl Einträge
+     * @param ttl Maximales Alter eines Eintrags oder null, falls Einträge nur verdrängt werden
+     * @param verdraengung Wird nach dem Verdrängen eines Eintrags außerhalb der Sperre aufgerufen
+     * @throws IllegalArgumentException Falls die maximale Anzahl nicht positiv ist
+     */
+    TinyLfuCache(final int maxEintraege, final Duration ttl, final Verdraengung<K, V> verdraengung) {
+        if (maxEintraege <= 0) {
+            throw new IllegalArgumentException("Ungueltige Anzahl Eintraege fuer den Cache: " + maxEintraege);
+        }
+        haeufigkeiten = new Haeufigkeiten(maxEintraege);
+        fensterMax = Math.max(1, maxEintraege * FENSTER_PROZENT / 100);
+        hauptMax = maxEintraege - fensterMax;
+        geschuetztMax = hauptMax * GESCHUETZT_PROZENT / 100;
+        this.ttl = ttl == null ? 0L : ttl.toNanos();
+        this.verdraengung = verdraengung;
+    }
+
+    /**
+     * Den Wert zu einem Schlüssel lesen.
+     *
+     * @param key Der Schlüssel
+     * @return Der Wert oder null, falls es keinen Eintrag gibt oder er abgelaufen ist
+     */
+    V get(final K key) {
+        final var knoten = eintraege.get(key);
+        if (knoten == null) {
+            fehlschlaege.increment();
+            return null;
+        }
+        if (abgelaufen(knoten)) {
+            entfernen(key, knoten);
+            fehlschlaege.increment();
+            return null;
+        }
+        treffer.increment();
+        if (lock.tryLock()) {
+            try {
+                zugriff(knoten);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return knoten.wert;
+    }
+
+    /**
+     * Einen Eintrag speichern, falls es keinen Eintrag mit derselben oder einer neueren Version gibt und die Bedingung
+     * erfüllt ist. Die Bedingung wird atomar mit dem Speichern geprüft, d.h. ein gleichzeitiger Aufruf von
+     * {@link #remove(Object)} für denselben Schlüssel erfolgt entweder vorher oder nachher.
+     *
+     * @param key Der Schlüssel
+     * @param wert Der Wert
+     * @param version Die Version des Werts
+     * @param zeit Zeitpunkt des Lesens aus der Quelle mit {@link System#nanoTime()} als Beginn der Lebensdauer
+     * @param bedingung Bedingung, unter der gespeichert wird
+     * @return true, falls der Eintrag gespeichert wurde
+     */
+    boolean put(final K key, final V wert, final long version, final long zeit, final BooleanSupplier bedingung) {
+        final var neu = new Knoten<>(key, wert, version, zeit);
+        final var ersetzt = new AtomicReference<Knoten<K, V>>();
+        final var aktuell = eintraege.compute(key, (k, alt) -> {
+            if (alt != null && alt.version >= version && !abgelaufen(alt) || !bedingung.getAsBoolean()) {
+                return alt;
+            }
+            ersetzt.set(alt);
+            return neu;
+        });
+        if (aktuell != neu) {
+            return false;
+        }
+
+        final var verdraengte = new ArrayList<Knoten<K, V>>();
+        lock.lock();
+        try {
+            final var alt = ersetzt.get();
+            if (alt != null) {
+                aushaengen(alt);
+            }
+            // inzwischen durch remove() oder einen neueren Eintrag ersetzt
+            if (eintraege.get(key) == neu) {
+                haeufigkeiten.erhoehen(key.hashCode());
+                fenster.anfuegen(neu, Bereich.FENSTER);
+                verdraengen(verdraengte);
+            }
+        } finally {
+            lock.unlock();
+        }
+        verdraengte.forEach(k -> verdraengung.verdraengt(k.key, k.wert, k.version, k.zeit));
+        return true;
+    }
+
+    /**
+     * Den Eintrag zu einem Schlüssel entfernen.
+     *
+     * @param key Der Schlüssel
+     */
+    void remove(final K key) {
+        final var knoten = eintraege.remove(key);
+        if (knoten != null) {
+            aushaengenMitSperre(knoten);
+        }
+    }
+
+    /**
+     * Die Anzahl der Einträge ermitteln.
+     *
+     * @return Die Anzahl der Einträge
+     */
+    int size() {
+        return eintraege.size();
+    }
+
+    /**
+     * Die Anzahl der Lesezugriffe mit einem Eintrag ermitteln.
+     *
+     * @return Die Anzahl der Treffer
+     */
+    long treffer() {
+        return treffer.sum();
+    }
+
+    /**
+     * Die Anzahl der Lesezugriffe ohne einen Eintrag ermitteln.
+     *
+     * @return Die Anzahl der Fehlschläge
+     */
+    long fehlschlaege() {
+        return fehlschlaege.sum();
+    }
+
+    /**
+     * Die Anzahl der verdrängten Einträge ermitteln.
+     *
+     * @return Die Anzahl der verdrängten Einträge
+     */
+    long verdraengt() {
+        return verdraengt.sum();
+    }
+
+    /**
+     * Abfrage, ob ein Wert älter als die maximale Lebensdauer ist.
+     *
+     * @param zeit Beginn der Lebensdauer des Werts mit {@link System#nanoTime()}
+     * @return true, falls der Wert abgelaufen ist
+     */
+    boolean abgelaufen(final long zeit) {
+        return ttl > 0L && System.nanoTime() - zeit > ttl;
+    }
+
+    private boolean abgelaufen(final Knoten<K, V> knoten) {
+        return abgelaufen(knoten.zeit);
+    }
+
+    private void entfernen(final K key, final Knoten<K, V> knoten) {
+        if (eintraege.remove(key, knoten)) {
+            aushaengenMitSperre(knoten);
+        }
+    }
+
+    private void aushaengenMitSperre(final Knoten<K, V> knoten) {
+        lock.lock();
+        try {
+            aushaengen(knoten);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void zugriff(final Knoten<K, V> knoten) {
+        haeufigkeiten.erhoehen(knoten.key.hashCode());
+        if (knoten.bereich == null) {
+            // noch nicht eingehaengt oder inzwischen verdraengt
+            return;
+        }
+        switch (knoten.bereich) {
+            case FENSTER -> fenster.nachVorne(knoten);
+            case PROBE -> {
+                probe.entfernen(knoten);
+                geschuetzt.anfuegen(knoten, Bereich.GESCHUETZT);
+                if (geschuetzt.groesse > geschuetztMax) {
+                    final var letzter = geschuetzt.letzter();
+                    geschuetzt.entfernen(letzter);
+                    probe.anfuegen(letzter, Bereich.PROBE);
+                }
+            }
+            case GESCHUETZT -> geschuetzt.nachVorne(knoten);
+            default -> throw new IllegalStateException("Unbekannter Bereich: " + knoten.bereich);
+        }
+    }
+
+    // der Kandidat aus dem Fenster tritt gegen das naechste Opfer aus der Probezeit an
+    private void verdraengen(final List<Knoten<K, V>> verdraengte) {
+        while (fenster.groesse > fensterMax) {
+            final var kandidat = fenster.letzter();
+            fenster.entfernen(kandidat);
+            if (probe.groesse + geschuetzt.groesse < hauptMax) {
+                probe.anfuegen(kandidat, Bereich.PROBE);
+                continue;
+            }
+            final var opfer = probe.groesse > 0 ? probe.letzter() : geschuetzt.letzter();
+            if (opfer != null && haeufigkeiten.haeufigkeit(kandidat.key.hashCode())
+                > haeufigkeiten.haeufigkeit(opfer.key.hashCode())) {
+                aushaengen(opfer);
+                probe.anfuegen(kandidat, Bereich.PROBE);
+                verdraengt(opfer, verdraengte);
+            } else {
+                verdraengt(kandidat, verdraengte);
+            }
+        }
+    }
+
+    private void verdraengt(final Knoten<K, V> knoten, final List<Knoten<K, V>> verdraengte) {
+        // ein inzwischen ersetzter Knoten wird nur noch ausgehaengt
+        if (eintraege.remove(knoten.key, knoten)) {
+            verdraengt.increment();
+            verdraengte.add(knoten);
+        }
+    }
+
+    private void aushaengen(final Knoten<K, V> knoten) {
+        if (knoten.bereich == null) {
+            return;
+        }
+        switch (knoten.bereich) {
+            case FENSTER -> fenster.entfernen(knoten);
+            case PROBE -> probe.entfernen(knoten);
+            case GESCHUETZT -> geschuetzt.entfernen(knoten);
+            default -> throw new IllegalStateException("Unbekannter Bereich: " + knoten.bereich);
+        }
+    }
+
+    /**
+     * Callback für einen verdrängten Eintrag.
+     *
+     * @param <K> Typ der Schlüssel
+     * @param <V> Typ der Werte
+     */
+    @FunctionalInterface
+    interface Verdraengung<K, V> {
+        /**
+         * Ein Eintrag wurde verdrängt.
+         *
+         * @param key Der Schlüssel
+         * @param wert Der Wert
+         * @param version Die Version des Werts
+         * @param zeit Beginn der Lebensdauer des Werts
+         */
+        void verdraengt(K key, V wert, long version, long zeit);
+    }
+
+    private enum Bereich {
+        FENSTER, PROBE, GESCHUETZT
+    }
+
+    // Felder fuer die Listen werden nur mit der Sperre gelesen und geaendert
+    private static final class Knoten<K, V> {
+        private final K key;
+
+        private final V wert;
+
+        private final long version;
+
+        private final long zeit;
+
+        private Knoten<K, V> vorher;
+
+        private Knoten<K, V> nachher;
+
+        private Bereich bereich;
+
+        Knoten(final K key, final V wert, final long version, final long zeit) {
+            this.key = key;
+            this.wert = wert;
+            this.version = version;
+            this.zeit = zeit;
+        }
+    }
+
+    // doppelt verkettete LRU-Liste mit dem zuletzt verwendeten Knoten vorne
+    private static final class Liste<K, V> {
+        private final Knoten<K, V> kopf = new Knoten<>(null, null, 0L, 0L);
+
+        private int groesse;
+
+        Liste() {
+            kopf.vorher = kopf;
+            kopf.nachher = kopf;
+        }
+
+        void anfuegen(final Knoten<K, V> knoten, final Bereich bereich) {
+            knoten.bereich = bereich;
+            knoten.vorher = kopf;
+            knoten.nachher = kopf.nachher;
+            kopf.nachher.vorher = knoten;
+            kopf.nachher = knoten;
+            groesse++;
+        }
+
+        void entfernen(final Knoten<K, V> knoten) {
+            knoten.vorher.nachher = knoten.nachher;
+            knoten.nachher.vorher = knoten.vorher;
+            knoten.vorher = null;
+            knoten.nachher = null;
+            knoten.bereich = null;
+            groesse--;
+        }
+
+        void nachVorne(final Knoten<K, V> knoten) {
+            final var bereich = knoten.bereich;
+            entfernen(knoten);
+            anfuegen(knoten, bereich);
+        }
+
+        Knoten<K, V> letzter() {
+            return kopf.vorher == kopf ? null : kopf.vorher;
+        }
+    }
+}
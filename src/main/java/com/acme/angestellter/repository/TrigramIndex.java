@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableSet;
+
+/**
+ * Invertierter N-Gramm-Index für die Teilstring-Suche, z.B. nach Nachnamen. Für Suchbegriffe ab 3 Zeichen werden die
+ * Posting-Listen der Trigramme geschnitten und die Kandidaten anschließend mit {@code String.contains()} verifiziert.
+ * Für Suchbegriffe mit 1 oder 2 Zeichen gibt es eine separate Tabelle mit allen Uni- und Bigrammen, deren
+ * Posting-Listen bereits das exakte Ergebnis sind.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class TrigramIndex {
+    private static final int N = 3;
+
+    private final Map<String, Set<UUID>> trigramme = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<UUID>> kurzeGramme = new ConcurrentHashMap<>();
+
+    /**
+     * Der zuletzt indexierte Wert je ID, um beim Aktualisieren die alten N-Gramme entfernen zu können.
+     */
+    private final Map<UUID, String> werte = new ConcurrentHashMap<>();
+
+    /**
+     * Einen Wert für eine ID indexieren bzw. den bisherigen Wert inkrementell ersetzen.
+     *
+     * @param id Die ID
+     * @param wert Der zu indexierende Wert
+     * @return Der bisher indexierte Wert oder null
+     */
+    String put(final UUID id, final String wert) {
+        if (wert == null) {
+            return remove(id);
+        }
+        final var alterWert = werte.put(id, wert);
+        if (wert.equals(alterWert)) {
+            return alterWert;
+        }
+        final var alteGramme = alterWert == null ? Set.<String>of() : gramme(alterWert);
+        final var neueGramme = gramme(wert);
+        alteGramme.stream()
+            .filter(gramm -> !neueGramme.contains(gramm))
+            .forEach(gramm -> entfernen(gramm, id));
+        neueGramme.stream()
+            .filter(gramm -> !alteGramme.contains(gramm))
+            .forEach(gramm -> tabelle(gramm).computeIfAbsent(gramm, g -> ConcurrentHashMap.newKeySet()).add(id));
+        return alterWert;
+    }
+
+    /**
+     * Eine ID aus dem Index entfernen.
+     *
+     * @param id Die ID
+     * @return Der bisher indexierte Wert oder null
+     */
+    String remove(final UUID id) {
+        final var alterWert = werte.remove(id);
+        if (alterWert != null) {
+            gramme(alterWert).forEach(gramm -> entfernen(gramm, id));
+        }
+        return alterWert;
+    }
+
+    /**
+     * Die IDs ermitteln, deren Wert den Suchbegriff enthält.
+     *
+     * @param teil Der Suchbegriff
+     * @return Die IDs mit passendem Wert
+     */
+    Collection<UUID> find(final String teil) {
+        if (teil.isEmpty()) {
+            return unmodifiableSet(werte.keySet());
+        }
+        if (teil.length() < N) {
+            return unmodifiableSet(kurzeGramme.getOrDefault(teil, emptySet()));
+        }
+
+        final var postings = new ArrayList<Set<UUID>>();
+        for (final var gramm : gramme(teil, N)) {
+            final var posting = trigramme.get(gramm);
+            if (posting == null) {
+                return emptySet();
+            }
+            postings.add(posting);
+        }
+        // mit der kleinsten Posting-Liste beginnen
+        postings.sort(Comparator.comparingInt(Set::size));
+        final var kleinste = postings.get(0);
+        final var rest = postings.subList(1, postings.size());
+        final var result = new HashSet<UUID>();
+        for (final var id : kleinste) {
+            if (rest.stream().allMatch(posting -> posting.contains(id)) && enthaelt(id, teil)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Die Anzahl der Treffer für einen Suchbegriff nach oben abschätzen, ohne die Posting-Listen zu schneiden.
+     *
+     * @param teil Der Suchbegriff
+     * @return Obere Schranke für die Anzahl der Treffer
+     */
+    int estimate(final String teil) {
+        if (teil.isEmpty()) {
+            return werte.size();
+        }
+        if (teil.length() < N) {
+            return kurzeGramme.getOrDefault(teil, emptySet()).size();
+        }
+        return gramme(teil, N).stream()
+            .mapToInt(gramm -> trigramme.getOrDefault(gramm, emptySet()).size())
+            .min()
+            .orElse(0);
+    }
+
+    private boolean enthaelt(final UUID id, final String teil) {
+        final var wert = werte.get(id);
+        return wert != null && wert.contains(teil);
+    }
+
+    private Map<String, Set<UUID>> tabelle(final String gramm) {
+        return gramm.length() < N ? kurzeGramme : trigramme;
+    }
+
+    private void entfernen(final String gramm, final UUID id) {
+        tabelle(gramm).computeIfPresent(gramm, (g, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static Set<String> gramme(final String wert) {
+        final var result = new HashSet<String>();
+        for (int n = 1; n <= N; n++) {
+            result.addAll(gramme(wert, n));
+        }
+        return result;
+    }
+
+    private static Set<String> gramme(final String wert, final int n) {
+        final var result = new HashSet<String>();
+        for (int i = 0; i + n <= wert.length(); i++) {
+            result.add(wert.substring(i, i + n));
+        }
+        return result;
+    }
+}
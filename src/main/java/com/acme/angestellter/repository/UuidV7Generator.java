@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * UUIDs der Version 7 gemäß RFC 9562: 48 Bit Unix-Zeit in Millisekunden, 12 Bit Zähler innerhalb einer Millisekunde
+ * und 62 Bit Zufall. Die IDs sind dadurch nach dem Zeitpunkt der Erzeugung sortiert, so dass neue Einträge z.B. in der
+ * Skip-Liste für die Keyset-Pagination am Ende eingefügt werden.
+ * <p>
+ * Zeitstempel und Zähler werden gemeinsam in einem AtomicLong per CAS fortgeschrieben. Läuft der Zähler über oder
+ * geht die Uhr zurück, wird der bisherige Wert um 1 erhöht, so dass die IDs streng monoton bleiben. Der Zufall stammt
+ * aus ThreadLocalRandom statt aus dem gemeinsamen SecureRandom von <code>UUID.randomUUID()</code>, damit sich
+ * (virtuelle) Threads nicht gegenseitig blockieren.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class UuidV7Generator implements IdGenerator {
+    private static final int ZAEHLER_BITS = 12;
+
+    private static final long ZAEHLER_MASKE = (1L << ZAEHLER_BITS) - 1;
+
+    private static final long VERSION = 0x7000L;
+
+    private static final long VARIANTE = 0x8000_0000_0000_0000L;
+
+    private static final long ZUFALL_MASKE = 0x3FFF_FFFF_FFFF_FFFFL;
+
+    /**
+     * Zeitstempel in Millisekunden und Zähler der zuletzt erzeugten ID.
+     */
+    private final AtomicLong letzte = new AtomicLong();
+
+    private final LongSupplier uhr;
+
+    /**
+     * Konstruktor mit der Systemuhr.
+     */
+    UuidV7Generator() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * Konstruktor mit einer eigenen Uhr, z.B. um in Tests einen Überlauf des Zählers oder eine zurückgestellte Uhr zu
+     * simulieren.
+     *
+     * @param uhr Die Unix-Zeit in Millisekunden
+     */
+    UuidV7Generator(final LongSupplier uhr) {
+        this.uhr = uhr;
+    }
+
+    @Override
+    @SuppressWarnings("MagicNumber")
+    public UUID naechsteId() {
+        final var zeit = uhr.getAsLong() << ZAEHLER_BITS;
+        final var aktuell = letzte.updateAndGet(vorher -> Math.max(zeit, vorher + 1));
+        final var mostSigBits = (aktuell >>> ZAEHLER_BITS) << 16 | VERSION | aktuell & ZAEHLER_MASKE;
+        final var leastSigBits = ThreadLocalRandom.current().nextLong() & ZUFALL_MASKE | VARIANTE;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
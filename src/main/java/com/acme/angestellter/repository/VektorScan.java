@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.Arrays;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+import static jdk.incubator.vector.VectorOperators.EQ;
+import static jdk.incubator.vector.VectorOperators.GE;
+import static jdk.incubator.vector.VectorOperators.LE;
+
+/**
+ * Scan mit der Vector API, der mit einem einzigen SIMD-Vergleich so viele Zeilen prüft, wie in ein Vektor-Register
+ * der CPU passen, z.B. 8 int-Werte bzw. 32 byte-Werte mit AVX2. Die Masken der Vergleiche werden direkt zu den Wörtern
+ * der Treffer zusammengesetzt. Die letzten Zeilen, die kein vollständiges Wort ergeben, und viele gesuchte Werte, für
+ * die je ein Vergleich nötig wäre, prüft der {@link SkalarScan}. Weil die Maske eines Vergleichs mit
+ * {@code toLong()} in ein Wort übernommen wird, darf ein Vektor höchstens 64 Elemente haben.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+final class VektorScan implements SpaltenScan {
+    private static final VectorSpecies<Integer> INT_SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private static final VectorSpecies<Byte> BYTE_SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    private static final int MAX_VERGLEICHE = 4;
+
+    /**
+     * Prüfen, ob die bevorzugten Vektoren der CPU höchstens 64 Elemente haben, so dass ihre Masken in ein Wort der
+     * Treffer passen. Das ist z.B. bei byte-Werten mit mehr als 512 Bit je Vektor wie bei ARM SVE nicht der Fall.
+     *
+     * @return true, falls der Scan mit den bevorzugten Vektoren möglich ist
+     */
+    static boolean unterstuetzt() {
+        return INT_SPECIES.length() <= Long.SIZE && BYTE_SPECIES.length() <= Long.SIZE;
+    }
+
+    @Override
+    public void zwischen(final int[] spalte, final int min, final int max, final int anzahl, final long[] treffer) {
+        final var ende = vollstaendig(anzahl);
+        for (int wort = 0; wort << 6 < ende; wort++) {
+            if (treffer[wort] == 0L) {
+                continue;
+            }
+            var bits = 0L;
+            for (int i = 0; i < Long.SIZE; i += INT_SPECIES.length()) {
+                final var vektor = IntVector.fromArray(INT_SPECIES, spalte, (wort << 6) + i);
+                bits |= vektor.compare(GE, min).and(vektor.compare(LE, max)).toLong() << i;
+            }
+            treffer[wort] &= bits;
+        }
+        SkalarScan.zwischen(spalte, min, max, ende, anzahl, treffer);
+    }
+
+    @Override
+    public void enthalten(final int[] spalte, final int[] werte, final int anzahl, final long[] treffer) {
+        if (werte.length == 0 || werte.length > MAX_VERGLEICHE) {
+            SkalarScan.enthalten(spalte, werte, 0, anzahl, treffer);
+            return;
+        }
+        final var ende = vollstaendig(anzahl);
+        for (int wort = 0; wort << 6 < ende; wort++) {
+            if (treffer[wort] == 0L) {
+                continue;
+            }
+            var bits = 0L;
+            for (int i = 0; i < Long.SIZE; i += INT_SPECIES.length()) {
+                final var vektor = IntVector.fromArray(INT_SPECIES, spalte, (wort << 6) + i);
+                var maske = vektor.compare(EQ, werte[0]);
+                for (int j = 1; j < werte.length; j++) {
+                    maske = maske.or(vektor.compare(EQ, werte[j]));
+                }
+                bits |= maske.toLong() << i;
+            }
+            treffer[wort] &= bits;
+        }
+        SkalarScan.enthalten(spalte, werte, ende, anzahl, treffer);
+    }
+
+    @Override
+    public void enthalten(final byte[] spalte, final byte[] werte, final int anzahl, final long[] treffer) {
+        if (werte.length == 0) {
+            Arrays.fill(treffer, 0L);
+            return;
+        }
+        if (werte.length > MAX_VERGLEICHE) {
+            SkalarScan.enthalten(spalte, werte, 0, anzahl, treffer);
+            return;
+        }
+        final var ende = vollstaendig(anzahl);
+        for (int wort = 0; wort << 6 < ende; wort++) {
+            if (treffer[wort] == 0L) {
+                continue;
+            }
+            var bits = 0L;
+            for (int i = 0; i < Long.SIZE; i += BYTE_SPECIES.length()) {
+                final var vektor = ByteVector.fromArray(BYTE_SPECIES, spalte, (wort << 6) + i);
+                var maske = vektor.compare(EQ, werte[0]);
+                for (int j = 1; j < werte.length; j++) {
+                    maske = maske.or(vektor.compare(EQ, werte[j]));
+                }
+                bits |= maske.toLong() << i;
+            }
+            treffer[wort] &= bits;
+        }
+        SkalarScan.enthalten(spalte, werte, ende, anzahl, treffer);
+    }
+
+    // Anzahl der Zeilen in vollstaendigen Woertern mit je 64 Zeilen
+    private static int vollstaendig(final int anzahl) {
+        return anzahl & -Long.SIZE;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Konfiguration für das Write-Ahead-Log des Repository mit dem Präfix "app.wal", z.B. in application.yml.
+ *
+ * @param verzeichnis Verzeichnis für die Segmente des Logs und die Snapshots. Ohne Verzeichnis werden die Daten nur
+ *                    im Hauptspeicher gehalten.
+ * @param durability Zeitpunkt, zu dem ein Eintrag mit fsync auf den Datenträger geschrieben wird.
+ * @param intervall Intervall für das Schreiben der gepufferten Einträge bei "none" und "batch".
+ * @param snapshotIntervall Intervall für die Snapshots im Hintergrund.
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@ConfigurationProperties(prefix = "app.wal")
+public record WalProperties(
+    Path verzeichnis,
+    Durability durability,
+    Duration intervall,
+    Duration snapshotIntervall
+) {
+    private static final Duration DEFAULT_INTERVALL = Duration.ofMillis(10);
+
+    private static final Duration DEFAULT_SNAPSHOT_INTERVALL = Duration.ofMinutes(5);
+
+    /**
+     * Konstruktor mit Defaultwerten für nicht konfigurierte Properties.
+     *
+     * @param verzeichnis Verzeichnis für das Log oder null
+     * @param durability Zeitpunkt für fsync oder null für "batch"
+     * @param intervall Intervall für das Schreiben oder null für 10 ms
+     * @param snapshotIntervall Intervall für die Snapshots oder null für 5 min
+     */
+    public WalProperties {
+        if (durability == null) {
+            durability = Durability.BATCH;
+        }
+        if (intervall == null) {
+            intervall = DEFAULT_INTERVALL;
+        }
+        if (snapshotIntervall == null) {
+            snapshotIntervall = DEFAULT_SNAPSHOT_INTERVALL;
+        }
+    }
+
+    /**
+     * Zeitpunkt, zu dem ein Eintrag im Write-Ahead-Log mit fsync auf den Datenträger geschrieben wird.
+     */
+    public enum Durability {
+        /**
+         * Die Einträge werden nur an das Betriebssystem übergeben, aber nie explizit mit fsync geschrieben.
+         */
+        NONE,
+
+        /**
+         * Die Einträge werden im Hintergrund im konfigurierten Intervall gemeinsam mit fsync geschrieben, so dass
+         * höchstens die Einträge eines Intervalls verloren gehen können.
+         */
+        BATCH,
+
+        /**
+         * Jede Schreiboperation wartet, bis ihr Eintrag mit fsync geschrieben ist. Parallele Schreiboperationen teilen
+         * sich dabei ein gemeinsames fsync (Group Commit).
+         */
+        EVERY_WRITE
+    }
+}
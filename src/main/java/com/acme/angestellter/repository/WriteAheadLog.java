@@ -0,0 +1,509 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only Write-Ahead-Log für die Schreiboperationen im Repository. Das Log besteht aus nummerierten Segmenten
+ * "wal-000001.log", "wal-000002.log" usw. in einem Verzeichnis. Jeder Eintrag besteht aus seiner Länge, der
+ * CRC32C-Prüfsumme, dem Typ und den Binärdaten. Beim Öffnen werden die vorhandenen Einträge ab einem Segment wieder
+ * eingespielt und ein unvollständiger Eintrag am Ende, z.B. nach einem Absturz während des Schreibens, wird
+ * abgeschnitten. Nach einem {@link Snapshot} werden die älteren Segmente gelöscht.
+ * <p>
+ * Der Kopf eines Segments enthält die laufende Nummer des letzten Eintrags vor dem Segment. Dadurch sind
+ * die Nummern der Einträge auch nach einem Neustart und nach dem Löschen älterer Segmente fortlaufend und dienen als
+ * Sequenznummern der {@link Aenderung}en.
+ * <p>
+ * Die Einträge werden zunächst in einen Puffer geschrieben. Beim Group Commit schreibt ein einziger Thread den Puffer
+ * und ruft {@code FileChannel.force()} für alle bis dahin angefügten Einträge auf, während die übrigen wartenden
+ * Threads danach ohne eigenes fsync fortfahren.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@Slf4j
+@SuppressWarnings("ClassFanOutComplexity")
+final class WriteAheadLog implements AutoCloseable {
+    private static final int MAGIC = 0x4157_414C; // "AWAL"
+    private static final short VERSION = 1;
+    private static final int HEADER_GROESSE = Integer.BYTES + Short.BYTES + Long.BYTES;
+    private static final int EINTRAG_HEADER_GROESSE = Integer.BYTES + Integer.BYTES;
+    private static final int PUFFER_GROESSE = 1 << 20;
+
+    private static final byte CREATE_TYP = 1;
+    private static final byte UPDATE_TYP = 2;
+    private static final byte DELETE_TYP = 3;
+
+    private static final String PRAEFIX = "wal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path verzeichnis;
+
+    private final WalProperties.Durability durability;
+
+    private final ScheduledExecutorService hintergrund;
+
+    /**
+     * Sperre für den Puffer und das Schreiben in den FileChannel.
+     */
+    private final Lock appendLock = new ReentrantLock();
+
+    /**
+     * Sperre für fsync: Wer die Sperre erhält, schreibt mit einem einzigen fsync alle bis dahin angefügten Einträge.
+     */
+    private final Lock forceLock = new ReentrantLock();
+
+    private final AtomicLong fsyncs = new AtomicLong();
+
+    private ByteBuffer puffer = ByteBuffer.allocate(PUFFER_GROESSE);
+
+    /**
+     * Das aktuelle Segment, das nur mit forceLock und appendLock ausgetauscht wird.
+     */
+    private FileChannel channel;
+
+    private long segment;
+
+    private long angefuegtBeiRotation;
+
+    /**
+     * Laufende Nummer des zuletzt angefügten Eintrags, die nur mit appendLock verändert wird.
+     */
+    private volatile long angefuegt;
+
+    /**
+     * Laufende Nummer des zuletzt mit fsync geschriebenen Eintrags.
+     */
+    private volatile long synchronisiert;
+
+    private WriteAheadLog(
+        final Path verzeichnis,
+        final long segment,
+        final FileChannel channel,
+        final long nummer,
+        final WalProperties properties
+    ) {
+        this.verzeichnis = verzeichnis;
+        this.segment = segment;
+        this.channel = channel;
+        angefuegt = nummer;
+        synchronisiert = nummer;
+        angefuegtBeiRotation = nummer;
+        durability = properties.durability();
+        hintergrund = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("wal").factory());
+        final var intervall = properties.intervall().toNanos();
+        hintergrund.scheduleWithFixedDelay(this::hintergrundSchreiben, intervall, intervall, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Das Write-Ahead-Log öffnen und die vorhandenen Einträge ab einem Segment einspielen.
+     *
+     * @param properties Die Konfiguration mit dem Verzeichnis für das Log
+     * @param startSegment Nummer des ersten Segments, das nicht in einem Snapshot enthalten ist
+     * @param einspielen Consumer, der die vorhandenen Einträge der Reihe nach verarbeitet
+     * @return Das geöffnete Write-Ahead-Log
+     * @throws UncheckedIOException Falls das Log nicht gelesen oder geöffnet werden kann
+     */
+    static WriteAheadLog oeffnen(
+        final WalProperties properties,
+        final long startSegment,
+        final Consumer<LogEintrag> einspielen
+    ) {
+        final var verzeichnis = properties.verzeichnis();
+        try {
+            Files.createDirectories(verzeichnis);
+            final var segmente = dateien(verzeichnis, PRAEFIX, SUFFIX).tailMap(startSegment);
+            var letztesSegment = startSegment;
+            var gueltig = 0L;
+            var nummer = 0L;
+            for (final var entry : segmente.entrySet()) {
+                letztesSegment = entry.getKey();
+                final var gelesen = einspielen(entry.getValue(), einspielen);
+                gueltig = gelesen.position();
+                // ein Segment ohne vollstaendigen Kopf wird mit der bisherigen Nummer neu begonnen
+                nummer = gueltig == 0L ? nummer : gelesen.nummer() + gelesen.anzahl();
+            }
+
+            final var datei = datei(verzeichnis, letztesSegment);
+            final var channel = FileChannel.open(datei, CREATE, READ, WRITE);
+            if (gueltig == 0L) {
+                kopfSchreiben(channel, nummer);
+            } else if (channel.size() > gueltig) {
+                log.warn("oeffnen: unvollstaendiger Eintrag am Ende von {} wird abgeschnitten", datei);
+                channel.truncate(gueltig);
+            }
+            channel.position(channel.size());
+            log.info("oeffnen: {} mit durability={}, nummer={}", datei, properties.durability(), nummer);
+            return new WriteAheadLog(verzeichnis, letztesSegment, channel, nummer, properties);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Einen Eintrag an das Log anfügen. Der Aufrufer muss die Reihenfolge der Schreiboperationen sicherstellen und
+     * danach außerhalb seiner Sperre {@link #commit(long)} aufrufen.
+     *
+     * @param eintrag Der Eintrag
+     * @return Laufende Nummer des Eintrags
+     */
+    long append(final LogEintrag eintrag) {
+        appendLock.lock();
+        try {
+            final var groesse = EINTRAG_HEADER_GROESSE + 1 + switch (eintrag) {
+                case LogEintrag.Create create -> AngestellterCodec.groesse(create.angestellter());
+                case LogEintrag.Update update -> AngestellterCodec.groesse(update.angestellter());
+                case LogEintrag.Delete delete -> Long.BYTES * 2;
+            };
+            if (puffer.remaining() < groesse) {
+                pufferSchreiben();
+                if (puffer.capacity() < groesse) {
+                    puffer = ByteBuffer.allocate(groesse);
+                }
+            }
+            final var start = puffer.position();
+            puffer.position(start + EINTRAG_HEADER_GROESSE);
+            switch (eintrag) {
+                case LogEintrag.Create create -> {
+                    puffer.put(CREATE_TYP);
+                    AngestellterCodec.encode(create.angestellter(), puffer);
+                }
+                case LogEintrag.Update update -> {
+                    puffer.put(UPDATE_TYP);
+                    AngestellterCodec.encode(update.angestellter(), puffer);
+                }
+                case LogEintrag.Delete delete -> {
+                    puffer.put(DELETE_TYP);
+                    AngestellterCodec.putUuid(delete.id(), puffer);
+                }
+            }
+            final var laenge = puffer.position() - start - EINTRAG_HEADER_GROESSE;
+            final var crc = new CRC32C();
+            crc.update(puffer.array(), puffer.arrayOffset() + start + EINTRAG_HEADER_GROESSE, laenge);
+            puffer.putInt(start, laenge);
+            puffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+            angefuegt++;
+            return angefuegt;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Einen angefügten Eintrag entsprechend der konfigurierten Durability festschreiben. Bei "every-write" wird
+     * gewartet, bis der Eintrag mit fsync geschrieben ist.
+     *
+     * @param nummer Laufende Nummer des Eintrags
+     * @throws UncheckedIOException Falls das Log nicht geschrieben werden kann
+     */
+    void commit(final long nummer) {
+        if (durability == WalProperties.Durability.EVERY_WRITE) {
+            synchronisieren(nummer);
+        }
+    }
+
+    /**
+     * Die laufende Nummer des zuletzt angefügten Eintrags, nach dem Öffnen also des zuletzt eingespielten Eintrags.
+     *
+     * @return Die laufende Nummer oder 0, falls noch nie ein Eintrag angefügt wurde
+     */
+    long nummer() {
+        return angefuegt;
+    }
+
+    /**
+     * Die Anzahl der fsync-Aufrufe für angefügte Einträge, an der sich die Wirkung des Group Commit ablesen lässt.
+     *
+     * @return Die Anzahl seit dem Öffnen
+     */
+    long fsyncs() {
+        return fsyncs.get();
+    }
+
+    /**
+     * Abfrage, ob seit der letzten Rotation Einträge angefügt wurden.
+     *
+     * @return true, falls es neue Einträge gibt
+     */
+    boolean hatNeueEintraege() {
+        return angefuegt > angefuegtBeiRotation;
+    }
+
+    /**
+     * Das aktuelle Segment mit fsync abschließen und ein neues Segment beginnen. Alle danach angefügten Einträge sind
+     * im neuen Segment, so dass ein Snapshot nur die älteren Segmente ersetzt. Schreibende Threads warten dabei nur
+     * auf das fsync des bisherigen Segments.
+     *
+     * @return Nummer des neuen Segments
+     * @throws UncheckedIOException Falls das Log nicht geschrieben werden kann
+     */
+    long rotieren() {
+        forceLock.lock();
+        try {
+            appendLock.lock();
+            try {
+                pufferSchreiben();
+                channel.force(false);
+                channel.close();
+                synchronisiert = angefuegt;
+                angefuegtBeiRotation = angefuegt;
+                segment++;
+                final var datei = datei(verzeichnis, segment);
+                channel = FileChannel.open(datei, CREATE, READ, WRITE);
+                kopfSchreiben(channel, angefuegt);
+                channel.position(channel.size());
+                log.debug("rotieren: {}", datei);
+                return segment;
+            } finally {
+                appendLock.unlock();
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    /**
+     * Die Segmente löschen, die vollständig in einem Snapshot enthalten sind.
+     *
+     * @param startSegment Nummer des ersten Segments, das nicht im Snapshot enthalten ist
+     * @throws UncheckedIOException Falls ein Segment nicht gelöscht werden kann
+     */
+    void kompaktieren(final long startSegment) {
+        try {
+            for (final var datei : dateien(verzeichnis, PRAEFIX, SUFFIX).headMap(startSegment).values()) {
+                Files.deleteIfExists(datei);
+                log.debug("kompaktieren: {} geloescht", datei);
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Die nummerierten Dateien in einem Verzeichnis ermitteln, z.B. die Segmente des Logs.
+     *
+     * @param verzeichnis Das Verzeichnis
+     * @param praefix Präfix des Dateinamens vor der Nummer
+     * @param suffix Suffix des Dateinamens nach der Nummer
+     * @return Die Dateien sortiert nach ihrer Nummer
+     * @throws IOException Falls das Verzeichnis nicht gelesen werden kann
+     */
+    static NavigableMap<Long, Path> dateien(final Path verzeichnis, final String praefix, final String suffix)
+        throws IOException {
+        final var result = new TreeMap<Long, Path>();
+        if (!Files.isDirectory(verzeichnis)) {
+            return result;
+        }
+        try (var dateien = Files.list(verzeichnis)) {
+            dateien.forEach(datei -> {
+                final var name = datei.getFileName().toString();
+                if (name.startsWith(praefix) && name.endsWith(suffix)) {
+                    final var nummer = name.substring(praefix.length(), name.length() - suffix.length());
+                    if (!nummer.isEmpty() && nummer.chars().allMatch(Character::isDigit)) {
+                        result.put(Long.parseLong(nummer), datei);
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Den Puffer schreiben, fsync aufrufen und das Log schließen.
+     */
+    @Override
+    public void close() {
+        hintergrund.shutdown();
+        try {
+            if (durability == WalProperties.Durability.NONE) {
+                appendLock.lock();
+                try {
+                    pufferSchreiben();
+                } finally {
+                    appendLock.unlock();
+                }
+            } else {
+                synchronisieren(angefuegt);
+            }
+            channel.close();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Group Commit: ein einziges fsync fuer alle Eintraege, die bis zum Erhalt der Sperre angefuegt wurden
+    private void synchronisieren(final long nummer) {
+        if (synchronisiert >= nummer) {
+            return;
+        }
+        forceLock.lock();
+        try {
+            if (synchronisiert >= nummer) {
+                return;
+            }
+            final long ziel;
+            appendLock.lock();
+            try {
+                pufferSchreiben();
+                ziel = angefuegt;
+            } finally {
+                appendLock.unlock();
+            }
+            // fsync ohne appendLock, damit weitere Eintraege waehrenddessen angefuegt werden koennen
+            channel.force(false);
+            fsyncs.incrementAndGet();
+            synchronisiert = ziel;
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    private void hintergrundSchreiben() {
+        try {
+            if (durability == WalProperties.Durability.NONE) {
+                appendLock.lock();
+                try {
+                    pufferSchreiben();
+                } finally {
+                    appendLock.unlock();
+                }
+            } else {
+                // ohne neue Eintraege gibt es kein fsync
+                synchronisieren(angefuegt);
+            }
+        } catch (final UncheckedIOException ex) {
+            log.error("hintergrundSchreiben", ex);
+        }
+    }
+
+    // nur mit appendLock aufrufen
+    private void pufferSchreiben() {
+        puffer.flip();
+        try {
+            while (puffer.hasRemaining()) {
+                channel.write(puffer);
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            puffer.compact();
+        }
+    }
+
+    // liefert die Position nach dem letzten vollstaendigen Eintrag bzw. 0 fuer eine leere oder unbekannte Datei
+    @SuppressWarnings("NestedTryDepth")
+    private static Gelesen einspielen(final Path datei, final Consumer<LogEintrag> einspielen) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(datei), PUFFER_GROESSE))) {
+            final long nummer;
+            try {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("Keine gueltige Log-Datei: " + datei);
+                }
+                final var version = in.readShort();
+                if (version != VERSION) {
+                    throw new IOException("Unbekannte Version " + version + " der Log-Datei: " + datei);
+                }
+                nummer = in.readLong();
+            } catch (final EOFException ex) {
+                return new Gelesen(0L, 0L, 0L);
+            }
+
+            final var dateiGroesse = Files.size(datei);
+            long position = HEADER_GROESSE;
+            var anzahl = 0;
+            while (true) {
+                final byte[] daten;
+                final int crc;
+                try {
+                    final var laenge = in.readInt();
+                    crc = in.readInt();
+                    if (laenge <= 0 || laenge > dateiGroesse - position) {
+                        break;
+                    }
+                    daten = in.readNBytes(laenge);
+                    if (daten.length < laenge) {
+                        break;
+                    }
+                } catch (final EOFException ex) {
+                    break;
+                }
+                final var pruefsumme = new CRC32C();
+                pruefsumme.update(daten);
+                if ((int) pruefsumme.getValue() != crc) {
+                    log.warn("einspielen: falsche Pruefsumme an Position {}", position);
+                    break;
+                }
+                einspielen.accept(decode(ByteBuffer.wrap(daten)));
+                position += EINTRAG_HEADER_GROESSE + daten.length;
+                anzahl++;
+            }
+            log.info("einspielen: {} Eintraege aus {}", anzahl, datei);
+            return new Gelesen(position, nummer, anzahl);
+        }
+    }
+
+    private static LogEintrag decode(final ByteBuffer daten) throws IOException {
+        final var typ = daten.get();
+        return switch (typ) {
+            case CREATE_TYP -> new LogEintrag.Create(AngestellterCodec.decode(daten));
+            case UPDATE_TYP -> new LogEintrag.Update(AngestellterCodec.decode(daten));
+            case DELETE_TYP -> new LogEintrag.Delete(AngestellterCodec.getUuid(daten));
+            default -> throw new IOException("Unbekannter Typ eines Log-Eintrags: " + typ);
+        };
+    }
+
+    private static Path datei(final Path verzeichnis, final long segment) {
+        return verzeichnis.resolve(String.format("%s%06d%s", PRAEFIX, segment, SUFFIX));
+    }
+
+    private static void kopfSchreiben(final FileChannel channel, final long nummer) throws IOException {
+        final var header = ByteBuffer.allocate(HEADER_GROESSE).putInt(MAGIC).putShort(VERSION).putLong(nummer).flip();
+        channel.truncate(0L);
+        channel.write(header, 0L);
+        channel.force(true);
+    }
+
+    // Nummer im Kopf des Segments und Anzahl der eingespielten Eintraege
+    private record Gelesen(long position, long nummer, long anzahl) {
+    }
+}
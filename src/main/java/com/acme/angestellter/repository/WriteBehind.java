@@ -0,0 +1,542 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Optionales Write-Behind für Aktualisierungen: Ein aktualisierter Angestellter wird nur vorgemerkt und im Journal
+ * festgeschrieben, bevor die Aktualisierung bestätigt wird. Ein Virtual Thread schreibt die vorgemerkten Angestellten
+ * nach einer kurzen Wartezeit gemeinsam mit {@link AngestellterPersistenz#updateAll(List)}. Mehrere Aktualisierungen
+ * desselben Angestellten bis dahin werden zu einer einzigen zusammengefasst.
+ * <p>
+ * Das Journal ist ein {@link WriteAheadLog} in einem eigenen Verzeichnis. Vor dem Schreiben wird ein neues Segment
+ * begonnen und nach dem Schreiben werden die älteren Segmente gelöscht. Nach einem Absturz werden die noch nicht
+ * geschriebenen Angestellten beim Start aus dem Journal wieder vorgemerkt.
+ * <p>
+ * Die Suche nach der ID liefert vorgemerkte Angestellte sofort, Suchen mit Suchkriterien erst nach dem Schreiben. Die
+ * Emailadressen der vorgemerkten Angestellten sind reserviert, so dass eine neue Emailadresse beim Vormerken gegen das
+ * Repository und die Reservierungen geprüft wird und ein Konflikt sofort erkannt wird. Deshalb werden auch neue
+ * Angestellte mit {@link #createIfEmailAbsent(Angestellter)} bzw. {@link #createAllIfEmailAbsent(List)} angelegt, damit
+ * sie keine reservierte Emailadresse belegen und eine bereits bestätigte Aktualisierung nicht beim Schreiben verworfen
+ * werden muss.
+ * <p>
+ * Beim Herunterfahren werden die vorgemerkten Angestellten nach dem Stoppen des Webservers innerhalb von
+ * "spring.lifecycle.timeout-per-shutdown-phase" geschrieben. Was danach noch fehlt, bleibt im Journal.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@Component
+@Slf4j
+@SuppressWarnings("PublicConstructor")
+public final class WriteBehind implements SmartLifecycle, MeterBinder {
+    /**
+     * Phase für den Lebenszyklus: Start vor und Stopp nach dem Webserver, so dass beim Herunterfahren keine
+     * Aktualisierungen mehr ankommen.
+     */
+    static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final AngestellterPersistenz repo;
+
+    private final boolean aktiv;
+
+    private final long intervall;
+
+    private final int maxAusstehend;
+
+    private final WriteAheadLog journal;
+
+    /**
+     * Die vorgemerkten Angestellten, die nur mit der Sperre verändert, aber ohne Sperre gelesen werden.
+     */
+    private final Map<UUID, Angestellter> ausstehend = new ConcurrentHashMap<>();
+
+    /**
+     * Die reservierten Emailadressen der vorgemerkten Angestellten mit deren ID, nur mit der Sperre verwendet.
+     */
+    private final Map<String, UUID> emails = new HashMap<>();
+
+    /**
+     * Sperre, damit die Reihenfolge im Journal der Reihenfolge beim Vormerken entspricht und vor dem Löschen eines
+     * Segments alle seine Einträge geschrieben sind.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition arbeit = lock.newCondition();
+
+    private final Condition platz = lock.newCondition();
+
+    private final AtomicLong zusammengefasst = new AtomicLong();
+
+    private final AtomicLong verworfen = new AtomicLong();
+
+    private final AtomicLong schreibvorgaenge = new AtomicLong();
+
+    private final AtomicLong schreibdauer = new AtomicLong();
+
+    private final AtomicLong letzteSchreibdauer = new AtomicLong();
+
+    private Thread schreiber;
+
+    private volatile boolean laeuft;
+
+    private boolean beendet;
+
+    /**
+     * Konstruktor, der ggf. die noch nicht geschriebenen Angestellten aus dem Journal einliest.
+     *
+     * @param repo Das Repository, in das geschrieben wird
+     * @param properties Konfiguration oder null, falls Write-Behind nicht aktiv ist
+     * @throws IllegalStateException Falls Write-Behind ohne Verzeichnis für das Journal aktiv ist
+     */
+    public WriteBehind(
+        final AngestellterPersistenz repo,
+        final @Nullable WriteBehindProperties properties
+    ) {
+        this.repo = repo;
+        final var konfiguration = properties == null
+            ? new WriteBehindProperties(null, null, null, null, null)
+            : properties;
+        aktiv = konfiguration.aktiv();
+        intervall = konfiguration.intervall().toNanos();
+        maxAusstehend = konfiguration.maxAusstehend();
+        if (aktiv && konfiguration.verzeichnis() == null) {
+            // ohne Journal waeren bestaetigte Aktualisierungen nach einem Absturz verloren
+            throw new IllegalStateException("app.write-behind.verzeichnis ist nicht konfiguriert");
+        }
+        if (aktiv) {
+            final var walProperties =
+                new WalProperties(konfiguration.verzeichnis(), konfiguration.durability(), null, null);
+            journal = WriteAheadLog.oeffnen(walProperties, 0L, this::einspielen);
+            log.info("WriteBehind: verzeichnis={}, intervall={}, #ausstehend={}", konfiguration.verzeichnis(),
+                konfiguration.intervall(), ausstehend.size());
+        } else {
+            journal = null;
+        }
+    }
+
+    /**
+     * Abfrage, ob Aktualisierungen im Hintergrund geschrieben werden.
+     *
+     * @return true, falls Write-Behind konfiguriert ist
+     */
+    public boolean isAktiv() {
+        return aktiv;
+    }
+
+    /**
+     * Einen vorgemerkten, aber noch nicht geschriebenen Angestellten anhand seiner ID ermitteln.
+     *
+     * @param id Die ID
+     * @return Eine Kopie des vorgemerkten Angestellten oder ein leeres Optional
+     */
+    public Optional<Angestellter> findById(final UUID id) {
+        if (!aktiv || id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(ausstehend.get(id)).map(Angestellter::kopie);
+    }
+
+    /**
+     * Einen aktualisierten Angestellten vormerken, sofern seine Emailadresse weder im Repository noch bei einem
+     * anderen vorgemerkten Angestellten vergeben ist. Der Aufruf kehrt zurück, sobald der Angestellte im Journal gemäß
+     * der Durability festgeschrieben ist. Falls bereits zu viele Angestellte vorgemerkt sind, wird gewartet.
+     *
+     * @param angestellter Der Angestellte mit ID und den neuen Daten
+     * @return false, falls die Emailadresse bereits zu einem anderen Angestellten gehört, sonst true
+     * @throws IllegalStateException Falls Write-Behind nicht aktiv oder beendet ist oder das Warten unterbrochen wurde
+     */
+    public boolean einreihen(final Angestellter angestellter) {
+        if (!aktiv) {
+            throw new IllegalStateException("Write-Behind ist nicht aktiv");
+        }
+        final var id = angestellter.getId();
+        var nummer = 0L;
+        lock.lock();
+        try {
+            while (!beendet && ausstehend.size() >= maxAusstehend && !ausstehend.containsKey(id)) {
+                platz.await();
+            }
+            if (beendet) {
+                throw new IllegalStateException("Write-Behind ist beendet");
+            }
+            if (emailVergeben(angestellter)) {
+                log.debug("einreihen: email {} existiert", angestellter.getEmail());
+                return false;
+            }
+            nummer = journal.append(new LogEintrag.Update(angestellter));
+            if (vormerken(angestellter)) {
+                zusammengefasst.incrementAndGet();
+            }
+            arbeit.signal();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Warten beim Vormerken unterbrochen", ex);
+        } finally {
+            lock.unlock();
+        }
+        // fsync ausserhalb der Sperre, damit parallele Aufrufe ein gemeinsames fsync verwenden
+        journal.commit(nummer);
+        return true;
+    }
+
+    /**
+     * Einen neuen Angestellten im Repository anlegen, sofern seine Emailadresse weder dort vorhanden noch für einen
+     * vorgemerkten Angestellten reserviert ist.
+     *
+     * @param angestellter Der neue Angestellte ohne ID
+     * @return Der neu angelegte Angestellte mit generierter ID oder ein leeres Optional, falls die Emailadresse
+     *      vergeben ist
+     */
+    public Optional<Angestellter> createIfEmailAbsent(final Angestellter angestellter) {
+        if (!aktiv) {
+            return repo.createIfEmailAbsent(angestellter);
+        }
+        // mit der Sperre, damit die Emailadresse nicht zwischen Pruefen und Anlegen reserviert wird
+        lock.lock();
+        try {
+            if (emails.containsKey(angestellter.getEmail())) {
+                log.debug("createIfEmailAbsent: email {} reserviert", angestellter.getEmail());
+                return Optional.empty();
+            }
+            return repo.createIfEmailAbsent(angestellter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Mehrere neue Angestellte gemeinsam im Repository anlegen, sofern ihre Emailadressen weder dort vorhanden noch für
+     * vorgemerkte Angestellte reserviert sind.
+     *
+     * @param neueAngestellte Die neuen Angestellten ohne ID
+     * @return Für jeden Angestellten in derselben Reihenfolge der neu angelegte Angestellte oder ein leeres Optional,
+     *      falls die Emailadresse vergeben ist
+     */
+    public List<Optional<Angestellter>> createAllIfEmailAbsent(final List<Angestellter> neueAngestellte) {
+        if (!aktiv) {
+            return repo.createAllIfEmailAbsent(neueAngestellte);
+        }
+        lock.lock();
+        try {
+            final var frei = neueAngestellte.stream()
+                .filter(angestellter -> !emails.containsKey(angestellter.getEmail()))
+                .toList();
+            final var angelegt = repo.createAllIfEmailAbsent(frei).iterator();
+            final var result = new ArrayList<Optional<Angestellter>>(neueAngestellte.size());
+            for (final var angestellter : neueAngestellte) {
+                result.add(emails.containsKey(angestellter.getEmail()) ? Optional.empty() : angelegt.next());
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Einen vorgemerkten Angestellten vor dem Löschen entfernen.
+     *
+     * @param id Die ID des zu löschenden Angestellten
+     */
+    public void entfernen(final UUID id) {
+        if (!aktiv) {
+            return;
+        }
+        var nummer = 0L;
+        lock.lock();
+        try {
+            if (austragen(id)) {
+                nummer = journal.append(new LogEintrag.Delete(id));
+                platz.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (nummer > 0L) {
+            journal.commit(nummer);
+        }
+    }
+
+    @Override
+    public void start() {
+        lock.lock();
+        try {
+            if (aktiv && schreiber == null) {
+                schreiber = Thread.ofVirtual().name("write-behind").start(this::schreiben);
+            }
+            laeuft = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void stop() {
+        beenden();
+        warten();
+    }
+
+    @Override
+    public void stop(final Runnable callback) {
+        beenden();
+        Thread.ofVirtual().name("write-behind-stop").start(() -> {
+            try {
+                warten();
+            } finally {
+                callback.run();
+            }
+        });
+    }
+
+    @Override
+    public boolean isRunning() {
+        return laeuft;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        Gauge.builder("app.write-behind.ausstehend", ausstehend, Map::size)
+            .description("Vorgemerkte Angestellte, die noch nicht geschrieben sind")
+            .register(registry);
+        FunctionTimer.builder("app.write-behind.schreiben", this, w -> w.schreibvorgaenge.get(),
+                w -> w.schreibdauer.get(), NANOSECONDS)
+            .description("Schreiben der vorgemerkten Angestellten in das Repository")
+            .register(registry);
+        TimeGauge.builder("app.write-behind.schreiben.letzte", letzteSchreibdauer, NANOSECONDS, AtomicLong::get)
+            .description("Dauer des letzten Schreibens")
+            .register(registry);
+        FunctionCounter.builder("app.write-behind.zusammengefasst", zusammengefasst, AtomicLong::get)
+            .description("Aktualisierungen, die mit einer vorherigen zusammengefasst wurden")
+            .register(registry);
+        FunctionCounter.builder("app.write-behind.verworfen", verworfen, AtomicLong::get)
+            .description("Beim Schreiben wegen einer vorhandenen Emailadresse verworfene Aktualisierungen")
+            .register(registry);
+    }
+
+    /**
+     * Den Schreib-Thread beenden, falls er nach dem Stoppen noch läuft, und das Journal schließen.
+     */
+    @PreDestroy
+    public void close() {
+        beenden();
+        final var thread = schreiber;
+        if (thread != null && thread.isAlive()) {
+            thread.interrupt();
+            warten();
+        }
+        if (!ausstehend.isEmpty()) {
+            log.warn("close: {} Angestellte noch nicht geschrieben", ausstehend.size());
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    // beim Start die Eintraege aus dem Journal der Reihe nach einspielen
+    private void einspielen(final LogEintrag eintrag) {
+        switch (eintrag) {
+            case LogEintrag.Update update -> vormerken(update.angestellter());
+            case LogEintrag.Delete delete -> austragen(delete.id());
+            case LogEintrag.Create create -> log.warn("einspielen: unerwarteter Eintrag {}", create);
+        }
+    }
+
+    // mit der Sperre: die Emailadresse ist fuer einen anderen vorgemerkten Angestellten reserviert oder gehoert im
+    // Repository nicht zum bisherigen Stand dieses Angestellten
+    private boolean emailVergeben(final Angestellter angestellter) {
+        final var id = angestellter.getId();
+        final var email = angestellter.getEmail();
+        final var reserviert = emails.get(email);
+        if (reserviert != null) {
+            return !reserviert.equals(id);
+        }
+        return repo.isEmailExisting(email) && !repo.findById(id)
+            .map(Angestellter::getEmail)
+            .filter(email::equals)
+            .isPresent();
+    }
+
+    // mit der Sperre: true, falls bereits ein Stand vorgemerkt war
+    private boolean vormerken(final Angestellter angestellter) {
+        final var id = angestellter.getId();
+        final var vorher = ausstehend.put(id, angestellter);
+        if (vorher != null) {
+            emails.remove(vorher.getEmail(), id);
+        }
+        if (angestellter.getEmail() != null) {
+            emails.put(angestellter.getEmail(), id);
+        }
+        return vorher != null;
+    }
+
+    // mit der Sperre: true, falls ein Stand vorgemerkt war
+    private boolean austragen(final UUID id) {
+        final var vorher = ausstehend.remove(id);
+        if (vorher == null) {
+            return false;
+        }
+        emails.remove(vorher.getEmail(), id);
+        return true;
+    }
+
+    private void beenden() {
+        lock.lock();
+        try {
+            beendet = true;
+            laeuft = false;
+            arbeit.signalAll();
+            platz.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void warten() {
+        final var thread = schreiber;
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void schreiben() {
+        try {
+            while (warteAufArbeit()) {
+                final boolean beendetVorher;
+                lock.lock();
+                try {
+                    beendetVorher = beendet;
+                } finally {
+                    lock.unlock();
+                }
+                // nach dem Beenden ohne Wartezeit schreiben
+                if (!beendetVorher) {
+                    NANOSECONDS.sleep(intervall);
+                }
+                if (!flush() && beendetVorher) {
+                    log.error("schreiben: {} Angestellte bleiben im Journal", ausstehend.size());
+                    return;
+                }
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            log.warn("schreiben: unterbrochen mit {} ausstehenden Angestellten", ausstehend.size());
+        }
+    }
+
+    // false, falls beendet und alles geschrieben ist
+    private boolean warteAufArbeit() throws InterruptedException {
+        lock.lock();
+        try {
+            while (ausstehend.isEmpty()) {
+                if (beendet) {
+                    return false;
+                }
+                arbeit.await();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // die vorgemerkten Angestellten gemeinsam schreiben und danach die aelteren Segmente des Journals loeschen
+    private boolean flush() {
+        final long segment;
+        final List<Angestellter> angestellte;
+        lock.lock();
+        try {
+            segment = journal.rotieren();
+            angestellte = List.copyOf(ausstehend.values());
+        } finally {
+            lock.unlock();
+        }
+
+        final var start = System.nanoTime();
+        final List<Boolean> ergebnisse;
+        try {
+            ergebnisse = repo.updateAll(angestellte);
+        } catch (final RuntimeException ex) {
+            log.error("flush: #angestellte={}", angestellte.size(), ex);
+            return false;
+        }
+        for (int i = 0; i < angestellte.size(); i++) {
+            final var angestellter = angestellte.get(i);
+            if (!ergebnisse.get(i)) {
+                verworfen.incrementAndGet();
+                log.warn("flush: email {} existiert, Aktualisierung von {} verworfen", angestellter.getEmail(),
+                    angestellter.getId());
+            }
+        }
+
+        lock.lock();
+        try {
+            // erst nach dem Schreiben entfernen, weil bis dahin der vorgemerkte Stand gelesen wird; ein inzwischen
+            // erneut vorgemerkter Stand ist ein anderes Objekt und bleibt mit seiner Reservierung fuer das naechste
+            // Schreiben, denn equals() vergleicht nur die ID
+            angestellte.forEach(angestellter -> {
+                final var id = angestellter.getId();
+                if (ausstehend.get(id) == angestellter) {
+                    ausstehend.remove(id);
+                    emails.remove(angestellter.getEmail(), id);
+                }
+            });
+            platz.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        journal.kompaktieren(segment);
+
+        final var dauer = System.nanoTime() - start;
+        schreibvorgaenge.incrementAndGet();
+        schreibdauer.addAndGet(dauer);
+        letzteSchreibdauer.set(dauer);
+        log.debug("flush: #angestellte={}, dauer={} ns", angestellte.size(), dauer);
+        return true;
+    }
+}
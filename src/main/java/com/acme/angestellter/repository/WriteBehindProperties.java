@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Konfiguration für {@link WriteBehind} mit dem Präfix "app.write-behind", z.B. in application.yml.
+ *
+ * @param aktiv Aktualisierungen zunächst nur vormerken und im Hintergrund schreiben.
+ * @param verzeichnis Verzeichnis für das Journal der vorgemerkten Aktualisierungen, das bei aktivem Write-Behind
+ *                    konfiguriert sein muss.
+ * @param durability Zeitpunkt, zu dem eine Aktualisierung im Journal mit fsync geschrieben wird.
+ * @param intervall Wartezeit vor dem Schreiben, in der weitere Aktualisierungen gesammelt und zusammengefasst werden.
+ * @param maxAusstehend Maximale Anzahl vorgemerkter Angestellter, ab der eine Aktualisierung wartet.
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@ConfigurationProperties(prefix = "app.write-behind")
+public record WriteBehindProperties(
+    Boolean aktiv,
+    Path verzeichnis,
+    WalProperties.Durability durability,
+    Duration intervall,
+    Integer maxAusstehend
+) {
+    private static final Duration DEFAULT_INTERVALL = Duration.ofMillis(100);
+
+    private static final int DEFAULT_MAX_AUSSTEHEND = 100_000;
+
+    /**
+     * Konstruktor mit Defaultwerten für nicht konfigurierte Properties.
+     *
+     * @param aktiv Write-Behind aktiv oder null für false
+     * @param verzeichnis Verzeichnis für das Journal oder null
+     * @param durability Zeitpunkt für fsync oder null für "every-write"
+     * @param intervall Wartezeit vor dem Schreiben oder null für 100 ms
+     * @param maxAusstehend Maximale Anzahl vorgemerkter Angestellter oder null für 100.000
+     */
+    public WriteBehindProperties {
+        if (aktiv == null) {
+            aktiv = false;
+        }
+        if (durability == null) {
+            durability = WalProperties.Durability.EVERY_WRITE;
+        }
+        if (intervall == null) {
+            intervall = DEFAULT_INTERVALL;
+        }
+        if (maxAusstehend == null) {
+            maxAusstehend = DEFAULT_MAX_AUSSTEHEND;
+        }
+    }
+}
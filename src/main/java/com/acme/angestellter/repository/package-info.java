@@ -17,5 +17,9 @@
 
 /**
  * Repository für Angestellte.
+ * <p>
+ * Die Indexe in diesem Package sind nicht selbst synchronisiert: Schreibende Zugriffe serialisiert
+ * {@link com.acme.angestellter.repository.AngestellterRepository} mit seiner Schreibsperre, lesende Zugriffe erfolgen
+ * ohne Sperre und sind schwach konsistent.
  */
 package com.acme.angestellter.repository;
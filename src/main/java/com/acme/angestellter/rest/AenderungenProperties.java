@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.rest;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Konfiguration für den Stream der Änderungen mit dem Präfix "app.aenderungen", z.B. in application.yml.
+ *
+ * @param puffer Maximale Anzahl noch nicht gesendeter Änderungen je Abonnent.
+ * @param ueberlauf Verhalten, wenn der Puffer eines langsamen Abonnenten voll ist.
+ * @param heartbeat Intervall für einen Kommentar ohne Änderungen, damit abgebrochene Verbindungen erkannt werden und
+ *                  Proxies die Verbindung nicht schließen.
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@ConfigurationProperties(prefix = "app.aenderungen")
+public record AenderungenProperties(Integer puffer, Ueberlauf ueberlauf, Duration heartbeat) {
+    private static final int DEFAULT_PUFFER = 1024;
+
+    private static final Duration DEFAULT_HEARTBEAT = Duration.ofSeconds(15);
+
+    /**
+     * Konstruktor mit Defaultwerten für nicht konfigurierte Properties.
+     *
+     * @param puffer Maximale Anzahl je Abonnent oder null für 1024
+     * @param ueberlauf Verhalten bei vollem Puffer oder null für "trennen"
+     * @param heartbeat Intervall oder null für 15 s
+     */
+    public AenderungenProperties {
+        if (puffer == null) {
+            puffer = DEFAULT_PUFFER;
+        }
+        if (ueberlauf == null) {
+            ueberlauf = Ueberlauf.TRENNEN;
+        }
+        if (heartbeat == null) {
+            heartbeat = DEFAULT_HEARTBEAT;
+        }
+    }
+
+    /**
+     * Verhalten, wenn der Puffer eines langsamen Abonnenten voll ist.
+     */
+    public enum Ueberlauf {
+        /**
+         * Die Verbindung wird beendet. Der Client verbindet sich erneut und erhält mit dem Header
+         * <code>Last-Event-ID</code> die verpassten Änderungen.
+         */
+        TRENNEN,
+
+        /**
+         * Die neue Änderung wird verworfen. Vor der nächsten gesendeten Änderung erhält der Client das Event
+         * <code>reset</code>, um seinen Stand neu zu laden.
+         */
+        VERWERFEN
+    }
+}
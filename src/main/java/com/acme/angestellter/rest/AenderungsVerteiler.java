@@ -0,0 +1,331 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.rest;
+
+import com.acme.angestellter.repository.Aenderung;
+import com.acme.angestellter.service.AngestellterAenderungService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Verteilt die Änderungen an die Abonnenten von <code>GET /rest/changes</code>. Ein einziger Virtual Thread liest die
+ * Änderungen aus dem Ringpuffer des Repository, serialisiert jede Änderung genau einmal als Event im Format
+ * Server-Sent Events und reiht dieselben Bytes in die beschränkten Puffer aller Abonnenten ein. Jeder Abonnent
+ * schreibt seinen Puffer in seinem eigenen Virtual Thread in den Response, so dass ein langsamer Client weder das
+ * Verteilen noch die übrigen Abonnenten aufhält.
+ * <p>
+ * Mit dem Header <code>Last-Event-ID</code> erhält ein Abonnent zuerst die verpassten Änderungen, solange sie noch im
+ * Ringpuffer sind, und andernfalls das Event <code>reset</code>, um seinen Stand neu zu laden. Die zuletzt verteilten
+ * Events bleiben dafür in einem eigenen Ring nach ihrer Sequenznummer erhalten, so dass beim erneuten Verbinden vieler
+ * Abonnenten dieselben Bytes gesendet statt die Änderungen für jeden Abonnenten erneut serialisiert werden. Beim
+ * Herunterfahren werden die Streams vor dem Warten auf die laufenden Requests beendet.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@Component
+@Slf4j
+final class AenderungsVerteiler implements SmartLifecycle, MeterBinder {
+    private static final int BLOCK = 256;
+
+    // Anzahl der zuletzt verteilten Frames fuer das Nachholen als Zweierpotenz
+    private static final int GESENDET = 1 << 12;
+
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(UTF_8);
+
+    private static final Frame ENDE = new Frame(-1L, new byte[0]);
+
+    private final AngestellterAenderungService service;
+
+    private final ObjectWriter writer;
+
+    private final int puffer;
+
+    private final AenderungenProperties.Ueberlauf ueberlauf;
+
+    private final Duration heartbeat;
+
+    private final Set<Abonnent> abonnenten = ConcurrentHashMap.newKeySet();
+
+    private final AtomicReferenceArray<Frame> gesendet = new AtomicReferenceArray<>(GESENDET);
+
+    private final AtomicLong verworfen = new AtomicLong();
+
+    private final AtomicLong getrennt = new AtomicLong();
+
+    private volatile boolean laeuft;
+
+    private Thread verteiler;
+
+    AenderungsVerteiler(
+        final AngestellterAenderungService service,
+        final ObjectMapper objectMapper,
+        final @Nullable AenderungenProperties properties
+    ) {
+        this.service = service;
+        final var konfiguration = properties == null ? new AenderungenProperties(null, null, null) : properties;
+        puffer = konfiguration.puffer();
+        ueberlauf = konfiguration.ueberlauf();
+        heartbeat = konfiguration.heartbeat();
+        // "data" eines Events darf keinen Zeilenumbruch enthalten
+        writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Abfrage, ob das Repository Änderungen bereitstellt.
+     *
+     * @return true, falls es Änderungen gibt
+     */
+    boolean isVerfuegbar() {
+        return service.isVerfuegbar();
+    }
+
+    /**
+     * Die Änderungen an einen neuen Abonnenten senden, bis er getrennt oder der Server heruntergefahren wird.
+     *
+     * @param lastEventId Sequenznummer der zuletzt empfangenen Änderung oder null für nur neue Änderungen
+     * @param out Der OutputStream des Response
+     * @throws IOException Falls die Verbindung abgebrochen ist
+     */
+    void senden(final @Nullable Long lastEventId, final OutputStream out) throws IOException {
+        final var abonnent = new Abonnent(new ArrayBlockingQueue<>(puffer));
+        // vor dem Nachholen registrieren, damit dazwischen keine Aenderung verloren geht
+        abonnenten.add(abonnent);
+        try {
+            if (!laeuft) {
+                return;
+            }
+            var letzte = nachholen(lastEventId, out);
+            out.flush();
+            while (true) {
+                final var frame = abonnent.frames.poll(heartbeat.toNanos(), NANOSECONDS);
+                if (frame == null) {
+                    out.write(HEARTBEAT);
+                    out.flush();
+                    continue;
+                }
+                if (frame == ENDE) {
+                    return;
+                }
+                if (frame.sequenz() <= letzte) {
+                    // bereits beim Nachholen gesendet
+                    continue;
+                }
+                if (frame.sequenz() > letzte + 1) {
+                    // verworfene oder nicht serialisierbare Aenderungen
+                    out.write(reset(frame.sequenz() - 1));
+                }
+                out.write(frame.bytes());
+                letzte = frame.sequenz();
+                // mehrere bereits eingereihte Events mit einem einzigen flush senden
+                if (abonnent.frames.isEmpty()) {
+                    out.flush();
+                }
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            abonnenten.remove(abonnent);
+        }
+    }
+
+    @Override
+    public void start() {
+        // vor dem Verteiler setzen, sonst beendet er sich ggf. sofort wieder
+        laeuft = true;
+        if (service.isVerfuegbar() && verteiler == null) {
+            // den Stand hier festhalten, damit keine danach festgeschriebene Aenderung fehlt
+            final var sequenz = service.getSequenz();
+            verteiler = Thread.ofVirtual().name("aenderungen").start(() -> verteilen(sequenz));
+        }
+    }
+
+    @Override
+    public void stop() {
+        laeuft = false;
+        final var thread = verteiler;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            verteiler = null;
+        }
+        // die offenen Streams beenden, damit "graceful shutdown" nicht auf sie wartet
+        abonnenten.forEach(this::trennen);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return laeuft;
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        Gauge.builder("app.aenderungen.abonnenten", abonnenten, Set::size)
+            .description("Abonnenten des Streams der Aenderungen")
+            .register(registry);
+        FunctionCounter.builder("app.aenderungen.verworfen", verworfen, AtomicLong::get)
+            .description("Wegen eines vollen Puffers verworfene Events")
+            .register(registry);
+        FunctionCounter.builder("app.aenderungen.getrennt", getrennt, AtomicLong::get)
+            .description("Wegen eines vollen Puffers getrennte Abonnenten")
+            .register(registry);
+    }
+
+    private void verteilen(final long stand) {
+        var sequenz = stand;
+        try {
+            while (laeuft) {
+                if (!service.warten(sequenz, heartbeat)) {
+                    continue;
+                }
+                final var aenderungen = service.findNach(sequenz, BLOCK);
+                if (aenderungen.isEmpty()) {
+                    // selbst ueberholt: die Abonnenten holen nach dem erneuten Verbinden nach
+                    log.warn("verteilen: Aenderungen nach {} nicht mehr vorhanden", sequenz);
+                    abonnenten.forEach(this::trennen);
+                    sequenz = service.getSequenz();
+                    continue;
+                }
+                for (final var aenderung : aenderungen.get()) {
+                    sequenz = aenderung.sequenz();
+                    final Frame frame;
+                    try {
+                        frame = new Frame(sequenz, frame(aenderung));
+                    } catch (final JsonProcessingException ex) {
+                        log.error("verteilen: sequenz={}", sequenz, ex);
+                        continue;
+                    }
+                    gesendet.set(index(sequenz), frame);
+                    abonnenten.forEach(abonnent -> anbieten(abonnent, frame));
+                    // die Carrier Threads fuer die Abonnenten freigeben, damit deren Puffer nicht volllaufen
+                    Thread.yield();
+                }
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void anbieten(final Abonnent abonnent, final Frame frame) {
+        if (abonnent.frames.offer(frame)) {
+            return;
+        }
+        if (ueberlauf == AenderungenProperties.Ueberlauf.VERWERFEN) {
+            verworfen.incrementAndGet();
+            return;
+        }
+        getrennt.incrementAndGet();
+        trennen(abonnent);
+    }
+
+    // nur der Verteiler bzw. nach seinem Ende stop() fuegen Frames ein, deshalb ist nach clear() Platz fuer ENDE
+    private void trennen(final Abonnent abonnent) {
+        abonnenten.remove(abonnent);
+        abonnent.frames.clear();
+        abonnent.frames.offer(ENDE);
+    }
+
+    // liefert die Sequenznummer der zuletzt gesendeten Aenderung
+    private long nachholen(final @Nullable Long lastEventId, final OutputStream out) throws IOException {
+        final var stand = service.getSequenz();
+        if (lastEventId == null || lastEventId == stand) {
+            return stand;
+        }
+        if (lastEventId > stand) {
+            // z.B. nach einem Neustart ohne Write-Ahead-Log
+            out.write(reset(stand));
+            return stand;
+        }
+        long sequenz = lastEventId;
+        while (sequenz < stand) {
+            final var frame = gesendet.get(index(sequenz + 1));
+            if (frame != null && frame.sequenz() == sequenz + 1) {
+                out.write(frame.bytes());
+                sequenz++;
+                continue;
+            }
+            // noch nicht verteilt oder im Ring bereits ueberschrieben
+            final var aenderungen = service.findNach(sequenz, BLOCK);
+            if (aenderungen.isEmpty() || aenderungen.get().isEmpty()) {
+                out.write(reset(stand));
+                return stand;
+            }
+            for (final var aenderung : aenderungen.get()) {
+                out.write(frame(aenderung));
+                sequenz = aenderung.sequenz();
+            }
+        }
+        return sequenz;
+    }
+
+    private byte[] frame(final Aenderung aenderung) throws JsonProcessingException {
+        final var json = writer.writeValueAsBytes(aenderung);
+        final var kopf = ("id: " + aenderung.sequenz() + "\nevent: " + aenderung.typ().name().toLowerCase(Locale.ROOT) +
+            "\ndata: ").getBytes(UTF_8);
+        final var frame = new ByteArrayOutputStream(kopf.length + json.length + 2);
+        frame.writeBytes(kopf);
+        frame.writeBytes(json);
+        frame.write('\n');
+        frame.write('\n');
+        return frame.toByteArray();
+    }
+
+    private static int index(final long sequenz) {
+        return (int) (sequenz & (GESENDET - 1));
+    }
+
+    private static byte[] reset(final long sequenz) {
+        return ("id: " + sequenz + "\nevent: reset\ndata: {\"sequenz\":" + sequenz + "}\n\n").getBytes(UTF_8);
+    }
+
+    private record Frame(long sequenz, byte[] bytes) {
+    }
+
+    private static final class Abonnent {
+        private final BlockingQueue<Frame> frames;
+
+        Abonnent(final BlockingQueue<Frame> frames) {
+            this.frames = frames;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.rest;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import static com.acme.angestellter.rest.AngestellterGetController.REST_PATH;
+import static org.springframework.http.HttpHeaders.CACHE_CONTROL;
+import static org.springframework.http.HttpStatus.NOT_IMPLEMENTED;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
+
+/**
+ * REST-Schnittstelle für die Änderungen an den Angestellten als Server-Sent Events, damit nachgelagerte Systeme nicht
+ * regelmäßig alle Angestellten lesen müssen. Jedes Event hat die Sequenznummer der Änderung als <code>id</code>, den
+ * Typ <code>create</code>, <code>update</code> oder <code>delete</code> als <code>event</code> und die Änderung im
+ * JSON-Format als <code>data</code>. Ein Client, der sich z.B. mit <code>EventSource</code> im Browser erneut
+ * verbindet, sendet die zuletzt empfangene Sequenznummer im Header <code>Last-Event-ID</code> und erhält die
+ * verpassten Änderungen. Sind sie nicht mehr vorhanden, erhält er das Event <code>reset</code> und muss seinen Stand
+ * neu laden.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@RestController
+@RequestMapping(REST_PATH + AngestellterAenderungController.CHANGES_PATH)
+@Tag(name = "Angestellter API")
+@RequiredArgsConstructor
+@Slf4j
+class AngestellterAenderungController {
+    /**
+     * Pfad für die Änderungen relativ zu REST_PATH.
+     */
+    static final String CHANGES_PATH = "/changes";
+
+    /**
+     * Header, mit dem ein Client beim erneuten Verbinden die zuletzt empfangene Sequenznummer sendet.
+     */
+    static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private final AenderungsVerteiler verteiler;
+
+    /**
+     * Die Änderungen an den Angestellten abonnieren. Der Response wird nicht beendet, sondern sendet die Änderungen,
+     * sobald sie festgeschrieben sind.
+     *
+     * @param lastEventId Die zuletzt empfangene Sequenznummer oder null für nur neue Änderungen
+     * @return Response mit Statuscode 200 und den Änderungen als Server-Sent Events
+     */
+    @GetMapping(produces = TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Änderungen als Server-Sent Events abonnieren", tags = "Suchen")
+    @ApiResponse(responseCode = "200", description = "Stream der Änderungen")
+    @ApiResponse(responseCode = "501", description = "Keine Änderungen mit dem Profil jdbc")
+    @ApiResponse(responseCode = "503", description = "Server wird heruntergefahren")
+    ResponseEntity<StreamingResponseBody> aenderungen(
+        @RequestHeader(value = LAST_EVENT_ID, required = false) final Long lastEventId
+    ) {
+        log.debug("aenderungen: lastEventId={}", lastEventId);
+        if (!verteiler.isVerfuegbar()) {
+            return ResponseEntity.status(NOT_IMPLEMENTED).build();
+        }
+        if (!verteiler.isRunning()) {
+            return ResponseEntity.status(SERVICE_UNAVAILABLE).build();
+        }
+        final StreamingResponseBody body = out -> verteiler.senden(lastEventId, out);
+        return ResponseEntity.ok().header(CACHE_CONTROL, "no-cache").body(body);
+    }
+}
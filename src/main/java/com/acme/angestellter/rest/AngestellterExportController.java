@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.rest;
+
+import com.acme.angestellter.entity.Angestellter;
+import com.acme.angestellter.service.AngestellterReadService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import static com.acme.angestellter.rest.AngestellterGetController.REST_PATH;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
+/**
+ * REST-Schnittstelle für den Export aller bzw. der gesuchten Angestellten im Format CSV oder NDJSON, z.B. für
+ * Auswertungen. Die Angestellten werden direkt aus einem Stream des Repositorys in den Response geschrieben, so dass
+ * der Speicherbedarf unabhängig von der Anzahl der Angestellten ist. Die Zeilen im Format NDJSON können mit
+ * <code>PUT /rest/import/{id}</code> wieder importiert werden.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@RestController
+@RequestMapping(REST_PATH + AngestellterExportController.EXPORT_PATH)
+@Tag(name = "Angestellter API")
+@RequiredArgsConstructor
+@Slf4j
+class AngestellterExportController {
+    /**
+     * Pfad für den Export relativ zu REST_PATH.
+     */
+    static final String EXPORT_PATH = "/export";
+
+    /**
+     * MIME-Typ für CSV.
+     */
+    static final String TEXT_CSV_VALUE = "text/csv";
+
+    private static final String CSV_KOPF =
+        "id,nachname,email,hasNewsletter,geburtsdatum,geschlecht,familienstand,plz,ort";
+
+    private static final int PUFFER_GROESSE = 64 * 1024;
+
+    private final AngestellterReadService service;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Export im Format CSV mit einer Kopfzeile.
+     *
+     * @param suchkriterien Query-Parameter als Map wie bei der Suche.
+     * @return Response mit Statuscode 200, dessen Body erst beim Senden geschrieben wird.
+     */
+    @GetMapping(produces = TEXT_CSV_VALUE)
+    @Operation(summary = "Export im Format CSV", tags = "Suchen")
+    @ApiResponse(responseCode = "200", description = "Angestellte als CSV")
+    ResponseEntity<StreamingResponseBody> exportCsv(@RequestParam final Map<String, String> suchkriterien) {
+        log.debug("exportCsv: suchkriterien={}", suchkriterien);
+        final StreamingResponseBody body = out -> {
+            // ein einziger Puffer fuer alle Zeilen
+            final var writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8), PUFFER_GROESSE);
+            writer.write(CSV_KOPF);
+            writer.write('\n');
+            try (var angestellte = service.findAsStream(suchkriterien)) {
+                angestellte.forEach(angestellter -> csv(angestellter, writer));
+            } catch (final UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok().body(body);
+    }
+
+    /**
+     * Export im Format NDJSON, d.h. ein Angestellter im JSON-Format je Zeile.
+     *
+     * @param suchkriterien Query-Parameter als Map wie bei der Suche.
+     * @return Response mit Statuscode 200, dessen Body erst beim Senden geschrieben wird.
+     */
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export im Format NDJSON", tags = "Suchen")
+    @ApiResponse(responseCode = "200", description = "Angestellte als NDJSON")
+    ResponseEntity<StreamingResponseBody> exportNdjson(@RequestParam final Map<String, String> suchkriterien) {
+        log.debug("exportNdjson: suchkriterien={}", suchkriterien);
+        // eine Zeile je Angestellter auch mit "indent-output" im Profil "dev", ohne Leerzeichen zwischen den Zeilen und
+        // mit einem einzigen flush am Ende
+        final var writer = objectMapper.writer()
+            .without(SerializationFeature.INDENT_OUTPUT)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .withRootValueSeparator("");
+        final StreamingResponseBody body = out -> {
+            // der JsonGenerator schreibt ueber seinen eigenen, wiederverwendeten Puffer
+            final var generator = objectMapper.getFactory()
+                .createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            try (generator; var angestellte = service.findAsStream(suchkriterien)) {
+                angestellte.forEach(angestellter -> {
+                    try {
+                        writer.writeValue(generator, angestellter);
+                        generator.writeRaw('\n');
+                    } catch (final IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                generator.flush();
+            } catch (final UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        };
+        return ResponseEntity.ok().body(body);
+    }
+
+    private static void csv(final Angestellter angestellter, final Writer writer) {
+        final var adresse = angestellter.getAdresse();
+        try {
+            writer.write(String.valueOf(angestellter.getId()));
+            feld(angestellter.getNachname(), writer);
+            feld(angestellter.getEmail(), writer);
+            feld(angestellter.isHasNewsletter(), writer);
+            feld(angestellter.getGeburtsdatum(), writer);
+            feld(angestellter.getGeschlecht(), writer);
+            feld(angestellter.getFamilienstand(), writer);
+            feld(adresse == null ? null : adresse.getPlz(), writer);
+            feld(adresse == null ? null : adresse.getOrt(), writer);
+            writer.write('\n');
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // RFC 4180: Werte mit Trennzeichen, Anfuehrungszeichen oder Zeilenumbruch in Anfuehrungszeichen
+    private static void feld(final Object wert, final Writer writer) throws IOException {
+        writer.write(',');
+        if (wert == null) {
+            return;
+        }
+        final var text = wert.toString();
+        if (text.chars().noneMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r')) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
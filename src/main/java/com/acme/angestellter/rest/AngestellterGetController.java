@@ -16,16 +16,22 @@
  */
 package com.acme.angestellter.rest;
 
+import com.acme.angestellter.repository.QueryPlan;
+import com.acme.angestellter.repository.Seite;
 import com.acme.angestellter.service.AngestellterReadService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.LinkRelation;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -33,6 +39,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
 import static com.acme.angestellter.rest.AngestellterGetController.REST_PATH;
 import static org.springframework.hateoas.MediaTypes.HAL_JSON_VALUE;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
@@ -67,6 +74,16 @@ class AngestellterGetController {
     @SuppressWarnings("TrailingComment")
     private static final String NACHNAME_PATH = "/nachname"; //NOSONAR
 
+    /**
+     * Request-Header, um bei der Suche statt der Angestellten den Ausführungsplan zu erhalten.
+     */
+    private static final String EXPLAIN_HEADER = "X-Explain";
+
+    /**
+     * Query-Parameter für die Pagination, die keine Suchkriterien sind.
+     */
+    private static final Set<String> PAGINATION_PARAMS = Set.of("size", "after", "before");
+
     private final AngestellterReadService service;
     private final UriHelper uriHelper;
 
@@ -106,9 +123,14 @@ class AngestellterGetController {
     }
 
     /**
-     * Suche mit diversen Suchkriterien als Query-Parameter.
+     * Suche mit diversen Suchkriterien als Query-Parameter. Das Ergebnis wird seitenweise mit Keyset-Pagination
+     * geliefert: "size" ist die Anzahl der Angestellten je Seite und "after" bzw. "before" sind die Cursor aus den
+     * Links "next" bzw. "prev".
      *
      * @param suchkriterien Query-Parameter als Map.
+     * @param size Optionale Anzahl der Angestellten je Seite.
+     * @param after Optionaler Cursor für die nächste Seite.
+     * @param before Optionaler Cursor für die vorherige Seite.
      * @param request Das Request-Objekt, um Links für HATEOAS zu erstellen.
      * @return Gefundenen Angestellten als CollectionModel.
      */
@@ -116,17 +138,30 @@ class AngestellterGetController {
     @Operation(summary = "Suche mit Suchkriterien", tags = "Suchen")
     @ApiResponse(responseCode = "200", description = "CollectionModel mid den Angestellten")
     @ApiResponse(responseCode = "404", description = "Keine Angestellten gefunden")
+    @SuppressWarnings("ParameterNumber")
     CollectionModel<? extends AngestellterModel> find(
         @RequestParam final Map<String, String> suchkriterien,
+        @RequestParam(required = false) final Integer size,
+        @RequestParam(required = false) final UUID after,
+        @RequestParam(required = false) final UUID before,
         final HttpServletRequest request
     ) {
-        log.debug("find: suchkriterien={}", suchkriterien);
+        log.debug("find: suchkriterien={}, size={}, after={}, before={}", suchkriterien, size, after, before);
 
+        final var kriterien = new HashMap<>(suchkriterien);
+        kriterien.keySet().removeAll(PAGINATION_PARAMS);
+        final int groesse;
+        if (size == null || size < 1) {
+            groesse = Seite.DEFAULT_SIZE;
+        } else {
+            groesse = Math.min(size, Seite.MAX_SIZE);
+        }
         final var baseUri = uriHelper.getBaseUri(request).toString();
 
         // Geschaeftslogik bzw. Anwendungskern
-        final var models = service.find(suchkriterien)
-            .stream()
+        final var seite = service.findSeite(kriterien, after, before, groesse);
+        final var inhalt = seite.inhalt();
+        final var models = inhalt.stream()
             .map(angestellter -> {
                 final var model = new AngestellterModel(angestellter);
                 model.add(Link.of(baseUri + '/' + angestellter.getId()));
@@ -134,21 +169,76 @@ class AngestellterGetController {
             })
             .toList();
 
-        log.debug("find: {}", models);
-        return CollectionModel.of(models);
+        // HATEOAS: Links mit den Cursorn fuer die naechste bzw. vorherige Seite
+        final var result = CollectionModel.of(models);
+        if (seite.hatNaechste() && !inhalt.isEmpty()) {
+            final var cursor = inhalt.get(inhalt.size() - 1).getId();
+            result.add(Link.of(seitenUri(baseUri, kriterien, groesse, "after", cursor), IanaLinkRelations.NEXT));
+        }
+        if (seite.hatVorherige() && !inhalt.isEmpty()) {
+            final var cursor = inhalt.get(0).getId();
+            result.add(Link.of(seitenUri(baseUri, kriterien, groesse, "before", cursor), IanaLinkRelations.PREV));
+        }
+
+        log.debug("find: {}", result);
+        return result;
     }
 
     /**
-     * Abfrage, welche Nachnamen es zu einem Präfix gibt.
+     * Ausführungsplan einer Suche mit diversen Suchkriterien als Query-Parameter, falls der Request-Header
+     * "X-Explain: true" gesetzt ist.
+     *
+     * @param suchkriterien Query-Parameter als Map.
+     * @return Der ausgeführte Plan mit Zugriffspfad, geschätzten Kandidaten je Index und untersuchten Angestellten.
+     */
+    @GetMapping(produces = APPLICATION_JSON_VALUE, headers = EXPLAIN_HEADER + "=true")
+    @Operation(summary = "Ausführungsplan einer Suche mit Suchkriterien", tags = "Suchen")
+    @ApiResponse(responseCode = "200", description = "Ausführungsplan")
+    QueryPlan explain(@RequestParam final Map<String, String> suchkriterien) {
+        log.debug("explain: suchkriterien={}", suchkriterien);
+        final var kriterien = new HashMap<>(suchkriterien);
+        kriterien.keySet().removeAll(PAGINATION_PARAMS);
+        final var plan = service.explain(kriterien);
+        log.debug("explain: {}", plan);
+        return plan;
+    }
+
+    /**
+     * Abfrage, welche Nachnamen es zu einem Präfix gibt, z.B. für die Autovervollständigung.
      *
      * @param prefix Nachname-Präfix als Pfadvariable.
-     * @return Die passenden Nachnamen oder Statuscode 404, falls es keine gibt.
+     * @param limit Optionale maximale Anzahl der Nachnamen als Query-Parameter. Ohne Angabe oder mit einem Wert
+     *              kleiner 1 werden alle passenden Nachnamen geliefert.
+     * @return Die passenden Nachnamen als JSON-Array absteigend nach Häufigkeit oder Statuscode 404, falls es keine
+     *      gibt.
      */
     @GetMapping(path = NACHNAME_PATH + "/{prefix}", produces = APPLICATION_JSON_VALUE)
-    String findNachnamenByPrefix(@PathVariable final String prefix) {
-        log.debug("findNachnamenByPrefix: {}", prefix);
-        final var nachnamen = service.findNachnamenByPrefix(prefix);
+    @Operation(summary = "Nachnamen zu einem Präfix", tags = "Suchen")
+    @ApiResponse(responseCode = "200", description = "Nachnamen gefunden")
+    @ApiResponse(responseCode = "404", description = "Keine Nachnamen gefunden")
+    Collection<String> findNachnamenByPrefix(
+        @PathVariable final String prefix,
+        @RequestParam(required = false) final Integer limit
+    ) {
+        log.debug("findNachnamenByPrefix: prefix={}, limit={}", prefix, limit);
+        final var maxAnzahl = limit == null || limit < 1 ? Integer.MAX_VALUE : limit;
+        final var nachnamen = service.findNachnamenByPrefix(prefix, maxAnzahl);
         log.debug("findNachnamenByPrefix: {}", nachnamen);
-        return nachnamen.toString();
+        return nachnamen;
+    }
+
+    private static String seitenUri(
+        final String baseUri,
+        final Map<String, String> suchkriterien,
+        final int size,
+        final String cursorParam,
+        final UUID cursor
+    ) {
+        final var builder = UriComponentsBuilder.fromUriString(baseUri);
+        suchkriterien.forEach(builder::queryParam);
+        return builder.queryParam("size", size)
+            .queryParam(cursorParam, cursor)
+            .encode()
+            .toUriString();
     }
 }
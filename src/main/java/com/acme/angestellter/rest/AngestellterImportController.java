@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.rest;
+
+import com.acme.angestellter.service.AngestellterImportService;
+import com.acme.angestellter.service.ImportStartedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import static com.acme.angestellter.rest.AngestellterGetController.ID_PATTERN;
+import static com.acme.angestellter.rest.AngestellterGetController.REST_PATH;
+import static java.util.Spliterator.ORDERED;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
+import static org.springframework.http.HttpStatus.CONFLICT;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+import static org.springframework.http.ResponseEntity.created;
+
+/**
+ * REST-Schnittstelle für den Import sehr vieler Angestellter im Format NDJSON, d.h. ein Angestellter im JSON-Format je
+ * Zeile. Der Request-Body wird mit dem Streaming-Parser von Jackson gelesen, während die bereits gelesenen Angestellten
+ * gespeichert werden, und muss deshalb nicht vollständig in den Hauptspeicher passen. Ein Import wird zuerst mit
+ * <code>POST</code> angelegt, damit sein Status schon während des Übertragens der Datensätze abgefragt werden kann.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@RestController
+@RequestMapping(REST_PATH + AngestellterImportController.IMPORT_PATH)
+@Tag(name = "Angestellter API")
+@RequiredArgsConstructor
+@Slf4j
+class AngestellterImportController {
+    /**
+     * Pfad für den Import relativ zu REST_PATH.
+     */
+    static final String IMPORT_PATH = "/import";
+
+    private static final int PUFFER_GROESSE = 64 * 1024;
+
+    private static final String PROBLEM_PATH = "/problem/"; //NOSONAR
+
+    private final AngestellterImportService service;
+
+    private final ObjectMapper objectMapper;
+
+    private final UriHelper uriHelper;
+
+    /**
+     * Einen Import anlegen, dessen Status unter der URI im Header <code>Location</code> sofort abgefragt werden kann.
+     * Die Datensätze werden anschließend mit <code>PUT</code> an diese URI übertragen.
+     *
+     * @param request Das Request-Objekt, um `Location` im Response-Header zu erstellen.
+     * @return Response mit Statuscode 201, dem Status des Imports und dessen URI im Header <code>Location</code>
+     */
+    @PostMapping(produces = APPLICATION_JSON_VALUE)
+    @Operation(summary = "Einen Import anlegen", tags = "Neuanlegen")
+    @ApiResponse(responseCode = "201", description = "Import angelegt")
+    ResponseEntity<ImportStatusModel> anlegen(final HttpServletRequest request) {
+        final var status = service.anlegen();
+        log.debug("anlegen: id={}", status.getId());
+        final var location = URI.create(uriHelper.getBaseUri(request) + IMPORT_PATH + '/' + status.getId());
+        return created(location).body(ImportStatusModel.of(status));
+    }
+
+    /**
+     * Angestellte aus dem Request-Body im Format NDJSON in einen angelegten Import übernehmen. Der Request-Body kann
+     * auch mit gzip komprimiert sein. Der Response wird erst nach dem Import gesendet. Währenddessen kann der
+     * Fortschritt mit <code>GET</code> unter derselben URI abgefragt werden.
+     *
+     * @param id Die ID des angelegten Imports.
+     * @param body Der Request-Body als InputStream.
+     * @param contentEncoding Der Header <code>Content-Encoding</code>, z.B. gzip.
+     * @return Response mit Statuscode 200 und dem Status des beendeten Imports oder Statuscode 404, falls es den
+     *      Import nicht gibt, oder Statuscode 409, falls der Import bereits gestartet wurde
+     * @throws IOException falls der Request-Body nicht gelesen werden kann
+     */
+    @PutMapping(
+        path = "{id:" + ID_PATTERN + "}",
+        consumes = APPLICATION_NDJSON_VALUE,
+        produces = APPLICATION_JSON_VALUE
+    )
+    @Operation(summary = "Angestellte im Format NDJSON importieren", tags = "Neuanlegen")
+    @ApiResponse(responseCode = "200", description = "Import beendet")
+    @ApiResponse(responseCode = "404", description = "Import nicht vorhanden")
+    @ApiResponse(responseCode = "409", description = "Import bereits gestartet")
+    ResponseEntity<ImportStatusModel> importieren(
+        @PathVariable final UUID id,
+        final InputStream body,
+        @RequestHeader(value = CONTENT_ENCODING, required = false) final String contentEncoding
+    ) throws IOException {
+        log.debug("importieren: id={}, contentEncoding={}", id, contentEncoding);
+        final var eingabe = "gzip".equalsIgnoreCase(contentEncoding)
+            ? new GZIPInputStream(body, PUFFER_GROESSE)
+            : body;
+        try (var parser = objectMapper.createParser(eingabe);
+             var dtos = objectMapper.readerFor(AngestellterDTO.class).<AngestellterDTO>readValues(parser)) {
+            final var angestellte = StreamSupport.stream(Spliterators.spliteratorUnknownSize(dtos, ORDERED), false)
+                .map(AngestellterDTO::toAngestellter);
+            return ResponseEntity.of(service.importieren(id, angestellte).map(ImportStatusModel::of));
+        }
+    }
+
+    /**
+     * Den Fortschritt aller laufenden und der zuletzt beendeten Importe ermitteln.
+     *
+     * @return Der Status der Importe sortiert nach dem Beginn
+     */
+    @GetMapping(produces = APPLICATION_JSON_VALUE)
+    @Operation(summary = "Fortschritt der Importe", tags = "Suchen")
+    @ApiResponse(responseCode = "200", description = "Status der Importe")
+    Collection<ImportStatusModel> findAll() {
+        return service.findAll()
+            .stream()
+            .map(ImportStatusModel::of)
+            .toList();
+    }
+
+    /**
+     * Den Fortschritt eines Imports anhand seiner ID ermitteln.
+     *
+     * @param id Die ID des Imports.
+     * @return Response mit Statuscode 200 und dem Status des Imports oder Statuscode 404
+     */
+    @GetMapping(path = "{id:" + ID_PATTERN + "}", produces = APPLICATION_JSON_VALUE)
+    @Operation(summary = "Fortschritt eines Imports", tags = "Suchen")
+    @ApiResponse(responseCode = "200", description = "Status des Imports")
+    @ApiResponse(responseCode = "404", description = "Import nicht vorhanden")
+    ResponseEntity<ImportStatusModel> findById(@PathVariable final UUID id) {
+        log.debug("findById: id={}", id);
+        return ResponseEntity.of(service.findById(id).map(ImportStatusModel::of));
+    }
+
+    @ExceptionHandler
+    @SuppressWarnings("unused")
+    ResponseEntity<ProblemDetail> onImportStarted(final ImportStartedException ex, final HttpServletRequest request) {
+        log.debug("onImportStarted: {}", ex.getMessage());
+        final var problemDetail = ProblemDetail.forStatusAndDetail(CONFLICT, ex.getMessage());
+        problemDetail.setType(URI.create(PROBLEM_PATH + ProblemType.CONFLICT.getValue()));
+        problemDetail.setInstance(uriHelper.getBaseUri(request));
+        return ResponseEntity.of(problemDetail).build();
+    }
+}
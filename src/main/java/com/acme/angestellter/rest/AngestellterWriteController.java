@@ -23,14 +23,22 @@ import com.acme.angestellter.service.ConstraintViolationsException;
 import com.acme.angestellter.service.EmailExistsException;
 import com.acme.angestellter.service.AngestellterReadService;
 import com.acme.angestellter.service.AngestellterWriteService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.IntStream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ProblemDetail;
@@ -52,6 +60,7 @@ import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NO_CONTENT;
 import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 import static org.springframework.http.ResponseEntity.created;
 
 /**
@@ -75,6 +84,8 @@ class AngestellterWriteController {
     private final AngestellterPatcher patcher;
 
     private final UriHelper uriHelper;
+
+    private final ObjectMapper objectMapper;
     /**
      * Einen neuen Angestellter-Datensatz anlegen.
      *
@@ -103,6 +114,49 @@ class AngestellterWriteController {
         return created(location).build();
     }
 
+    /**
+     * Mehrere neue Angestellter-Datensätze mit einem Request anlegen, z.B. beim Import.
+     *
+     * @param angestellteDTO Die Angestelltenobjekte aus dem JSON-Array im Request-Body, ggf. mit null-Elementen.
+     * @return Das Ergebnis je Angestellter in derselben Reihenfolge mit Statuscode 201 oder 422 wie bei einem
+     *      einzelnen POST bzw. 422 für ein null-Element
+     */
+    @PostMapping(path = "/batch", consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
+    @Operation(summary = "Mehrere neue Angestellte anlegen", tags = "Neuanlegen")
+    @ApiResponse(responseCode = "200", description = "Ergebnis je Angestellter")
+    @ApiResponse(responseCode = "400", description = "Syntaktische Fehler im Request-Body")
+    List<BatchErgebnisModel> createBatch(@RequestBody final List<AngestellterDTO> angestellteDTO) {
+        log.debug("createBatch: #angestellte={}", angestellteDTO.size());
+        return createBatchIntern(angestellteDTO);
+    }
+
+    /**
+     * Mehrere neue Angestellter-Datensätze mit einem Request anlegen, wobei der Request-Body je Zeile einen
+     * Angestellten im JSON-Format enthält (NDJSON). Eine Zeile mit null wird wie ein null-Element in einem JSON-Array
+     * behandelt.
+     *
+     * @param body Der Request-Body als InputStream.
+     * @return Das Ergebnis je Angestellter in derselben Reihenfolge mit Statuscode 201 oder 422 wie bei einem
+     *      einzelnen POST bzw. 422 für eine Zeile mit null
+     * @throws IOException falls der Request-Body nicht gelesen werden kann oder kein gültiges JSON enthält
+     */
+    @PostMapping(path = "/batch", consumes = APPLICATION_NDJSON_VALUE, produces = APPLICATION_JSON_VALUE)
+    @Operation(summary = "Mehrere neue Angestellte im Format NDJSON anlegen", tags = "Neuanlegen")
+    @ApiResponse(responseCode = "200", description = "Ergebnis je Angestellter")
+    @ApiResponse(responseCode = "400", description = "Syntaktische Fehler im Request-Body")
+    List<BatchErgebnisModel> createBatchNdjson(final InputStream body) throws IOException {
+        final var angestellteDTO = new ArrayList<AngestellterDTO>();
+        // zeilenweise als JsonNode, weil der Deserializer fuer AngestellterDTO bei null eine Exception wirft
+        try (var iterator = objectMapper.readerFor(JsonNode.class).<JsonNode>readValues(body)) {
+            while (iterator.hasNextValue()) {
+                final var zeile = iterator.nextValue();
+                angestellteDTO.add(zeile.isNull() ? null : objectMapper.treeToValue(zeile, AngestellterDTO.class));
+            }
+        }
+        log.debug("createBatchNdjson: #angestellte={}", angestellteDTO.size());
+        return createBatchIntern(angestellteDTO);
+    }
+
     /**
      * Einen vorhandenen Angestellter-Datensatz überschreiben.
      *
@@ -214,6 +268,20 @@ class AngestellterWriteController {
         return ResponseEntity.of(problemDetail).build();
     }
 
+    @ExceptionHandler
+    @SuppressWarnings("unused")
+    ResponseEntity<ProblemDetail> onJsonProcessing(
+        final JsonProcessingException ex,
+        final HttpServletRequest request
+    ) {
+        log.debug("onJsonProcessing: {}", ex.getMessage());
+        final var problemDetail = ProblemDetail.forStatusAndDetail(BAD_REQUEST, ex.getOriginalMessage());
+        problemDetail.setType(URI.create(PROBLEM_PATH + ProblemType.BAD_REQUEST.getValue()));
+        final var uri = uriHelper.getBaseUri(request);
+        problemDetail.setInstance(uri);
+        return ResponseEntity.of(problemDetail).build();
+    }
+
     @ExceptionHandler
     @SuppressWarnings("unused")
     ResponseEntity<ProblemDetail> onInvalidPatchOperation(
@@ -227,4 +295,14 @@ class AngestellterWriteController {
         problemDetail.setInstance(uri);
         return ResponseEntity.of(problemDetail).build();
     }
+
+    private List<BatchErgebnisModel> createBatchIntern(final List<AngestellterDTO> angestellteDTO) {
+        final var angestellte = angestellteDTO.stream()
+            .map(angestellterDTO -> angestellterDTO == null ? null : angestellterDTO.toAngestellter())
+            .toList();
+        final var ergebnisse = service.createAll(angestellte);
+        return IntStream.range(0, ergebnisse.size())
+            .mapToObj(i -> BatchErgebnisModel.of(i, ergebnisse.get(i)))
+            .toList();
+    }
 }
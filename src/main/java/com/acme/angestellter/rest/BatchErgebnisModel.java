@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.rest;
+
+import com.acme.angestellter.service.BatchErgebnis;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.UUID;
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+import static java.util.stream.Collectors.joining;
+import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
+
+/**
+ * Ergebnis für einen einzelnen Angestellten im Response-Body von <code>POST /rest/batch</code>.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ * @param index Die Position des Angestellten im Request-Body ab 0.
+ * @param status Der Statuscode wie bei einem einzelnen POST, d.h. 201 oder 422.
+ * @param id Die ID des neu angelegten Angestellten.
+ * @param detail Die Fehlerursache, falls der Angestellte nicht angelegt wurde.
+ */
+@JsonInclude(NON_NULL)
+record BatchErgebnisModel(int index, int status, UUID id, String detail) {
+    /**
+     * Konvertierung aus dem Ergebnis des Anwendungskerns.
+     *
+     * @param index Die Position des Angestellten im Request-Body
+     * @param ergebnis Das Ergebnis des Anwendungskerns
+     * @return Das Ergebnis für den Response-Body
+     */
+    static BatchErgebnisModel of(final int index, final BatchErgebnis ergebnis) {
+        return switch (ergebnis) {
+            case BatchErgebnis.Angelegt angelegt ->
+                new BatchErgebnisModel(index, CREATED.value(), angelegt.angestellter().getId(), null);
+            case BatchErgebnis.ConstraintsVerletzt verletzt -> {
+                final var detail = verletzt.violations()
+                    .stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .collect(joining(", "));
+                yield new BatchErgebnisModel(index, UNPROCESSABLE_ENTITY.value(), null, detail);
+            }
+            case BatchErgebnis.EmailExistiert email -> new BatchErgebnisModel(
+                index,
+                UNPROCESSABLE_ENTITY.value(),
+                null,
+                "Die Emailadresse " + email.email() + " existiert bereits"
+            );
+            case BatchErgebnis.KeinAngestellter kein ->
+                new BatchErgebnisModel(index, UNPROCESSABLE_ENTITY.value(), null, "Kein Angestellter vorhanden");
+        };
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.rest;
+
+import com.acme.angestellter.service.ImportStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+/**
+ * Fortschritt eines Imports für den Response-Body.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ * @param id Die ID des Imports.
+ * @param zustand Der Zustand, d.h. ANGELEGT, LAEUFT, ABGESCHLOSSEN oder ABGEBROCHEN.
+ * @param beginn Der Zeitpunkt, zu dem der Import angelegt wurde.
+ * @param ende Der Zeitpunkt, zu dem der Import beendet wurde.
+ * @param gelesen Die Anzahl der bisher gelesenen Datensätze.
+ * @param angelegt Die Anzahl der bisher neu angelegten Angestellten.
+ * @param ungueltig Die Anzahl der Datensätze mit verletzten Constraints.
+ * @param vorhanden Die Anzahl der Datensätze mit bereits vorhandener Emailadresse.
+ * @param detail Die Ursache, falls der Import abgebrochen wurde.
+ * @param fehler Die ersten Fehlermeldungen mit der Nummer des Datensatzes.
+ */
+@JsonInclude(NON_NULL)
+@SuppressWarnings("RecordComponentNumber")
+record ImportStatusModel(
+    UUID id,
+    ImportStatus.Zustand zustand,
+    Instant beginn,
+    Instant ende,
+    long gelesen,
+    long angelegt,
+    long ungueltig,
+    long vorhanden,
+    String detail,
+    List<String> fehler
+) {
+    /**
+     * Konvertierung aus dem Status des Anwendungskerns.
+     *
+     * @param status Der Status des Imports
+     * @return Der Status für den Response-Body
+     */
+    static ImportStatusModel of(final ImportStatus status) {
+        return new ImportStatusModel(
+            status.getId(),
+            status.getZustand(),
+            status.getBeginn(),
+            status.getEnde(),
+            status.getGelesen(),
+            status.getAngelegt(),
+            status.getUngueltig(),
+            status.getVorhanden(),
+            status.getDetail(),
+            status.getFehler()
+        );
+    }
+}
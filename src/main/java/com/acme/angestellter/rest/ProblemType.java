@@ -37,6 +37,11 @@ enum ProblemType {
      */
     PRECONDITION("precondition"),
 
+    /**
+     * Konflikt mit dem aktuellen Zustand, z.B. bei einem bereits gestarteten Import.
+     */
+    CONFLICT("conflict"),
+
     /**
      * Fehler bei z.B. einer Patch-Operation.
      */
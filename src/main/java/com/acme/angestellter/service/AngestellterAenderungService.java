@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.service;
+
+import com.acme.angestellter.repository.Aenderung;
+import com.acme.angestellter.repository.AenderungsPuffer;
+import com.acme.angestellter.repository.AngestellterRepository;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+/**
+ * Anwendungslogik für die fortlaufenden Änderungen an den Angestellten (Change Data Capture). Die Änderungen gibt es
+ * nur mit dem Repository im Hauptspeicher und nicht mit dem Profil "jdbc".
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@Service
+@Slf4j
+public final class AngestellterAenderungService {
+    private final AenderungsPuffer aenderungen;
+
+    /**
+     * Konstruktor mit dem Repository im Hauptspeicher, falls es vorhanden ist.
+     *
+     * @param repo Das Repository im Hauptspeicher oder keines beim Profil "jdbc"
+     */
+    public AngestellterAenderungService(final ObjectProvider<AngestellterRepository> repo) {
+        final var repository = repo.getIfAvailable();
+        aenderungen = repository == null ? null : repository.getAenderungen();
+        log.debug("AngestellterAenderungService: verfuegbar={}", aenderungen != null);
+    }
+
+    /**
+     * Abfrage, ob das Repository die Änderungen bereitstellt.
+     *
+     * @return true, falls es Änderungen gibt
+     */
+    public boolean isVerfuegbar() {
+        return aenderungen != null;
+    }
+
+    /**
+     * Die Sequenznummer der zuletzt festgeschriebenen Änderung.
+     *
+     * @return Die Sequenznummer oder 0
+     */
+    public long getSequenz() {
+        return aenderungen == null ? 0L : aenderungen.getSequenz();
+    }
+
+    /**
+     * Die Änderungen nach einer Sequenznummer ermitteln.
+     *
+     * @param sequenz Die Sequenznummer der zuletzt gelesenen Änderung
+     * @param max Maximale Anzahl der Änderungen
+     * @return Die Änderungen in aufsteigender Reihenfolge oder ein leeres Optional, falls sie nicht mehr vorhanden sind
+     */
+    public Optional<List<Aenderung>> findNach(final long sequenz, final int max) {
+        return aenderungen == null ? Optional.of(List.of()) : aenderungen.lesen(sequenz, max);
+    }
+
+    /**
+     * Warten, bis es eine Änderung nach einer Sequenznummer gibt.
+     *
+     * @param sequenz Die Sequenznummer der zuletzt gelesenen Änderung
+     * @param timeout Maximale Wartezeit
+     * @return true, falls es eine neuere Änderung gibt
+     * @throws InterruptedException Falls das Warten unterbrochen wurde
+     */
+    public boolean warten(final long sequenz, final Duration timeout) throws InterruptedException {
+        if (aenderungen == null) {
+            Thread.sleep(timeout);
+            return false;
+        }
+        return aenderungen.warten(sequenz, timeout);
+    }
+}
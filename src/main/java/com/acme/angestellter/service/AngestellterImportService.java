@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.service;
+
+import com.acme.angestellter.entity.Angestellter;
+import com.acme.angestellter.repository.AngestellterPersistenz;
+import com.acme.angestellter.repository.WriteBehind;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Anwendungslogik für den Import sehr vieler Angestellter, die als Stream gelesen werden, z.B. direkt aus dem
+ * Request-Body. Die Datensätze durchlaufen eine Pipeline aus Virtual Threads:
+ * <ol>
+ *     <li>Lesen im aufrufenden Thread,</li>
+ *     <li>Bean Validation und Prüfung auf eine vorhandene Emailadresse in mehreren Threads parallel,</li>
+ *     <li>Speichern in Blöcken mit einem Group Commit je Block.</li>
+ * </ol>
+ * Die Stufen sind durch beschränkte Warteschlangen verbunden. Ist eine Warteschlange voll, wartet die vorherige Stufe
+ * und zuletzt das Lesen, so dass höchstens {@link #PUFFER} Datensätze je Stufe im Hauptspeicher gehalten werden.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public final class AngestellterImportService {
+    /**
+     * Maximale Anzahl Datensätze in einer Warteschlange zwischen zwei Stufen.
+     */
+    static final int PUFFER = 4096;
+
+    /**
+     * Maximale Anzahl Datensätze, die gemeinsam gespeichert werden.
+     */
+    static final int BLOCK = 1024;
+
+    private static final int MAX_IMPORTE = 100;
+
+    private static final Eintrag ENDE = new Eintrag(-1L, null);
+
+    private final AngestellterPersistenz repo;
+
+    private final WriteBehind writeBehind;
+
+    private final Validator validator;
+
+    private final Map<UUID, ImportStatus> importe = new ConcurrentHashMap<>();
+
+    /**
+     * Einen Import anlegen, dessen Status schon vor dem Übertragen der Datensätze mit {@link #findById(UUID)}
+     * abgefragt werden kann.
+     *
+     * @return Der Status des angelegten Imports
+     */
+    public ImportStatus anlegen() {
+        final var status = new ImportStatus(UUID.randomUUID());
+        registrieren(status);
+        log.debug("anlegen: id={}", status.getId());
+        return status;
+    }
+
+    /**
+     * Angestellte aus einem Stream in einen angelegten Import übernehmen. Der Stream wird erst während des Imports
+     * gelesen und der Aufruf kehrt erst zurück, wenn alle Datensätze verarbeitet sind. Der Fortschritt kann
+     * währenddessen mit {@link #findById(UUID)} bzw. {@link #findAll()} abgefragt werden.
+     *
+     * @param id Die ID des mit {@link #anlegen()} angelegten Imports
+     * @param angestellte Die Angestellten, die z.B. beim Lesen aus dem Request-Body konvertiert werden
+     * @return Der Status des beendeten Imports oder ein leeres Optional, falls es keinen Import mit der ID gibt
+     * @throws ImportStartedException falls der Import bereits gestartet wurde
+     */
+    public Optional<ImportStatus> importieren(final UUID id, final Stream<Angestellter> angestellte) {
+        final var status = importe.get(id);
+        if (status == null) {
+            return Optional.empty();
+        }
+        if (!status.starten()) {
+            throw new ImportStartedException(id);
+        }
+        log.info("importieren: id={}", id);
+
+        final var zuPruefen = new ArrayBlockingQueue<Eintrag>(PUFFER);
+        final var zuSpeichern = new ArrayBlockingQueue<Eintrag>(PUFFER);
+        final var pruefer = IntStream.range(0, Runtime.getRuntime().availableProcessors())
+            .mapToObj(i -> Thread.ofVirtual()
+                .name("import-pruefen-" + i)
+                .start(() -> pruefen(zuPruefen, zuSpeichern, status)))
+            .toList();
+        final var speicherer = Thread.ofVirtual().name("import-speichern").start(() -> speichern(zuSpeichern, status));
+
+        try {
+            lesen(angestellte, zuPruefen, status);
+        } catch (final RuntimeException ex) {
+            // z.B. ein syntaktischer Fehler im Request-Body: die bisher gelesenen Datensaetze werden noch verarbeitet
+            log.warn("importieren: id={}, gelesen={}", status.getId(), status.getGelesen(), ex);
+            status.abbrechen("Datensatz " + (status.getGelesen() + 1) + ": " + ex.getMessage());
+        } finally {
+            try {
+                for (final var ignored : pruefer) {
+                    zuPruefen.put(ENDE);
+                }
+                for (final var thread : pruefer) {
+                    thread.join();
+                }
+                zuSpeichern.put(ENDE);
+                speicherer.join();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                pruefer.forEach(Thread::interrupt);
+                speicherer.interrupt();
+                status.abbrechen("Import unterbrochen");
+            }
+        }
+
+        if (status.getZustand() == ImportStatus.Zustand.LAEUFT) {
+            status.beenden();
+        }
+        log.info("importieren: id={}, zustand={}, gelesen={}, angelegt={}", status.getId(), status.getZustand(),
+            status.getGelesen(), status.getAngelegt());
+        return Optional.of(status);
+    }
+
+    /**
+     * Den Status eines laufenden oder beendeten Imports ermitteln.
+     *
+     * @param id Die ID des Imports
+     * @return Der Status oder ein leeres Optional
+     */
+    public Optional<ImportStatus> findById(final UUID id) {
+        return Optional.ofNullable(importe.get(id));
+    }
+
+    /**
+     * Den Status aller laufenden und der zuletzt beendeten Importe ermitteln.
+     *
+     * @return Die Status sortiert nach dem Beginn
+     */
+    public Collection<ImportStatus> findAll() {
+        return importe.values()
+            .stream()
+            .sorted(Comparator.comparing(ImportStatus::getBeginn))
+            .toList();
+    }
+
+    // nur die letzten beendeten bzw. noch nicht gestarteten Importe aufbewahren
+    private void registrieren(final ImportStatus status) {
+        importe.put(status.getId(), status);
+        final var ueberzaehlig = importe.size() - MAX_IMPORTE;
+        if (ueberzaehlig > 0) {
+            importe.values()
+                .stream()
+                .filter(s -> s.getZustand() != ImportStatus.Zustand.LAEUFT)
+                .sorted(Comparator.comparing(ImportStatus::getBeginn))
+                .limit(ueberzaehlig)
+                .forEach(s -> importe.remove(s.getId()));
+        }
+    }
+
+    private void lesen(
+        final Stream<Angestellter> angestellte,
+        final BlockingQueue<Eintrag> zuPruefen,
+        final ImportStatus status
+    ) {
+        final var iterator = angestellte.iterator();
+        var nr = 0L;
+        // nach einem Fehler beim Speichern nicht weiterlesen
+        while (status.getZustand() == ImportStatus.Zustand.LAEUFT && iterator.hasNext()) {
+            final var angestellter = iterator.next();
+            nr++;
+            status.gelesen();
+            try {
+                zuPruefen.put(new Eintrag(nr, angestellter));
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Import unterbrochen", ex);
+            }
+        }
+    }
+
+    private void pruefen(
+        final BlockingQueue<Eintrag> zuPruefen,
+        final BlockingQueue<Eintrag> zuSpeichern,
+        final ImportStatus status
+    ) {
+        try {
+            while (true) {
+                final var eintrag = zuPruefen.take();
+                if (eintrag == ENDE) {
+                    return;
+                }
+                if (pruefen(eintrag, status)) {
+                    zuSpeichern.put(eintrag);
+                }
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean pruefen(final Eintrag eintrag, final ImportStatus status) {
+        final var angestellter = eintrag.angestellter();
+        final Collection<ConstraintViolation<Angestellter>> violations;
+        try {
+            violations = validator.validate(angestellter);
+        } catch (final RuntimeException ex) {
+            status.ungueltig(eintrag.nr(), ex.getMessage());
+            return false;
+        }
+        if (!violations.isEmpty()) {
+            status.ungueltig(eintrag.nr(), meldung(violations));
+            return false;
+        }
+        // vorhandene Emailadressen ohne Schreibsperre aussortieren, z.B. bei einem erneuten Import
+        if (repo.isEmailExisting(angestellter.getEmail())) {
+            status.vorhanden(eintrag.nr(), angestellter.getEmail());
+            return false;
+        }
+        return true;
+    }
+
+    // Emailadressen, die im Import mehrfach vorkommen, werden atomar im Repository erkannt
+    private void speichern(final BlockingQueue<Eintrag> zuSpeichern, final ImportStatus status) {
+        final var block = new ArrayList<Eintrag>(BLOCK);
+        var fehlgeschlagen = false;
+        try {
+            var ende = false;
+            while (!ende) {
+                block.add(zuSpeichern.take());
+                zuSpeichern.drainTo(block, BLOCK - 1);
+                ende = block.get(block.size() - 1) == ENDE;
+                if (ende) {
+                    block.remove(block.size() - 1);
+                }
+                // nach einem Fehler die Warteschlange weiter leeren, damit die vorherigen Stufen nicht blockieren
+                if (!fehlgeschlagen) {
+                    try {
+                        speichern(block, status);
+                    } catch (final RuntimeException ex) {
+                        log.error("speichern: id={}", status.getId(), ex);
+                        status.abbrechen("Fehler beim Speichern: " + ex.getMessage());
+                        fehlgeschlagen = true;
+                    }
+                }
+                block.clear();
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void speichern(final List<Eintrag> block, final ImportStatus status) {
+        final var angelegt = writeBehind.createAllIfEmailAbsent(block.stream().map(Eintrag::angestellter).toList());
+        for (int i = 0; i < block.size(); i++) {
+            if (angelegt.get(i).isPresent()) {
+                status.angelegt();
+            } else {
+                status.vorhanden(block.get(i).nr(), block.get(i).angestellter().getEmail());
+            }
+        }
+    }
+
+    private static String meldung(final Collection<ConstraintViolation<Angestellter>> violations) {
+        return violations.stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .collect(joining(", "));
+    }
+
+    private record Eintrag(long nr, Angestellter angestellter) {
+    }
+}
@@ -16,15 +16,18 @@
  */
 package com.acme.angestellter.service;
 import com.acme.angestellter.entity.Angestellter;
-import com.acme.angestellter.repository.AngestellterRepository;
+import com.acme.angestellter.repository.AngestellterPersistenz;
+import com.acme.angestellter.repository.QueryPlan;
+import com.acme.angestellter.repository.Seite;
+import com.acme.angestellter.repository.WriteBehind;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import java.util.Collection;
-import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Anwendungslogik für Angestellten.
@@ -37,10 +40,13 @@ import java.util.UUID;
 @RequiredArgsConstructor
 @Slf4j
 public final class AngestellterReadService {
-    private final AngestellterRepository repo;
+    private final AngestellterPersistenz repo;
+
+    private final WriteBehind writeBehind;
 
     /**
-     * Einen Angestellten anhand seiner ID suchen.
+     * Einen Angestellten anhand seiner ID zuerst unter den vorgemerkten Aktualisierungen und dann im Repository
+     * suchen.
      *
      * @param id Die Id des gesuchten Angestellten
      * @return Den gefundenen Angestellten
@@ -48,7 +54,8 @@ public final class AngestellterReadService {
      */
     public @NonNull Angestellter findById(final UUID id) {
         log.debug("findById: id={}", id);
-        final var angestellter = repo.findById(id)
+        final var angestellter = writeBehind.findById(id)
+            .or(() -> repo.findById(id))
             .orElseThrow(() -> new NotFoundException(id));
         log.debug("findById: {}", angestellter);
         return angestellter;
@@ -61,7 +68,6 @@ public final class AngestellterReadService {
      * @return Die gefundenen Angestellten oder eine leere Liste
      * @throws NotFoundException Falls keine Angestellten gefunden wurden
      */
-    @SuppressWarnings({"ReturnCount", "NestedIfDepth"})
     public @NonNull Collection<Angestellter> find(final Map<String, String> suchkriterien) {
         log.debug("find: suchkriterien={}", suchkriterien);
 
@@ -69,29 +75,6 @@ public final class AngestellterReadService {
             return repo.findAll();
         }
 
-        if (suchkriterien.size() == 1) {
-            final var nachname = suchkriterien.get("nachname");
-            if (nachname != null) {
-                final var angestellte = repo.findByNachname(nachname);
-                if (angestellte.isEmpty()) {
-                    throw new NotFoundException(suchkriterien);
-                }
-                log.debug("find (nachname): {}", angestellte);
-                return angestellte;
-            }
-
-            final var email = suchkriterien.get("email");
-            if (email != null) {
-                final var angestellter = repo.findByEmail(email);
-                if (angestellter.isEmpty()) {
-                    throw new NotFoundException(suchkriterien);
-                }
-                final var angestellte = List.of(angestellter.get());
-                log.debug("find (email): {}", angestellte);
-                return angestellte;
-            }
-        }
-
         final var angestellte = repo.find(suchkriterien);
         if (angestellte.isEmpty()) {
             throw new NotFoundException(suchkriterien);
@@ -100,15 +83,66 @@ public final class AngestellterReadService {
         return angestellte;
     }
 
+    /**
+     * Eine Seite mit Angestellten anhand von Suchkriterien suchen, wobei die Angestellten nach der ID sortiert sind.
+     *
+     * @param suchkriterien Die Suchkriterien
+     * @param after Cursor, d.h. ID des letzten Angestellten der vorherigen Seite, oder null
+     * @param before Cursor, d.h. ID des ersten Angestellten der nächsten Seite, oder null
+     * @param size Maximale Anzahl der Angestellten in der Seite
+     * @return Die Seite mit den gefundenen Angestellten
+     * @throws NotFoundException Falls es ohne Cursor keine Angestellten gibt
+     */
+    public @NonNull Seite<Angestellter> findSeite(
+        final Map<String, String> suchkriterien,
+        final UUID after,
+        final UUID before,
+        final int size
+    ) {
+        log.debug("findSeite: suchkriterien={}, after={}, before={}, size={}", suchkriterien, after, before, size);
+        final var seite = repo.findSeite(suchkriterien, after, before, size);
+        if (seite.isEmpty() && after == null && before == null) {
+            throw new NotFoundException(suchkriterien);
+        }
+        log.debug("findSeite: {}", seite);
+        return seite;
+    }
+
+    /**
+     * Angestellte anhand von Suchkriterien als Stream suchen, z.B. für einen Export aller Angestellten. Der Stream
+     * enthält den Stand beim Aufruf sortiert nach der ID und muss geschlossen werden.
+     *
+     * @param suchkriterien Die Suchkriterien
+     * @return Die gefundenen Angestellten, ggf. ein leerer Stream
+     */
+    public @NonNull Stream<Angestellter> findAsStream(final Map<String, String> suchkriterien) {
+        log.debug("findAsStream: suchkriterien={}", suchkriterien);
+        return repo.findAsStream(suchkriterien);
+    }
+
+    /**
+     * Den Ausführungsplan für eine Suche mit Suchkriterien ermitteln.
+     *
+     * @param suchkriterien Die Suchkriterien
+     * @return Der ausgeführte Plan mit Zugriffspfad, verwendeten Indexen und untersuchten Angestellten
+     */
+    public @NonNull QueryPlan explain(final Map<String, String> suchkriterien) {
+        log.debug("explain: suchkriterien={}", suchkriterien);
+        final var plan = repo.explain(suchkriterien);
+        log.debug("explain: {}", plan);
+        return plan;
+    }
+
     /**
      * Abfrage, welche Nachnamen es zu einem Präfix gibt.
      *
      * @param prefix Nachname-Präfix.
-     * @return Die passenden Nachnamen.
+     * @param limit Maximale Anzahl der Nachnamen.
+     * @return Die passenden Nachnamen absteigend nach Häufigkeit.
      * @throws NotFoundException Falls keine Nachnamen gefunden wurden.
      */
-    public Collection<String> findNachnamenByPrefix(final String prefix) {
-        final var nachnamen = repo.findNachnamenByPrefix(prefix);
+    public Collection<String> findNachnamenByPrefix(final String prefix, final int limit) {
+        final var nachnamen = repo.findNachnamenByPrefix(prefix, limit);
         if (nachnamen.isEmpty()) {
             throw new NotFoundException();
         }
@@ -17,13 +17,15 @@
 package com.acme.angestellter.service;
 
 import com.acme.angestellter.entity.Angestellter;
-import com.acme.angestellter.repository.AngestellterRepository;
+import com.acme.angestellter.repository.AngestellterPersistenz;
+import com.acme.angestellter.repository.WriteBehind;
 import jakarta.validation.Valid;
 import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -34,7 +36,9 @@ import java.util.UUID;
 @RequiredArgsConstructor
 @Slf4j
 public final class AngestellterWriteService {
-    private final AngestellterRepository repo;
+    private final AngestellterPersistenz repo;
+
+    private final WriteBehind writeBehind;
 
     private final Validator validator;
 
@@ -55,17 +59,57 @@ public final class AngestellterWriteService {
             throw new ConstraintViolationsException(violations);
         }
 
-        if (repo.isEmailExisting(angestellter.getEmail())) {
-            throw new EmailExistsException(angestellter.getEmail());
-        }
-
-        final var angestellterDB = repo.create(angestellter);
+        final var angestellterDB = writeBehind.createIfEmailAbsent(angestellter)
+            .orElseThrow(() -> new EmailExistsException(angestellter.getEmail()));
         log.debug("create: {}", angestellterDB);
         return angestellterDB;
     }
 
     /**
-     * Einen vorhandenen Angestellten aktualisieren.
+     * Mehrere neue Angestellte anlegen. Die Bean Validation erfolgt parallel, weil der Validator threadsicher ist. Die
+     * gültigen Angestellten werden danach gemeinsam im Repository angelegt.
+     *
+     * @param angestellte Die Objekte der neu anzulegenden Angestellten, wobei ein null-Element nur zu einem Fehler für
+     *      diesen Eintrag führt.
+     * @return Das Ergebnis für jeden Angestellten in derselben Reihenfolge
+     */
+    public List<BatchErgebnis> createAll(final List<Angestellter> angestellte) {
+        log.debug("createAll: #angestellte={}", angestellte.size());
+
+        // ohne Violations fuer ein null-Element
+        final var violations = angestellte.parallelStream()
+            .map(angestellter -> angestellter == null ? null : validator.validate(angestellter))
+            .toList();
+        final var gueltige = new ArrayList<Angestellter>(angestellte.size());
+        for (int i = 0; i < angestellte.size(); i++) {
+            if (angestellte.get(i) != null && violations.get(i).isEmpty()) {
+                gueltige.add(angestellte.get(i));
+            }
+        }
+
+        final var angelegt = writeBehind.createAllIfEmailAbsent(gueltige).iterator();
+        final var result = new ArrayList<BatchErgebnis>(angestellte.size());
+        for (int i = 0; i < angestellte.size(); i++) {
+            if (angestellte.get(i) == null) {
+                result.add(new BatchErgebnis.KeinAngestellter());
+                continue;
+            }
+            if (!violations.get(i).isEmpty()) {
+                result.add(new BatchErgebnis.ConstraintsVerletzt(violations.get(i)));
+                continue;
+            }
+            final var email = angestellte.get(i).getEmail();
+            result.add(angelegt.next()
+                .<BatchErgebnis>map(BatchErgebnis.Angelegt::new)
+                .orElseGet(() -> new BatchErgebnis.EmailExistiert(email)));
+        }
+        log.debug("createAll: #ergebnisse={}", result.size());
+        return result;
+    }
+
+    /**
+     * Einen vorhandenen Angestellten aktualisieren. Mit Write-Behind wird der Angestellte nur vorgemerkt und später im
+     * Hintergrund geschrieben.
      *
      * @param angestellter Das Objekt mit den neuen Daten (ohne ID)
      * @param id ID des zu aktualisierenden Angestellten
@@ -83,20 +127,19 @@ public final class AngestellterWriteService {
             throw new ConstraintViolationsException(violations);
         }
 
-        final var angestellterDbOptional = repo.findById(id);
-        if (angestellterDbOptional.isEmpty()) {
-            throw new NotFoundException(id);
-        }
+        writeBehind.findById(id)
+            .or(() -> repo.findById(id))
+            .orElseThrow(() -> new NotFoundException(id));
 
+        angestellter.setId(id);
         final var email = angestellter.getEmail();
-        final var angestellterDb = angestellterDbOptional.get();
-        if (!Objects.equals(email, angestellterDb.getEmail()) && repo.isEmailExisting(email)) {
+        final var aktualisiert = writeBehind.isAktiv()
+            ? writeBehind.einreihen(angestellter)
+            : repo.update(angestellter);
+        if (!aktualisiert) {
             log.debug("update: email {} existiert", email);
             throw new EmailExistsException(email);
         }
-
-        angestellter.setId(id);
-        repo.update(angestellter);
     }
 
     /**
@@ -106,6 +149,7 @@ public final class AngestellterWriteService {
      */
     public void deleteById(final UUID id) {
         log.debug("deleteById: id={}", id);
+        writeBehind.entfernen(id);
         repo.deleteById(id);
     }
 }
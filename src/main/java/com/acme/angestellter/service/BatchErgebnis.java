@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.service;
+
+import com.acme.angestellter.entity.Angestellter;
+import jakarta.validation.ConstraintViolation;
+import java.util.Collection;
+
+/**
+ * Ergebnis für einen einzelnen Angestellten beim Neuanlegen mehrerer Angestellter.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+public sealed interface BatchErgebnis {
+    /**
+     * Der Angestellte wurde neu angelegt.
+     *
+     * @param angestellter Der neu angelegte Angestellte mit generierter ID
+     */
+    record Angelegt(Angestellter angestellter) implements BatchErgebnis {
+    }
+
+    /**
+     * Der Angestellte wurde nicht angelegt, weil mindestens ein Constraint verletzt ist.
+     *
+     * @param violations Die verletzten Constraints
+     */
+    record ConstraintsVerletzt(Collection<ConstraintViolation<Angestellter>> violations) implements BatchErgebnis {
+    }
+
+    /**
+     * Der Angestellte wurde nicht angelegt, weil die Emailadresse bereits existiert oder in einem vorherigen Eintrag
+     * desselben Requests vorkommt.
+     *
+     * @param email Die Emailadresse
+     */
+    record EmailExistiert(String email) implements BatchErgebnis {
+    }
+
+    /**
+     * Es wurde nichts angelegt, weil der Eintrag keinen Angestellten enthält, z.B. null in einem JSON-Array.
+     */
+    record KeinAngestellter() implements BatchErgebnis {
+    }
+}
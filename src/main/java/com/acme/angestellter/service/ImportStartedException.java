@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.service;
+
+import java.util.UUID;
+import lombok.Getter;
+
+/**
+ * Exception, falls für einen Import bereits Datensätze übertragen wurden.
+ */
+@Getter
+public class ImportStartedException extends RuntimeException {
+    /**
+     * ID des bereits gestarteten Imports.
+     */
+    private final UUID id;
+
+    ImportStartedException(@SuppressWarnings("ParameterHidesMemberVariable") final UUID id) {
+        super("Der Import " + id + " wurde bereits gestartet");
+        this.id = id;
+    }
+}
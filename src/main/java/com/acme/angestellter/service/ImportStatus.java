@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fortschritt eines Imports, der während des Imports z.B. über <code>GET /rest/import/{id}</code> abgefragt werden
+ * kann. Die Zähler werden von den Threads der Pipeline aktualisiert und sind ohne Sperren lesbar.
+ *
+ * @author <a href="mailto:Juergen.Zimmermann@h-ka.de">Jürgen Zimmermann</a>
+ */
+public final class ImportStatus {
+    private static final int MAX_FEHLER = 100;
+
+    private final UUID id;
+
+    private final Instant beginn = Instant.now();
+
+    private final AtomicLong gelesen = new AtomicLong();
+
+    private final AtomicLong angelegt = new AtomicLong();
+
+    private final AtomicLong ungueltig = new AtomicLong();
+
+    private final AtomicLong vorhanden = new AtomicLong();
+
+    /**
+     * Die ersten Fehlermeldungen mit der Nummer des Datensatzes.
+     */
+    private final List<String> fehler = new ArrayList<>();
+
+    private volatile Zustand zustand = Zustand.ANGELEGT;
+
+    private volatile Instant ende;
+
+    private volatile String detail;
+
+    ImportStatus(final UUID id) {
+        this.id = id;
+    }
+
+    /**
+     * Die ID des Imports.
+     *
+     * @return Die ID
+     */
+    public UUID getId() {
+        return id;
+    }
+
+    /**
+     * Der Zeitpunkt, zu dem der Import angelegt wurde.
+     *
+     * @return Der Zeitpunkt
+     */
+    public Instant getBeginn() {
+        return beginn;
+    }
+
+    /**
+     * Der Zeitpunkt, zu dem der Import beendet wurde.
+     *
+     * @return Der Zeitpunkt oder null, solange der Import läuft
+     */
+    public Instant getEnde() {
+        return ende;
+    }
+
+    /**
+     * Der Zustand des Imports.
+     *
+     * @return Der Zustand
+     */
+    public Zustand getZustand() {
+        return zustand;
+    }
+
+    /**
+     * Die Ursache, falls der Import abgebrochen wurde.
+     *
+     * @return Die Ursache oder null
+     */
+    public String getDetail() {
+        return detail;
+    }
+
+    /**
+     * Die Anzahl der bisher gelesenen Datensätze.
+     *
+     * @return Die Anzahl
+     */
+    public long getGelesen() {
+        return gelesen.get();
+    }
+
+    /**
+     * Die Anzahl der bisher neu angelegten Angestellten.
+     *
+     * @return Die Anzahl
+     */
+    public long getAngelegt() {
+        return angelegt.get();
+    }
+
+    /**
+     * Die Anzahl der Datensätze mit verletzten Constraints.
+     *
+     * @return Die Anzahl
+     */
+    public long getUngueltig() {
+        return ungueltig.get();
+    }
+
+    /**
+     * Die Anzahl der Datensätze, deren Emailadresse bereits existiert.
+     *
+     * @return Die Anzahl
+     */
+    public long getVorhanden() {
+        return vorhanden.get();
+    }
+
+    /**
+     * Die ersten Fehlermeldungen als Kopie.
+     *
+     * @return Die Fehlermeldungen
+     */
+    public List<String> getFehler() {
+        synchronized (fehler) {
+            return List.copyOf(fehler);
+        }
+    }
+
+    // nur einmal, auch bei gleichzeitigen Requests fuer denselben Import
+    synchronized boolean starten() {
+        if (zustand != Zustand.ANGELEGT) {
+            return false;
+        }
+        zustand = Zustand.LAEUFT;
+        return true;
+    }
+
+    void gelesen() {
+        gelesen.incrementAndGet();
+    }
+
+    void angelegt() {
+        angelegt.incrementAndGet();
+    }
+
+    void ungueltig(final long nr, final String meldung) {
+        ungueltig.incrementAndGet();
+        fehler(nr, meldung);
+    }
+
+    void vorhanden(final long nr, final String email) {
+        vorhanden.incrementAndGet();
+        fehler(nr, "Die Emailadresse " + email + " existiert bereits");
+    }
+
+    void beenden() {
+        ende = Instant.now();
+        zustand = Zustand.ABGESCHLOSSEN;
+    }
+
+    void abbrechen(final String ursache) {
+        detail = ursache;
+        ende = Instant.now();
+        zustand = Zustand.ABGEBROCHEN;
+    }
+
+    private void fehler(final long nr, final String meldung) {
+        synchronized (fehler) {
+            if (fehler.size() < MAX_FEHLER) {
+                fehler.add("Datensatz " + nr + ": " + meldung);
+            }
+        }
+    }
+
+    /**
+     * Zustand eines Imports.
+     */
+    public enum Zustand {
+        /**
+         * Der Import ist angelegt und wartet auf die Datensätze.
+         */
+        ANGELEGT,
+
+        /**
+         * Der Request-Body wird noch gelesen bzw. die Datensätze werden noch verarbeitet.
+         */
+        LAEUFT,
+
+        /**
+         * Alle Datensätze wurden verarbeitet.
+         */
+        ABGESCHLOSSEN,
+
+        /**
+         * Der Import wurde z.B. wegen eines syntaktischen Fehlers im Request-Body abgebrochen. Die bis dahin gelesenen
+         * Datensätze wurden verarbeitet.
+         */
+        ABGEBROCHEN
+    }
+}
@@ -0,0 +1,41 @@
+-- Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+--
+-- This program is free software: you can redistribute it and/or modify
+-- it under the terms of the GNU General Public License as published by
+-- the Free Software Foundation, either version 3 of the License, or
+-- (at your option) any later version.
+--
+-- This program is distributed in the hope that it will be useful,
+-- but WITHOUT ANY WARRANTY; without even the implied warranty of
+-- MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+-- GNU General Public License for more details.
+--
+-- You should have received a copy of the GNU General Public License
+-- along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+-- Tabelle und Indexe fuer JdbcAngestellterRepository mit dem Profil "jdbc", die beim Start angelegt werden, falls
+-- sie noch nicht existieren. Die Syntax ist fuer PostgreSQL und fuer H2 im Modus "PostgreSQL" geeignet.
+-- Fuer die Suche nach einem Teil des Nachnamens kann in PostgreSQL zusaetzlich ein Trigram-Index angelegt werden:
+-- CREATE EXTENSION IF NOT EXISTS pg_trgm;
+-- CREATE INDEX angestellter_nachname_trgm_idx ON angestellter USING gin (nachname gin_trgm_ops);
+
+-- https://www.postgresql.org/docs/current/sql-createtable.html
+CREATE TABLE IF NOT EXISTS angestellter (
+    id               UUID PRIMARY KEY,
+    nachname         VARCHAR(255),
+    email            VARCHAR(255) NOT NULL UNIQUE,
+    has_newsletter   BOOLEAN NOT NULL DEFAULT FALSE,
+    geburtsdatum     DATE,
+    geschlecht       VARCHAR(1),
+    familienstand    VARCHAR(2),
+    plz              VARCHAR(255),
+    ort              VARCHAR(255),
+    -- fuer die Suche unabhaengig von Gross-/Kleinschreibung und Leerzeichen, siehe OrtIndex.normalisieren()
+    ort_normalisiert VARCHAR(255)
+);
+
+-- https://www.postgresql.org/docs/current/sql-createindex.html
+CREATE INDEX IF NOT EXISTS angestellter_nachname_idx ON angestellter (nachname);
+CREATE INDEX IF NOT EXISTS angestellter_plz_idx ON angestellter (plz);
+CREATE INDEX IF NOT EXISTS angestellter_ort_idx ON angestellter (ort_normalisiert);
+CREATE INDEX IF NOT EXISTS angestellter_geburtsdatum_idx ON angestellter (geburtsdatum);
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import java.util.UUID;
+import java.util.stream.LongStream;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+import static org.junit.jupiter.api.condition.JRE.JAVA_18;
+import static org.junit.jupiter.api.condition.JRE.JAVA_19;
+import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
+
+@Tag("unit")
+@Tag("repository_aenderungen")
+@DisplayName("Aenderungen im Repository testen")
+@Execution(CONCURRENT)
+@EnabledForJreRange(min = JAVA_18, max = JAVA_19)
+@ExtendWith(SoftAssertionsExtension.class)
+@SuppressWarnings("WriteTag")
+class AenderungsPufferTest {
+    private static final String EMAIL = "aenderung@acme.de";
+    private static final String NACHNAME_NEU = "Neu";
+    private static final int KAPAZITAET = 4;
+
+    @InjectSoftAssertions
+    private SoftAssertions softly;
+
+    @Test
+    @DisplayName("Neuanlegen, Aktualisieren und Loeschen mit fortlaufenden Sequenznummern")
+    void schreiboperationen() {
+        // given
+        final var repo = new AngestellterRepository();
+        final var aenderungen = repo.getAenderungen();
+        final var vorher = aenderungen.getSequenz();
+
+        // when
+        final var angestellter = repo.createIfEmailAbsent(Angestellter.builder().email(EMAIL).build()).orElseThrow();
+        final var geaendert = angestellter.kopie();
+        geaendert.setNachname(NACHNAME_NEU);
+        repo.update(geaendert);
+        repo.deleteById(angestellter.getId());
+        final var gelesen = aenderungen.lesen(vorher, Integer.MAX_VALUE);
+
+        // then
+        softly.assertThat(gelesen).hasValueSatisfying(liste -> {
+            softly.assertThat(liste)
+                .extracting(Aenderung::typ)
+                .containsExactly(Aenderung.Typ.CREATE, Aenderung.Typ.UPDATE, Aenderung.Typ.DELETE);
+            softly.assertThat(liste)
+                .extracting(Aenderung::sequenz)
+                .containsExactly(vorher + 1, vorher + 2, vorher + 3);
+            softly.assertThat(liste).extracting(Aenderung::id).containsOnly(angestellter.getId());
+        });
+        softly.assertThat(aenderungen.getSequenz()).isEqualTo(vorher + 3);
+    }
+
+    @Test
+    @DisplayName("Spaetere Aenderungen am Objekt veraendern die Aenderung nicht")
+    void unveraenderlich() {
+        // given
+        final var repo = new AngestellterRepository();
+        final var aenderungen = repo.getAenderungen();
+        final var vorher = aenderungen.getSequenz();
+        final var angestellter = repo.createIfEmailAbsent(Angestellter.builder().email(EMAIL).build()).orElseThrow();
+
+        // when
+        angestellter.setNachname(NACHNAME_NEU);
+        final var gelesen = aenderungen.lesen(vorher, 1).orElseThrow().get(0);
+        gelesen.angestellter().setEmail(NACHNAME_NEU);
+
+        // then
+        softly.assertThat(gelesen.angestellter().getNachname()).isNull();
+        softly.assertThat(gelesen.angestellter().getEmail()).isEqualTo(EMAIL);
+    }
+
+    @Test
+    @DisplayName("Ueberschriebene Aenderungen werden erkannt")
+    void ueberschrieben() {
+        // given
+        final var aenderungen = new AenderungsPuffer(KAPAZITAET);
+        final var anzahl = KAPAZITAET * 2L;
+        LongStream.rangeClosed(1L, anzahl)
+            .forEach(sequenz -> aenderungen.anfuegen(new Aenderung(sequenz, Aenderung.Typ.DELETE, UUID.randomUUID(),
+                null)));
+
+        // when
+        aenderungen.veroeffentlichen(anzahl);
+
+        // then
+        softly.assertThat(aenderungen.lesen(0L, KAPAZITAET)).isEmpty();
+        softly.assertThat(aenderungen.lesen(anzahl - KAPAZITAET, KAPAZITAET))
+            .hasValueSatisfying(liste -> softly.assertThat(liste).hasSize(KAPAZITAET));
+        softly.assertThat(aenderungen.lesen(anzahl, KAPAZITAET))
+            .hasValueSatisfying(liste -> softly.assertThat(liste).isEmpty());
+    }
+}
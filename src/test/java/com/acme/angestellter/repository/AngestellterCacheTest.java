@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+import org.springframework.util.unit.DataSize;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.condition.JRE.JAVA_18;
+import static org.junit.jupiter.api.condition.JRE.JAVA_19;
+import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
+
+@Tag("unit")
+@Tag("repository_cache")
+@DisplayName("Cache fuer die Angestellten testen")
+@Execution(CONCURRENT)
+@EnabledForJreRange(min = JAVA_18, max = JAVA_19)
+@ExtendWith(SoftAssertionsExtension.class)
+@SuppressWarnings("WriteTag")
+class AngestellterCacheTest {
+    private static final String NACHNAME = "Alpha";
+    private static final String NACHNAME_NEU = "Beta";
+
+    @InjectSoftAssertions
+    private SoftAssertions softly;
+
+    @Test
+    @DisplayName("Maximale Anzahl Eintraege einhalten")
+    void maxEintraege() {
+        // given
+        final var cache = new TinyLfuCache<Integer, Integer>(100, null, (key, wert, version, zeit) -> { });
+
+        // when
+        IntStream.range(0, 10_000).forEach(i -> cache.put(i, i, 1L, System.nanoTime(), () -> true));
+
+        // then
+        softly.assertThat(cache.size()).isLessThanOrEqualTo(100);
+        softly.assertThat(cache.verdraengt()).isGreaterThanOrEqualTo(10_000 - 100);
+    }
+
+    @Test
+    @DisplayName("Haeufig gelesene Eintraege werden nicht durch einmalige Zugriffe verdraengt")
+    void scanResistent() {
+        // given
+        final var cache = new TinyLfuCache<Integer, Integer>(100, null, (key, wert, version, zeit) -> { });
+        final Function<Integer, Integer> lesen = i -> {
+            final var wert = cache.get(i);
+            if (wert == null) {
+                cache.put(i, i, 1L, System.nanoTime(), () -> true);
+            }
+            return wert;
+        };
+        IntStream.range(0, 10).forEach(runde -> IntStream.range(0, 50).forEach(lesen::apply));
+
+        // when
+        IntStream.range(1000, 11_000).forEach(lesen::apply);
+
+        // then
+        final var treffer = IntStream.range(0, 50).filter(i -> cache.get(i) != null).count();
+        assertThat(treffer).isGreaterThanOrEqualTo(45);
+    }
+
+    @Test
+    @DisplayName("Kopie eines gecachten Angestellten aendern")
+    void kopie() {
+        // given
+        final var cache = new AngestellterCache(null);
+        final var id = UUID.randomUUID();
+        final Function<UUID, Optional<Angestellter>> laden = i -> Optional.of(angestellter(i, NACHNAME));
+        cache.findById(id, laden);
+
+        // when
+        cache.findById(id, laden).orElseThrow().setNachname(NACHNAME_NEU);
+
+        // then
+        assertThat(cache.findById(id, laden)).hasValueSatisfying(a -> assertThat(a.getNachname()).isEqualTo(NACHNAME));
+    }
+
+    @Test
+    @DisplayName("Ein Lesezugriff waehrend eines Schreibzugriffs wird nicht gecacht")
+    void veraltetNichtCachen() {
+        // given
+        final var cache = new AngestellterCache(null);
+        final var id = UUID.randomUUID();
+        final var aufrufe = new AtomicInteger();
+
+        // when
+        final var alt = cache.findById(id, i -> {
+            // Schreibzugriff nach dem Lesen des bisherigen Stands
+            cache.invalidieren(i);
+            return Optional.of(angestellter(i, NACHNAME));
+        });
+        final var neu = cache.findById(id, i -> {
+            aufrufe.incrementAndGet();
+            return Optional.of(angestellter(i, NACHNAME_NEU));
+        });
+
+        // then
+        softly.assertThat(alt).hasValueSatisfying(a -> assertThat(a.getNachname()).isEqualTo(NACHNAME));
+        softly.assertThat(neu).hasValueSatisfying(a -> assertThat(a.getNachname()).isEqualTo(NACHNAME_NEU));
+        softly.assertThat(aufrufe).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Verdraengte Angestellte aus der zweiten Ebene lesen")
+    void zweiteEbene() {
+        // given
+        final var properties = new CacheProperties(10, Duration.ofMinutes(1), 1000, DataSize.ofMegabytes(1));
+        final var cache = new AngestellterCache(properties);
+        final var ids = IntStream.range(0, 200).mapToObj(i -> UUID.randomUUID()).toList();
+        final var aufrufe = new AtomicInteger();
+        final Function<UUID, Optional<Angestellter>> laden = i -> {
+            aufrufe.incrementAndGet();
+            return Optional.of(angestellter(i, NACHNAME));
+        };
+        ids.forEach(id -> cache.findById(id, laden));
+
+        // when
+        ids.forEach(id -> cache.findById(id, laden));
+
+        // then
+        assertThat(aufrufe).hasValue(ids.size());
+        cache.close();
+    }
+
+    private Angestellter angestellter(final UUID id, final String nachname) {
+        return Angestellter.builder()
+            .id(id)
+            .nachname(nachname)
+            .email(nachname.toLowerCase() + "@acme.de")
+            .build();
+    }
+}
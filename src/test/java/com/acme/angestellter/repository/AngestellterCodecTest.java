@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Adresse;
+import com.acme.angestellter.entity.Angestellter;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.UUID;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import static com.acme.angestellter.entity.FamilienstandType.VERHEIRATET;
+import static com.acme.angestellter.entity.GeschlechtType.WEIBLICH;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.catchThrowableOfType;
+import static org.junit.jupiter.api.condition.JRE.JAVA_18;
+import static org.junit.jupiter.api.condition.JRE.JAVA_19;
+import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
+
+@Tag("unit")
+@Tag("repository_codec")
+@DisplayName("Binaerdarstellung der Angestellten testen")
+@Execution(CONCURRENT)
+@EnabledForJreRange(min = JAVA_18, max = JAVA_19)
+@ExtendWith(SoftAssertionsExtension.class)
+@SuppressWarnings("WriteTag")
+class AngestellterCodecTest {
+    private static final String ID = "00000000-0000-0000-0000-000000000001";
+    private static final String GEBURTSDATUM = "1990-01-31";
+    private static final String PLZ = "76133";
+
+    @InjectSoftAssertions
+    private SoftAssertions softly;
+
+    @ParameterizedTest(name = "[{index}] Kodieren und Dekodieren mit ByteBuffer: nachname={0}, ort={1}")
+    @CsvSource({
+        "Alpha, Karlsruhe",
+        "Müller-Lüdenscheidt, Öhringen",
+        "Ωmega 😀, 東京"
+    })
+    @DisplayName("Kodieren und Dekodieren mit ByteBuffer")
+    void roundTripByteBuffer(final String nachname, final String ort) {
+        // given
+        final var angestellter = angestellter(nachname, ort);
+        final var buffer = ByteBuffer.allocate(AngestellterCodec.groesse(angestellter));
+
+        // when
+        AngestellterCodec.encode(angestellter, buffer);
+        final var gelesen = AngestellterCodec.decode(buffer.flip());
+
+        // then
+        softly.assertThat(buffer.hasRemaining()).isFalse();
+        softly.assertThat(buffer.get(0)).isEqualTo(AngestellterCodec.VERSION);
+        softly.assertThat(gelesen).usingRecursiveComparison().isEqualTo(angestellter);
+    }
+
+    @ParameterizedTest(name = "[{index}] Kodieren und Dekodieren mit MemorySegment: offset={0}")
+    @ValueSource(longs = {0L, 7L})
+    @DisplayName("Kodieren und Dekodieren mit MemorySegment")
+    void roundTripMemorySegment(final long offset) {
+        // given
+        final var erster = angestellter("Alpha", "Karlsruhe");
+        final var zweiter = angestellter("Beta", "Bruchsal");
+        final var groesse = offset + AngestellterCodec.groesse(erster) + AngestellterCodec.groesse(zweiter);
+        final var segment = MemorySegment.ofArray(new byte[(int) groesse]);
+
+        // when
+        final var mitte = AngestellterCodec.encode(erster, segment, offset);
+        final var ende = AngestellterCodec.encode(zweiter, segment, mitte);
+
+        // then
+        softly.assertThat(ende).isEqualTo(groesse);
+        softly.assertThat(AngestellterCodec.decode(segment, offset)).usingRecursiveComparison().isEqualTo(erster);
+        softly.assertThat(AngestellterCodec.decode(segment, mitte)).usingRecursiveComparison().isEqualTo(zweiter);
+    }
+
+    @Test
+    @DisplayName("Nur die ID aus einem MemorySegment lesen")
+    void id() {
+        // given
+        final var angestellter = angestellter("Alpha", "Karlsruhe");
+        final var segment = MemorySegment.ofArray(new byte[AngestellterCodec.groesse(angestellter)]);
+        AngestellterCodec.encode(angestellter, segment, 0L);
+
+        // when
+        final var id = AngestellterCodec.id(segment, 0L);
+
+        // then
+        assertThat(id).isEqualTo(UUID.fromString(ID));
+    }
+
+    @Test
+    @DisplayName("Kodieren und Dekodieren mit null-Werten")
+    void roundTripNull() {
+        // given
+        final var angestellter = Angestellter.builder().id(UUID.fromString(ID)).build();
+        final var buffer = ByteBuffer.allocateDirect(AngestellterCodec.groesse(angestellter));
+
+        // when
+        AngestellterCodec.encode(angestellter, buffer);
+        final var gelesen = AngestellterCodec.decode(buffer.flip());
+
+        // then
+        assertThat(gelesen).usingRecursiveComparison().isEqualTo(angestellter);
+    }
+
+    @ParameterizedTest(name = "[{index}] Anzahl der Bytes wie bei String.getBytes(): nachname={0}")
+    @ValueSource(strings = {"Alpha", "Müller", "€uro", "😀", "\uD800einzeln"})
+    @DisplayName("Anzahl der Bytes wie bei String.getBytes()")
+    void utf8(final String nachname) {
+        // given
+        final var angestellter = Angestellter.builder().id(UUID.fromString(ID)).nachname(nachname).build();
+        final var ohneNachname = Angestellter.builder().id(UUID.fromString(ID)).build();
+        final var buffer = ByteBuffer.allocate(AngestellterCodec.groesse(angestellter));
+
+        // when
+        AngestellterCodec.encode(angestellter, buffer);
+        final var bytes = new byte[nachname.getBytes(UTF_8).length];
+        buffer.get(1 + Long.BYTES * 2 + Integer.BYTES, bytes);
+
+        // then
+        softly.assertThat(AngestellterCodec.groesse(angestellter) - AngestellterCodec.groesse(ohneNachname))
+            .isEqualTo(bytes.length);
+        softly.assertThat(bytes).isEqualTo(nachname.getBytes(UTF_8));
+    }
+
+    @ParameterizedTest(name = "[{index}] Dekodieren mit unbekannter Version: version={0}")
+    @ValueSource(bytes = {AngestellterCodec.VERSION - 1, AngestellterCodec.VERSION + 1})
+    void unbekannteVersion(final byte version) {
+        // given
+        final var angestellter = angestellter("Alpha", "Karlsruhe");
+        final var buffer = ByteBuffer.allocate(AngestellterCodec.groesse(angestellter));
+        AngestellterCodec.encode(angestellter, buffer);
+        buffer.put(0, version);
+
+        // when
+        final var exception = catchThrowableOfType(
+            () -> AngestellterCodec.decode(buffer.flip()),
+            IllegalArgumentException.class
+        );
+
+        // then
+        assertThat(exception).hasMessageEndingWith(": " + version);
+    }
+
+    private Angestellter angestellter(final String nachname, final String ort) {
+        return Angestellter.builder()
+            .id(UUID.fromString(ID))
+            .nachname(nachname)
+            .email(nachname.toLowerCase() + "@acme.de")
+            .hasNewsletter(true)
+            .geburtsdatum(LocalDate.parse(GEBURTSDATUM))
+            .geschlecht(WEIBLICH)
+            .familienstand(VERHEIRATET)
+            .adresse(Adresse.builder().plz(PLZ).ort(ort).build())
+            .build();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.BitSet;
+import java.util.Random;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.junit.jupiter.api.condition.JRE.JAVA_18;
+import static org.junit.jupiter.api.condition.JRE.JAVA_19;
+import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
+
+@Tag("unit")
+@Tag("repository_bitmap")
+@DisplayName("Komprimierte Bitmap gegen BitSet testen")
+@Execution(CONCURRENT)
+@EnabledForJreRange(min = JAVA_18, max = JAVA_19)
+@ExtendWith(SoftAssertionsExtension.class)
+@SuppressWarnings("WriteTag")
+class BitmapTest {
+    private static final int CONTAINER = 1 << 16;
+    private static final int ARRAY_MAX = 4096;
+    private static final int ANZAHL_CONTAINER = 4;
+    private static final int RUNDEN = 20;
+
+    @InjectSoftAssertions
+    private SoftAssertions softly;
+
+    @Test
+    @DisplayName("Grenze zwischen Array- und Bitmap-Container beim Einfuegen und Entfernen")
+    void containerGrenze() {
+        // given
+        final var bitmap = new Bitmap();
+        final var erwartet = new BitSet();
+
+        // when
+        for (int i = 0; i <= ARRAY_MAX; i++) {
+            bitmap.add(i * 3);
+            erwartet.set(i * 3);
+        }
+        final var ueberGrenze = bitmap.copy();
+        bitmap.remove(0);
+        erwartet.clear(0);
+        bitmap.remove(3);
+        erwartet.clear(3);
+
+        // then
+        softly.assertThat(ueberGrenze.cardinality()).isEqualTo(ARRAY_MAX + 1);
+        softly.assertThat(ueberGrenze.contains(0)).isTrue();
+        vergleichen(bitmap, erwartet);
+    }
+
+    @ParameterizedTest(name = "[{index}] Mengenoperationen mit Zufallswerten: seed={0}")
+    @ValueSource(longs = {1L, 42L, 4711L})
+    @DisplayName("Mengenoperationen mit Zufallswerten")
+    void zufaellig(final long seed) {
+        final var random = new Random(seed);
+        for (int runde = 0; runde < RUNDEN; runde++) {
+            // given
+            final var a = new BitSet();
+            final var b = new BitSet();
+            final var bitmapA = zufall(random, a);
+            final var bitmapB = zufall(random, b);
+
+            // when
+            final var und = bitmapA.and(bitmapB);
+            final var oder = bitmapA.or(bitmapB);
+            final var ohne = bitmapA.andNot(bitmapB);
+
+            // then
+            final var erwartetUnd = (BitSet) a.clone();
+            erwartetUnd.and(b);
+            final var erwartetOder = (BitSet) a.clone();
+            erwartetOder.or(b);
+            final var erwartetOhne = (BitSet) a.clone();
+            erwartetOhne.andNot(b);
+            vergleichen(bitmapA, a);
+            vergleichen(bitmapB, b);
+            vergleichen(und, erwartetUnd);
+            vergleichen(oder, erwartetOder);
+            vergleichen(ohne, erwartetOhne);
+            vergleichen(Bitmap.of(a.toLongArray()), a);
+        }
+    }
+
+    // je Container eine zufaellige Dichte: leer, duenn, knapp unter oder ueber der Grenze oder dicht
+    private static Bitmap zufall(final Random random, final BitSet erwartet) {
+        final var bitmap = new Bitmap();
+        for (int container = 0; container < ANZAHL_CONTAINER; container++) {
+            final var anzahl = switch (random.nextInt(5)) {
+                case 0 -> 0;
+                case 1 -> random.nextInt(100);
+                case 2 -> ARRAY_MAX - random.nextInt(8);
+                case 3 -> ARRAY_MAX + 1 + random.nextInt(8);
+                default -> CONTAINER / 2 + random.nextInt(CONTAINER / 4);
+            };
+            int eingefuegt = 0;
+            while (eingefuegt < anzahl) {
+                final var wert = container * CONTAINER + random.nextInt(CONTAINER);
+                if (!erwartet.get(wert)) {
+                    bitmap.add(wert);
+                    erwartet.set(wert);
+                    eingefuegt++;
+                }
+            }
+        }
+        // einige Werte wieder entfernen, damit Container auch ueber die Grenze zurueckfallen
+        final var entfernen = random.nextInt(16);
+        for (int i = 0; i < entfernen; i++) {
+            final var wert = random.nextInt(ANZAHL_CONTAINER * CONTAINER);
+            bitmap.remove(wert);
+            erwartet.clear(wert);
+        }
+        return bitmap;
+    }
+
+    private void vergleichen(final Bitmap bitmap, final BitSet erwartet) {
+        final var werte = new BitSet();
+        final var vorheriger = new int[]{-1};
+        final var aufsteigend = new boolean[]{true};
+        bitmap.forEach(wert -> {
+            aufsteigend[0] &= wert > vorheriger[0];
+            vorheriger[0] = wert;
+            werte.set(wert);
+        });
+        softly.assertThat(aufsteigend[0]).isTrue();
+        softly.assertThat(werte).isEqualTo(erwartet);
+        softly.assertThat(bitmap.cardinality()).isEqualTo(erwartet.cardinality());
+        softly.assertThat(bitmap.isEmpty()).isEqualTo(erwartet.isEmpty());
+        erwartet.stream()
+            .limit(ARRAY_MAX)
+            .filter(wert -> !bitmap.contains(wert))
+            .forEach(wert -> softly.fail("Wert fehlt: " + wert));
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Adresse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+import org.springframework.util.unit.DataSize;
+import static com.acme.angestellter.repository.DB.ANGESTELLTE;
+import static org.junit.jupiter.api.condition.JRE.JAVA_18;
+import static org.junit.jupiter.api.condition.JRE.JAVA_19;
+import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
+
+@Tag("unit")
+@Tag("repository_kanonisierung")
+@DisplayName("Kanonische Zeichenketten und Adressen testen")
+@Execution(CONCURRENT)
+@EnabledForJreRange(min = JAVA_18, max = JAVA_19)
+@ExtendWith(SoftAssertionsExtension.class)
+@SuppressWarnings("WriteTag")
+class KanonisierungTest {
+    private static final String GESPART = "app.kanonisierung.gespart";
+    private static final String EINTRAEGE = "app.kanonisierung.eintraege";
+    private static final String NACHNAME = "Alpha";
+    private static final String PLZ = "76133";
+    private static final String ORT = "Karlsruhe";
+
+    // String-Objekt mit 24 Bytes und byte[] mit 16 Bytes Header und 5 Zeichen, aufgerundet auf 8 Bytes
+    private static final long GROESSE_NACHNAME = 24 + 24;
+
+    private static final long GROESSE_ORT = 24 + 32;
+
+    // Adresse-Objekt mit 24 Bytes und den Zeichenketten fuer Postleitzahl und Ort
+    private static final long GROESSE_ADRESSE = 24 + (24 + 24) + GROESSE_ORT;
+
+    @InjectSoftAssertions
+    private SoftAssertions softly;
+
+    @Test
+    @DisplayName("Gleiche Zeichenketten gemeinsam verwenden und nach dem letzten Freigeben entfernen")
+    void zeichenkette() {
+        // given
+        final var kanonisierung = new Kanonisierung();
+        final var registry = new SimpleMeterRegistry();
+        kanonisierung.bindTo(registry);
+        final var erste = kanonisierung.zeichenkette(new String(NACHNAME));
+
+        // when
+        final var zweite = kanonisierung.zeichenkette(new String(NACHNAME));
+        final var gespartBeide = kanonisierung.gespart();
+        kanonisierung.freigeben(NACHNAME);
+        final var gespartEine = kanonisierung.gespart();
+        final var eintraegeEine = registry.get(EINTRAEGE).gauge().value();
+        kanonisierung.freigeben(NACHNAME);
+
+        // then
+        softly.assertThat(zweite).isSameAs(erste);
+        softly.assertThat(gespartBeide).isEqualTo(GROESSE_NACHNAME);
+        softly.assertThat(gespartEine).isZero();
+        softly.assertThat(eintraegeEine).isEqualTo(1.0);
+        softly.assertThat(registry.get(EINTRAEGE).gauge().value()).isZero();
+        softly.assertThat(kanonisierung.zeichenkette(new String(NACHNAME))).isNotSameAs(erste);
+    }
+
+    @Test
+    @DisplayName("Gleiche Adressen gemeinsam verwenden und mit ihren Zeichenketten freigeben")
+    void adresse() {
+        // given
+        final var kanonisierung = new Kanonisierung();
+        final var registry = new SimpleMeterRegistry();
+        kanonisierung.bindTo(registry);
+        final var erste = kanonisierung.adresse(neueAdresse());
+        final var ort = kanonisierung.zeichenkette(new String(ORT));
+
+        // when
+        final var zweite = kanonisierung.adresse(neueAdresse());
+        final var gespart = registry.get(GESPART).gauge().value();
+        kanonisierung.freigeben(neueAdresse());
+        kanonisierung.freigeben(neueAdresse());
+        final var eintraegeOrt = registry.get(EINTRAEGE).gauge().value();
+        kanonisierung.freigeben(ORT);
+
+        // then
+        softly.assertThat(zweite).isSameAs(erste);
+        softly.assertThat(ort).isSameAs(erste.getOrt());
+        softly.assertThat(gespart).isEqualTo((double) (GROESSE_ADRESSE + GROESSE_ORT));
+        softly.assertThat(eintraegeOrt).isEqualTo(1.0);
+        softly.assertThat(registry.get(EINTRAEGE).gauge().value()).isZero();
+        softly.assertThat(registry.get(GESPART).gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Metriken nur beim Speicher auf dem Heap registrieren")
+    void nurHeap() {
+        // given
+        final var heap = new AngestellterRepository();
+        final var offHeap = new AngestellterRepository(
+            null,
+            new SpeicherProperties(SpeicherProperties.Typ.OFF_HEAP, DataSize.ofMegabytes(1)),
+            null
+        );
+        final var registryHeap = new SimpleMeterRegistry();
+        final var registryOffHeap = new SimpleMeterRegistry();
+
+        // when
+        heap.bindTo(registryHeap);
+        offHeap.bindTo(registryOffHeap);
+
+        // then
+        softly.assertThat(registryHeap.find(GESPART).gauge()).isNotNull();
+        softly.assertThat(registryOffHeap.find(GESPART).gauge()).isNull();
+        softly.assertThat(registryOffHeap.find(EINTRAEGE).gauge()).isNull();
+        heap.close();
+        offHeap.close();
+    }
+
+    @Test
+    @DisplayName("Die gemeinsamen Testdaten beim Einfuegen nicht veraendern")
+    void testdaten() {
+        // given
+        final var testdaten = ANGESTELLTE.get(0);
+        final var adresse = testdaten.getAdresse();
+
+        // when
+        final var gespeichert = new AngestellterRepository().findById(testdaten.getId()).orElseThrow();
+
+        // then
+        softly.assertThat(testdaten.getAdresse()).isSameAs(adresse);
+        softly.assertThat(gespeichert.getAdresse()).isNotSameAs(adresse);
+    }
+
+    private static Adresse neueAdresse() {
+        return Adresse.builder().plz(new String(PLZ)).ort(new String(ORT)).build();
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.StreamSupport;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.junit.jupiter.api.condition.JRE.JAVA_18;
+import static org.junit.jupiter.api.condition.JRE.JAVA_19;
+import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
+
+@Tag("unit")
+@Tag("repository_lesesicht")
+@DisplayName("Konsistente Sicht auf die Angestellten testen")
+@Execution(CONCURRENT)
+@EnabledForJreRange(min = JAVA_18, max = JAVA_19)
+@ExtendWith(SoftAssertionsExtension.class)
+@SuppressWarnings("WriteTag")
+class LesesichtTest {
+    private static final int ANZAHL = 2000;
+    private static final int OPERATIONEN = 20_000;
+
+    @InjectSoftAssertions
+    private SoftAssertions softly;
+
+    private final ConcurrentSkipListSet<UUID> ids = new ConcurrentSkipListSet<>();
+    private final Map<UUID, Angestellter> angestellte = new ConcurrentHashMap<>();
+
+    @Test
+    @DisplayName("Anlegen, Aendern und Loeschen vor und nach dem Cursor")
+    void vorUndNachCursor() {
+        // given
+        final var random = new Random(1L);
+        befuellen(random);
+        final var erwartet = stand();
+        final var sicht = new Lesesicht(ids, angestellte::get);
+        final var gelesen = new TreeMap<UUID, String>();
+        final var haelfte = ANZAHL / 2;
+        for (int i = 0; i < haelfte; i++) {
+            sicht.tryAdvance(angestellter -> gelesen.put(angestellter.getId(), angestellter.getNachname()));
+        }
+        final var cursor = gelesen.lastKey();
+        final var davor = ids.headSet(cursor, true).stream().toList();
+        final var danach = ids.tailSet(cursor, false).stream().toList();
+
+        // when
+        aendern(sicht, davor.get(0), random);
+        loeschen(sicht, davor.get(1));
+        anlegen(sicht, kleiner(cursor));
+        aendern(sicht, danach.get(0), random);
+        aendern(sicht, danach.get(0), random);
+        loeschen(sicht, danach.get(1));
+        anlegen(sicht, groesser(cursor));
+        final var gesichert = sicht.gesichert();
+        sicht.forEachRemaining(angestellter -> gelesen.put(angestellter.getId(), angestellter.getNachname()));
+
+        // then
+        softly.assertThat(gesichert).isEqualTo(3);
+        softly.assertThat(gelesen).isEqualTo(erwartet);
+        softly.assertThat(sicht.gesichert()).isZero();
+    }
+
+    @ParameterizedTest(name = "[{index}] Parallele Schreibzugriffe waehrend des Lesens: seed={0}")
+    @ValueSource(longs = {1L, 42L, 4711L})
+    @DisplayName("Parallele Schreibzugriffe waehrend des Lesens")
+    void parallel(final long seed) throws InterruptedException {
+        // given
+        final var random = new Random(seed);
+        befuellen(random);
+        final var erwartet = stand();
+        final var vorhanden = List.copyOf(ids);
+        final var groessteId = ids.last();
+        final var sicht = new Lesesicht(ids, angestellte::get);
+        final var fertig = new AtomicBoolean();
+        final var fehler = new AtomicReference<Throwable>();
+
+        // when
+        // Schreibzugriffe wie im Repository nacheinander, jeweils nach dem Sichern des bisherigen Stands
+        final var schreiber = Thread.ofVirtual().start(() -> {
+            try {
+                for (int i = 0; i < OPERATIONEN && !fertig.get(); i++) {
+                    final var id = vorhanden.get(random.nextInt(vorhanden.size()));
+                    switch (random.nextInt(3)) {
+                        case 0 -> anlegen(sicht, neueId(random, groessteId));
+                        case 1 -> aendern(sicht, id, random);
+                        default -> loeschen(sicht, id);
+                    }
+                    Thread.yield();
+                }
+            } catch (final RuntimeException ex) {
+                fehler.set(ex);
+            }
+        });
+        final var gelesen = new TreeMap<UUID, String>();
+        StreamSupport.stream(sicht, false).forEach(angestellter -> {
+            gelesen.put(angestellter.getId(), angestellter.getNachname());
+            Thread.yield();
+        });
+        fertig.set(true);
+        schreiber.join();
+
+        // then
+        softly.assertThat(fehler.get()).isNull();
+        softly.assertThat(gelesen).isEqualTo(erwartet);
+        // alle IDs liegen vor dem Cursor, so dass kein gesicherter Stand uebrig bleibt
+        softly.assertThat(sicht.gesichert()).isZero();
+    }
+
+    private void befuellen(final Random random) {
+        for (int i = 0; i < ANZAHL; i++) {
+            final var id = new UUID(random.nextLong(), random.nextLong());
+            ids.add(id);
+            angestellte.put(id, angestellter(id, "Nachname" + i));
+        }
+    }
+
+    private Map<UUID, String> stand() {
+        final var stand = new TreeMap<UUID, String>();
+        angestellte.forEach((id, angestellter) -> stand.put(id, angestellter.getNachname()));
+        return stand;
+    }
+
+    private void anlegen(final Lesesicht sicht, final UUID id) {
+        sicht.vorAenderung(id, null);
+        angestellte.put(id, angestellter(id, "Neu"));
+        ids.add(id);
+    }
+
+    // wie im Repository wird der Angestellte kopiert statt veraendert
+    private void aendern(final Lesesicht sicht, final UUID id, final Random random) {
+        final var alt = angestellte.get(id);
+        if (alt == null) {
+            return;
+        }
+        sicht.vorAenderung(id, alt);
+        angestellte.put(id, alt.toBuilder().nachname("Geaendert" + random.nextInt()).build());
+    }
+
+    private void loeschen(final Lesesicht sicht, final UUID id) {
+        final var alt = angestellte.get(id);
+        if (alt == null) {
+            return;
+        }
+        sicht.vorAenderung(id, alt);
+        ids.remove(id);
+        angestellte.remove(id);
+    }
+
+    private static Angestellter angestellter(final UUID id, final String nachname) {
+        return Angestellter.builder().id(id).nachname(nachname).build();
+    }
+
+    // eine neue ID direkt vor bzw. nach einer vorhandenen
+    private static UUID kleiner(final UUID id) {
+        return new UUID(id.getMostSignificantBits(), Long.MIN_VALUE);
+    }
+
+    private static UUID groesser(final UUID id) {
+        return new UUID(id.getMostSignificantBits(), Long.MAX_VALUE);
+    }
+
+    // eine neue ID vor der Grenze, damit der Cursor am Ende hinter allen Schreibzugriffen steht
+    private UUID neueId(final Random random, final UUID grenze) {
+        while (true) {
+            final var id = new UUID(random.nextLong(), random.nextLong());
+            if (id.compareTo(grenze) < 0 && !angestellte.containsKey(id)) {
+                return id;
+            }
+        }
+    }
+}
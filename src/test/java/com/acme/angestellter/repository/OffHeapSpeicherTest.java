@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Adresse;
+import com.acme.angestellter.entity.Angestellter;
+import com.acme.angestellter.entity.FamilienstandType;
+import com.acme.angestellter.entity.GeschlechtType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.condition.JRE.JAVA_18;
+import static org.junit.jupiter.api.condition.JRE.JAVA_19;
+import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
+
+@Tag("unit")
+@Tag("repository_off_heap")
+@DisplayName("Off-Heap-Speicher fuer Angestellte testen")
+@Execution(CONCURRENT)
+@EnabledForJreRange(min = JAVA_18, max = JAVA_19)
+@ExtendWith(SoftAssertionsExtension.class)
+@SuppressWarnings("WriteTag")
+class OffHeapSpeicherTest {
+    // klein, damit schon wenige Angestellte mehrere Bloecke belegen
+    private static final long BLOCK_GROESSE = 4096L;
+    private static final int ANZAHL = 500;
+    private static final int OPERATIONEN = 20_000;
+    // groesser als ein Schritt der Kompaktierung, damit ein Block in mehreren Schritten geleert wird
+    private static final long GROSSER_BLOCK = 4 * OffHeapSpeicher.SCHRITT;
+    private static final int ANZAHL_KOMPAKTIERUNG = 20_000;
+    private static final int ANZAHL_LESER = 4;
+    // grosszuegig, weil die Tests nebenlaeufig laufen und ein Schritt auch unter Last deutlich kuerzer bleibt
+    private static final long MAX_PAUSE_MILLIS = 2000L;
+    private static final Duration WARTEN = Duration.ofSeconds(30);
+
+    private static final String KOMPAKTIERUNG = "app.speicher.kompaktierung";
+    private static final String PAUSE_MAX = "app.speicher.kompaktierung.pause.max";
+    private static final String FREIGEGEBEN = "app.speicher.kompaktierung.freigegeben";
+    private static final String UNGENUTZT = "app.speicher.ungenutzt";
+
+    @InjectSoftAssertions
+    private SoftAssertions softly;
+
+    @Test
+    @DisplayName("Speichern, Ersetzen und Entfernen eines Angestellten")
+    void putReplaceRemove() {
+        // given
+        final var random = new Random(1L);
+        final var angestellter = angestellter(UUID.randomUUID(), random);
+        final var geaendert = angestellter(angestellter.getId(), random);
+
+        try (var speicher = new OffHeapSpeicher(BLOCK_GROESSE)) {
+            // when
+            speicher.put(angestellter);
+            final var gelesen = speicher.get(angestellter.getId());
+            speicher.put(geaendert);
+            final var ersetzt = speicher.get(angestellter.getId());
+            final var entfernt = speicher.remove(angestellter.getId());
+
+            // then
+            softly.assertThat(gelesen).isNotSameAs(angestellter).usingRecursiveComparison().isEqualTo(angestellter);
+            softly.assertThat(ersetzt).usingRecursiveComparison().isEqualTo(geaendert);
+            softly.assertThat(entfernt).isTrue();
+            softly.assertThat(speicher.get(angestellter.getId())).isNull();
+            softly.assertThat(speicher.containsKey(angestellter.getId())).isFalse();
+            softly.assertThat(speicher.remove(angestellter.getId())).isFalse();
+            softly.assertThat(speicher.size()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("Weitere Bloecke allokieren, wenn der aktuelle Block voll ist")
+    void vergroessern() {
+        // given
+        final var random = new Random(2L);
+        final var erwartet = new HashMap<UUID, Angestellter>();
+        for (int i = 0; i < ANZAHL; i++) {
+            final var angestellter = angestellter(UUID.randomUUID(), random);
+            erwartet.put(angestellter.getId(), angestellter);
+        }
+
+        try (var speicher = new OffHeapSpeicher(BLOCK_GROESSE)) {
+            // when
+            erwartet.values().forEach(speicher::put);
+
+            // then
+            softly.assertThat(speicher.size()).isEqualTo(ANZAHL);
+            softly.assertThat(speicher.values()).hasSize(ANZAHL);
+            erwartet.forEach((id, angestellter) -> softly.assertThat(speicher.get(id))
+                .usingRecursiveComparison()
+                .isEqualTo(angestellter));
+        }
+    }
+
+    @ParameterizedTest(name = "[{index}] Zufaellige Operationen im Vergleich mit HashMap: seed={0}")
+    @ValueSource(longs = {1L, 42L, 4711L})
+    @DisplayName("Zufaellige Operationen im Vergleich mit HashMap")
+    void zufaellig(final long seed) {
+        // given
+        final var random = new Random(seed);
+        final var erwartet = new HashMap<UUID, Angestellter>();
+        final var ids = new ArrayList<UUID>();
+
+        try (var speicher = new OffHeapSpeicher(BLOCK_GROESSE)) {
+            // when
+            for (int i = 0; i < OPERATIONEN; i++) {
+                final var neu = ids.isEmpty() || random.nextInt(4) == 0;
+                final var id = neu ? UUID.randomUUID() : ids.get(random.nextInt(ids.size()));
+                if (random.nextInt(3) == 0) {
+                    softly.assertThat(speicher.remove(id)).isEqualTo(erwartet.remove(id) != null);
+                } else {
+                    final var angestellter = angestellter(id, random);
+                    speicher.put(angestellter);
+                    erwartet.put(id, angestellter);
+                    ids.add(id);
+                }
+            }
+
+            // then
+            softly.assertThat(speicher.size()).isEqualTo(erwartet.size());
+            softly.assertThat(speicher.values())
+                .extracting(Angestellter::getId)
+                .containsExactlyInAnyOrderElementsOf(erwartet.keySet());
+            erwartet.forEach((id, angestellter) -> softly.assertThat(speicher.get(id))
+                .usingRecursiveComparison()
+                .isEqualTo(angestellter));
+        }
+    }
+
+    @Test
+    @DisplayName("Grabsteine beim Ersetzen und Loeschen")
+    void grabsteine() {
+        // given
+        final var random = new Random(3L);
+        final var ids = new ArrayList<UUID>(ANZAHL);
+        final var registry = new SimpleMeterRegistry();
+
+        try (var speicher = new OffHeapSpeicher(GROSSER_BLOCK)) {
+            speicher.bindTo(registry);
+            for (int i = 0; i < ANZAHL; i++) {
+                final var angestellter = angestellter(UUID.randomUUID(), random);
+                ids.add(angestellter.getId());
+                speicher.put(angestellter);
+            }
+            final var vorher = registry.get(UNGENUTZT).gauge().value();
+
+            // when
+            final var ersetzt = angestellter(ids.get(0), random);
+            speicher.put(ersetzt);
+            speicher.remove(ids.get(1));
+
+            // then
+            softly.assertThat(vorher).isZero();
+            softly.assertThat(registry.get(UNGENUTZT).gauge().value()).isPositive();
+            softly.assertThat(registry.get(FREIGEGEBEN).functionCounter().count()).isZero();
+            softly.assertThat(speicher.get(ids.get(0))).usingRecursiveComparison().isEqualTo(ersetzt);
+            softly.assertThat(speicher.get(ids.get(1))).isNull();
+            softly.assertThat(speicher.values()).hasSize(ANZAHL - 1);
+        }
+    }
+
+    @Test
+    @DisplayName("Inkrementelle Kompaktierung mit begrenzten Pausen und parallelen Lesern")
+    void kompaktierung() throws InterruptedException {
+        // given
+        final var random = new Random(4L);
+        final var erwartet = new HashMap<UUID, Angestellter>();
+        final var registry = new SimpleMeterRegistry();
+        final var fehler = new AtomicReference<Throwable>();
+        final var fertig = new AtomicBoolean();
+
+        try (var speicher = new OffHeapSpeicher(GROSSER_BLOCK)) {
+            speicher.bindTo(registry);
+            for (int i = 0; i < ANZAHL_KOMPAKTIERUNG; i++) {
+                final var angestellter = angestellter(UUID.randomUUID(), random);
+                erwartet.put(angestellter.getId(), angestellter);
+                speicher.put(angestellter);
+            }
+            final var ids = List.copyOf(erwartet.keySet());
+            final var leser = new ArrayList<Thread>(ANZAHL_LESER);
+            for (int i = 0; i < ANZAHL_LESER; i++) {
+                final var seed = i;
+                // Plattform-Threads, weil virtuelle Threads ohne Blockieren den Thread der Kompaktierung aushungern
+                leser.add(Thread.ofPlatform().start(() -> lesen(speicher, ids, seed, fertig, fehler)));
+            }
+
+            // when
+            // jeden Angestellten zweimal ersetzen, so dass mehr Platz ungenutzt als belegt ist
+            for (int runde = 0; runde < 2; runde++) {
+                for (final var id : ids) {
+                    final var angestellter = angestellter(id, random);
+                    erwartet.put(id, angestellter);
+                    speicher.put(angestellter);
+                }
+            }
+            warten(registry);
+            fertig.set(true);
+            for (final var thread : leser) {
+                thread.join();
+            }
+
+            // then
+            final var schritte = registry.get(KOMPAKTIERUNG).functionTimer().count();
+            final var bloecke = registry.get(FREIGEGEBEN).functionCounter().count() / GROSSER_BLOCK;
+            softly.assertThat(fehler.get()).isNull();
+            softly.assertThat(bloecke).isPositive();
+            softly.assertThat(schritte).isGreaterThan(bloecke);
+            softly.assertThat(registry.get(PAUSE_MAX).timeGauge().value(MILLISECONDS)).isLessThan(MAX_PAUSE_MILLIS);
+            softly.assertThat(speicher.size()).isEqualTo(erwartet.size());
+            erwartet.forEach((id, angestellter) -> softly.assertThat(speicher.get(id))
+                .usingRecursiveComparison()
+                .isEqualTo(angestellter));
+        }
+    }
+
+    // ohne Sperre lesen, waehrend Bloecke verschoben und freigegeben werden
+    private static void lesen(
+        final OffHeapSpeicher speicher,
+        final List<UUID> ids,
+        final long seed,
+        final AtomicBoolean fertig,
+        final AtomicReference<Throwable> fehler
+    ) {
+        final var random = new Random(seed);
+        try {
+            while (!fertig.get()) {
+                final var id = ids.get(random.nextInt(ids.size()));
+                final var angestellter = speicher.get(id);
+                if (angestellter == null || !angestellter.getId().equals(id)) {
+                    throw new IllegalStateException("Falscher Angestellter fuer " + id + ": " + angestellter);
+                }
+                if (random.nextInt(1000) == 0 && speicher.values().size() != ids.size()) {
+                    throw new IllegalStateException("Falsche Anzahl Angestellter");
+                }
+            }
+        } catch (final RuntimeException ex) {
+            fehler.compareAndSet(null, ex);
+        }
+    }
+
+    // warten, bis die Kompaktierung mindestens einen Block freigegeben hat und mehrmals hintereinander keine Schritte
+    // mehr ausfuehrt
+    private static void warten(final SimpleMeterRegistry registry) throws InterruptedException {
+        final var ende = System.nanoTime() + WARTEN.toNanos();
+        var schritte = -1.0;
+        var unveraendert = 0;
+        while (System.nanoTime() < ende) {
+            final var aktuell = registry.get(KOMPAKTIERUNG).functionTimer().count();
+            unveraendert = aktuell == schritte ? unveraendert + 1 : 0;
+            if (unveraendert >= 3 && registry.get(FREIGEGEBEN).functionCounter().count() > 0) {
+                return;
+            }
+            schritte = aktuell;
+            Thread.sleep(Duration.ofMillis(200));
+        }
+    }
+
+    private static Angestellter angestellter(final UUID id, final Random random) {
+        return Angestellter.builder()
+            .id(id)
+            .nachname("Nachname" + random.nextInt(1000))
+            .email("email" + random.nextInt() + "@acme.de")
+            .hasNewsletter(random.nextBoolean())
+            .geburtsdatum(LocalDate.ofEpochDay(random.nextInt(20_000)))
+            .geschlecht(GeschlechtType.values()[random.nextInt(GeschlechtType.values().length)])
+            .familienstand(FamilienstandType.values()[random.nextInt(FamilienstandType.values().length)])
+            .adresse(Adresse.builder()
+                .plz(String.format("%05d", random.nextInt(100_000)))
+                .ort("Ort" + random.nextInt(100))
+                .build())
+            .build();
+    }
+}
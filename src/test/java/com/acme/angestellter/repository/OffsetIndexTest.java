@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.UUID;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static com.acme.angestellter.repository.OffsetIndex.KEINE_ADRESSE;
+import static org.junit.jupiter.api.condition.JRE.JAVA_18;
+import static org.junit.jupiter.api.condition.JRE.JAVA_19;
+import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
+
+@Tag("unit")
+@Tag("repository_offset_index")
+@DisplayName("Hashtabelle fuer die Adressen im Off-Heap-Speicher testen")
+@Execution(CONCURRENT)
+@EnabledForJreRange(min = JAVA_18, max = JAVA_19)
+@ExtendWith(SoftAssertionsExtension.class)
+@SuppressWarnings("WriteTag")
+class OffsetIndexTest {
+    private static final int ANZAHL = 1000;
+    private static final int OPERATIONEN = 100_000;
+
+    @InjectSoftAssertions
+    private SoftAssertions softly;
+
+    @Test
+    @DisplayName("Eintragen, Ersetzen und Entfernen einer Adresse")
+    void putReplaceRemove() {
+        // given
+        final var index = new OffsetIndex();
+        final var id = UUID.randomUUID();
+
+        // when
+        final var neu = index.put(id, 1L);
+        final var ersetzt = index.put(id, 2L);
+        final var gelesen = index.get(id);
+        final var entfernt = index.remove(id);
+
+        // then
+        softly.assertThat(neu).isEqualTo(KEINE_ADRESSE);
+        softly.assertThat(ersetzt).isEqualTo(1L);
+        softly.assertThat(gelesen).isEqualTo(2L);
+        softly.assertThat(entfernt).isEqualTo(2L);
+        softly.assertThat(index.get(id)).isEqualTo(KEINE_ADRESSE);
+        softly.assertThat(index.remove(id)).isEqualTo(KEINE_ADRESSE);
+        softly.assertThat(index.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Vergroessern und Entfernen mit Zurueckschieben der nachfolgenden Eintraege")
+    void vergroessern() {
+        // given
+        final var index = new OffsetIndex();
+        final var ids = new ArrayList<UUID>(ANZAHL);
+        for (int i = 0; i < ANZAHL; i++) {
+            final var id = UUID.randomUUID();
+            ids.add(id);
+            index.put(id, i);
+        }
+
+        // when
+        for (int i = 0; i < ANZAHL; i += 2) {
+            index.remove(ids.get(i));
+        }
+
+        // then
+        softly.assertThat(index.size()).isEqualTo(ANZAHL / 2);
+        for (int i = 0; i < ANZAHL; i++) {
+            softly.assertThat(index.get(ids.get(i))).isEqualTo(i % 2 == 0 ? KEINE_ADRESSE : i);
+        }
+        final var summe = new long[1];
+        index.forEach(adresse -> summe[0] += adresse);
+        softly.assertThat(summe[0]).isEqualTo((long) ANZAHL * ANZAHL / 4);
+    }
+
+    @ParameterizedTest(name = "[{index}] Zufaellige Operationen im Vergleich mit HashMap: seed={0}")
+    @ValueSource(longs = {1L, 42L, 4711L})
+    @DisplayName("Zufaellige Operationen im Vergleich mit HashMap")
+    void zufaellig(final long seed) {
+        // given
+        final var random = new Random(seed);
+        final var index = new OffsetIndex();
+        final var erwartet = new HashMap<UUID, Long>();
+        final var ids = new ArrayList<UUID>();
+
+        // when
+        for (int i = 0; i < OPERATIONEN; i++) {
+            // meist schon verwendete IDs, damit oft ersetzt und entfernt wird
+            final var neu = ids.isEmpty() || random.nextInt(3) == 0;
+            final var id = neu ? UUID.randomUUID() : ids.get(random.nextInt(ids.size()));
+            if (random.nextInt(3) == 0) {
+                softly.assertThat(index.remove(id)).isEqualTo(erwartet.getOrDefault(id, KEINE_ADRESSE));
+                erwartet.remove(id);
+            } else {
+                final var adresse = random.nextLong(Long.MAX_VALUE);
+                softly.assertThat(index.put(id, adresse)).isEqualTo(erwartet.getOrDefault(id, KEINE_ADRESSE));
+                erwartet.put(id, adresse);
+                ids.add(id);
+            }
+        }
+
+        // then
+        softly.assertThat(index.size()).isEqualTo(erwartet.size());
+        ids.forEach(id -> softly.assertThat(index.get(id)).isEqualTo(erwartet.getOrDefault(id, KEINE_ADRESSE)));
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Adresse;
+import com.acme.angestellter.entity.Angestellter;
+import com.acme.angestellter.entity.FamilienstandType;
+import com.acme.angestellter.entity.GeschlechtType;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Predicate;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import static com.acme.angestellter.entity.GeschlechtType.DIVERS;
+import static org.junit.jupiter.api.condition.JRE.JAVA_18;
+import static org.junit.jupiter.api.condition.JRE.JAVA_19;
+import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
+
+@Tag("unit")
+@Tag("repository_query_planner")
+@DisplayName("Planer fuer die Suche mit mehreren Suchkriterien testen")
+@Execution(CONCURRENT)
+@EnabledForJreRange(min = JAVA_18, max = JAVA_19)
+@ExtendWith(SoftAssertionsExtension.class)
+@SuppressWarnings("WriteTag")
+class QueryPlannerTest {
+    private static final int ANZAHL = 2000;
+    private static final int SUCHEN = 300;
+    private static final long SEED = 4711L;
+    private static final List<String> NACHNAMEN = List.of("Alpha", "Beta", "Gamma", "Delta", "Epsilon", "Zeta");
+    private static final List<String> ORTE = List.of("Augsburg", "Berlin", "Karlsruhe", "Koeln", "Muenchen");
+    private static final LocalDate GEBURTSDATUM_MIN = LocalDate.of(1950, 1, 1);
+    private static final int TAGE = 20_000;
+
+    private final AngestellterRepository repo = repository();
+
+    @InjectSoftAssertions
+    private SoftAssertions softly;
+
+    @AfterEach
+    void close() {
+        repo.close();
+    }
+
+    @ParameterizedTest(name = "[{index}] Zugriffspfad fuer Suchkriterien: {0}={1}")
+    @CsvSource({
+        "email,email7@acme.de,INDEX_SCAN(email)",
+        "geburtsdatumVon,1960-01-01,INDEX_SCAN(geburtsdatum)",
+        "geschlecht,D,BITMAP_SCAN(geschlecht)",
+        "hasNewsletter,true,BITMAP_SCAN(hasNewsletter)",
+        "nachname,Zeta,INDEX_SCAN(nachname)"
+    })
+    @DisplayName("Zugriffspfad fuer Suchkriterien")
+    void zugriffspfad(final String name, final String wert, final String zugriffspfad) {
+        // given
+        final var suchkriterien = new HashMap<String, String>();
+        suchkriterien.put(name, wert);
+        if ("geburtsdatumVon".equals(name)) {
+            // ein Zeitraum von wenigen Tagen
+            suchkriterien.put("geburtsdatumBis", "1960-01-10");
+        }
+
+        // when
+        final var plan = repo.explain(suchkriterien);
+
+        // then
+        softly.assertThat(plan.zugriffspfad()).isEqualTo(zugriffspfad);
+        softly.assertThat(plan.treffer()).isEqualTo(naivSuchen(suchkriterien).size());
+        softly.assertThat(plan.untersuchteZeilen()).isGreaterThanOrEqualTo(plan.treffer());
+        softly.assertThat(plan.filter()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Ohne Suchkriterien alle Angestellten untersuchen")
+    void ohneSuchkriterien() {
+        // when
+        final var plan = repo.explain(Map.of());
+
+        // then
+        softly.assertThat(plan.zugriffspfad()).isEqualTo(QueryPlan.FULL_SCAN);
+        softly.assertThat(plan.untersuchteZeilen()).isEqualTo(repo.findAll().size());
+        softly.assertThat(plan.treffer()).isEqualTo(repo.findAll().size());
+    }
+
+    @ParameterizedTest(name = "[{index}] Index mit den wenigsten Kandidaten und Filter fuer die uebrigen Kriterien")
+    @ValueSource(strings = "email3@acme.de")
+    @DisplayName("Index mit den wenigsten Kandidaten und Filter fuer die uebrigen Kriterien")
+    void wenigsteKandidaten(final String email) {
+        // given
+        final var suchkriterien = Map.of("email", email, "hasNewsletter", "true", "nachname", "a");
+
+        // when
+        final var plan = repo.explain(suchkriterien);
+
+        // then
+        softly.assertThat(plan.zugriffspfad()).isEqualTo("INDEX_SCAN(email)");
+        softly.assertThat(plan.schaetzungen()).containsEntry("email", 1).containsKeys("hasNewsletter", "nachname");
+        softly.assertThat(plan.filter()).containsExactlyInAnyOrder("hasNewsletter", "nachname");
+        softly.assertThat(plan.untersuchteZeilen()).isEqualTo(1);
+    }
+
+    @ParameterizedTest(name = "[{index}] Kandidaten eines Index mit vielen Treffern verknuepfen: {0}")
+    @CsvSource({
+        "geschlecht=W,INDEX_SCAN(nachname) AND BITMAP_SCAN(geschlecht)",
+        "geburtsdatumVon=1950-01-01,INDEX_SCAN(nachname) AND COLUMN_SCAN(geburtsdatum)"
+    })
+    @DisplayName("Kandidaten eines Index mit vielen Treffern verknuepfen")
+    void verknuepfen(final String suchkriterium, final String zugriffspfad) {
+        // given
+        final var teile = suchkriterium.split("=");
+        final var suchkriterien = new HashMap<String, String>();
+        suchkriterien.put("nachname", NACHNAMEN.get(0));
+        suchkriterien.put(teile[0], teile[1]);
+        if ("geburtsdatumVon".equals(teile[0])) {
+            // der groesste Teil der Geburtsdaten
+            suchkriterien.put("geburtsdatumBis", "1990-01-01");
+        }
+
+        // when
+        final var plan = repo.explain(suchkriterien);
+
+        // then
+        final var erwartet = naivSuchen(suchkriterien);
+        softly.assertThat(plan.zugriffspfad()).isEqualTo(zugriffspfad);
+        softly.assertThat(plan.treffer()).isEqualTo(erwartet.size());
+        // nie mehr Kandidaten als beim besten Index
+        softly.assertThat(plan.untersuchteZeilen())
+            .isLessThan(plan.schaetzungen().get("nachname"))
+            .isGreaterThanOrEqualTo(erwartet.size());
+        softly.assertThat(plan.filter()).isEmpty();
+    }
+
+    @ParameterizedTest(name = "[{index}] Ungueltiges Suchkriterium ohne Zugriff: {0}")
+    @ValueSource(strings = {"geschlecht=X", "geburtsdatumVon=gestern", "unbekannt=1"})
+    @DisplayName("Ungueltiges Suchkriterium ohne Zugriff")
+    void ungueltig(final String suchkriterium) {
+        // given
+        final var teile = suchkriterium.split("=");
+
+        // when
+        final var plan = repo.explain(Map.of(teile[0], teile[1]));
+
+        // then
+        softly.assertThat(plan.zugriffspfad()).isEqualTo(QueryPlan.KEIN_ZUGRIFF);
+        softly.assertThat(plan.treffer()).isZero();
+        softly.assertThat(repo.find(Map.of(teile[0], teile[1]))).isEmpty();
+    }
+
+    @ParameterizedTest(name = "[{index}] Zufaellige Suchkriterien wie ein naiver Filter: seed={0}")
+    @ValueSource(longs = {1L, 42L, 4711L})
+    @DisplayName("Zufaellige Suchkriterien wie ein naiver Filter")
+    void zufaellig(final long seed) {
+        final var random = new Random(seed);
+        for (int i = 0; i < SUCHEN; i++) {
+            // given
+            final var suchkriterien = suchkriterien(random);
+
+            // when
+            final var ids = repo.find(suchkriterien).stream().map(Angestellter::getId).toList();
+            final var plan = repo.explain(suchkriterien);
+
+            // then
+            final var erwartet = naivSuchen(suchkriterien);
+            softly.assertThat(ids).as(suchkriterien.toString()).containsExactlyInAnyOrderElementsOf(erwartet);
+            softly.assertThat(plan.treffer()).as(suchkriterien.toString()).isEqualTo(erwartet.size());
+            softly.assertThat(plan.untersuchteZeilen()).as(suchkriterien.toString())
+                .isGreaterThanOrEqualTo(erwartet.size());
+        }
+    }
+
+    private static AngestellterRepository repository() {
+        final var repo = new AngestellterRepository();
+        final var random = new Random(SEED);
+        for (int i = 0; i < ANZAHL; i++) {
+            final var geschlecht = random.nextInt(100) == 0
+                ? DIVERS
+                : GeschlechtType.values()[random.nextInt(2)];
+            final var adresse = Adresse.builder()
+                .plz(String.format("%05d", random.nextInt(100_000)))
+                .ort(ORTE.get(random.nextInt(ORTE.size())))
+                .build();
+            repo.createIfEmailAbsent(Angestellter.builder()
+                .nachname(NACHNAMEN.get(random.nextInt(NACHNAMEN.size())))
+                .email("email" + i + "@acme.de")
+                .hasNewsletter(random.nextBoolean())
+                .geburtsdatum(GEBURTSDATUM_MIN.plusDays(random.nextInt(TAGE)))
+                .geschlecht(geschlecht)
+                .familienstand(FamilienstandType.values()[random.nextInt(FamilienstandType.values().length)])
+                .adresse(adresse)
+                .build());
+        }
+        return repo;
+    }
+
+    // ein bis drei zufaellige Suchkriterien, die mit AND verknuepft werden
+    private static Map<String, String> suchkriterien(final Random random) {
+        final var suchkriterien = new HashMap<String, String>();
+        final var anzahl = 1 + random.nextInt(3);
+        while (suchkriterien.size() < anzahl) {
+            switch (random.nextInt(8)) {
+                case 0 -> suchkriterien.put("email", "email" + random.nextInt(ANZAHL + 10) + "@acme.de");
+                case 1 -> suchkriterien.put(
+                    "nachname",
+                    NACHNAMEN.get(random.nextInt(NACHNAMEN.size())).substring(random.nextInt(3))
+                );
+                case 2 -> suchkriterien.put("plz", String.valueOf(random.nextInt(100)));
+                case 3 -> suchkriterien.put("ort", ORTE.get(random.nextInt(ORTE.size())).toUpperCase());
+                case 4 -> suchkriterien.put("geschlecht", random.nextBoolean() ? "D" : "M,W");
+                case 5 -> suchkriterien.put("familienstand", random.nextBoolean() ? "L" : "VH,G");
+                case 6 -> suchkriterien.put("hasNewsletter", String.valueOf(random.nextBoolean()));
+                default -> {
+                    final var von = GEBURTSDATUM_MIN.plusDays(random.nextInt(TAGE));
+                    suchkriterien.put("geburtsdatumVon", von.toString());
+                    suchkriterien.put("geburtsdatumBis", von.plusDays(random.nextInt(TAGE / 4)).toString());
+                }
+            }
+        }
+        return suchkriterien;
+    }
+
+    // Suche ohne Index, Bitmap und Spalten direkt auf allen Angestellten
+    private List<UUID> naivSuchen(final Map<String, String> suchkriterien) {
+        Predicate<Angestellter> filter = angestellter -> true;
+        for (final var entry : suchkriterien.entrySet()) {
+            final var wert = entry.getValue();
+            filter = filter.and(switch (entry.getKey()) {
+                case "email" -> angestellter -> wert.equals(angestellter.getEmail());
+                case "nachname" -> angestellter -> angestellter.getNachname().contains(wert);
+                case "plz" -> angestellter -> angestellter.getAdresse().getPlz().startsWith(wert);
+                case "ort" -> angestellter -> angestellter.getAdresse().getOrt().equalsIgnoreCase(wert);
+                case "geschlecht" -> angestellter -> List.of(wert.split(","))
+                    .contains(String.valueOf(angestellter.getGeschlecht()));
+                case "familienstand" -> angestellter -> List.of(wert.split(","))
+                    .contains(String.valueOf(angestellter.getFamilienstand()));
+                case "hasNewsletter" -> angestellter -> angestellter.isHasNewsletter() == Boolean.parseBoolean(wert);
+                case "geburtsdatumVon" -> angestellter -> angestellter.getGeburtsdatum() != null &&
+                    !angestellter.getGeburtsdatum().isBefore(LocalDate.parse(wert));
+                case "geburtsdatumBis" -> angestellter -> angestellter.getGeburtsdatum() != null &&
+                    !angestellter.getGeburtsdatum().isAfter(LocalDate.parse(wert));
+                default -> throw new IllegalArgumentException(entry.getKey());
+            });
+        }
+        return repo.findAll().stream().filter(filter).map(Angestellter::getId).toList();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.parallel.Execution;
+import static org.junit.jupiter.api.condition.JRE.JAVA_18;
+import static org.junit.jupiter.api.condition.JRE.JAVA_19;
+import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
+
+@Tag("unit")
+@Tag("repository_snapshot")
+@DisplayName("Snapshots und Einspielen des Write-Ahead-Logs testen")
+@Execution(CONCURRENT)
+@EnabledForJreRange(min = JAVA_18, max = JAVA_19)
+@ExtendWith(SoftAssertionsExtension.class)
+@SuppressWarnings("WriteTag")
+class SnapshotTest {
+    private static final String NACHNAME = "Snapshot";
+    private static final String NACHNAME_NEU = "Eingespielt";
+    private static final LocalDate GEBURTSDATUM = LocalDate.of(2001, 2, 3);
+    private static final String EINTRAEGE = "app.kanonisierung.eintraege";
+
+    @InjectSoftAssertions
+    private SoftAssertions softly;
+
+    @Test
+    @DisplayName("Nach einem Neustart den Snapshot laden und die neueren Eintraege einspielen")
+    void snapshotUndEinspielen(@TempDir final Path verzeichnis) {
+        // given
+        final var repo = new AngestellterRepository(properties(verzeichnis), null, null);
+        final var geaendert = neu(repo, "geaendert@acme.de");
+        final var geloescht = neu(repo, "geloescht@acme.de");
+        final var snapshot = repo.snapshot();
+        final var nachSnapshot = neu(repo, "nach.snapshot@acme.de");
+        geaendert.setNachname(NACHNAME_NEU);
+        repo.update(geaendert);
+        repo.deleteById(geloescht.getId());
+        final var anzahl = repo.findAll().size();
+        repo.close();
+
+        // when
+        final var neugestartet = new AngestellterRepository(properties(verzeichnis), null, null);
+        final var gefunden = neugestartet.find(Map.of("nachname", NACHNAME_NEU));
+
+        // then
+        softly.assertThat(snapshot).isTrue();
+        softly.assertThat(neugestartet.findAll()).hasSize(anzahl);
+        softly.assertThat(neugestartet.findById(geaendert.getId()))
+            .hasValueSatisfying(a -> softly.assertThat(a.getNachname()).isEqualTo(NACHNAME_NEU));
+        softly.assertThat(neugestartet.findById(geloescht.getId())).isEmpty();
+        softly.assertThat(neugestartet.findByEmail(nachSnapshot.getEmail())).isPresent();
+        softly.assertThat(gefunden).extracting(Angestellter::getId).containsExactly(geaendert.getId());
+        neugestartet.close();
+    }
+
+    @Test
+    @DisplayName("Ohne neue Eintraege wird kein Snapshot geschrieben")
+    void snapshotOhneEintraege(@TempDir final Path verzeichnis) {
+        // given
+        final var repo = new AngestellterRepository(properties(verzeichnis), null, null);
+        neu(repo, "erster.snapshot@acme.de");
+        repo.snapshot();
+
+        // when
+        final var snapshot = repo.snapshot();
+        repo.close();
+
+        // then
+        softly.assertThat(snapshot).isFalse();
+        softly.assertThat(new AngestellterRepository().snapshot()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Ein Neuanlegen im Snapshot und im Log wird beim Einspielen nur einmal gezaehlt")
+    void neuanlegenImSnapshotUndLog(@TempDir final Path verzeichnis) {
+        // given
+        final var repo = new AngestellterRepository(properties(verzeichnis), null, null);
+        final var angestellter = neu(repo, "doppelt@acme.de");
+        final var alle = repo.findAll();
+        repo.close();
+        // wie bei einem Neuanlegen waehrend des Snapshots, d.h. auch im ersten Segment nach dem Snapshot
+        Snapshot.schreiben(verzeichnis, 1L, alle);
+        final var neugestartet = new AngestellterRepository(properties(verzeichnis), null, null);
+        final var registry = new SimpleMeterRegistry();
+        neugestartet.bindTo(registry);
+        final var vorher = registry.get(EINTRAEGE).gauge().value();
+
+        // when
+        neugestartet.deleteById(angestellter.getId());
+        final var nachher = registry.get(EINTRAEGE).gauge().value();
+
+        // then
+        softly.assertThat(neugestartet.findAll()).hasSize(alle.size() - 1);
+        softly.assertThat(nachher).isEqualTo(vorher - 1);
+        neugestartet.close();
+    }
+
+    private static WalProperties properties(final Path verzeichnis) {
+        return new WalProperties(verzeichnis, WalProperties.Durability.EVERY_WRITE, null, null);
+    }
+
+    private static Angestellter neu(final AngestellterRepository repo, final String email) {
+        final var angestellter = Angestellter.builder()
+            .nachname(NACHNAME)
+            .email(email)
+            .geburtsdatum(GEBURTSDATUM)
+            .build();
+        return repo.createIfEmailAbsent(angestellter).orElseThrow();
+    }
+}
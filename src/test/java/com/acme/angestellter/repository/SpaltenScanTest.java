@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.junit.jupiter.api.condition.JRE.JAVA_18;
+import static org.junit.jupiter.api.condition.JRE.JAVA_19;
+import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
+
+@Tag("unit")
+@Tag("repository_spalten_scan")
+@DisplayName("Spaltenweisen Scan gegen einen naiven Vergleich testen")
+@Execution(CONCURRENT)
+@EnabledForJreRange(min = JAVA_18, max = JAVA_19)
+@ExtendWith(SoftAssertionsExtension.class)
+@SuppressWarnings("WriteTag")
+class SpaltenScanTest {
+    private static final int RUNDEN = 200;
+    private static final int MAX_ZEILEN = 1000;
+    // mehr gesuchte Werte als der Vektor-Scan mit SIMD vergleicht
+    private static final int MAX_WERTE = 6;
+    private static final int WERTEBEREICH = 16;
+
+    @InjectSoftAssertions
+    private SoftAssertions softly;
+
+    @ParameterizedTest(name = "[{index}] Zufaellige Spalten und Suchwerte: seed={0}")
+    @ValueSource(longs = {1L, 42L, 4711L})
+    @DisplayName("Zufaellige Spalten und Suchwerte")
+    void zufaellig(final long seed) {
+        final var random = new Random(seed);
+        final var scans = VektorScan.unterstuetzt()
+            ? List.<SpaltenScan>of(new SkalarScan(), new VektorScan())
+            : List.<SpaltenScan>of(new SkalarScan());
+        for (int runde = 0; runde < RUNDEN; runde++) {
+            // given
+            // auch Anzahlen, die kein Vielfaches von 64 sind, und Spalten, die wie im Betrieb laenger sind
+            final var anzahl = random.nextInt(MAX_ZEILEN);
+            final var zeilen = anzahl + random.nextInt(Long.SIZE);
+            final var intSpalte = new int[zeilen];
+            final var byteSpalte = new byte[zeilen];
+            for (int i = 0; i < zeilen; i++) {
+                intSpalte[i] = random.nextInt(WERTEBEREICH) - WERTEBEREICH / 2;
+                byteSpalte[i] = (byte) intSpalte[i];
+            }
+            // gesuchte Werte sind wie die Codes aus einem Woerterbuch nicht negativ, die Spalte enthaelt auch -1 usw.
+            final var intWerte = random.ints(random.nextInt(MAX_WERTE + 1), 0, WERTEBEREICH / 2).toArray();
+            final var byteWerte = new byte[intWerte.length];
+            for (int i = 0; i < intWerte.length; i++) {
+                byteWerte[i] = (byte) intWerte[i];
+            }
+            final var min = random.nextInt(WERTEBEREICH) - WERTEBEREICH / 2;
+            final var max = min + random.nextInt(WERTEBEREICH / 2);
+            final var vorher = vorherigeTreffer(random, zeilen);
+
+            for (final var scan : scans) {
+                // when
+                final var zwischen = vorher.clone();
+                scan.zwischen(intSpalte, min, max, anzahl, zwischen);
+                final var enthaltenInt = vorher.clone();
+                scan.enthalten(intSpalte, intWerte, anzahl, enthaltenInt);
+                final var enthaltenByte = vorher.clone();
+                scan.enthalten(byteSpalte, byteWerte, anzahl, enthaltenByte);
+
+                // then
+                final var name = scan.getClass().getSimpleName() + " in Runde " + runde;
+                softly.assertThat(bis(zwischen, anzahl)).as(name).isEqualTo(naiv(vorher, anzahl, i -> {
+                    final var wert = intSpalte[i];
+                    return wert >= min && wert <= max;
+                }));
+                softly.assertThat(bis(enthaltenInt, anzahl)).as(name)
+                    .isEqualTo(naiv(vorher, anzahl, i -> enthaelt(intWerte, intSpalte[i])));
+                softly.assertThat(bis(enthaltenByte, anzahl)).as(name)
+                    .isEqualTo(naiv(vorher, anzahl, i -> enthaelt(intWerte, byteSpalte[i])));
+            }
+        }
+    }
+
+    // bisherige Treffer mit einzelnen Woertern ohne Treffer, die uebersprungen werden
+    private static long[] vorherigeTreffer(final Random random, final int zeilen) {
+        final var treffer = new long[(zeilen + Long.SIZE - 1) / Long.SIZE];
+        for (int i = 0; i < treffer.length; i++) {
+            treffer[i] = switch (random.nextInt(4)) {
+                case 0 -> 0L;
+                case 1 -> random.nextLong();
+                default -> -1L;
+            };
+        }
+        return treffer;
+    }
+
+    // jede Zeile einzeln pruefen
+    private static long[] naiv(final long[] vorher, final int anzahl, final IntPredicate pruefen) {
+        final var treffer = vorher.clone();
+        for (int i = 0; i < anzahl; i++) {
+            if (!pruefen.test(i)) {
+                treffer[i >>> 6] &= ~(1L << i);
+            }
+        }
+        return bis(treffer, anzahl);
+    }
+
+    // nur die Treffer bis zur Anzahl vergleichen, weil die Bits der uebrigen Zeilen nicht definiert sind
+    private static long[] bis(final long[] treffer, final int anzahl) {
+        final var result = treffer.clone();
+        for (int i = anzahl; i < result.length * Long.SIZE; i++) {
+            result[i >>> 6] &= ~(1L << i);
+        }
+        return result;
+    }
+
+    private static boolean enthaelt(final int[] werte, final int wert) {
+        for (final var gesucht : werte) {
+            if (gesucht == wert) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+import static org.junit.jupiter.api.condition.JRE.JAVA_18;
+import static org.junit.jupiter.api.condition.JRE.JAVA_19;
+import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
+
+@Tag("unit")
+@Tag("repository_uuid_v7")
+@DisplayName("Generator fuer UUIDs der Version 7 testen")
+@Execution(CONCURRENT)
+@EnabledForJreRange(min = JAVA_18, max = JAVA_19)
+@ExtendWith(SoftAssertionsExtension.class)
+@SuppressWarnings("WriteTag")
+class UuidV7GeneratorTest {
+    private static final long ZEIT = 1_700_000_000_000L;
+    // mehr IDs als der Zaehler mit 12 Bit innerhalb einer Millisekunde zulaesst
+    private static final int ANZAHL = 3 * 4096;
+    private static final int ANZAHL_THREADS = 16;
+    private static final int VERSION = 7;
+    private static final int VARIANTE = 2;
+
+    @InjectSoftAssertions
+    private SoftAssertions softly;
+
+    @Test
+    @DisplayName("Version, Variante und Zeitstempel")
+    void versionVariante() {
+        // given
+        final var generator = new UuidV7Generator(() -> ZEIT);
+
+        // when
+        final var id = generator.naechsteId();
+
+        // then
+        softly.assertThat(id.version()).isEqualTo(VERSION);
+        softly.assertThat(id.variant()).isEqualTo(VARIANTE);
+        softly.assertThat(id.getMostSignificantBits() >>> 16).isEqualTo(ZEIT);
+    }
+
+    @Test
+    @DisplayName("Streng monoton beim Ueberlauf des Zaehlers innerhalb einer Millisekunde")
+    void ueberlauf() {
+        // given
+        final var generator = new UuidV7Generator(() -> ZEIT);
+
+        // when
+        final var ids = erzeugen(generator, ANZAHL);
+
+        // then
+        pruefen(ids);
+        // der Ueberlauf wird in den Zeitstempel uebertragen, der dadurch der Uhr vorauslaeuft
+        softly.assertThat(ids.get(ANZAHL - 1).getMostSignificantBits() >>> 16).isEqualTo(ZEIT + 2);
+    }
+
+    @Test
+    @DisplayName("Streng monoton bei zurueckgestellter Uhr")
+    void uhrZurueck() {
+        // given
+        final var uhr = new AtomicLong(ZEIT);
+        final var generator = new UuidV7Generator(uhr::get);
+        final var vorher = erzeugen(generator, ANZAHL);
+
+        // when
+        uhr.set(ZEIT - 1000);
+        final var nachher = erzeugen(generator, ANZAHL);
+        uhr.set(ZEIT + 1000);
+        final var spaeter = generator.naechsteId();
+
+        // then
+        final var ids = new ArrayList<>(vorher);
+        ids.addAll(nachher);
+        ids.add(spaeter);
+        pruefen(ids);
+        softly.assertThat(spaeter.getMostSignificantBits() >>> 16).isEqualTo(ZEIT + 1000);
+    }
+
+    @Test
+    @DisplayName("Eindeutig bei parallelen Threads")
+    void parallel() throws InterruptedException {
+        // given
+        final var generator = new UuidV7Generator();
+        final var ids = ConcurrentHashMap.<UUID>newKeySet();
+        final var threads = new ArrayList<Thread>(ANZAHL_THREADS);
+
+        // when
+        for (int i = 0; i < ANZAHL_THREADS; i++) {
+            threads.add(Thread.ofVirtual().start(() -> ids.addAll(erzeugen(generator, ANZAHL))));
+        }
+        for (final var thread : threads) {
+            thread.join();
+        }
+
+        // then
+        softly.assertThat(ids).hasSize(ANZAHL_THREADS * ANZAHL);
+    }
+
+    private static List<UUID> erzeugen(final IdGenerator generator, final int anzahl) {
+        final var ids = new ArrayList<UUID>(anzahl);
+        for (int i = 0; i < anzahl; i++) {
+            ids.add(generator.naechsteId());
+        }
+        return ids;
+    }
+
+    // Version und Variante jeder ID und die Reihenfolge der Erzeugung gemaess UUID.compareTo und als String
+    private void pruefen(final List<UUID> ids) {
+        ids.forEach(id -> {
+            softly.assertThat(id.version()).isEqualTo(VERSION);
+            softly.assertThat(id.variant()).isEqualTo(VARIANTE);
+        });
+        softly.assertThat(ids).isSorted().doesNotHaveDuplicates();
+        final var strings = ids.stream().map(UUID::toString).toList();
+        final var sortiert = new ArrayList<>(strings);
+        Collections.sort(sortiert);
+        softly.assertThat(strings).isEqualTo(sortiert);
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.parallel.Execution;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.junit.jupiter.api.condition.JRE.JAVA_18;
+import static org.junit.jupiter.api.condition.JRE.JAVA_19;
+import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
+
+@Tag("unit")
+@Tag("repository_wal")
+@DisplayName("Write-Ahead-Log testen")
+@Execution(CONCURRENT)
+@EnabledForJreRange(min = JAVA_18, max = JAVA_19)
+@ExtendWith(SoftAssertionsExtension.class)
+@SuppressWarnings("WriteTag")
+class WriteAheadLogTest {
+    private static final String NACHNAME = "Wal";
+    private static final String NACHNAME_NEU = "Neu";
+    private static final String ID_VORHANDEN = "00000000-0000-0000-0000-000000000001";
+    private static final String EMAIL_VORHANDEN = "alpha@acme.de";
+    private static final String EMAIL_NEU = "neu@acme.de";
+    private static final String ERSTES_SEGMENT = "wal-000001.log";
+    private static final int EINTRAG_HEADER_GROESSE = Integer.BYTES + Integer.BYTES;
+    private static final int ANZAHL_THREADS = 64;
+
+    @InjectSoftAssertions
+    private SoftAssertions softly;
+
+    @Test
+    @DisplayName("Neuanlegen, Aktualisieren und Loeschen anfuegen und nach dem Oeffnen einspielen")
+    void anfuegenUndEinspielen(@TempDir final Path verzeichnis) {
+        // given
+        final var angestellter = angestellter(NACHNAME);
+        final var wal = WriteAheadLog.oeffnen(properties(verzeichnis), 1L, eintrag -> { });
+        final var nummern = new ArrayList<Long>();
+
+        // when
+        nummern.add(wal.append(new LogEintrag.Create(angestellter)));
+        nummern.add(wal.append(new LogEintrag.Update(angestellter(angestellter.getId(), NACHNAME_NEU))));
+        nummern.add(wal.append(new LogEintrag.Delete(angestellter.getId())));
+        wal.commit(nummern.get(nummern.size() - 1));
+        wal.close();
+        final var eingespielt = new ArrayList<LogEintrag>();
+        final var geoeffnet = WriteAheadLog.oeffnen(properties(verzeichnis), 1L, eingespielt::add);
+        geoeffnet.close();
+
+        // then
+        softly.assertThat(nummern).containsExactly(1L, 2L, 3L);
+        softly.assertThat(geoeffnet.nummer()).isEqualTo(3L);
+        softly.assertThat(eingespielt).hasSize(3);
+        softly.assertThat(eingespielt.get(0)).isInstanceOfSatisfying(LogEintrag.Create.class, create -> softly
+            .assertThat(create.angestellter()).usingRecursiveComparison().isEqualTo(angestellter));
+        softly.assertThat(eingespielt.get(1)).isInstanceOfSatisfying(LogEintrag.Update.class, update -> softly
+            .assertThat(update.angestellter().getNachname()).isEqualTo(NACHNAME_NEU));
+        softly.assertThat(eingespielt.get(2)).isEqualTo(new LogEintrag.Delete(angestellter.getId()));
+    }
+
+    @Test
+    @DisplayName("Ein unvollstaendiger Eintrag am Ende wird beim Oeffnen abgeschnitten")
+    void unvollstaendigerEintrag(@TempDir final Path verzeichnis) throws IOException {
+        // given
+        schreiben(verzeichnis, 2);
+        final var datei = verzeichnis.resolve(ERSTES_SEGMENT);
+        final var groesse = Files.size(datei);
+        // Laenge und Pruefsumme eines Eintrags, aber nur ein Teil seiner Daten wie nach einem Absturz
+        final var abgebrochen = ByteBuffer.allocate(EINTRAG_HEADER_GROESSE + 3).putInt(100).putInt(0).flip();
+        try (var channel = FileChannel.open(datei, WRITE, APPEND)) {
+            channel.write(abgebrochen);
+        }
+
+        // when
+        final var eingespielt = new ArrayList<LogEintrag>();
+        final var wal = WriteAheadLog.oeffnen(properties(verzeichnis), 1L, eingespielt::add);
+        final var abgeschnitten = Files.size(datei);
+        wal.commit(wal.append(new LogEintrag.Delete(UUID.randomUUID())));
+        wal.close();
+        final var erneut = new ArrayList<LogEintrag>();
+        WriteAheadLog.oeffnen(properties(verzeichnis), 1L, erneut::add).close();
+
+        // then
+        softly.assertThat(eingespielt).hasSize(2);
+        softly.assertThat(abgeschnitten).isEqualTo(groesse);
+        softly.assertThat(erneut).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Das Einspielen endet beim ersten Eintrag mit falscher Pruefsumme")
+    void falschePruefsumme(@TempDir final Path verzeichnis) throws IOException {
+        // given
+        schreiben(verzeichnis, 2);
+        final var datei = verzeichnis.resolve(ERSTES_SEGMENT);
+        final var groesse = Files.size(datei);
+        schreiben(verzeichnis, 1);
+        // ein Byte in den Daten des letzten Eintrags veraendern
+        try (var channel = FileChannel.open(datei, READ, WRITE)) {
+            final var position = groesse + EINTRAG_HEADER_GROESSE + 1;
+            final var wert = ByteBuffer.allocate(1);
+            channel.read(wert, position);
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) ~wert.get(0)}), position);
+        }
+
+        // when
+        final var eingespielt = new ArrayList<LogEintrag>();
+        final var wal = WriteAheadLog.oeffnen(properties(verzeichnis), 1L, eingespielt::add);
+        wal.close();
+
+        // then
+        softly.assertThat(eingespielt).hasSize(2);
+        softly.assertThat(wal.nummer()).isEqualTo(2L);
+        softly.assertThat(Files.size(datei)).isEqualTo(groesse);
+    }
+
+    @Test
+    @DisplayName("Group Commit mit einem gemeinsamen fsync fuer parallel angefuegte Eintraege")
+    void groupCommit(@TempDir final Path verzeichnis) throws InterruptedException {
+        // given
+        final var wal = WriteAheadLog.oeffnen(properties(verzeichnis), 1L, eintrag -> { });
+        final var angefuegt = new CountDownLatch(ANZAHL_THREADS);
+        final var festgeschrieben = new CountDownLatch(ANZAHL_THREADS);
+
+        // when
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < ANZAHL_THREADS; i++) {
+                executor.execute(() -> {
+                    final var nummer = wal.append(new LogEintrag.Delete(UUID.randomUUID()));
+                    angefuegt.countDown();
+                    try {
+                        // alle Eintraege sind angefuegt, bevor der erste Thread festschreibt
+                        angefuegt.await();
+                    } catch (final InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    wal.commit(nummer);
+                    festgeschrieben.countDown();
+                });
+            }
+        }
+        festgeschrieben.await();
+        final var fsyncs = wal.fsyncs();
+        wal.close();
+        final var eingespielt = new ArrayList<LogEintrag>();
+        WriteAheadLog.oeffnen(properties(verzeichnis), 1L, eingespielt::add).close();
+
+        // then
+        softly.assertThat(fsyncs).isEqualTo(1L);
+        softly.assertThat(eingespielt).hasSize(ANZAHL_THREADS);
+    }
+
+    @Test
+    @DisplayName("Nach Rotation und Kompaktieren nur neuere Eintraege mit fortlaufenden Nummern einspielen")
+    void rotieren(@TempDir final Path verzeichnis) throws IOException {
+        // given
+        final var wal = WriteAheadLog.oeffnen(properties(verzeichnis), 1L, eintrag -> { });
+        wal.append(new LogEintrag.Create(angestellter(NACHNAME)));
+        wal.append(new LogEintrag.Create(angestellter(NACHNAME)));
+
+        // when
+        final var segment = wal.rotieren();
+        final var nachRotation = wal.hatNeueEintraege();
+        final var neu = angestellter(NACHNAME_NEU);
+        final var nummer = wal.append(new LogEintrag.Create(neu));
+        wal.kompaktieren(segment);
+        wal.close();
+        final var eingespielt = new ArrayList<LogEintrag>();
+        final var geoeffnet = WriteAheadLog.oeffnen(properties(verzeichnis), segment, eingespielt::add);
+        geoeffnet.close();
+
+        // then
+        softly.assertThat(segment).isEqualTo(2L);
+        softly.assertThat(nachRotation).isFalse();
+        softly.assertThat(nummer).isEqualTo(3L);
+        softly.assertThat(WriteAheadLog.dateien(verzeichnis, "wal-", ".log")).containsOnlyKeys(segment);
+        softly.assertThat(eingespielt).singleElement().isInstanceOfSatisfying(LogEintrag.Create.class, create -> softly
+            .assertThat(create.angestellter().getId()).isEqualTo(neu.getId()));
+        softly.assertThat(geoeffnet.nummer()).isEqualTo(3L);
+    }
+
+    @Test
+    @DisplayName("Ein Fehler beim Protokollieren aendert das Repository nicht")
+    void protokollierenFehlgeschlagen(@TempDir final Path verzeichnis) {
+        // given
+        final var repo = new AngestellterRepository(properties(verzeichnis), null, null);
+        final var id = UUID.fromString(ID_VORHANDEN);
+        final var sequenz = repo.getAenderungen().getSequenz();
+        // das Geburtsdatum kann nicht kodiert werden
+        final var neu = repo.findById(id).orElseThrow().kopie();
+        neu.setId(null);
+        neu.setEmail(EMAIL_NEU);
+        neu.setGeburtsdatum(LocalDate.MIN);
+        final var geaendert = repo.findById(id).orElseThrow().kopie();
+        geaendert.setEmail(EMAIL_NEU);
+        geaendert.setGeburtsdatum(LocalDate.MIN);
+
+        // when
+        final var createException =
+            catchThrowableOfType(() -> repo.createIfEmailAbsent(neu), ArithmeticException.class);
+        final var updateException = catchThrowableOfType(() -> repo.update(geaendert), ArithmeticException.class);
+        final var emailNachFehler = repo.isEmailExisting(EMAIL_NEU);
+        final var vorhanden = repo.findById(id);
+        final var sequenzNachFehler = repo.getAenderungen().getSequenz();
+        neu.setGeburtsdatum(LocalDate.of(2000, 1, 1));
+        final var angelegt = repo.createIfEmailAbsent(neu);
+        repo.close();
+
+        // then
+        softly.assertThat(createException).isNotNull();
+        softly.assertThat(updateException).isNotNull();
+        softly.assertThat(emailNachFehler).isFalse();
+        softly.assertThat(vorhanden).hasValueSatisfying(a -> softly.assertThat(a.getEmail())
+            .isEqualTo(EMAIL_VORHANDEN));
+        softly.assertThat(sequenzNachFehler).isEqualTo(sequenz);
+        softly.assertThat(angelegt).isPresent();
+    }
+
+    private static WalProperties properties(final Path verzeichnis) {
+        // kein fsync im Hintergrund waehrend eines Tests
+        return new WalProperties(verzeichnis, WalProperties.Durability.EVERY_WRITE, Duration.ofHours(1), null);
+    }
+
+    // weitere Eintraege an das erste Segment anfuegen
+    private static void schreiben(final Path verzeichnis, final int anzahl) {
+        final var wal = WriteAheadLog.oeffnen(properties(verzeichnis), 1L, eintrag -> { });
+        final var nummern = new ArrayList<Long>(anzahl);
+        for (int i = 0; i < anzahl; i++) {
+            nummern.add(wal.append(new LogEintrag.Create(angestellter(NACHNAME + i))));
+        }
+        wal.commit(nummern.get(anzahl - 1));
+        wal.close();
+    }
+
+    private static Angestellter angestellter(final String nachname) {
+        return angestellter(UUID.randomUUID(), nachname);
+    }
+
+    private static Angestellter angestellter(final UUID id, final String nachname) {
+        return Angestellter.builder()
+            .id(id)
+            .nachname(nachname)
+            .email(nachname.toLowerCase() + "@acme.de")
+            .build();
+    }
+}
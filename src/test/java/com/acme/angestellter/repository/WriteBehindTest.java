@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.repository;
+
+import com.acme.angestellter.entity.Angestellter;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.parallel.Execution;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.junit.jupiter.api.condition.JRE.JAVA_18;
+import static org.junit.jupiter.api.condition.JRE.JAVA_19;
+import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
+
+@Tag("unit")
+@Tag("repository_write_behind")
+@DisplayName("Write-Behind fuer Aktualisierungen testen")
+@Execution(CONCURRENT)
+@EnabledForJreRange(min = JAVA_18, max = JAVA_19)
+@ExtendWith(SoftAssertionsExtension.class)
+@SuppressWarnings("WriteTag")
+class WriteBehindTest {
+    private static final String ID = "00000000-0000-0000-0000-000000000001";
+    private static final String ID_2 = "00000000-0000-0000-0000-000000000002";
+    private static final String EMAIL_VORHANDEN = "alpha@acme.de";
+    private static final String EMAIL_NEU = "neu@acme.de";
+    private static final String NACHNAME_NEU = "Neu";
+    private static final int ANZAHL = 50;
+    private static final Duration INTERVALL = Duration.ofMillis(50);
+
+    @InjectSoftAssertions
+    private SoftAssertions softly;
+
+    @Test
+    @DisplayName("Mehrere Aktualisierungen eines Angestellten zusammenfassen und beim Stoppen schreiben")
+    void zusammenfassen(@TempDir final Path verzeichnis) throws InterruptedException {
+        // given
+        final var repo = new ZaehlendesRepository();
+        final var id = UUID.fromString(ID);
+        final var writeBehind = new WriteBehind(repo, new WriteBehindProperties(true, verzeichnis, null, null, null));
+        writeBehind.start();
+
+        // when
+        for (int i = 0; i < ANZAHL; i++) {
+            writeBehind.einreihen(aktualisiert(repo, id, NACHNAME_NEU + i));
+        }
+        final var vorgemerkt = writeBehind.findById(id);
+        final var gestoppt = new CountDownLatch(1);
+        writeBehind.stop(gestoppt::countDown);
+        gestoppt.await();
+        writeBehind.close();
+
+        // then
+        final var letzterNachname = NACHNAME_NEU + (ANZAHL - 1);
+        softly.assertThat(vorgemerkt).hasValueSatisfying(a -> softly.assertThat(a.getNachname())
+            .isEqualTo(letzterNachname));
+        softly.assertThat(repo.findById(id)).hasValueSatisfying(a -> softly.assertThat(a.getNachname())
+            .isEqualTo(letzterNachname));
+        softly.assertThat(repo.zeilen).hasValueLessThan(ANZAHL);
+        softly.assertThat(writeBehind.findById(id)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Nicht geschriebene Aktualisierungen nach einem Neustart aus dem Journal schreiben")
+    void journal(@TempDir final Path verzeichnis) {
+        // given
+        final var properties = new WriteBehindProperties(true, verzeichnis, null, INTERVALL, null);
+        final var id = UUID.fromString(ID);
+        // ohne Start, d.h. wie nach einem Absturz vor dem Schreiben
+        final var abgestuerzt = new WriteBehind(new ZaehlendesRepository(), properties);
+        abgestuerzt.einreihen(aktualisiert(new ZaehlendesRepository(), id, NACHNAME_NEU));
+        abgestuerzt.close();
+
+        // when
+        final var repo = new ZaehlendesRepository();
+        final var writeBehind = new WriteBehind(repo, properties);
+        final var vorgemerkt = writeBehind.findById(id);
+        writeBehind.start();
+        writeBehind.stop();
+        writeBehind.close();
+        final var neugestartet = new WriteBehind(repo, properties);
+        neugestartet.close();
+
+        // then
+        softly.assertThat(vorgemerkt).hasValueSatisfying(a -> softly.assertThat(a.getNachname())
+            .isEqualTo(NACHNAME_NEU));
+        softly.assertThat(repo.findById(id)).hasValueSatisfying(a -> softly.assertThat(a.getNachname())
+            .isEqualTo(NACHNAME_NEU));
+        softly.assertThat(neugestartet.findById(id)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Emailadressen vorgemerkter Angestellter sind reserviert")
+    void emailReserviert(@TempDir final Path verzeichnis) {
+        // given
+        final var repo = new ZaehlendesRepository();
+        final var id = UUID.fromString(ID);
+        final var id2 = UUID.fromString(ID_2);
+        // ohne Start, damit die Angestellten vorgemerkt bleiben
+        final var writeBehind = new WriteBehind(repo, new WriteBehindProperties(true, verzeichnis, null, null, null));
+
+        // when
+        final var erster = writeBehind.einreihen(mitEmail(repo, id, EMAIL_NEU));
+        final var andererReserviert = writeBehind.einreihen(mitEmail(repo, id2, EMAIL_NEU));
+        final var andererVorhanden = writeBehind.einreihen(mitEmail(repo, id2, EMAIL_VORHANDEN));
+        // mit der bisherigen Emailadresse aus dem Repository, so dass die neue wieder frei ist
+        final var ersterZurueck = writeBehind.einreihen(aktualisiert(repo, id, NACHNAME_NEU));
+        final var andererFrei = writeBehind.einreihen(mitEmail(repo, id2, EMAIL_NEU));
+        writeBehind.entfernen(id2);
+        final var ersterNachEntfernen = writeBehind.einreihen(mitEmail(repo, id, EMAIL_NEU));
+        writeBehind.close();
+
+        // then
+        softly.assertThat(erster).isTrue();
+        softly.assertThat(andererReserviert).isFalse();
+        softly.assertThat(andererVorhanden).isFalse();
+        softly.assertThat(ersterZurueck).isTrue();
+        softly.assertThat(andererFrei).isTrue();
+        softly.assertThat(ersterNachEntfernen).isTrue();
+        softly.assertThat(writeBehind.findById(id)).hasValueSatisfying(a -> softly.assertThat(a.getEmail())
+            .isEqualTo(EMAIL_NEU));
+    }
+
+    @Test
+    @DisplayName("Waehrend des Schreibens vorgemerkte Aktualisierung beim naechsten Schreiben schreiben")
+    void waehrendSchreiben(@TempDir final Path verzeichnis) throws InterruptedException {
+        // given
+        final var repo = new BlockierendesRepository();
+        final var id = UUID.fromString(ID);
+        final var writeBehind =
+            new WriteBehind(repo, new WriteBehindProperties(true, verzeichnis, null, INTERVALL, null));
+        writeBehind.start();
+        writeBehind.einreihen(aktualisiert(repo, id, NACHNAME_NEU));
+        repo.imSchreiben.await();
+
+        // when
+        final var neuer = mitEmail(repo, id, EMAIL_NEU);
+        neuer.setNachname(NACHNAME_NEU + 1);
+        final var vorgemerkt = writeBehind.einreihen(neuer);
+        repo.freigabe.countDown();
+        writeBehind.stop();
+        writeBehind.close();
+
+        // then
+        softly.assertThat(vorgemerkt).isTrue();
+        softly.assertThat(repo.findById(id)).hasValueSatisfying(a -> {
+            softly.assertThat(a.getNachname()).isEqualTo(NACHNAME_NEU + 1);
+            softly.assertThat(a.getEmail()).isEqualTo(EMAIL_NEU);
+        });
+        softly.assertThat(writeBehind.findById(id)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Kein neuer Angestellter mit einer reservierten Emailadresse")
+    void neuMitReservierterEmail(@TempDir final Path verzeichnis) {
+        // given
+        final var repo = new ZaehlendesRepository();
+        final var id = UUID.fromString(ID);
+        // ohne Start, damit der Angestellte vorgemerkt bleibt
+        final var writeBehind = new WriteBehind(repo, new WriteBehindProperties(true, verzeichnis, null, null, null));
+        writeBehind.einreihen(mitEmail(repo, id, EMAIL_NEU));
+        final var neu = mitEmail(repo, id, EMAIL_NEU);
+        neu.setId(null);
+
+        // when
+        final var angelegt = writeBehind.createIfEmailAbsent(neu);
+        final var mehrere = writeBehind.createAllIfEmailAbsent(List.of(neu));
+        writeBehind.close();
+
+        // then
+        softly.assertThat(angelegt).isEmpty();
+        softly.assertThat(mehrere).containsExactly(Optional.empty());
+        softly.assertThat(repo.isEmailExisting(EMAIL_NEU)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Ohne Verzeichnis fuer das Journal nicht starten")
+    void ohneVerzeichnis() {
+        // given
+        final var properties = new WriteBehindProperties(true, null, null, null, null);
+
+        // when
+        final var exception = catchThrowableOfType(
+            () -> new WriteBehind(new ZaehlendesRepository(), properties), IllegalStateException.class
+        );
+
+        // then
+        softly.assertThat(exception).isNotNull();
+    }
+
+    // eine Kopie aendern, damit die Testdaten unveraendert bleiben
+    private static Angestellter aktualisiert(final AngestellterRepository repo, final UUID id, final String nachname) {
+        final var angestellter = repo.findById(id).orElseThrow().kopie();
+        angestellter.setNachname(nachname);
+        return angestellter;
+    }
+
+    private static Angestellter mitEmail(final AngestellterRepository repo, final UUID id, final String email) {
+        final var angestellter = repo.findById(id).orElseThrow().kopie();
+        angestellter.setEmail(email);
+        return angestellter;
+    }
+
+    // blockiert beim ersten Schreiben, bis der Test die Freigabe erteilt
+    private static final class BlockierendesRepository extends AngestellterRepository {
+        private final CountDownLatch imSchreiben = new CountDownLatch(1);
+        private final CountDownLatch freigabe = new CountDownLatch(1);
+
+        @Override
+        public List<Boolean> updateAll(final List<Angestellter> angestellte) {
+            imSchreiben.countDown();
+            try {
+                freigabe.await();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return super.updateAll(angestellte);
+        }
+    }
+
+    private static final class ZaehlendesRepository extends AngestellterRepository {
+        private final AtomicInteger zeilen = new AtomicInteger();
+
+        @Override
+        public List<Boolean> updateAll(final List<Angestellter> angestellte) {
+            zeilen.addAndGet(angestellte.size());
+            return super.updateAll(angestellte);
+        }
+    }
+}
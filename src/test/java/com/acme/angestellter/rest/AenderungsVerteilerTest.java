@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.rest;
+
+import com.acme.angestellter.repository.AngestellterRepository;
+import com.acme.angestellter.service.AngestellterAenderungService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.lang.Nullable;
+import static com.acme.angestellter.rest.AenderungenProperties.Ueberlauf.TRENNEN;
+import static com.acme.angestellter.rest.AenderungenProperties.Ueberlauf.VERWERFEN;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.condition.JRE.JAVA_18;
+import static org.junit.jupiter.api.condition.JRE.JAVA_19;
+import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
+
+@Tag("unit")
+@Tag("rest_aenderungen")
+@DisplayName("Verteilen der Aenderungen testen")
+@Execution(CONCURRENT)
+@EnabledForJreRange(min = JAVA_18, max = JAVA_19)
+@ExtendWith(SoftAssertionsExtension.class)
+@SuppressWarnings("WriteTag")
+class AenderungsVerteilerTest {
+    private static final UUID ID_VORHANDEN = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final Pattern EVENT = Pattern.compile("id: (\\d+)\nevent: (\\w+)\n");
+
+    // Kapazitaet des Ringpuffers im Repository
+    private static final int KAPAZITAET = 1 << 16;
+
+    private final AngestellterRepository repo = new AngestellterRepository();
+    private final AngestellterAenderungService service = new AngestellterAenderungService(
+        new StaticListableBeanFactory(Map.of("repo", repo)).getBeanProvider(AngestellterRepository.class)
+    );
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private AenderungsVerteiler verteiler;
+
+    @InjectSoftAssertions
+    private SoftAssertions softly;
+
+    @AfterEach
+    void stop() {
+        if (verteiler != null) {
+            verteiler.stop();
+        }
+        repo.close();
+    }
+
+    @Nested
+    @DisplayName("Nachholen mit Last-Event-ID")
+    class Nachholen {
+        @Test
+        @DisplayName("Verpasste Aenderungen nachholen")
+        void nachholen() throws InterruptedException {
+            // given
+            final var stand = service.getSequenz();
+            starten(null);
+            aendern(3);
+            final var out = new ByteArrayOutputStream();
+
+            // when
+            final var abonnent = abonnieren(stand, out);
+            warten(() -> out.toString().contains("id: " + (stand + 3) + '\n'));
+            verteiler.stop();
+            abonnent.join(TIMEOUT);
+
+            // then
+            softly.assertThat(events(out)).containsExactly(
+                (stand + 1) + " update",
+                (stand + 2) + " update",
+                (stand + 3) + " update"
+            );
+        }
+
+        @Test
+        @DisplayName("Beim Nachholen dieselben Bytes wie beim Verteilen senden")
+        void nachholenAusRing() throws InterruptedException {
+            // given
+            final var stand = service.getSequenz();
+            starten(null);
+            final var live = new ByteArrayOutputStream();
+            final var erster = abonnieren(null, live);
+            warten(() -> registry.get("app.aenderungen.abonnenten").gauge().value() == 1);
+            aendern(3);
+            warten(() -> live.toString().contains("id: " + (stand + 3) + '\n'));
+            final var out = new ByteArrayOutputStream();
+
+            // when
+            final var zweiter = abonnieren(stand, out);
+            warten(() -> out.toString().contains("id: " + (stand + 3) + '\n'));
+            verteiler.stop();
+            erster.join(TIMEOUT);
+            zweiter.join(TIMEOUT);
+
+            // then
+            softly.assertThat(events(live)).hasSize(3);
+            softly.assertThat(out.toByteArray()).isEqualTo(live.toByteArray());
+        }
+
+        @Test
+        @DisplayName("Reset bei einer Last-Event-ID nach dem aktuellen Stand")
+        void resetNeuer() throws InterruptedException {
+            // given
+            final var stand = service.getSequenz();
+            starten(null);
+            final var out = new ByteArrayOutputStream();
+
+            // when
+            final var abonnent = abonnieren(stand + 10, out);
+            warten(() -> !out.toString().isEmpty());
+            verteiler.stop();
+            abonnent.join(TIMEOUT);
+
+            // then
+            softly.assertThat(events(out)).containsExactly(stand + " reset");
+            softly.assertThat(out.toString()).endsWith("data: {\"sequenz\":" + stand + "}\n\n");
+        }
+
+        @Test
+        @DisplayName("Reset, falls die verpassten Aenderungen nicht mehr vorhanden sind")
+        void resetNichtMehrVorhanden() throws InterruptedException {
+            // given
+            final var stand = service.getSequenz();
+            aendern(KAPAZITAET + 1);
+            starten(null);
+            final var out = new ByteArrayOutputStream();
+
+            // when
+            final var abonnent = abonnieren(stand, out);
+            warten(() -> !out.toString().isEmpty());
+            verteiler.stop();
+            abonnent.join(TIMEOUT);
+
+            // then
+            softly.assertThat(events(out)).containsExactly((stand + KAPAZITAET + 1) + " reset");
+        }
+    }
+
+    @Nested
+    @DisplayName("Ueberlauf beim Puffer eines langsamen Abonnenten")
+    class VollerPuffer {
+        @Test
+        @DisplayName("Neue Aenderungen verwerfen und danach Reset senden")
+        void verwerfen() throws InterruptedException {
+            // given
+            final var stand = service.getSequenz();
+            starten(new AenderungenProperties(1, VERWERFEN, null));
+            final var out = new LangsamerStream();
+            final var abonnent = abonnieren(null, out);
+            out.blockiert.await();
+
+            // when
+            aendern(3);
+            warten(() -> registry.get("app.aenderungen.verworfen").functionCounter().count() == 2);
+            out.freigabe.countDown();
+            warten(() -> out.toString().contains("id: " + (stand + 1) + '\n'));
+            aendern(1);
+            warten(() -> out.toString().contains("id: " + (stand + 4) + '\n'));
+            verteiler.stop();
+            abonnent.join(TIMEOUT);
+
+            // then
+            softly.assertThat(events(out)).containsExactly(
+                (stand + 1) + " update",
+                (stand + 3) + " reset",
+                (stand + 4) + " update"
+            );
+            softly.assertThat(registry.get("app.aenderungen.getrennt").functionCounter().count()).isZero();
+        }
+
+        @Test
+        @DisplayName("Langsamen Abonnenten trennen")
+        void trennen() throws InterruptedException {
+            // given
+            starten(new AenderungenProperties(1, TRENNEN, null));
+            final var out = new LangsamerStream();
+            final var abonnent = abonnieren(null, out);
+            out.blockiert.await();
+
+            // when
+            aendern(2);
+            warten(() -> registry.get("app.aenderungen.getrennt").functionCounter().count() == 1);
+            out.freigabe.countDown();
+            // ohne stop(): der Abonnent beendet den Stream selbst
+            final var beendet = abonnent.join(TIMEOUT);
+
+            // then
+            softly.assertThat(beendet).isTrue();
+            softly.assertThat(events(out)).isEmpty();
+            softly.assertThat(registry.get("app.aenderungen.abonnenten").gauge().value()).isZero();
+            softly.assertThat(registry.get("app.aenderungen.verworfen").functionCounter().count()).isZero();
+        }
+    }
+
+    private void starten(final @Nullable AenderungenProperties properties) {
+        verteiler = new AenderungsVerteiler(service, new ObjectMapper().findAndRegisterModules(), properties);
+        verteiler.bindTo(registry);
+        verteiler.start();
+    }
+
+    private void aendern(final int anzahl) {
+        final var angestellter = repo.findById(ID_VORHANDEN).orElseThrow();
+        for (int i = 0; i < anzahl; i++) {
+            angestellter.setHasNewsletter(!angestellter.isHasNewsletter());
+            repo.update(angestellter);
+        }
+    }
+
+    private Thread abonnieren(final @Nullable Long lastEventId, final ByteArrayOutputStream out) {
+        return Thread.ofVirtual().start(() -> {
+            try {
+                verteiler.senden(lastEventId, out);
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    private static void warten(final BooleanSupplier bedingung) throws InterruptedException {
+        final var ende = System.nanoTime() + TIMEOUT.toNanos();
+        while (!bedingung.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(ende);
+            Thread.sleep(10);
+        }
+    }
+
+    // "id typ" je Event in der gesendeten Reihenfolge
+    private static List<String> events(final ByteArrayOutputStream out) {
+        final var events = new ArrayList<String>();
+        final var matcher = EVENT.matcher(out.toString());
+        while (matcher.find()) {
+            events.add(matcher.group(1) + ' ' + matcher.group(2));
+        }
+        return events;
+    }
+
+    // blockiert beim ersten flush() nach dem Nachholen, bis der Test die Freigabe erteilt
+    private static final class LangsamerStream extends ByteArrayOutputStream {
+        private final CountDownLatch blockiert = new CountDownLatch(1);
+        private final CountDownLatch freigabe = new CountDownLatch(1);
+
+        @Override
+        public void flush() throws IOException {
+            blockiert.countDown();
+            try {
+                freigabe.await();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException(ex);
+            }
+        }
+    }
+}
@@ -75,6 +75,7 @@ class AngestellterGetRestTest {
 
     private static final String ID_PATH = "/{id}";
     private static final String NACHNAME_PARAM = "nachname";
+    private static final String EXPLAIN_HEADER = "X-Explain";
 
     private final String baseUrl;
     private final WebClient client;
@@ -159,6 +160,33 @@ class AngestellterGetRestTest {
             .forEach(nachnameTmp -> softly.assertThat(nachnameTmp).isEqualTo(nachname));
     }
 
+    @ParameterizedTest(name = "[{index}] Ausfuehrungsplan mit X-Explain: nachname={0}")
+    @ValueSource(strings = NACHNAME)
+    @DisplayName("Ausfuehrungsplan mit X-Explain")
+    @SuppressWarnings("DataFlowIssue")
+    void explain(final String nachname) {
+        // given
+        final var suchkriterien = Map.of(NACHNAME_PARAM, nachname);
+        final var angestellte = angestellterRepo.getAngestellte(suchkriterien).block();
+
+        // when
+        final var body = client
+            .get()
+            .uri(uriBuilder -> uriBuilder.queryParam(NACHNAME_PARAM, nachname).build())
+            .header(EXPLAIN_HEADER, "true")
+            .exchangeToMono(response -> response.bodyToMono(String.class))
+            .block();
+
+        // then
+        assertThat(body).isNotNull().isNotBlank();
+        final String zugriffspfad = JsonPath.read(body, "$.zugriffspfad");
+        softly.assertThat(zugriffspfad).isEqualTo("INDEX_SCAN(" + NACHNAME_PARAM + ')');
+        final Integer treffer = JsonPath.read(body, "$.treffer");
+        softly.assertThat(treffer).isEqualTo(angestellte._embedded().angestellte().size());
+        final Integer untersuchteZeilen = JsonPath.read(body, "$.untersuchteZeilen");
+        softly.assertThat(untersuchteZeilen).isGreaterThanOrEqualTo(treffer);
+    }
+
     @SuppressWarnings("OptionalGetWithoutIsPresent")
     @Nested
     @DisplayName("Suche anhand der ID")
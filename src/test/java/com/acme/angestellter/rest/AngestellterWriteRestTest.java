@@ -48,6 +48,7 @@ import org.springframework.web.service.invoker.HttpServiceProxyFactory;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Mono;
 import static com.acme.angestellter.dev.DevConfig.DEV;
+import static com.acme.angestellter.entity.FamilienstandType.LEDIG;
 import static com.acme.angestellter.entity.GeschlechtType.WEIBLICH;
 import static com.acme.angestellter.entity.InteresseType.LESEN;
 import static com.acme.angestellter.entity.InteresseType.REISEN;
@@ -68,8 +69,10 @@ import static org.junit.jupiter.api.condition.JRE.JAVA_19;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.NO_CONTENT;
+import static org.springframework.http.HttpStatus.OK;
 import static org.springframework.http.HttpStatus.UNPROCESSABLE_ENTITY;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
 import static org.springframework.web.reactive.function.client.ExchangeFilterFunctions.basicAuthentication;
 
 @Tag("integration")
@@ -105,7 +108,12 @@ class AngestellterWriteRestTest {
 
     private static final InteresseType ZU_LOESCHENDES_INTERESSE = LESEN;
 
+    private static final String EMAIL_VORHANDEN = "alpha@acme.de";
+    private static final String NEUE_EMAIL_BATCH = "email.batch@test.de";
+    private static final String NEUE_EMAIL_NDJSON = "email.ndjson@test.de";
+
     private static final String ID_PATH = "/{id}";
+    private static final String BATCH_PATH = "/batch";
 
     private final WebClient client;
     private final AngestellterRepository angestellterRepo;
@@ -244,6 +252,91 @@ class AngestellterWriteRestTest {
         }
     }
 
+    @Nested
+    @DisplayName("Erzeugen mehrerer Angestellter")
+    class ErzeugenBatch {
+        @ParameterizedTest(name = "[{index}] Neuanlegen mit einem JSON-Array: email={0}, vorhanden={1}")
+        @CsvSource(NEUE_EMAIL_BATCH + "," + EMAIL_VORHANDEN)
+        @DisplayName("Neuanlegen mit einem JSON-Array und einem Ergebnis je Eintrag")
+        void createBatch(final String email, final String emailVorhanden) {
+            // given
+            final var angestellte = Arrays.asList(
+                neuerAngestellter(NEUER_NACHNAME, email),
+                neuerAngestellter(NEUER_NACHNAME, email),
+                neuerAngestellter(NEUER_NACHNAME_INVALID, "invalid." + email),
+                neuerAngestellter(NEUER_NACHNAME, emailVorhanden),
+                null
+            );
+
+            // when
+            final var ergebnisse = client
+                .post()
+                .uri(BATCH_PATH)
+                .contentType(APPLICATION_JSON)
+                .bodyValue(angestellte)
+                .exchangeToMono(response -> {
+                    assertThat(response.statusCode()).isEqualTo(OK);
+                    return response.bodyToMono(BatchErgebnisModel[].class);
+                })
+                .block();
+
+            // then
+            assertThat(ergebnisse).isNotNull().hasSameSizeAs(angestellte);
+            softly.assertThat(ergebnisse)
+                .extracting(BatchErgebnisModel::index)
+                .containsExactly(0, 1, 2, 3, 4);
+            softly.assertThat(ergebnisse)
+                .extracting(BatchErgebnisModel::status)
+                .containsExactly(
+                    CREATED.value(),
+                    UNPROCESSABLE_ENTITY.value(),
+                    UNPROCESSABLE_ENTITY.value(),
+                    UNPROCESSABLE_ENTITY.value(),
+                    UNPROCESSABLE_ENTITY.value()
+                );
+            softly.assertThat(ergebnisse[0].id()).isNotNull();
+            softly.assertThat(ergebnisse[1].detail()).contains(email);
+            softly.assertThat(ergebnisse[2].detail()).startsWith("nachname");
+            softly.assertThat(ergebnisse[3].detail()).contains(emailVorhanden);
+            softly.assertThat(ergebnisse[4].detail()).isNotBlank();
+        }
+
+        @ParameterizedTest(name = "[{index}] Neuanlegen mit NDJSON: email={0}")
+        @ValueSource(strings = NEUE_EMAIL_NDJSON)
+        @DisplayName("Neuanlegen mit NDJSON und einer Zeile mit null")
+        void createBatchNdjson(final String email) {
+            // given
+            final var body = """
+                {"nachname": "%s", "email": "%s", "adresse": {"plz": "%s", "ort": "%s"}}
+                null
+                {"nachname": "%s", "email": "%s", "adresse": {"plz": "%s", "ort": "%s"}}
+                """.formatted(
+                    NEUER_NACHNAME, email, NEUE_PLZ, NEUER_ORT,
+                    NEUER_NACHNAME, email, NEUE_PLZ, NEUER_ORT
+                );
+
+            // when
+            final var ergebnisse = client
+                .post()
+                .uri(BATCH_PATH)
+                .contentType(APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchangeToMono(response -> {
+                    assertThat(response.statusCode()).isEqualTo(OK);
+                    return response.bodyToMono(BatchErgebnisModel[].class);
+                })
+                .block();
+
+            // then
+            assertThat(ergebnisse).isNotNull().hasSize(3);
+            softly.assertThat(ergebnisse)
+                .extracting(BatchErgebnisModel::status)
+                .containsExactly(CREATED.value(), UNPROCESSABLE_ENTITY.value(), UNPROCESSABLE_ENTITY.value());
+            softly.assertThat(ergebnisse[0].id()).isNotNull();
+            softly.assertThat(ergebnisse[2].detail()).contains(email);
+        }
+    }
+
     @Nested
     @DisplayName("Aendern")
     class Aendern {
@@ -336,4 +429,15 @@ class AngestellterWriteRestTest {
             assertThat(statusCode).isEqualTo(NO_CONTENT);
         }
     }
+
+    private static AngestellterDTO neuerAngestellter(final String nachname, final String email) {
+        return new AngestellterDTO(
+            nachname,
+            email,
+            LocalDate.parse(NEUES_GEBURTSDATUM),
+            WEIBLICH,
+            LEDIG,
+            new AdresseDTO(NEUE_PLZ, NEUER_ORT)
+        );
+    }
 }
@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.service;
+
+import com.acme.angestellter.entity.Adresse;
+import com.acme.angestellter.entity.Angestellter;
+import com.acme.angestellter.repository.AngestellterRepository;
+import com.acme.angestellter.repository.WriteBehind;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+import static com.acme.angestellter.service.AngestellterImportService.BLOCK;
+import static com.acme.angestellter.service.AngestellterImportService.PUFFER;
+import static com.acme.angestellter.service.ImportStatus.Zustand.ABGEBROCHEN;
+import static com.acme.angestellter.service.ImportStatus.Zustand.ABGESCHLOSSEN;
+import static com.acme.angestellter.service.ImportStatus.Zustand.ANGELEGT;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Spliterator.ORDERED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.condition.JRE.JAVA_18;
+import static org.junit.jupiter.api.condition.JRE.JAVA_19;
+import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
+
+@Tag("unit")
+@Tag("service_import")
+@DisplayName("Anwendungskern fuer den Import testen")
+@Execution(CONCURRENT)
+@EnabledForJreRange(min = JAVA_18, max = JAVA_19)
+@ExtendWith(SoftAssertionsExtension.class)
+@SuppressWarnings({"WriteTag", "MagicNumber"})
+class AngestellterImportServiceTest {
+    // mehr Datensaetze als in beide Warteschlangen und einen Block passen
+    private static final long ANZAHL = 3L * PUFFER + BLOCK + 1;
+    private static final String NACHNAME = "Import";
+    private static final String NACHNAME_INVALID = "?!$";
+    private static final String EMAIL_VORHANDEN = "alpha@acme.de";
+    private static final String PLZ = "12345";
+    private static final String ORT = "Importort";
+
+    private final AngestellterRepository repo = new AngestellterRepository();
+
+    @SuppressWarnings("resource")
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private final AngestellterImportService service =
+        new AngestellterImportService(repo, new WriteBehind(repo, null), validator);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectSoftAssertions
+    private SoftAssertions softly;
+
+    @Test
+    @DisplayName("Grossen Stream importieren und dabei hoechstens die Puffer fuellen")
+    void importieren() {
+        // given
+        final var status = service.anlegen();
+        final var maxUnterwegs = new AtomicLong();
+        final var angestellte = LongStream.rangeClosed(1, ANZAHL).mapToObj(nr -> {
+            final var verarbeitet = status.getAngelegt() + status.getUngueltig() + status.getVorhanden();
+            maxUnterwegs.accumulateAndGet(nr - 1 - verarbeitet, Math::max);
+            return angestellter(NACHNAME, "import" + nr + "@test.de");
+        });
+
+        // when
+        final var ergebnis = service.importieren(status.getId(), angestellte).orElseThrow();
+
+        // then
+        softly.assertThat(ergebnis).isSameAs(status);
+        softly.assertThat(ergebnis.getZustand()).isEqualTo(ABGESCHLOSSEN);
+        softly.assertThat(ergebnis.getGelesen()).isEqualTo(ANZAHL);
+        softly.assertThat(ergebnis.getAngelegt()).isEqualTo(ANZAHL);
+        softly.assertThat(ergebnis.getUngueltig()).isZero();
+        softly.assertThat(ergebnis.getVorhanden()).isZero();
+        softly.assertThat(ergebnis.getFehler()).isEmpty();
+        softly.assertThat(ergebnis.getEnde()).isNotNull();
+        // je Warteschlange, je Pruefer und im Block zum Speichern
+        final var maxPuffer = 2L * PUFFER + Runtime.getRuntime().availableProcessors() + BLOCK;
+        softly.assertThat(maxUnterwegs.get()).isLessThanOrEqualTo(maxPuffer);
+        softly.assertThat(service.findById(ergebnis.getId())).containsSame(ergebnis);
+    }
+
+    @Test
+    @DisplayName("Status vor dem Uebertragen der Datensaetze abfragen und Import nur einmal starten")
+    void anlegen() {
+        // given
+        final var status = service.anlegen();
+        final var zustandAngelegt = status.getZustand();
+        final var gefunden = service.findById(status.getId());
+        final var unbekannt = UUID.randomUUID();
+
+        // when
+        final var ergebnis = service.importieren(status.getId(), Stream.of(angestellter(NACHNAME, "anlegen@test.de")));
+
+        // then
+        softly.assertThat(zustandAngelegt).isEqualTo(ANGELEGT);
+        softly.assertThat(gefunden).containsSame(status);
+        softly.assertThat(ergebnis).containsSame(status);
+        softly.assertThat(status.getAngelegt()).isOne();
+        softly.assertThatThrownBy(() -> service.importieren(status.getId(), Stream.empty()))
+            .isInstanceOf(ImportStartedException.class);
+        softly.assertThat(service.importieren(unbekannt, Stream.empty())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Import nach einem Fehler beim Lesen abbrechen")
+    void abbrechen() {
+        // given
+        final var fehlerhaft = 2L * PUFFER + 1;
+        final var angestellte = LongStream.rangeClosed(1, ANZAHL).mapToObj(nr -> {
+            if (nr == fehlerhaft) {
+                throw new UncheckedIOException(new IOException("Syntaxfehler"));
+            }
+            return angestellter(NACHNAME, "abbruch" + nr + "@test.de");
+        });
+
+        // when
+        final var status = importieren(angestellte);
+
+        // then
+        softly.assertThat(status.getZustand()).isEqualTo(ABGEBROCHEN);
+        softly.assertThat(status.getDetail()).startsWith("Datensatz " + fehlerhaft + ":").contains("Syntaxfehler");
+        // die vorher gelesenen Datensaetze werden noch gespeichert
+        softly.assertThat(status.getGelesen()).isEqualTo(fehlerhaft - 1);
+        softly.assertThat(status.getAngelegt()).isEqualTo(fehlerhaft - 1);
+        softly.assertThat(repo.isEmailExisting("abbruch" + (fehlerhaft - 1) + "@test.de")).isTrue();
+        softly.assertThat(repo.isEmailExisting("abbruch" + (fehlerhaft + 1) + "@test.de")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Doppelte, vorhandene und ungueltige Datensaetze zaehlen")
+    void aussortieren() {
+        // given
+        final long eindeutig = 2L * BLOCK;
+        final long vorhanden = 10L;
+        final long ungueltig = 5L;
+        // jede Emailadresse zweimal, so dass die Duplikate teils im selben Block und teils spaeter erkannt werden
+        final var doppelt = LongStream.rangeClosed(1, 2 * eindeutig)
+            .mapToObj(nr -> angestellter(NACHNAME, "doppelt" + (nr + 1) / 2 + "@test.de"));
+        final var angestellte = Stream.of(
+                doppelt,
+                Stream.generate(() -> angestellter(NACHNAME, EMAIL_VORHANDEN)).limit(vorhanden),
+                Stream.generate(() -> angestellter(NACHNAME_INVALID, "ungueltig@test.de")).limit(ungueltig)
+            )
+            .flatMap(stream -> stream);
+
+        // when
+        final var status = importieren(angestellte);
+
+        // then
+        softly.assertThat(status.getZustand()).isEqualTo(ABGESCHLOSSEN);
+        softly.assertThat(status.getGelesen()).isEqualTo(2 * eindeutig + vorhanden + ungueltig);
+        softly.assertThat(status.getAngelegt()).isEqualTo(eindeutig);
+        softly.assertThat(status.getVorhanden()).isEqualTo(eindeutig + vorhanden);
+        softly.assertThat(status.getUngueltig()).isEqualTo(ungueltig);
+        // nur die ersten Fehlermeldungen
+        softly.assertThat(status.getFehler()).hasSize(100);
+        softly.assertThat(repo.isEmailExisting("ungueltig@test.de")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Mit gzip komprimiertes NDJSON importieren")
+    void gzip() throws IOException {
+        // given
+        final var anzahl = PUFFER + 1L;
+        final var gzip = gzip(anzahl);
+
+        // when
+        final var status = importieren(ndjson(new GZIPInputStream(new ByteArrayInputStream(gzip))));
+
+        // then
+        softly.assertThat(status.getZustand()).isEqualTo(ABGESCHLOSSEN);
+        softly.assertThat(status.getGelesen()).isEqualTo(anzahl);
+        softly.assertThat(status.getAngelegt()).isEqualTo(anzahl);
+    }
+
+    @Test
+    @DisplayName("Import bei abgeschnittenem gzip abbrechen")
+    void gzipAbgeschnitten() throws IOException {
+        // given
+        final var anzahl = PUFFER + 1L;
+        final var gzip = gzip(anzahl);
+        final var abgeschnitten = Arrays.copyOf(gzip, gzip.length / 2);
+
+        // when
+        final var status = importieren(ndjson(new GZIPInputStream(new ByteArrayInputStream(abgeschnitten))));
+
+        // then
+        softly.assertThat(status.getZustand()).isEqualTo(ABGEBROCHEN);
+        softly.assertThat(status.getDetail()).isNotNull();
+        softly.assertThat(status.getGelesen()).isPositive().isLessThan(anzahl);
+        softly.assertThat(status.getAngelegt()).isEqualTo(status.getGelesen());
+    }
+
+    private ImportStatus importieren(final Stream<Angestellter> angestellte) {
+        return service.importieren(service.anlegen().getId(), angestellte).orElseThrow();
+    }
+
+    private static Angestellter angestellter(final String nachname, final String email) {
+        final var adresse = Adresse.builder()
+            .plz(PLZ)
+            .ort(ORT)
+            .build();
+        return Angestellter.builder()
+            .nachname(nachname)
+            .email(email)
+            .adresse(adresse)
+            .build();
+    }
+
+    // je Zeile ein Angestellter im JSON-Format
+    private byte[] gzip(final long anzahl) throws IOException {
+        final var bytes = new ByteArrayOutputStream();
+        try (var out = new GZIPOutputStream(bytes)) {
+            for (long nr = 1; nr <= anzahl; nr++) {
+                final var zeile = Map.of("nachname", NACHNAME, "email", "gzip" + nr + "@test.de");
+                out.write(objectMapper.writeValueAsBytes(zeile));
+                out.write('\n');
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    // wie beim Import ueber die REST-Schnittstelle mit dem Streaming-Parser von Jackson
+    private Stream<Angestellter> ndjson(final InputStream in) throws IOException {
+        final var zeilen = objectMapper.readerFor(Map.class).<Map<String, String>>readValues(in);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(zeilen, ORDERED), false)
+            .map(zeile -> angestellter(zeile.get("nachname"), zeile.get("email")));
+    }
+}
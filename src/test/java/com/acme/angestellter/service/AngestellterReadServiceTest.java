@@ -17,10 +17,16 @@
 package com.acme.angestellter.service;
 
 import com.acme.angestellter.entity.Angestellter;
+import com.acme.angestellter.repository.AngestellterPersistenz;
 import com.acme.angestellter.repository.AngestellterRepository;
+import com.acme.angestellter.repository.WriteBehind;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import org.assertj.core.api.SoftAssertions;
 import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
 import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
@@ -33,6 +39,7 @@ import org.junit.jupiter.api.condition.EnabledForJreRange;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.catchThrowableOfType;
@@ -51,13 +58,19 @@ class AngestellterReadServiceTest {
     private static final String ID_VORHANDEN = "00000000-0000-0000-0000-000000000001";
     private static final String ID_NICHT_VORHANDEN = "ffffffff-ffff-ffff-ffff-ffffffffffff";
     private static final String NACHNAME = "Alpha";
+    private static final String TEIL_NACHNAME = "lph";
 
-    private final AngestellterRepository repo = new AngestellterRepository();
-    private final AngestellterReadService service = new AngestellterReadService(repo);
+    private final AngestellterPersistenz repo = repository();
+    private final AngestellterReadService service = new AngestellterReadService(repo, new WriteBehind(repo, null));
 
     @InjectSoftAssertions
     private SoftAssertions softly;
 
+    // in Unterklassen fuer eine andere Implementierung des Repositorys ueberschreiben
+    AngestellterPersistenz repository() {
+        return new AngestellterRepository();
+    }
+
     @Test
     @DisplayName("Immer erfolgreich")
     void immerErfolgreich() {
@@ -82,6 +95,57 @@ class AngestellterReadServiceTest {
         assertThat(angestellte).isNotEmpty();
     }
 
+    @ParameterizedTest(name = "[{index}] Suche mit Keyset-Pagination: size={0}")
+    @ValueSource(ints = 2)
+    @DisplayName("Suche mit Keyset-Pagination")
+    void findSeite(final int size) {
+        // given
+        final var ersteSeite = service.findSeite(Collections.emptyMap(), null, null, size);
+        final var cursor = ersteSeite.inhalt().get(size - 1).getId();
+
+        // when
+        final var naechsteSeite = service.findSeite(Collections.emptyMap(), cursor, null, size);
+
+        // then
+        softly.assertThat(ersteSeite.inhalt()).hasSize(size);
+        softly.assertThat(ersteSeite.hatVorherige()).isFalse();
+        softly.assertThat(ersteSeite.hatNaechste()).isTrue();
+        softly.assertThat(naechsteSeite.hatVorherige()).isTrue();
+        naechsteSeite.inhalt()
+            .stream()
+            .map(Angestellter::getId)
+            .forEach(id -> softly.assertThat(id).isGreaterThan(cursor));
+    }
+
+    @ParameterizedTest(name = "[{index}] Suche mit Keyset-Pagination und Suchkriterien: nachname={0}")
+    @ValueSource(strings = NACHNAME)
+    @DisplayName("Suche mit Keyset-Pagination und Suchkriterien")
+    void findSeiteSuchkriterien(final String nachname) {
+        // given
+        final var params = Map.of("nachname", nachname);
+        final var erwartet = service.find(params)
+            .stream()
+            .map(Angestellter::getId)
+            .sorted()
+            .toList();
+
+        // when
+        final var ids = new ArrayList<UUID>();
+        var seite = service.findSeite(params, null, null, 1);
+        ids.addAll(seite.inhalt().stream().map(Angestellter::getId).toList());
+        while (seite.hatNaechste()) {
+            seite = service.findSeite(params, ids.get(ids.size() - 1), null, 1);
+            ids.addAll(seite.inhalt().stream().map(Angestellter::getId).toList());
+        }
+        final var zurueck = service.findSeite(params, null, ids.get(ids.size() - 1), 1);
+
+        // then
+        softly.assertThat(erwartet).hasSizeGreaterThan(1);
+        softly.assertThat(ids).isEqualTo(erwartet);
+        softly.assertThat(zurueck.inhalt()).extracting(Angestellter::getId).containsExactly(ids.get(ids.size() - 2));
+        softly.assertThat(zurueck.hatNaechste()).isTrue();
+    }
+
     @ParameterizedTest(name = "[{index}] Suche mit vorhandenem Nachnamen: nachname={0}")
     @ValueSource(strings = NACHNAME)
     @DisplayName("Suche mit vorhandenem Nachnamen")
@@ -99,6 +163,101 @@ class AngestellterReadServiceTest {
             .forEach(nachnameTmp -> softly.assertThat(nachnameTmp).isEqualTo(nachname));
     }
 
+    @ParameterizedTest(name = "[{index}] Suche mit einem Teil des Nachnamens: nachname={0}")
+    @ValueSource(strings = {TEIL_NACHNAME, "A", "ph"})
+    @DisplayName("Suche mit einem Teil des Nachnamens")
+    void findByTeilNachname(final String nachname) {
+        // given
+        final var params = Map.of("nachname", nachname);
+
+        // when
+        final var angestellte = service.find(params);
+
+        // then
+        softly.assertThat(angestellte).isNotEmpty();
+        angestellte.stream()
+            .map(Angestellter::getNachname)
+            .forEach(nachnameTmp -> softly.assertThat(nachnameTmp).contains(nachname));
+    }
+
+    @ParameterizedTest(name = "[{index}] Suche mit Praefix der Postleitzahl und Ort: plz={0}, ort={1}")
+    @CsvSource({"1,Augsburg", "11111,AUGSBURG"})
+    @DisplayName("Suche mit Praefix der Postleitzahl und Ort")
+    void findByPlzOrt(final String plz, final String ort) {
+        // given
+        final var params = Map.of("plz", plz, "ort", ort);
+
+        // when
+        final var angestellte = service.find(params);
+
+        // then
+        softly.assertThat(angestellte).isNotEmpty();
+        angestellte.stream()
+            .map(Angestellter::getAdresse)
+            .forEach(adresse -> {
+                softly.assertThat(adresse.getPlz()).startsWith(plz);
+                softly.assertThat(adresse.getOrt()).isEqualToIgnoringCase(ort);
+            });
+    }
+
+    @ParameterizedTest(name = "[{index}] Suche mit Bereich fuer das Geburtsdatum: von={0}, bis={1}")
+    @CsvSource("2022-01-02,2022-01-04")
+    @DisplayName("Suche mit Bereich fuer das Geburtsdatum")
+    void findByGeburtsdatumBereich(final String von, final String bis) {
+        // given
+        final var params = Map.of("geburtsdatumVon", von, "geburtsdatumBis", bis);
+
+        // when
+        final var angestellte = service.find(params);
+
+        // then
+        softly.assertThat(angestellte).isNotEmpty();
+        angestellte.stream()
+            .map(Angestellter::getGeburtsdatum)
+            .forEach(geburtsdatum -> softly.assertThat(geburtsdatum)
+                .isBetween(LocalDate.parse(von), LocalDate.parse(bis)));
+    }
+
+    @ParameterizedTest(name = "[{index}] Nachnamen zu einem Praefix nach Haeufigkeit: prefix={0}, limit={1}")
+    @CsvSource({"A,10", "A,1", "Al,5"})
+    @DisplayName("Nachnamen zu einem Praefix nach Haeufigkeit")
+    void findNachnamenByPrefix(final String prefix, final int limit) {
+        // given
+        final var haeufigkeiten = service.find(Collections.emptyMap())
+            .stream()
+            .map(Angestellter::getNachname)
+            .filter(nachname -> nachname.startsWith(prefix))
+            .collect(Collectors.groupingBy(nachname -> nachname, Collectors.counting()));
+
+        // when
+        final var nachnamen = List.copyOf(service.findNachnamenByPrefix(prefix, limit));
+
+        // then
+        final var anzahl = Math.min(limit, haeufigkeiten.size());
+        softly.assertThat(nachnamen).hasSize(anzahl).doesNotHaveDuplicates();
+        softly.assertThat(haeufigkeiten.keySet()).containsAll(nachnamen);
+        for (int i = 1; i < nachnamen.size(); i++) {
+            softly.assertThat(haeufigkeiten.get(nachnamen.get(i - 1)))
+                .isGreaterThanOrEqualTo(haeufigkeiten.get(nachnamen.get(i)));
+        }
+        // der haeufigste Nachname steht immer am Anfang
+        final var maximum = Collections.max(haeufigkeiten.values());
+        softly.assertThat(haeufigkeiten.get(nachnamen.get(0))).isEqualTo(maximum);
+    }
+
+    @ParameterizedTest(name = "[{index}] Keine Nachnamen zu einem Praefix: prefix={0}")
+    @ValueSource(strings = "Xyz")
+    @DisplayName("Keine Nachnamen zu einem Praefix")
+    void findNachnamenByPrefixNichtVorhanden(final String prefix) {
+        // when
+        final var notFoundException = catchThrowableOfType(
+            () -> service.findNachnamenByPrefix(prefix, 10), NotFoundException.class
+        );
+
+        // then
+        assertThat(notFoundException).isNotNull();
+    }
+
     @Nested
     @DisplayName("Suche anhand der ID")
     class FindById {
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2022 - present Juergen Zimmermann, Hochschule Karlsruhe
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.acme.angestellter.service;
+
+import com.acme.angestellter.repository.AngestellterCache;
+import com.acme.angestellter.repository.AngestellterPersistenz;
+import com.acme.angestellter.repository.JdbcAngestellterRepository;
+import com.acme.angestellter.repository.JdbcProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+
+@Tag("jdbc")
+@DisplayName("Anwendungskern fuer Schreiben mit JDBC testen")
+@SuppressWarnings("WriteTag")
+class AngestellterWriteServiceJdbcTest extends AngestellterWriteServiceTest {
+    // ohne Initialisierung, weil repository() beim Initialisieren der Oberklasse aufgerufen wird
+    private HikariDataSource dataSource;
+
+    // H2 im Hauptspeicher statt PostgreSQL, je Testobjekt eine eigene DB mit eigenem Cache
+    @Override
+    AngestellterPersistenz repository() {
+        final var url = "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE";
+        final var properties = new JdbcProperties(url, "sa", "", 2, null);
+        dataSource = new HikariDataSource(properties.hikariConfig());
+        return new JdbcAngestellterRepository(dataSource, properties, null, new AngestellterCache(null));
+    }
+
+    // mit der letzten Verbindung wird auch die DB im Hauptspeicher geloescht
+    @AfterEach
+    void close() {
+        dataSource.close();
+    }
+}
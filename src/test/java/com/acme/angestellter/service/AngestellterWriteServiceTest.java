@@ -18,7 +18,9 @@ package com.acme.angestellter.service;
 
 import com.acme.angestellter.entity.Adresse;
 import com.acme.angestellter.entity.Angestellter;
+import com.acme.angestellter.repository.AngestellterPersistenz;
 import com.acme.angestellter.repository.AngestellterRepository;
+import com.acme.angestellter.repository.WriteBehind;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import org.assertj.core.api.SoftAssertions;
@@ -35,6 +37,7 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import java.net.URL;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Currency;
 import java.util.List;
 import java.util.UUID;
@@ -43,6 +46,7 @@ import static com.acme.angestellter.entity.GeschlechtType.WEIBLICH;
 import static com.acme.angestellter.entity.InteresseType.LESEN;
 import static com.acme.angestellter.entity.InteresseType.REISEN;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.catchThrowableOfType;
 import static org.junit.jupiter.api.condition.JRE.JAVA_18;
 import static org.junit.jupiter.api.condition.JRE.JAVA_19;
 import static org.junit.jupiter.api.parallel.ExecutionMode.CONCURRENT;
@@ -64,20 +68,30 @@ class AngestellterWriteServiceTest {
     private static final String CURRENCY_CODE = "EUR";
     private static final String NEUE_HOMEPAGE = "https://test.de";
 
+    private static final String EMAIL_VORHANDEN = "alpha@acme.de";
+    private static final String EMAIL_BATCH = "batch@test.de";
+    private static final String NACHNAME_INVALID = "?!$";
+
     private static final String ID_UPDATE = "00000000-0000-0000-0000-000000000030";
     private static final String ID_DELETE = "00000000-0000-0000-0000-000000000050";
 
-    private final AngestellterRepository repo = new AngestellterRepository();
+    private final AngestellterPersistenz repo = repository();
 
     // https://hibernate.org/validator/documentation/getting-started
     @SuppressWarnings("resource")
     private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
 
-    private final AngestellterWriteService service = new AngestellterWriteService(repo, validator);
+    private final AngestellterWriteService service =
+        new AngestellterWriteService(repo, new WriteBehind(repo, null), validator);
 
     @InjectSoftAssertions
     private SoftAssertions softly;
 
+    // in Unterklassen fuer eine andere Implementierung des Repositorys ueberschreiben
+    AngestellterPersistenz repository() {
+        return new AngestellterRepository();
+    }
+
     @ParameterizedTest(name = "[{index}] Neuanlegen eines neuen Angestellten: nachname={0}, email={1}")
     @CsvSource(
         NEUER_NACHNAME + "," + NEUE_EMAIL + "," + NEUES_GEBURTSDATUM + "," + CURRENCY_CODE + "," + NEUE_HOMEPAGE +
@@ -120,6 +134,68 @@ class AngestellterWriteServiceTest {
         softly.assertThat(angestellterCreated.getAdresse().getPlz()).isEqualTo(NEUE_PLZ);
     }
 
+    @ParameterizedTest(name = "[{index}] Neuanlegen mit existierender Email: email={0}")
+    @ValueSource(strings = EMAIL_VORHANDEN)
+    @DisplayName("Neuanlegen mit existierender Email")
+    void createEmailExists(final String email) {
+        // given
+        final var adresse = Adresse
+            .builder()
+            .plz(NEUE_PLZ)
+            .ort(NEUER_ORT)
+            .build();
+        final var angestellter = Angestellter
+            .builder()
+            .id(null)
+            .nachname(NEUER_NACHNAME)
+            .email(email)
+            .geburtsdatum(LocalDate.parse(NEUES_GEBURTSDATUM))
+            .geschlecht(WEIBLICH)
+            .familienstand(LEDIG)
+            .adresse(adresse)
+            .build();
+
+        // when
+        final var emailExistsException = catchThrowableOfType(
+            () -> service.create(angestellter), EmailExistsException.class
+        );
+
+        // then
+        assertThat(emailExistsException).isNotNull();
+        assertThat(emailExistsException.getEmail()).isEqualTo(email);
+        assertThat(angestellter.getId()).isNull();
+    }
+
+    @ParameterizedTest(name = "[{index}] Neuanlegen mehrerer Angestellter: email={0}, vorhanden={1}")
+    @CsvSource(EMAIL_BATCH + "," + EMAIL_VORHANDEN)
+    @DisplayName("Neuanlegen mehrerer Angestellter mit einem Ergebnis je Eintrag")
+    void createAll(final String email, final String emailVorhanden) {
+        // given
+        final var angestellte = Arrays.asList(
+            neuerAngestellter(NEUER_NACHNAME, email),
+            // dieselbe Emailadresse im selben Batch
+            neuerAngestellter(NEUER_NACHNAME, email),
+            neuerAngestellter(NACHNAME_INVALID, "invalid." + email),
+            neuerAngestellter(NEUER_NACHNAME, emailVorhanden),
+            null
+        );
+
+        // when
+        final var ergebnisse = service.createAll(angestellte);
+
+        // then
+        assertThat(ergebnisse).hasSize(angestellte.size());
+        softly.assertThat(ergebnisse.get(0)).isInstanceOfSatisfying(BatchErgebnis.Angelegt.class,
+            angelegt -> softly.assertThat(angelegt.angestellter().getId()).isNotNull());
+        softly.assertThat(ergebnisse.get(1)).isEqualTo(new BatchErgebnis.EmailExistiert(email));
+        softly.assertThat(ergebnisse.get(2)).isInstanceOfSatisfying(BatchErgebnis.ConstraintsVerletzt.class,
+            verletzt -> softly.assertThat(verletzt.violations()).isNotEmpty());
+        softly.assertThat(ergebnisse.get(3)).isEqualTo(new BatchErgebnis.EmailExistiert(emailVorhanden));
+        softly.assertThat(ergebnisse.get(4)).isInstanceOf(BatchErgebnis.KeinAngestellter.class);
+        softly.assertThat(repo.isEmailExisting(email)).isTrue();
+        softly.assertThat(repo.isEmailExisting("invalid." + email)).isFalse();
+    }
+
     @ParameterizedTest(name = "[{index}] Aendern eines vorhandenen Angestellten: id={0}")
     @ValueSource(strings = ID_UPDATE)
     @DisplayName("Aendern eines vorhandenen Angestellten")
@@ -140,6 +216,30 @@ class AngestellterWriteServiceTest {
         assertThat(result.get().getNachname()).isEqualTo(NEUER_NACHNAME);
     }
 
+    @ParameterizedTest(name = "[{index}] Aendern mit existierender Email: id={0}, email={1}")
+    @CsvSource(ID_UPDATE + "," + EMAIL_VORHANDEN)
+    @DisplayName("Aendern mit existierender Email laesst den gespeicherten Angestellten unveraendert")
+    void updateEmailExists(final String id, final String email) {
+        // given
+        final var angestellterId = UUID.fromString(id);
+        final var angestellter = repo.findById(angestellterId).orElseThrow();
+        final var bisherigeEmail = angestellter.getEmail();
+        angestellter.setEmail(email);
+        angestellter.setNachname(NEUER_NACHNAME);
+
+        // when
+        final var emailExistsException = catchThrowableOfType(
+            () -> service.update(angestellter, angestellterId), EmailExistsException.class
+        );
+
+        // then
+        assertThat(emailExistsException).isNotNull();
+        final var gespeichert = repo.findById(angestellterId).orElseThrow();
+        softly.assertThat(gespeichert.getEmail()).isEqualTo(bisherigeEmail);
+        softly.assertThat(gespeichert.getNachname()).isNotEqualTo(NEUER_NACHNAME);
+        softly.assertThat(repo.isEmailExisting(bisherigeEmail)).isTrue();
+    }
+
     @ParameterizedTest(name = "[{index}] Loeschen eines vorhandenen Angestellten: id={0}")
     @ValueSource(strings = ID_DELETE)
     @DisplayName("Loeschen eines vorhandenen Angestellten")
@@ -154,4 +254,22 @@ class AngestellterWriteServiceTest {
         final var result = repo.findById(angestellterId);
         assertThat(result).isEmpty();
     }
+
+    private static Angestellter neuerAngestellter(final String nachname, final String email) {
+        final var adresse = Adresse
+            .builder()
+            .plz(NEUE_PLZ)
+            .ort(NEUER_ORT)
+            .build();
+        return Angestellter
+            .builder()
+            .id(null)
+            .nachname(nachname)
+            .email(email)
+            .geburtsdatum(LocalDate.parse(NEUES_GEBURTSDATUM))
+            .geschlecht(WEIBLICH)
+            .familienstand(LEDIG)
+            .adresse(adresse)
+            .build();
+    }
 }